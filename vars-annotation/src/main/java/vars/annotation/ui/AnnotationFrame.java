@@ -48,16 +48,18 @@ import javax.swing.SwingUtilities;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.google.inject.Injector;
 import org.bushe.swing.event.EventBus;
 import org.bushe.swing.event.annotation.AnnotationProcessor;
 import org.bushe.swing.event.annotation.EventSubscriber;
 import org.mbari.vcr.IVCR;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import vars.DAO;
 import vars.annotation.Observation;
 import vars.annotation.VideoArchive;
+import vars.annotation.VideoArchiveDAO;
 import vars.annotation.VideoFrame;
 import vars.annotation.ui.buttons.RedoButton;
 import vars.annotation.ui.buttons.UndoButton;
@@ -80,6 +82,7 @@ import vars.annotation.ui.table.ObservationTable;
 import vars.annotation.ui.table.ObservationTableModel;
 import vars.annotation.ui.video.VideoControlPanel;
 import vars.annotation.ui.videoset.VideoArchiveSetEditorButton;
+import vars.jpa.ConnectionPools;
 
 /**
  *
@@ -319,6 +322,8 @@ public class AnnotationFrame extends JFrame implements UIEventSubscriber {
             toolBar.add(new StatusLabelForPerson(toolBelt));
             toolBar.add(new StatusLabelForVcr());
             toolBar.add(new StatusLabelForVideoArchive(toolBelt));
+            Injector injector = (Injector) Lookup.getGuiceInjectorDispatcher().getValueObject();
+            toolBar.add(new StatusLabelForConnectionPool(injector.getInstance(ConnectionPools.class)));
 
             // Map in undo and redo keys
             InputMap inputMap = toolBar.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
@@ -385,23 +390,34 @@ public class AnnotationFrame extends JFrame implements UIEventSubscriber {
         if (event.getEventSource() != observationTable) {
             final JTable table = observationTable.getJTable();
             final ObservationTableModel model = (ObservationTableModel) table.getModel();
+            Collection<Observation> changedObservations = new ArrayList<Observation>();
+            Collection<Observation> newObservations = new ArrayList<Observation>();
             for (Observation observation : event.get()) {
                 int row = model.getObservationRow(observation);
                 if ((row > -1) && (row < model.getRowCount())) {
-                    observationTable.updateObservation(observation);
+                    changedObservations.add(observation);
                 }
                 else {
-                    observationTable.addObservation(observation);
-                    // Scroll to a new observation
-                    row = model.getObservationRow(observation);
-
-                    if ((row > -1) && (row < model.getRowCount())) {
-                        Rectangle cellRect = table.getCellRect(row, 0, true);
-                        Rectangle visibleRect = table.getVisibleRect();
-                        if (cellRect.intersects(visibleRect)) {
-                            table.scrollRectToVisible(cellRect);
-                            //observationTable.scrollToVisible(row, 0);
-                        }
+                    newObservations.add(observation);
+                }
+            }
+
+            if (!changedObservations.isEmpty()) {
+                observationTable.updateObservations(changedObservations);
+            }
+
+            if (!newObservations.isEmpty()) {
+                observationTable.addObservations(newObservations);
+
+                // Scroll to the last new observation
+                Observation observation = Iterables.getLast(newObservations);
+                int row = model.getObservationRow(observation);
+                if ((row > -1) && (row < model.getRowCount())) {
+                    Rectangle cellRect = table.getCellRect(row, 0, true);
+                    Rectangle visibleRect = table.getVisibleRect();
+                    if (cellRect.intersects(visibleRect)) {
+                        table.scrollRectToVisible(cellRect);
+                        //observationTable.scrollToVisible(row, 0);
                     }
                 }
             }
@@ -414,10 +430,7 @@ public class AnnotationFrame extends JFrame implements UIEventSubscriber {
         final ObservationTable observationTable = getTable();
         if (event.getEventSource() != observationTable) {
             final JTable table = observationTable.getJTable();
-            final ObservationTableModel model = (ObservationTableModel) table.getModel();
-            for (Observation observation : event.get()) {
-                observationTable.removeObservation(observation);
-            }
+            observationTable.removeObservations(event.get());
         }
     }
 
@@ -448,15 +461,26 @@ public class AnnotationFrame extends JFrame implements UIEventSubscriber {
         // DAOTX - Needed to deal with lazy loading
         if (newVideoArchive != null) {
             Collection<Observation> observations = new ArrayList<Observation>();
-            DAO dao = toolBelt.getAnnotationDAOFactory().newDAO();
-            dao.startTransaction();
-            VideoArchive videoArchive = dao.find(event.get());
-            final Collection<VideoFrame> videoFrames = videoArchive.getVideoFrames();
-            for (VideoFrame videoFrame : videoFrames) {
-                observations.addAll(videoFrame.getObservations());
+
+            // The graph may already have been loaded in the background
+            VideoArchive videoArchive = toolBelt.getVideoArchivePrefetcher().take(newVideoArchive);
+            if (videoArchive != null) {
+                for (VideoFrame videoFrame : videoArchive.getVideoFrames()) {
+                    observations.addAll(videoFrame.getObservations());
+                }
+            }
+            else {
+                VideoArchiveDAO dao = toolBelt.getAnnotationDAOFactory().newVideoArchiveDAO();
+                dao.startTransaction();
+                videoArchive = dao.findWithGraph(newVideoArchive);
+                if (videoArchive != null) {
+                    for (VideoFrame videoFrame : videoArchive.getVideoFrames()) {
+                        observations.addAll(videoFrame.getObservations());
+                    }
+                }
+                dao.endTransaction();
+                dao.close();
             }
-            dao.endTransaction();
-            dao.close();
             final Rectangle rect = table.getVisibleRect();
             respondTo(new ObservationsChangedEvent(null, observations));
 
@@ -50,6 +50,7 @@ import vars.annotation.ui.eventbus.VideoFramesChangedEvent;
 import vars.annotation.ui.video.DoNothingVideoControlService;
 import vars.shared.ui.video.VideoControlService;
 import vars.annotation.ui.video.VideoControlServiceFactory;
+import vars.annotation.ui.video.imagecapture.ImageWritePipeline;
 import vars.shared.preferences.PreferenceUpdater;
 import vars.shared.preferences.PreferencesService;
 
@@ -76,7 +77,7 @@ public class AnnotationFrameController implements PreferenceUpdater, UIEventSubs
     public AnnotationFrameController(final AnnotationFrame annotationFrame, final ToolBelt toolBelt) {
         this.annotationFrame = annotationFrame;
         this.toolBelt = toolBelt;
-        this.commandQueue = new CommandQueue(toolBelt);
+        this.commandQueue = new CommandQueue(toolBelt, VARSProperties.getCommandBatchWindow());
         AnnotationProcessor.process(this); // Make EventBus Aware
         
         // Make sure we save the last observations we annotated to the database
@@ -92,6 +93,10 @@ public class AnnotationFrameController implements PreferenceUpdater, UIEventSubs
                 Collection<Observation> observations = (Collection<Observation>) Lookup.getSelectedObservationsDispatcher().getValueObject();
                 toolBelt.getPersistenceController().updateAndValidate(new ArrayList<Observation>(observations));
 
+                // Finish writing any framegrabs before their URLs are remapped
+                log.info("Waiting for framegrabs to be written to disk");
+                ImageWritePipeline.getInstance().shutdown(30000L);
+
                 // Update current videoarchive's image URLs on shutdown
                 VideoArchive videoArchive = (VideoArchive) Lookup.getVideoArchiveDispatcher().getValueObject();
                 if (videoArchive != null) {
@@ -76,8 +76,9 @@ public class MiscTabsPanel extends javax.swing.JPanel {
      */
     public SearchableTreePanel getTreePanel() {
         if (treePanel == null) {
-            treePanel = new ConceptTreePanel(toolbelt.getKnowledgebaseDAOFactory());
-            final TreeModel treeModel = new ConceptTreeModel(toolbelt.getKnowledgebaseDAOFactory());
+            treePanel = new ConceptTreePanel(toolbelt.getConceptHierarchyIndex());
+            final TreeModel treeModel = new ConceptTreeModel(toolbelt.getKnowledgebaseDAOFactory(),
+                    toolbelt.getConceptHierarchyIndex());
             final JTree tree = new JXTree(treeModel);
             tree.setCellRenderer(new ConceptTreeCellRenderer());
             treeDecorator = new JTreeDragAndDropDecorator(tree);
@@ -140,18 +140,23 @@ public class PersistenceController {
      *  then the original string is returned.
      */
     public String getValidatedConceptName(String conceptName) {
-        final ConceptDAO conceptDAO = toolBelt.getKnowledgebaseDAOFactory().newConceptDAO();
-        conceptDAO.startTransaction();
-        Concept concept = conceptDAO.findByName(conceptName);
-        String validatedName;
-        if (concept == null) {
-            log.warn("Unable to find '" + conceptName + "' in the knowledgebase.");
-            validatedName = conceptName;
-        }
-        else {
-            validatedName = concept.getPrimaryConceptName().getName();
+        String validatedName = toolBelt.getConceptNameIndex().findPrimaryName(conceptName);
+        if (validatedName == null) {
+
+            // Not in the index. It may have been added since the index was loaded
+            final ConceptDAO conceptDAO = toolBelt.getKnowledgebaseDAOFactory().newConceptDAO();
+            conceptDAO.startTransaction();
+            Concept concept = conceptDAO.findByName(conceptName);
+            if (concept == null) {
+                log.warn("Unable to find '" + conceptName + "' in the knowledgebase.");
+                validatedName = conceptName;
+            }
+            else {
+                validatedName = concept.getPrimaryConceptName().getName();
+            }
+            conceptDAO.endTransaction();
+            conceptDAO.close();
         }
-        conceptDAO.endTransaction();
 
         return validatedName;
     }
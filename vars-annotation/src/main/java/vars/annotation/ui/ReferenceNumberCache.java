@@ -0,0 +1,172 @@
+package vars.annotation.ui;
+
+import com.google.inject.Inject;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import org.bushe.swing.event.annotation.AnnotationProcessor;
+import org.bushe.swing.event.annotation.EventSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.AnnotationPersistenceService;
+import vars.annotation.Observation;
+import vars.annotation.VideoArchive;
+import vars.annotation.VideoArchiveSet;
+import vars.annotation.VideoFrame;
+import vars.annotation.ui.eventbus.ObservationsAddedEvent;
+import vars.annotation.ui.eventbus.ObservationsChangedEvent;
+import vars.annotation.ui.eventbus.ObservationsRemovedEvent;
+import vars.knowledgebase.Concept;
+
+/**
+ * Caches the 'identity-reference' values used in the most recently used
+ * VideoArchiveSets so that the reference number pickers don't have to query the
+ * database every time they're opened. The entries for a VideoArchiveSet are
+ * dropped whenever Observations in it are added, changed or removed.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ReferenceNumberCache {
+
+    /** The number of VideoArchiveSets whose reference numbers are kept */
+    private static final int MAX_VIDEO_ARCHIVE_SETS = 8;
+
+    /** Cache key used for the reference numbers of all concepts */
+    private static final String ALL_CONCEPTS = "";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** VideoArchiveSet primary key -> concept name -> reference numbers */
+    private final Map<Object, Map<String, Collection<String>>> cache = new LinkedHashMap<Object,
+        Map<String, Collection<String>>>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Map<String, Collection<String>>> eldest) {
+            return size() > MAX_VIDEO_ARCHIVE_SETS;
+        }
+    };
+    private final AnnotationPersistenceService annotationPersistenceService;
+
+    /** Incremented on every invalidation so that a lookup that overlaps one isn't cached */
+    private long generation;
+
+    /**
+     * Constructs ...
+     *
+     * @param annotationPersistenceService
+     */
+    @Inject
+    public ReferenceNumberCache(AnnotationPersistenceService annotationPersistenceService) {
+        this.annotationPersistenceService = annotationPersistenceService;
+        AnnotationProcessor.process(this);
+    }
+
+    /**
+     * Find the reference numbers used in a VideoArchiveSet.
+     *
+     * @param videoArchiveSet The VideoArchiveSet to search
+     * @param concept Only reference numbers used by this concept or its descendants are
+     *      returned. If null the reference numbers for all concepts are returned.
+     * @return A sorted, read-only collection of the reference numbers
+     */
+    public Collection<String> findReferenceNumbers(VideoArchiveSet videoArchiveSet, Concept concept) {
+        if (videoArchiveSet == null) {
+            return Collections.emptyList();
+        }
+
+        final Object key = videoArchiveSet.getPrimaryKey();
+        final String conceptKey = (concept == null) ? ALL_CONCEPTS : concept.getPrimaryConceptName().getName();
+        long startGeneration;
+        synchronized (this) {
+            if (key != null) {
+                Map<String, Collection<String>> entries = cache.get(key);
+                Collection<String> referenceNumbers = (entries == null) ? null : entries.get(conceptKey);
+                if (referenceNumbers != null) {
+                    return referenceNumbers;
+                }
+            }
+
+            startGeneration = generation;
+        }
+
+        Collection<String> referenceNumbers = Collections.unmodifiableCollection(
+            new TreeSet<String>(annotationPersistenceService.findAllReferenceNumbers(videoArchiveSet, concept)));
+
+        synchronized (this) {
+            if ((key != null) && (startGeneration == generation)) {
+                Map<String, Collection<String>> entries = cache.get(key);
+                if (entries == null) {
+                    entries = new HashMap<String, Collection<String>>();
+                    cache.put(key, entries);
+                }
+
+                entries.put(conceptKey, referenceNumbers);
+            }
+        }
+
+        return referenceNumbers;
+    }
+
+    /**
+     * Drop all cached reference numbers
+     */
+    public synchronized void clear() {
+        cache.clear();
+        generation++;
+    }
+
+    /**
+     * Drop the cached reference numbers for a VideoArchiveSet
+     */
+    public synchronized void invalidate(VideoArchiveSet videoArchiveSet) {
+        Object key = (videoArchiveSet == null) ? null : videoArchiveSet.getPrimaryKey();
+        if (key != null) {
+            cache.remove(key);
+        }
+
+        generation++;
+    }
+
+    private void invalidate(Collection<Observation> observations) {
+        for (Observation observation : observations) {
+            VideoArchiveSet videoArchiveSet = null;
+            try {
+                VideoFrame videoFrame = observation.getVideoFrame();
+                VideoArchive videoArchive = (videoFrame == null) ? null : videoFrame.getVideoArchive();
+                videoArchiveSet = (videoArchive == null) ? null : videoArchive.getVideoArchiveSet();
+            }
+            catch (RuntimeException e) {
+                // Detached objects may not be able to load their parents. Handled below
+            }
+
+            if ((videoArchiveSet == null) || (videoArchiveSet.getPrimaryKey() == null)) {
+
+                // Can't tell where the observation lives. Play it safe
+                log.debug("Unable to find the VideoArchiveSet of " + observation + ". Clearing all reference numbers");
+                clear();
+
+                return;
+            }
+
+            invalidate(videoArchiveSet);
+        }
+    }
+
+    @EventSubscriber(eventClass = ObservationsAddedEvent.class)
+    public void respondTo(ObservationsAddedEvent event) {
+        invalidate(event.get());
+    }
+
+    @EventSubscriber(eventClass = ObservationsChangedEvent.class)
+    public void respondTo(ObservationsChangedEvent event) {
+        invalidate(event.get());
+    }
+
+    @EventSubscriber(eventClass = ObservationsRemovedEvent.class)
+    public void respondTo(ObservationsRemovedEvent event) {
+        invalidate(event.get());
+    }
+}
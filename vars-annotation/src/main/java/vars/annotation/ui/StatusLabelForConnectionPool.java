@@ -0,0 +1,84 @@
+/*
+ * @(#)StatusLabelForConnectionPool.java   2026.10.18 at 09:12:44 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.annotation.ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.util.List;
+import javax.swing.Timer;
+import vars.jpa.ConnectionPoolStatistics;
+import vars.jpa.ConnectionPools;
+
+/**
+ * <p>Shows how many database connections are in use. Red means that someone
+ * is waiting on a connection, a request timed out, or a connection appears to
+ * have been leaked. Hovering over the label shows the details for each pool.</p>
+ *
+ * @author  <a href="http://www.mbari.org">MBARI</a>
+ */
+public class StatusLabelForConnectionPool extends StatusLabel {
+
+    private static final int REFRESH_MILLIS = 2000;
+    private final ConnectionPools connectionPools;
+    private final Timer timer;
+
+    /**
+     * Constructor
+     *
+     * @param connectionPools The shared pools to monitor
+     */
+    public StatusLabelForConnectionPool(ConnectionPools connectionPools) {
+        super();
+        this.connectionPools = connectionPools;
+        update();
+        timer = new Timer(REFRESH_MILLIS, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                update();
+            }
+        });
+        timer.start();
+    }
+
+    /**
+     * Refreshes the label from the current pool statistics
+     */
+    public void update() {
+        List<ConnectionPoolStatistics> statistics = connectionPools.getStatistics();
+        int active = 0;
+        int maxSize = 0;
+        boolean ok = true;
+        StringBuilder sb = new StringBuilder("<html>");
+        for (ConnectionPoolStatistics s : statistics) {
+            active += s.getActive();
+            maxSize += s.getMaxSize();
+            ok = ok && (s.getWaiting() == 0) && (s.getTimeouts() == 0) && (s.getLeaksDetected() == 0);
+            sb.append(s.getName()).append("<br/>&nbsp;&nbsp;in use: ").append(s.getActive()).append("/")
+                .append(s.getMaxSize()).append(", idle: ").append(s.getIdle()).append(", waiting: ")
+                .append(s.getWaiting()).append(", timeouts: ").append(s.getTimeouts()).append(", leaks: ")
+                .append(s.getLeaksDetected()).append("<br/>");
+        }
+
+        sb.append("</html>");
+        setText("DB: " + active + "/" + maxSize);
+        setToolTipText(sb.toString());
+        setOk(ok);
+    }
+
+    public void propertyChange(PropertyChangeEvent evt) {
+        update();
+    }
+}
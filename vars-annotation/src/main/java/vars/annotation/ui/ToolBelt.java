@@ -23,9 +23,12 @@ import vars.annotation.AnnotationDAOFactory;
 import vars.annotation.AnnotationFactory;
 import vars.annotation.AnnotationPersistenceService;
 import vars.annotation.ui.commandqueue.impl.LocalVideoArchiveCache;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.KnowledgebaseDAOFactory;
 import vars.knowledgebase.KnowledgebaseFactory;
 import vars.knowledgebase.KnowledgebasePersistenceService;
+import vars.knowledgebase.LinkTemplateIndex;
 import vars.query.QueryPersistenceService;
 
 /**
@@ -35,6 +38,8 @@ public class ToolBelt extends vars.ToolBelt {
 
     private final PersistenceController persistenceController;
     private final LocalVideoArchiveCache localVideoArchiveCache;
+    private final ReferenceNumberCache referenceNumberCache;
+    private final VideoArchivePrefetcher videoArchivePrefetcher;
 
     /**
      * Constructs ...
@@ -50,6 +55,8 @@ public class ToolBelt extends vars.ToolBelt {
      * @param knowledgebasePersistenceService
      * @param queryPersistenceService
      * @param localVideoArchiveCache
+     * @param referenceNumberCache
+     * @param videoArchivePrefetcher
      */
     @Inject
     public ToolBelt(AnnotationDAOFactory annotationDAOFactory,
@@ -62,12 +69,20 @@ public class ToolBelt extends vars.ToolBelt {
                     AnnotationPersistenceService annotationPersistenceService,
                     KnowledgebasePersistenceService knowledgebasePersistenceService,
                     QueryPersistenceService queryPersistenceService,
-                    LocalVideoArchiveCache localVideoArchiveCache) {
+                    ConceptNameIndex conceptNameIndex,
+                    ConceptHierarchyIndex conceptHierarchyIndex,
+                    LinkTemplateIndex linkTemplateIndex,
+                    LocalVideoArchiveCache localVideoArchiveCache,
+                    ReferenceNumberCache referenceNumberCache,
+                    VideoArchivePrefetcher videoArchivePrefetcher) {
         super(annotationDAOFactory, annotationFactory, knowledgebaseDAOFactory, knowledgebaseFactory, miscDAOFactory,
               miscFactory, persistenceCacheProvider, annotationPersistenceService, knowledgebasePersistenceService,
-              queryPersistenceService);
+              queryPersistenceService, conceptNameIndex, conceptHierarchyIndex,
+              linkTemplateIndex);
         this.persistenceController = new PersistenceController(this);
         this.localVideoArchiveCache = localVideoArchiveCache;
+        this.referenceNumberCache = referenceNumberCache;
+        this.videoArchivePrefetcher = videoArchivePrefetcher;
     }
 
     /**
@@ -80,4 +95,18 @@ public class ToolBelt extends vars.ToolBelt {
     public LocalVideoArchiveCache getLocalVideoArchiveCache() {
         return localVideoArchiveCache;
     }
+
+    /**
+     * @return The cache of 'identity-reference' values used by the reference number pickers
+     */
+    public ReferenceNumberCache getReferenceNumberCache() {
+        return referenceNumberCache;
+    }
+
+    /**
+     * @return Loads the VideoArchives adjacent to the open one in the background
+     */
+    public VideoArchivePrefetcher getVideoArchivePrefetcher() {
+        return videoArchivePrefetcher;
+    }
 }
@@ -76,6 +76,23 @@ public class VARSProperties {
      * If true, the recordedDate column is shown in the Annotation App
      */
     private static boolean showRecordedDateInTable;
+
+    /**
+     * Milliseconds that the CommandQueue waits to group rapid-fire commands into
+     * a single transaction. 0 turns batching off.
+     */
+    private static long commandBatchWindow;
+
+    /**
+     * Number of threads used to encode and write framegrabs in the background
+     */
+    private static int imageWriteThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Maximum number of framegrabs waiting to be written before a frame capture
+     * has to wait for earlier ones to finish.
+     */
+    private static int imageWriteQueueSize = 8;
     
 
     static {
@@ -170,6 +187,39 @@ public class VARSProperties {
             log.info("Expected 'true' or 'false' for 'show.recorded.date in " + Lookup.RESOURCE_BUNDLE +
                     " but found " + getProperty("show.recorded.date"));
         }
+
+        try {
+            commandBatchWindow = Long.parseLong(getProperty("command.batch.window").trim());
+        }
+        catch (MissingResourceException e) {
+            log.info("The property 'command.batch.window' was not found in " + Lookup.RESOURCE_BUNDLE);
+        }
+        catch (Exception e) {
+            log.info("Expected a number of milliseconds for 'command.batch.window' in " + Lookup.RESOURCE_BUNDLE +
+                    " but found " + getProperty("command.batch.window"));
+        }
+
+        try {
+            imageWriteThreads = Math.max(1, Integer.parseInt(getProperty("image.write.threads").trim()));
+        }
+        catch (MissingResourceException e) {
+            log.info("The property 'image.write.threads' was not found in " + Lookup.RESOURCE_BUNDLE);
+        }
+        catch (Exception e) {
+            log.info("Expected a number of threads for 'image.write.threads' in " + Lookup.RESOURCE_BUNDLE +
+                    " but found " + getProperty("image.write.threads"));
+        }
+
+        try {
+            imageWriteQueueSize = Math.max(1, Integer.parseInt(getProperty("image.write.queue.size").trim()));
+        }
+        catch (MissingResourceException e) {
+            log.info("The property 'image.write.queue.size' was not found in " + Lookup.RESOURCE_BUNDLE);
+        }
+        catch (Exception e) {
+            log.info("Expected a number of framegrabs for 'image.write.queue.size' in " + Lookup.RESOURCE_BUNDLE +
+                    " but found " + getProperty("image.write.queue.size"));
+        }
         
     }
     
@@ -278,6 +328,28 @@ public class VARSProperties {
     public static boolean getShowRecordedDateInTable() {
         return showRecordedDateInTable;
     }
+
+    /**
+     * @return The number of milliseconds the CommandQueue waits to group commands
+     *  into a single transaction. 0 means batching is turned off.
+     */
+    public static long getCommandBatchWindow() {
+        return commandBatchWindow;
+    }
+
+    /**
+     * @return The number of threads used to write framegrabs in the background
+     */
+    public static int getImageWriteThreads() {
+        return imageWriteThreads;
+    }
+
+    /**
+     * @return The maximum number of framegrabs that can be waiting to be written
+     */
+    public static int getImageWriteQueueSize() {
+        return imageWriteQueueSize;
+    }
     
     
 }
@@ -0,0 +1,338 @@
+package vars.annotation.ui;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.bushe.swing.event.annotation.AnnotationProcessor;
+import org.bushe.swing.event.annotation.EventSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.AnnotationDAOFactory;
+import vars.annotation.Observation;
+import vars.annotation.VideoArchive;
+import vars.annotation.VideoArchiveDAO;
+import vars.annotation.VideoArchiveSet;
+import vars.annotation.VideoFrame;
+import vars.annotation.ui.eventbus.ObservationsAddedEvent;
+import vars.annotation.ui.eventbus.ObservationsChangedEvent;
+import vars.annotation.ui.eventbus.ObservationsRemovedEvent;
+import vars.annotation.ui.eventbus.VideoArchiveChangedEvent;
+import vars.annotation.ui.eventbus.VideoFramesChangedEvent;
+
+/**
+ * Annotators usually work through the tapes of a dive in order. Whenever a
+ * VideoArchive is opened this loads, on a low-priority background thread, the full
+ * graph (VideoFrames, Observations and Associations) of the VideoArchives just
+ * before and after it in its VideoArchiveSet. The archives are ordered by name,
+ * which carries the tape sequence number (e.g. T0123-01, T0123-02). Opening one of
+ * those next then takes the prefetched graph with {@link #take(VideoArchive)}
+ * instead of waiting on the database.
+ *
+ * At most {@link #MAX_VIDEO_ARCHIVES} graphs are kept. A prefetched graph is
+ * dropped as soon as Observations or VideoFrames in it are added, changed or
+ * removed, and it's handed out only once. Events only cover the edits made in
+ * this application, so a graph older than {@link #DEFAULT_MAX_AGE} is never
+ * handed out; it may be missing changes made by other annotators.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+@Singleton
+public class VideoArchivePrefetcher {
+
+    /** The number of prefetched VideoArchive graphs that are kept */
+    public static final int MAX_VIDEO_ARCHIVES = 4;
+
+    /** Default age, in milliseconds, after which a prefetched graph is dropped. 2 minutes */
+    public static final long DEFAULT_MAX_AGE = 2 * 60 * 1000L;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** VideoArchive name -> prefetched graph */
+    private final Map<String, Entry> cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_VIDEO_ARCHIVES;
+        }
+    };
+    private final AnnotationDAOFactory annotationDAOFactory;
+    private final long maxAgeMillis;
+    private final ThreadPoolExecutor executor;
+
+    /** The name of the VideoArchive being loaded in the background, if any */
+    private String loading;
+
+    /** Set when the VideoArchive being loaded is invalidated so that the load isn't cached */
+    private boolean loadingInvalidated;
+
+    /**
+     * Constructs ...
+     *
+     * @param annotationDAOFactory
+     */
+    @Inject
+    public VideoArchivePrefetcher(AnnotationDAOFactory annotationDAOFactory) {
+        this(annotationDAOFactory, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param annotationDAOFactory
+     * @param maxAgeMillis Prefetched graphs older than this are dropped instead of
+     *      being handed out
+     */
+    public VideoArchivePrefetcher(AnnotationDAOFactory annotationDAOFactory, long maxAgeMillis) {
+        this.annotationDAOFactory = annotationDAOFactory;
+        this.maxAgeMillis = maxAgeMillis;
+
+        // One low priority thread. Only the most recent request matters so old ones are discarded
+        executor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(1),
+                                          new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "VideoArchivePrefetcher");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+
+                return thread;
+            }
+        }, new ThreadPoolExecutor.DiscardOldestPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        AnnotationProcessor.process(this);
+    }
+
+    /**
+     * Drop all prefetched VideoArchives
+     */
+    public synchronized void clear() {
+        cache.clear();
+        loadingInvalidated = true;
+    }
+
+    /**
+     * Drop a prefetched VideoArchive
+     *
+     * @param videoArchiveName The name of the VideoArchive
+     */
+    public synchronized void invalidate(String videoArchiveName) {
+        if (videoArchiveName != null) {
+            cache.remove(videoArchiveName);
+            if (videoArchiveName.equals(loading)) {
+                loadingInvalidated = true;
+            }
+        }
+    }
+
+    /**
+     * Start loading the VideoArchives on either side of the given one in the
+     * background. Returns immediately.
+     *
+     * @param videoArchive The VideoArchive that was just opened
+     */
+    public void prefetchNeighborsOf(final VideoArchive videoArchive) {
+        if ((videoArchive == null) || (videoArchive.getPrimaryKey() == null)) {
+            return;
+        }
+
+        executor.execute(new Runnable() {
+
+            public void run() {
+                try {
+                    prefetch(videoArchive);
+                }
+                catch (Exception e) {
+                    log.debug("Failed to prefetch the neighbors of " + videoArchive, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove and return the prefetched graph for a VideoArchive.
+     *
+     * @param videoArchive The VideoArchive being opened
+     * @return The prefetched VideoArchive, with all of its VideoFrames, Observations
+     *      and Associations loaded. <b>null</b> if it hasn't been prefetched or was
+     *      prefetched too long ago
+     */
+    public synchronized VideoArchive take(VideoArchive videoArchive) {
+        Entry entry = (videoArchive == null) ? null : cache.remove(videoArchive.getName());
+        if (entry == null) {
+            return null;
+        }
+
+        long age = System.currentTimeMillis() - entry.loaded;
+        if (age > maxAgeMillis) {
+            log.debug("Dropping VideoArchive '{}' that was prefetched {} ms ago", videoArchive.getName(), age);
+
+            return null;
+        }
+
+        log.debug("Using prefetched VideoArchive '{}'", videoArchive.getName());
+
+        return entry.videoArchive;
+    }
+
+    /**
+     * @return The number of prefetched VideoArchives being held
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private void prefetch(VideoArchive videoArchive) {
+        for (String name : findNeighborNames(videoArchive)) {
+            synchronized (this) {
+                Entry cached = cache.get(name);
+                if ((cached != null) && (System.currentTimeMillis() - cached.loaded <= maxAgeMillis)) {
+                    continue;
+                }
+
+                loading = name;
+                loadingInvalidated = false;
+            }
+
+            long start = System.currentTimeMillis();
+            VideoArchiveDAO dao = annotationDAOFactory.newVideoArchiveDAO();
+            VideoArchive graph = null;
+            try {
+                dao.startTransaction();
+                VideoArchive neighbor = dao.findByName(name);
+                graph = (neighbor == null) ? null : dao.findWithGraph(neighbor);
+                dao.endTransaction();
+            }
+            finally {
+                dao.close();
+            }
+
+            synchronized (this) {
+                if ((graph != null) && !loadingInvalidated) {
+                    cache.put(name, new Entry(graph, start));
+                    log.debug("Prefetched VideoArchive '{}' in {} ms", name, System.currentTimeMillis() - start);
+                }
+
+                loading = null;
+            }
+        }
+    }
+
+    /**
+     * @return The names of the VideoArchives before and after the given one in its
+     *      VideoArchiveSet. The next one comes first as it's the most likely to be
+     *      opened
+     */
+    private List<String> findNeighborNames(VideoArchive videoArchive) {
+        List<String> names = new ArrayList<String>();
+        VideoArchiveDAO dao = annotationDAOFactory.newVideoArchiveDAO();
+        try {
+            dao.startTransaction();
+            VideoArchive current = dao.findByPrimaryKey(videoArchive.getPrimaryKey());
+            VideoArchiveSet videoArchiveSet = (current == null) ? null : current.getVideoArchiveSet();
+            if (videoArchiveSet != null) {
+                for (VideoArchive va : videoArchiveSet.getVideoArchives()) {
+                    names.add(va.getName());
+                }
+            }
+
+            dao.endTransaction();
+        }
+        finally {
+            dao.close();
+        }
+
+        Collections.sort(names);
+        int i = names.indexOf(videoArchive.getName());
+        List<String> neighbors = new ArrayList<String>(2);
+        if (i >= 0) {
+            if (i + 1 < names.size()) {
+                neighbors.add(names.get(i + 1));
+            }
+
+            if (i > 0) {
+                neighbors.add(names.get(i - 1));
+            }
+        }
+
+        return neighbors;
+    }
+
+    private void invalidate(Collection<Observation> observations) {
+        List<VideoFrame> videoFrames = new ArrayList<VideoFrame>(observations.size());
+        for (Observation observation : observations) {
+            videoFrames.add(observation.getVideoFrame());
+        }
+
+        invalidateVideoFrames(videoFrames);
+    }
+
+    private void invalidateVideoFrames(Collection<VideoFrame> videoFrames) {
+        for (VideoFrame videoFrame : videoFrames) {
+            VideoArchive videoArchive = null;
+            try {
+                videoArchive = (videoFrame == null) ? null : videoFrame.getVideoArchive();
+            }
+            catch (RuntimeException e) {
+                // Detached objects may not be able to load their parents. Handled below
+            }
+
+            if (videoArchive == null) {
+
+                // Can't tell where it lives. Play it safe
+                clear();
+
+                return;
+            }
+
+            invalidate(videoArchive.getName());
+        }
+    }
+
+    @EventSubscriber(eventClass = ObservationsAddedEvent.class)
+    public void respondTo(ObservationsAddedEvent event) {
+        invalidate(event.get());
+    }
+
+    @EventSubscriber(eventClass = ObservationsChangedEvent.class)
+    public void respondTo(ObservationsChangedEvent event) {
+        invalidate(event.get());
+    }
+
+    @EventSubscriber(eventClass = ObservationsRemovedEvent.class)
+    public void respondTo(ObservationsRemovedEvent event) {
+        invalidate(event.get());
+    }
+
+    @EventSubscriber(eventClass = VideoArchiveChangedEvent.class)
+    public void respondTo(VideoArchiveChangedEvent event) {
+        prefetchNeighborsOf(event.get());
+    }
+
+    @EventSubscriber(eventClass = VideoFramesChangedEvent.class)
+    public void respondTo(VideoFramesChangedEvent event) {
+        invalidateVideoFrames(event.get());
+    }
+
+    /**
+     * A prefetched graph and when it was loaded
+     */
+    private static class Entry {
+
+        final long loaded;
+        final VideoArchive videoArchive;
+
+        Entry(VideoArchive videoArchive, long loaded) {
+            this.videoArchive = videoArchive;
+            this.loaded = loaded;
+        }
+    }
+}
@@ -94,7 +94,7 @@ public class AddOldRefNumPropWithDialogAction extends ActionAdapter {
         try {
             AnnotationPersistenceService service = toolBelt.getAnnotationPersistenceService();
             concept = service.findConceptByName(conceptName);
-            refNums = service.findAllReferenceNumbers(vas, concept);
+            refNums = toolBelt.getReferenceNumberCache().findReferenceNumbers(vas, concept);
         }
         catch (final Exception e) {
             log.error("Failed to lookup a concept in the knowledebase", e);
@@ -54,7 +54,7 @@ public class PNewRefNumButton extends PropButton implements IPopup {
     public PNewRefNumButton() {
         super();
         this.toolBelt = getToolBelt();
-        controller = new PNewRefNumButtonController(toolBelt.getAnnotationDAOFactory());
+        controller = new PNewRefNumButtonController(toolBelt.getReferenceNumberCache());
         setAction(new AddNewRefNumPropAction(toolBelt));
         initialize();
     }
@@ -4,9 +4,8 @@ import org.bushe.swing.event.annotation.AnnotationProcessor;
 import org.bushe.swing.event.annotation.EventSubscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import vars.annotation.AnnotationDAOFactory;
 import vars.annotation.VideoArchive;
-import vars.annotation.VideoArchiveDAO;
+import vars.annotation.ui.ReferenceNumberCache;
 import vars.annotation.ui.actions.AddNewRefNumPropAction;
 import vars.annotation.ui.eventbus.VideoArchiveChangedEvent;
 import vars.annotation.ui.eventbus.VideoArchiveSelectedEvent;
@@ -25,19 +24,21 @@ public class PNewRefNumButtonController {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    private AnnotationDAOFactory annotationDAOFactory;
+    private final ReferenceNumberCache referenceNumberCache;
 
-    public PNewRefNumButtonController(AnnotationDAOFactory annotationDAOFactory) {
-        this.annotationDAOFactory = annotationDAOFactory;
+    public PNewRefNumButtonController(ReferenceNumberCache referenceNumberCache) {
+        this.referenceNumberCache = referenceNumberCache;
         AnnotationProcessor.process(this); // Create EventBus Proxy
     }
 
     public Collection<Integer> listReferenceNumbers(VideoArchive videoArchive) {
-        VideoArchiveDAO videoArchiveDAO = annotationDAOFactory.newVideoArchiveDAO();
+        if (videoArchive == null) {
+            return new ArrayList<Integer>();
+        }
 
         // TODO 'identity-reference' should be pulled out and put into a properties file
-        final Collection<String> refNums = videoArchiveDAO.findAllLinkValues(videoArchive,
-                "identity-reference");
+        final Collection<String> refNums = referenceNumberCache.findReferenceNumbers(
+                videoArchive.getVideoArchiveSet(), null);
 
         // Returned as string convert to integers:
         final Collection<Integer> refInts = new ArrayList<Integer>(refNums.size());
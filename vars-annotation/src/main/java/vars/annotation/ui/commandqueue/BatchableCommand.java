@@ -0,0 +1,24 @@
+package vars.annotation.ui.commandqueue;
+
+import vars.annotation.ui.ToolBelt;
+
+/**
+ * A {@link Command} that can be applied as part of a {@link CommandBatch}. When the
+ * {@link CommandQueue} is running in batching mode, DO commands of this type that
+ * arrive close together are applied in a single transaction. Implementations
+ * should do their work using the batch's DAO, must NOT commit or close it, and
+ * should register any UI events with the batch instead of publishing them, so
+ * that the queue can publish them once for the whole batch.
+ *
+ * Undo is still done one command at a time using {@link Command#unapply(ToolBelt)}.
+ *
+ * @since 2026-10-18
+ */
+public interface BatchableCommand extends Command {
+
+    /**
+     * Apply/execute the command as part of a batch
+     */
+    void apply(ToolBelt toolBelt, CommandBatch batch);
+
+}
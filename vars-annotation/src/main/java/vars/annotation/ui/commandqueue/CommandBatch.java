@@ -0,0 +1,154 @@
+package vars.annotation.ui.commandqueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.AnnotationDAOFactory;
+import vars.annotation.Observation;
+import vars.annotation.VideoArchiveDAO;
+import vars.annotation.VideoFrame;
+
+/**
+ * A unit of work shared by several {@link BatchableCommand}s. The batch owns a
+ * single EntityManager and transaction. Commands apply their changes through
+ * {@link #getVideoArchiveDAO()} (or DAOs created with {@link #getEntityManager()})
+ * and the {@link CommandQueue} commits everything with one flush.
+ *
+ * @since 2026-10-18
+ */
+public class CommandBatch {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final List<Observation> addedObservations = new ArrayList<Observation>();
+    private final List<Runnable> afterCommitActions = new ArrayList<Runnable>();
+    private final Map<String, VideoFrame> newVideoFrames = new HashMap<String, VideoFrame>();
+    private final VideoArchiveDAO videoArchiveDAO;
+    private Observation selectedObservation;
+
+    /**
+     * Constructs a batch and starts its transaction
+     *
+     * @param daoFactory
+     */
+    public CommandBatch(AnnotationDAOFactory daoFactory) {
+        videoArchiveDAO = daoFactory.newVideoArchiveDAO();
+        videoArchiveDAO.startTransaction();
+    }
+
+    /**
+     * @return The DAO used by every command in the batch. It already has a
+     *      transaction running.
+     */
+    public VideoArchiveDAO getVideoArchiveDAO() {
+        return videoArchiveDAO;
+    }
+
+    /**
+     * @return The EntityManager shared by the batch. Use it to create any other DAOs
+     *      a command needs.
+     */
+    public EntityManager getEntityManager() {
+        return videoArchiveDAO.getEntityManager();
+    }
+
+    /**
+     * Register an observation that was created by a command. A single
+     * ObservationsAddedEvent is published for all of them after the batch commits.
+     */
+    public void addObservation(Observation observation) {
+        if (observation != null) {
+            addedObservations.add(observation);
+        }
+    }
+
+    /**
+     * Request that an observation be selected after the batch commits. If several
+     * commands ask, the last one wins.
+     */
+    public void selectObservation(Observation observation) {
+        selectedObservation = observation;
+    }
+
+    /**
+     * Register an action to run after a successful commit. For example, to grab
+     * primary keys that are assigned during the flush.
+     */
+    public void afterCommit(Runnable action) {
+        afterCommitActions.add(action);
+    }
+
+    /**
+     * Earlier commands in a batch may create VideoFrames that are not yet visible
+     * to JDBC lookups. Commands should check here before creating a new frame.
+     *
+     * @return A VideoFrame created earlier in this batch or null
+     */
+    public VideoFrame findNewVideoFrame(String videoArchiveName, String timecode) {
+        return newVideoFrames.get(videoArchiveName + "\t" + timecode);
+    }
+
+    /**
+     * Record a VideoFrame created in this batch so later commands can reuse it.
+     */
+    public void addNewVideoFrame(String videoArchiveName, VideoFrame videoFrame) {
+        newVideoFrames.put(videoArchiveName + "\t" + videoFrame.getTimecode(), videoFrame);
+    }
+
+    public List<Observation> getAddedObservations() {
+        return Collections.unmodifiableList(addedObservations);
+    }
+
+    public Observation getSelectedObservation() {
+        return selectedObservation;
+    }
+
+    /**
+     * Flush and commit all changes. The after-commit actions are run separately
+     * with {@link #runAfterCommitActions()}.
+     */
+    void commit() {
+        try {
+            videoArchiveDAO.endTransaction();
+        }
+        finally {
+            videoArchiveDAO.getEntityManager().clear();
+            videoArchiveDAO.close();
+        }
+    }
+
+    /**
+     * Run the after-commit actions. Call this only once the batch has committed.
+     * The changes are already saved, so a failing action is logged and the rest
+     * are still run.
+     */
+    void runAfterCommitActions() {
+        for (Runnable action : afterCommitActions) {
+            try {
+                action.run();
+            }
+            catch (Exception e) {
+                log.warn("An after-commit action failed. The batch itself was committed", e);
+            }
+        }
+    }
+
+    /**
+     * Throw away all changes made in the batch
+     */
+    void rollback() {
+        try {
+            EntityManager entityManager = videoArchiveDAO.getEntityManager();
+            if (entityManager.isOpen() && entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+        }
+        finally {
+            videoArchiveDAO.close();
+        }
+    }
+}
@@ -15,21 +15,28 @@
 
 package vars.annotation.ui.commandqueue;
 
+import com.google.common.collect.ImmutableList;
 import org.bushe.swing.event.EventBus;
 import org.bushe.swing.event.annotation.AnnotationProcessor;
 import org.bushe.swing.event.annotation.EventSubscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import vars.annotation.Observation;
 import vars.annotation.ui.Lookup;
 import vars.annotation.ui.ToolBelt;
+import vars.annotation.ui.eventbus.ObservationsAddedEvent;
+import vars.annotation.ui.eventbus.ObservationsSelectedEvent;
 
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The command queue processes commands in the order received. Commands are send via
@@ -42,6 +49,9 @@ import java.util.concurrent.TimeUnit;
  *     <li>{@link RedoEvent}</li>
  *     <li>{@link UndoEvent}</li>
  * </ul>
+ * If a batch window is set, {@link BatchableCommand}s that arrive within the window
+ * are applied in a single transaction using a {@link CommandBatch}. Each command
+ * is still pushed onto the undo stack individually.
  * @author Brian Schlining
  * @since 2011-09-21
  */
@@ -53,8 +63,23 @@ public class CommandQueue {
     private final BlockingQueue<CommandEvent> pendingQueue = new LinkedBlockingQueue<CommandEvent>();
     private final Deque<CommandEvent> undos = new LinkedBlockingDeque<CommandEvent>(maxUndos);
     private final Deque<CommandEvent> redos = new LinkedBlockingDeque<CommandEvent>(maxUndos);
+    private final int maxBatchSize = 100;
     private final Thread thread;
     private final ToolBelt toolBelt;
+    private final AtomicLong commandsExecuted = new AtomicLong();
+    private final AtomicLong batchesCommitted = new AtomicLong();
+    private final AtomicLong batchedCommands = new AtomicLong();
+    private final Object latencyLock = new Object();
+    private long commitCount;
+    private double totalCommitLatency;
+    private double lastCommitLatency;
+    private double maxCommitLatency;
+
+    /**
+     * Milliseconds to wait for more {@link BatchableCommand}s before committing a
+     * batch. 0 disables batching.
+     */
+    private volatile long batchWindow;
 
     private final Runnable runnable = new Runnable() {
 
@@ -62,43 +87,34 @@ public class CommandQueue {
 
         @Override
         public void run() {
+
+            // A non-batchable command that ended a batch. It's run next.
+            CommandEvent deferredEvent = null;
             while (isRunning) {
-                CommandEvent commandEvent = null;
-                try {
-                    commandEvent = pendingQueue.poll(3600L, TimeUnit.SECONDS);
-                } catch (InterruptedException e) {
-                    EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR, e);
+                CommandEvent commandEvent = deferredEvent;
+                deferredEvent = null;
+                if (commandEvent == null) {
+                    try {
+                        commandEvent = pendingQueue.poll(3600L, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR, e);
+                    }
                 }
+
                 if (commandEvent != null) {
-                    Command command = commandEvent.getCommand();
-                    try {
-                        log.debug("Executing Command: " + commandEvent.getDoOrUndo() + " - " +
-                                command.getDescription());
-
-                        // Execute the command (can be DO or UNDO operation)
-                        Deque<CommandEvent> inverseCommandList = null;
-                        switch (commandEvent.getDoOrUndo()) {
-                        case DO: {
-                            command.apply(toolBelt);
-                            inverseCommandList = undos;
-                            break;
-                        }
-                        case UNDO: {
-                            command.unapply(toolBelt);
-                            inverseCommandList = redos;
-                            break;
+                    if ((batchWindow > 0) && isBatchable(commandEvent)) {
+                        List<CommandEvent> batch = new ArrayList<CommandEvent>();
+                        batch.add(commandEvent);
+                        deferredEvent = collectBatch(batch);
+                        if (batch.size() == 1) {
+                            execute(commandEvent);
                         }
+                        else {
+                            executeBatch(batch);
                         }
-
-                        // Put the command
-                        int size = inverseCommandList.size();
-                        if (size >= maxUndos) {
-                            inverseCommandList.pollFirst();
-                        }
-                        inverseCommandList.offerLast(commandEvent);
                     }
-                    catch (Exception e) {
-                        EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR, e);
+                    else {
+                        execute(commandEvent);
                     }
                 }
             }
@@ -109,14 +125,25 @@ public class CommandQueue {
         }
     };
 
-
     /**
      * Constructs ...
      *
      * @param toolBelt
      */
     public CommandQueue(ToolBelt toolBelt) {
+        this(toolBelt, 0L);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param toolBelt
+     * @param batchWindow Milliseconds to wait to group {@link BatchableCommand}s
+     *      into a single transaction. 0 disables batching.
+     */
+    public CommandQueue(ToolBelt toolBelt, long batchWindow) {
         this.toolBelt = toolBelt;
+        this.batchWindow = Math.max(batchWindow, 0L);
         AnnotationProcessor.process(this);
         thread = new Thread(runnable, getClass().getName());
         thread.setDaemon(true);
@@ -167,4 +194,183 @@ public class CommandQueue {
             queueCommand(newCommandEvent);
         }
     }
+
+    /**
+     * Execute a single command in it's own transaction. This is the original, non-batched,
+     * path.
+     */
+    private void execute(CommandEvent commandEvent) {
+        Command command = commandEvent.getCommand();
+        try {
+            log.debug("Executing Command: " + commandEvent.getDoOrUndo() + " - " +
+                    command.getDescription());
+
+            // Execute the command (can be DO or UNDO operation)
+            long tic = System.nanoTime();
+            Deque<CommandEvent> inverseCommandList = null;
+            switch (commandEvent.getDoOrUndo()) {
+            case DO: {
+                command.apply(toolBelt);
+                inverseCommandList = undos;
+                break;
+            }
+            case UNDO: {
+                command.unapply(toolBelt);
+                inverseCommandList = redos;
+                break;
+            }
+            }
+            recordCommit(tic, 1);
+
+            // Put the command
+            pushInverse(inverseCommandList, commandEvent);
+        }
+        catch (Exception e) {
+            EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR, e);
+        }
+    }
+
+    /**
+     * Apply all commands in a single transaction. If anything goes wrong the batch
+     * is rolled back and each command is run on its own so that one bad command
+     * doesn't take the others down with it.
+     */
+    private void executeBatch(List<CommandEvent> batch) {
+        long tic = System.nanoTime();
+        CommandBatch commandBatch = null;
+        try {
+            commandBatch = new CommandBatch(toolBelt.getAnnotationDAOFactory());
+            for (CommandEvent commandEvent : batch) {
+                BatchableCommand command = (BatchableCommand) commandEvent.getCommand();
+                log.debug("Executing Command in batch: " + commandEvent.getDoOrUndo() + " - " +
+                        command.getDescription());
+                command.apply(toolBelt, commandBatch);
+            }
+            commandBatch.commit();
+        }
+        catch (Exception e) {
+            log.warn("Failed to execute a batch of " + batch.size() + " commands. Executing them one at a time.", e);
+            if (commandBatch != null) {
+                try {
+                    commandBatch.rollback();
+                }
+                catch (Exception ex) {
+                    log.warn("Failed to rollback batch", ex);
+                }
+            }
+            for (CommandEvent commandEvent : batch) {
+                execute(commandEvent);
+            }
+            return;
+        }
+
+        // Outside of the try above. The batch is committed, so it must never be replayed
+        commandBatch.runAfterCommitActions();
+
+        recordCommit(tic, batch.size());
+        batchesCommitted.incrementAndGet();
+        batchedCommands.addAndGet(batch.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Committed a batch of " + batch.size() + " commands. " + getStatistics());
+        }
+
+        // Each command is still undone individually
+        for (CommandEvent commandEvent : batch) {
+            pushInverse(undos, commandEvent);
+        }
+
+        List<Observation> addedObservations = commandBatch.getAddedObservations();
+        if (!addedObservations.isEmpty()) {
+            EventBus.publish(new ObservationsAddedEvent(null, addedObservations));
+        }
+        Observation selectedObservation = commandBatch.getSelectedObservation();
+        if (selectedObservation != null) {
+            EventBus.publish(new ObservationsSelectedEvent(this, ImmutableList.of(selectedObservation)));
+        }
+    }
+
+    /**
+     * Pull additional batchable DO commands off of the pending queue until the batch
+     * window closes or the batch is full.
+     *
+     * @param batch The batch to add to. It must already contain the first command
+     * @return A non-batchable command that arrived during the window and ended the
+     *      batch. It must be executed next. null if there is none.
+     */
+    private CommandEvent collectBatch(List<CommandEvent> batch) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindow);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            CommandEvent commandEvent = null;
+            try {
+                commandEvent = pendingQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            }
+            catch (InterruptedException e) {
+                break;
+            }
+            if (commandEvent == null) {
+                break;
+            }
+            if (isBatchable(commandEvent)) {
+                batch.add(commandEvent);
+            }
+            else {
+                return commandEvent;
+            }
+        }
+        return null;
+    }
+
+    private boolean isBatchable(CommandEvent commandEvent) {
+        return commandEvent.getDoOrUndo() == CommandEvent.DoOrUndo.DO &&
+                commandEvent.getCommand() instanceof BatchableCommand;
+    }
+
+    private void pushInverse(Deque<CommandEvent> inverseCommandList, CommandEvent commandEvent) {
+        int size = inverseCommandList.size();
+        if (size >= maxUndos) {
+            inverseCommandList.pollFirst();
+        }
+        inverseCommandList.offerLast(commandEvent);
+    }
+
+    private void recordCommit(long startNanos, int commandCount) {
+        double latency = (System.nanoTime() - startNanos) / 1e6;
+        commandsExecuted.addAndGet(commandCount);
+        synchronized (latencyLock) {
+            commitCount++;
+            totalCommitLatency += latency;
+            lastCommitLatency = latency;
+            maxCommitLatency = Math.max(maxCommitLatency, latency);
+        }
+    }
+
+    /**
+     * @return A snapshot of the queue depth, number of commands executed and commit latency
+     */
+    public CommandQueueStatistics getStatistics() {
+        synchronized (latencyLock) {
+            double mean = (commitCount == 0) ? 0D : totalCommitLatency / commitCount;
+            return new CommandQueueStatistics(pendingQueue.size(), batchesCommitted.get(), commandsExecuted.get(),
+                    batchedCommands.get(), lastCommitLatency, mean, maxCommitLatency);
+        }
+    }
+
+    /**
+     * @return The batch window in milliseconds. 0 means batching is disabled
+     */
+    public long getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * @param batchWindow Milliseconds to wait to group {@link BatchableCommand}s into
+     *      a single transaction. 0 disables batching.
+     */
+    public void setBatchWindow(long batchWindow) {
+        this.batchWindow = Math.max(batchWindow, 0L);
+    }
 }
@@ -0,0 +1,77 @@
+package vars.annotation.ui.commandqueue;
+
+/**
+ * Immutable snapshot of the {@link CommandQueue}'s counters. Latencies are in
+ * milliseconds and cover the time from the start of a transaction to its commit.
+ *
+ * @since 2026-10-18
+ */
+public class CommandQueueStatistics {
+
+    private final int queueDepth;
+    private final long batchesCommitted;
+    private final long commandsExecuted;
+    private final long batchedCommands;
+    private final double lastCommitLatency;
+    private final double meanCommitLatency;
+    private final double maxCommitLatency;
+
+    public CommandQueueStatistics(int queueDepth, long batchesCommitted, long commandsExecuted,
+            long batchedCommands, double lastCommitLatency, double meanCommitLatency, double maxCommitLatency) {
+        this.queueDepth = queueDepth;
+        this.batchesCommitted = batchesCommitted;
+        this.commandsExecuted = commandsExecuted;
+        this.batchedCommands = batchedCommands;
+        this.lastCommitLatency = lastCommitLatency;
+        this.meanCommitLatency = meanCommitLatency;
+        this.maxCommitLatency = maxCommitLatency;
+    }
+
+    /**
+     * @return The number of commands waiting to be executed
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return The number of batched transactions that have been committed
+     */
+    public long getBatchesCommitted() {
+        return batchesCommitted;
+    }
+
+    /**
+     * @return The total number of commands (DO and UNDO) that have been executed
+     */
+    public long getCommandsExecuted() {
+        return commandsExecuted;
+    }
+
+    /**
+     * @return The number of commands that were executed as part of a batch
+     */
+    public long getBatchedCommands() {
+        return batchedCommands;
+    }
+
+    public double getLastCommitLatency() {
+        return lastCommitLatency;
+    }
+
+    public double getMeanCommitLatency() {
+        return meanCommitLatency;
+    }
+
+    public double getMaxCommitLatency() {
+        return maxCommitLatency;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[queueDepth=" + queueDepth + ", batchesCommitted=" + batchesCommitted +
+                ", commandsExecuted=" + commandsExecuted + ", batchedCommands=" + batchedCommands +
+                ", lastCommitLatency=" + lastCommitLatency + "ms, meanCommitLatency=" + meanCommitLatency +
+                "ms, maxCommitLatency=" + maxCommitLatency + "ms]";
+    }
+}
@@ -19,7 +19,8 @@ import vars.annotation.VideoFrameDAO;
 import vars.annotation.jpa.ObservationImpl;
 import vars.annotation.ui.Lookup;
 import vars.annotation.ui.ToolBelt;
-import vars.annotation.ui.commandqueue.Command;
+import vars.annotation.ui.commandqueue.BatchableCommand;
+import vars.annotation.ui.commandqueue.CommandBatch;
 import vars.annotation.ui.eventbus.ObservationsAddedEvent;
 import vars.annotation.ui.eventbus.ObservationsRemovedEvent;
 import vars.annotation.ui.eventbus.ObservationsSelectedEvent;
@@ -34,7 +35,7 @@ import java.util.Date;
  * @author Brian Schlining
  * @since 2011-10-10
  */
-public class AddObservationCmd implements Command {
+public class AddObservationCmd implements BatchableCommand {
 
     private Logger log = LoggerFactory.getLogger(getClass());
 
@@ -97,12 +98,68 @@ public class AddObservationCmd implements Command {
 
         long tic = System.nanoTime();
 
-        AnnotationPersistenceService annotationPersistenceService = toolBelt.getAnnotationPersistenceService();
         AnnotationDAOFactory daoFactory = toolBelt.getAnnotationDAOFactory();
-        AnnotationFactory factory = toolBelt.getAnnotationFactory();
         VideoFrameDAO videoFrameDAO = daoFactory.newVideoFrameDAO();
         VideoArchiveDAO videoArchiveDAO = daoFactory.newVideoArchiveDAO(videoFrameDAO.getEntityManager());
         videoArchiveDAO.startTransaction();
+        Observation newObservation = addObservation(toolBelt, videoArchiveDAO, videoFrameDAO, null);
+        videoArchiveDAO.endTransaction();
+        videoArchiveDAO.getEntityManager().clear();
+        videoArchiveDAO.close();
+        log.debug(elapsedTime(tic) + "s :End Transaction");
+        tic = System.nanoTime();
+        if (newObservation != null) {
+            newPrimaryKey = newObservation.getPrimaryKey();
+        }
+        EventBus.publish(new ObservationsAddedEvent(null, newObservation));
+        log.debug(elapsedTime(tic) + "s :Publish ObservationsAddedEvent");
+        tic = System.nanoTime();
+
+        if (selectAddedObservation) {
+            EventBus.publish(new ObservationsSelectedEvent(this, ImmutableList.of(newObservation)));
+            log.debug(elapsedTime(tic) + "s :Publish ObservationsSelectedEvent");
+            tic = System.nanoTime();
+        }
+
+    }
+
+    /**
+     * Adds the observation using the batch's transaction. The batch is committed,
+     * and the events published, by the {@link vars.annotation.ui.commandqueue.CommandQueue}
+     */
+    @Override
+    public void apply(ToolBelt toolBelt, CommandBatch batch) {
+        VideoArchiveDAO videoArchiveDAO = batch.getVideoArchiveDAO();
+        VideoFrameDAO videoFrameDAO = toolBelt.getAnnotationDAOFactory().newVideoFrameDAO(batch.getEntityManager());
+        final Observation newObservation = addObservation(toolBelt, videoArchiveDAO, videoFrameDAO, batch);
+        if (newObservation != null) {
+            batch.addObservation(newObservation);
+            batch.afterCommit(new Runnable() {
+                @Override
+                public void run() {
+                    newPrimaryKey = newObservation.getPrimaryKey();
+                }
+            });
+            if (selectAddedObservation) {
+                batch.selectObservation(newObservation);
+            }
+        }
+    }
+
+    /**
+     * Creates the new observation, and it's VideoFrame if needed, inside the DAO's
+     * current transaction.
+     *
+     * @param batch The batch this command is part of. null if it's being run on it's own.
+     * @return The new observation or null if one could not be created
+     */
+    private Observation addObservation(ToolBelt toolBelt, VideoArchiveDAO videoArchiveDAO,
+            VideoFrameDAO videoFrameDAO, CommandBatch batch) {
+
+        long tic = System.nanoTime();
+
+        AnnotationPersistenceService annotationPersistenceService = toolBelt.getAnnotationPersistenceService();
+        AnnotationFactory factory = toolBelt.getAnnotationFactory();
         VideoArchive videoArchive = videoArchiveDAO.findByName(videoArchiveName);
 
         Observation newObservation = null;
@@ -115,13 +172,19 @@ public class AddObservationCmd implements Command {
             new Timecode(timecode); // Bad timecodes will throw an exception
 
             /*
-             * Get or create the VideoFrame
+             * Get or create the VideoFrame. VideoFrames created earlier in the same
+             * batch are not in the database yet so check the batch first.
              */
             log.debug(elapsedTime(tic) + "s :Lookup existing videoframe");
-            Long id = annotationPersistenceService.findTimeCodeByVideoArchiveName(timecode, videoArchiveName);
             VideoFrame videoFrame = null;
-            if (id != null) {
-                videoFrame = videoFrameDAO.findByPrimaryKey(id);
+            if (batch != null) {
+                videoFrame = batch.findNewVideoFrame(videoArchiveName, timecode);
+            }
+            if (videoFrame == null) {
+                Long id = annotationPersistenceService.findTimeCodeByVideoArchiveName(timecode, videoArchiveName);
+                if (id != null) {
+                    videoFrame = videoFrameDAO.findByPrimaryKey(id);
+                }
             }
             log.debug(elapsedTime(tic) + "s :Find matching timecode");
             tic = System.nanoTime();
@@ -135,6 +198,9 @@ public class AddObservationCmd implements Command {
                 log.debug(elapsedTime(tic) + "s :Build new videoframe");
                 tic = System.nanoTime();
                 videoArchive.addVideoFrame(videoFrame);
+                if (batch != null) {
+                    batch.addNewVideoFrame(videoArchiveName, videoFrame);
+                }
             }
 
 
@@ -158,27 +224,10 @@ public class AddObservationCmd implements Command {
             }
             videoFrame.addObservation(newObservation);
             log.debug(elapsedTime(tic) + "s :Built Observation");
-            tic = System.nanoTime();
-
-        }
-        videoArchiveDAO.endTransaction();
-        videoArchiveDAO.getEntityManager().clear();
-        videoArchiveDAO.close();
-        log.debug(elapsedTime(tic) + "s :End Transaction");
-        tic = System.nanoTime();
-        if (newObservation != null) {
-            newPrimaryKey = newObservation.getPrimaryKey();
-        }
-        EventBus.publish(new ObservationsAddedEvent(null, newObservation));
-        log.debug(elapsedTime(tic) + "s :Publish ObservationsAddedEvent");
-        tic = System.nanoTime();
 
-        if (selectAddedObservation) {
-            EventBus.publish(new ObservationsSelectedEvent(this, ImmutableList.of(newObservation)));
-            log.debug(elapsedTime(tic) + "s :Publish ObservationsSelectedEvent");
-            tic = System.nanoTime();
         }
 
+        return newObservation;
     }
 
 //    @Override
@@ -9,9 +9,10 @@ import vars.annotation.ui.ToolBelt;
 import vars.annotation.ui.commandqueue.Command;
 import vars.annotation.ui.eventbus.ObservationsChangedEvent;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @author Brian Schlining
@@ -20,7 +21,7 @@ import java.util.HashSet;
 public class ChangeAssociationsCmd implements Command {
 
     private final ILink newLink;
-    private final Collection<DataBean> originalData = new ArrayList<DataBean>();
+    private final Map<Object, DataBean> originalData = new LinkedHashMap<Object, DataBean>();
 
     public ChangeAssociationsCmd(ILink newLink, Collection<Association> associations) {
         if (newLink == null || associations == null) {
@@ -28,7 +29,7 @@ public class ChangeAssociationsCmd implements Command {
         }
         this.newLink = newLink;
         for(Association association : associations) {
-            originalData.add(new DataBean(association.getPrimaryKey(), association));
+            originalData.put(association.getPrimaryKey(), new DataBean(association.getPrimaryKey(), association));
         }
     }
 
@@ -37,15 +38,12 @@ public class ChangeAssociationsCmd implements Command {
         String toConcept = toolBelt.getPersistenceController().getValidatedConceptName(newLink.getToConcept());
         Collection<Observation> modifiedObservations = new HashSet<Observation>();
         AssociationDAO associationDAO = toolBelt.getAnnotationDAOFactory().newAssociationDAO();
-        associationDAO.startTransaction();
-        for (DataBean bean : originalData) {
-            Association association = associationDAO.findByPrimaryKey(bean.primaryKey);
-            if (association != null) {
-                association.setLinkName(newLink.getLinkName());
-                association.setToConcept(toConcept);
-                association.setLinkValue(newLink.getLinkValue());
-                modifiedObservations.add(association.getObservation());
-            }
+        associationDAO.startBatchTransaction();
+        for (Association association : associationDAO.findByPrimaryKeys(originalData.keySet())) {
+            association.setLinkName(newLink.getLinkName());
+            association.setToConcept(toConcept);
+            association.setLinkValue(newLink.getLinkValue());
+            modifiedObservations.add(association.getObservation());
         }
         associationDAO.endTransaction();
         associationDAO.close();
@@ -56,16 +54,13 @@ public class ChangeAssociationsCmd implements Command {
     public void unapply(ToolBelt toolBelt) {
         Collection<Observation> modifiedObservations = new HashSet<Observation>();
         AssociationDAO associationDAO = toolBelt.getAnnotationDAOFactory().newAssociationDAO();
-        associationDAO.startTransaction();
-        for (DataBean bean : originalData) {
-            Association originalAssociation = bean.originalAssociation;
-            Association association = associationDAO.findByPrimaryKey(bean.primaryKey);
-            if (association != null) {
-                association.setLinkName(originalAssociation.getLinkName());
-                association.setToConcept(originalAssociation.getToConcept());
-                association.setLinkValue(originalAssociation.getLinkValue());
-                modifiedObservations.add(association.getObservation());
-            }
+        associationDAO.startBatchTransaction();
+        for (Association association : associationDAO.findByPrimaryKeys(originalData.keySet())) {
+            Association originalAssociation = originalData.get(association.getPrimaryKey()).originalAssociation;
+            association.setLinkName(originalAssociation.getLinkName());
+            association.setToConcept(originalAssociation.getToConcept());
+            association.setLinkValue(originalAssociation.getLinkValue());
+            modifiedObservations.add(association.getObservation());
         }
         associationDAO.endTransaction();
         associationDAO.close();
@@ -0,0 +1,94 @@
+package vars.annotation.ui.commandqueue.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.bushe.swing.event.EventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.CameraData;
+import vars.annotation.VideoFrame;
+import vars.annotation.VideoFrameDAO;
+import vars.annotation.ui.ToolBelt;
+import vars.annotation.ui.commandqueue.Command;
+import vars.annotation.ui.eventbus.VideoFramesChangedEvent;
+
+/**
+ * Swaps the image reference of a VideoFrame. The frame is looked up by video archive
+ * name and timecode when the command is applied so it can be queued right behind the
+ * {@link AddObservationCmd} that creates the frame. The reference is only changed if
+ * it still matches the expected value; that way a reference the user edited in the
+ * meantime is never clobbered.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ChangeImageReferenceCmd implements Command {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final String videoArchiveName;
+    private final String timecode;
+    private final String oldImageReference;
+    private final String newImageReference;
+
+    /**
+     * Constructs ...
+     *
+     * @param videoArchiveName
+     * @param timecode
+     * @param oldImageReference The reference the frame is expected to have now
+     * @param newImageReference The reference to replace it with
+     */
+    public ChangeImageReferenceCmd(String videoArchiveName, String timecode, String oldImageReference,
+            String newImageReference) {
+        this.videoArchiveName = videoArchiveName;
+        this.timecode = timecode;
+        this.oldImageReference = oldImageReference;
+        this.newImageReference = newImageReference;
+    }
+
+    @Override
+    public void apply(ToolBelt toolBelt) {
+        doCommand(toolBelt, oldImageReference, newImageReference);
+    }
+
+    private void doCommand(ToolBelt toolBelt, String expectedReference, String imageReference) {
+        Long id = toolBelt.getAnnotationPersistenceService().findTimeCodeByVideoArchiveName(timecode,
+            videoArchiveName);
+        if (id == null) {
+            log.warn("Unable to find a VideoFrame at " + timecode + " in " + videoArchiveName +
+                     ". The image reference was not changed to " + imageReference);
+            return;
+        }
+
+        VideoFrameDAO dao = toolBelt.getAnnotationDAOFactory().newVideoFrameDAO();
+        dao.startTransaction();
+        VideoFrame videoFrame = dao.findByPrimaryKey(id);
+        boolean changed = false;
+        if (videoFrame != null) {
+            CameraData cameraData = videoFrame.getCameraData();
+            String currentReference = cameraData.getImageReference();
+            if ((currentReference == null) ? expectedReference == null : currentReference.equals(expectedReference)) {
+                cameraData.setImageReference(imageReference);
+                if (!dao.isPersistent(cameraData)) {
+                    dao.persist(cameraData);
+                }
+                changed = true;
+            }
+        }
+        dao.endTransaction();
+        dao.close();
+
+        if (changed) {
+            EventBus.publish(new VideoFramesChangedEvent(null, ImmutableList.of(videoFrame)));
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Change image reference at " + timecode + " to " + newImageReference;
+    }
+
+    @Override
+    public void unapply(ToolBelt toolBelt) {
+        doCommand(toolBelt, newImageReference, oldImageReference);
+    }
+}
@@ -61,7 +61,7 @@ public class CopyObservationsCmd implements Command {
         DAO dao = toolBelt.getAnnotationDAOFactory().newDAO();
         VideoArchiveDAO videoArchiveDAO = toolBelt.getAnnotationDAOFactory().newVideoArchiveDAO(dao.getEntityManager());
         VideoFrameDAO videoFrameDAO = toolBelt.getAnnotationDAOFactory().newVideoFrameDAO(dao.getEntityManager());
-        dao.startTransaction();
+        dao.startBatchTransaction();
         VideoArchive videoArchive = videoArchiveDAO.findByName(videoArchiveName);
 
         if (videoArchive != null) {
@@ -120,7 +120,7 @@ public class CopyObservationsCmd implements Command {
         Collection<Observation> droppedObservations = new ArrayList<Observation>(copyObservations);
         synchronized (copyObservations) {
             DAO dao = toolBelt.getAnnotationDAOFactory().newDAO();
-            dao.startTransaction();
+            dao.startBatchTransaction();
 
             for (Observation obs : copyObservations) {
                 Observation observation = dao.find(obs);
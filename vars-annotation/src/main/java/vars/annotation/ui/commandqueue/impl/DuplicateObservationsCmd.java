@@ -45,7 +45,7 @@ public class DuplicateObservationsCmd implements Command {
         Date observationDate = new Date();
         synchronized (duplicateObservations) {
             DAO dao = toolBelt.getAnnotationDAOFactory().newDAO();
-            dao.startTransaction();
+            dao.startBatchTransaction();
             for (Observation observation : sourceObservations) {
                 observation = dao.find(observation);
                 VideoFrame videoFrame = observation.getVideoFrame();
@@ -71,7 +71,7 @@ public class DuplicateObservationsCmd implements Command {
         Collection<Observation> deletedObservations = new ArrayList<Observation>(duplicateObservations);
         synchronized (duplicateObservations) {
             DAO dao = toolBelt.getAnnotationDAOFactory().newDAO();
-            dao.startTransaction();
+            dao.startBatchTransaction();
             for (Observation observation : duplicateObservations) {
                 deletedObservations.add(observation); // Add before bringing into transaction. Hashcode changes after delete.
                 observation = dao.find(observation);
@@ -8,6 +8,7 @@ import vars.annotation.Observation;
 import vars.annotation.VideoArchive;
 import vars.annotation.VideoArchiveDAO;
 import vars.annotation.VideoFrame;
+import vars.annotation.ui.VideoArchivePrefetcher;
 import vars.annotation.ui.eventbus.ObservationsAddedEvent;
 import vars.annotation.ui.eventbus.ObservationsChangedEvent;
 import vars.annotation.ui.eventbus.ObservationsRemovedEvent;
@@ -45,10 +46,13 @@ public class LocalVideoArchiveCache implements UIEventSubscriber {
 
     private volatile VideoArchive videoArchive;
     private final AnnotationDAOFactory annotationDAOFactory;
+    private final VideoArchivePrefetcher videoArchivePrefetcher;
 
     @Inject
-    public LocalVideoArchiveCache(AnnotationDAOFactory annotationDAOFactory) {
+    public LocalVideoArchiveCache(AnnotationDAOFactory annotationDAOFactory,
+            VideoArchivePrefetcher videoArchivePrefetcher) {
         this.annotationDAOFactory = annotationDAOFactory;
+        this.videoArchivePrefetcher = videoArchivePrefetcher;
         AnnotationProcessor.process(this);
     }
 
@@ -63,28 +67,21 @@ public class LocalVideoArchiveCache implements UIEventSubscriber {
 
     /**
      * Set the cached VideoArchive. This will actually fetch a fresh copy of the provided VideoArchive
-     * from the database and load all the VideoFrames.
+     * from the database with all of its VideoFrames, Observations and Associations loaded,
+     * unless the {@link VideoArchivePrefetcher} already has one.
      *
      * @param videoArchive0
      */
     public synchronized void setVideoArchive(VideoArchive videoArchive0) {
 
         if (videoArchive0 != null) {
-            VideoArchiveDAO dao = annotationDAOFactory.newVideoArchiveDAO();
-            dao.startTransaction();
-            videoArchive = dao.find(videoArchive0);
-            if (videoArchive != null) {
-                /*
-                   Load all videoFrames (they're lazy loaded) and make sure we make a call
-                   to each object so that it gets fully instantiated. This might not be needed
-                   with EclipseLink but it was with Hibernate.
-                 */
-                Collection<VideoFrame> videoFrames = videoArchive.getVideoFrames();
-                for (VideoFrame vf : videoFrames) {
-                    vf.getTimecode();
-                }
+            videoArchive = videoArchivePrefetcher.take(videoArchive0);
+            if (videoArchive == null) {
+                VideoArchiveDAO dao = annotationDAOFactory.newVideoArchiveDAO();
+                dao.startTransaction();
+                videoArchive = dao.findWithGraph(videoArchive0);
+                dao.endTransaction();
             }
-            dao.endTransaction();
 
         }
         else {
@@ -117,8 +114,10 @@ public class LocalVideoArchiveCache implements UIEventSubscriber {
             // New VideoFrames only
             videoFrames1.removeAll(videoFrames0);
 
-            // Add new VideoFrames
-            videoArchive.getVideoFrames().addAll(videoFrames1);
+            // Add new VideoFrames. Use addVideoFrame so the VideoArchive's index is kept in sync
+            for (VideoFrame videoFrame : videoFrames1) {
+                videoArchive.addVideoFrame(videoFrame);
+            }
         }
 
     }
@@ -144,7 +143,9 @@ public class LocalVideoArchiveCache implements UIEventSubscriber {
 
         synchronized (videoArchive.getVideoFrames()) {
             // Remove VideoFrames
-            videoArchive.getVideoFrames().removeAll(videoFrames1);
+            for (VideoFrame videoFrame : videoFrames1) {
+                videoArchive.removeVideoFrame(videoFrame);
+            }
         }
     }
 
@@ -171,15 +172,14 @@ public class LocalVideoArchiveCache implements UIEventSubscriber {
 
         // Current VideoFrames
         synchronized (videoArchive) {
-            final Collection<VideoFrame> videoFrames = videoArchive.getVideoFrames();
-            final Set<VideoFrame> videoFramesOld = new HashSet<VideoFrame>(videoFrames);
+            final Set<VideoFrame> videoFramesOld = new HashSet<VideoFrame>(videoArchive.getVideoFrames());
 
             // If a changed videoframe exists alread, replace it with the new one
             for (VideoFrame vfNew : videoFramesNew) {
                 for (VideoFrame vfOld : videoFramesOld) {
                     if (vfNew.getPrimaryKey().equals(vfOld.getPrimaryKey())) {
-                        videoFrames.remove(vfOld);
-                        videoFrames.add(vfNew);
+                        videoArchive.removeVideoFrame(vfOld);
+                        videoArchive.addVideoFrame(vfNew);
                     }
                 }
             }
@@ -65,7 +65,7 @@ public class MoveVideoFramesCmd implements Command {
 
         VideoArchiveDAO dao = toolBelt.getAnnotationDAOFactory().newVideoArchiveDAO();
         VideoFrameDAO videoFrameDao = toolBelt.getAnnotationDAOFactory().newVideoFrameDAO(dao.getEntityManager());
-        dao.startTransaction();
+        dao.startBatchTransaction();
         VideoArchive videoArchive = dao.findByName(targetVideoArchiveName);
         for (DataBean bean : originalData) {
             VideoFrame videoFrame = videoFrameDao.findByPrimaryKey(bean.videoFramePrimaryKey); // Pull existing copy from db and bring into transation
@@ -107,7 +107,7 @@ public class MoveVideoFramesCmd implements Command {
 
         VideoArchiveDAO dao = toolBelt.getAnnotationDAOFactory().newVideoArchiveDAO();
         VideoFrameDAO videoFrameDao = toolBelt.getAnnotationDAOFactory().newVideoFrameDAO(dao.getEntityManager());
-        dao.startTransaction();
+        dao.startBatchTransaction();
         for (DataBean bean : originalData) {
             VideoArchive videoArchive = dao.findByName(bean.originalVideoArchiveName);
             if (videoArchive != null) {
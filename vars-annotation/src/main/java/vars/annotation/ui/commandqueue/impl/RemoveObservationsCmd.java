@@ -8,6 +8,7 @@ import vars.annotation.AnnotationDAOFactory;
 import vars.annotation.AnnotationFactory;
 import vars.annotation.CameraData;
 import vars.annotation.Observation;
+import vars.annotation.ObservationDAO;
 import vars.annotation.VideoArchive;
 import vars.annotation.VideoArchiveDAO;
 import vars.annotation.VideoFrame;
@@ -40,19 +41,23 @@ public class RemoveObservationsCmd implements Command {
     @Override
     public void apply(ToolBelt toolBelt) {
         final DAO dao = toolBelt.getAnnotationDAOFactory().newDAO();
-        dao.startTransaction();
+        final ObservationDAO observationDAO = toolBelt.getAnnotationDAOFactory().newObservationDAO(
+            dao.getEntityManager());
+        dao.startBatchTransaction();
 
+        Collection<Object> primaryKeys = new ArrayList<Object>(deletedData.size());
         for (DataBean bean : deletedData) {
-            Observation observation = dao.find(bean.observation);
-            if (observation != null) {
-                VideoFrame videoFrame = observation.getVideoFrame();
-                videoFrame.removeObservation(observation);
-                dao.remove(observation);
-                if (videoFrame.getObservations().size() == 0) {
-                    VideoArchive videoArchive = videoFrame.getVideoArchive();
-                    videoArchive.removeVideoFrame(videoFrame);
-                    dao.remove(videoFrame);
-                }
+            primaryKeys.add(bean.observation.getPrimaryKey());
+        }
+
+        for (Observation observation : observationDAO.findByPrimaryKeys(primaryKeys)) {
+            VideoFrame videoFrame = observation.getVideoFrame();
+            videoFrame.removeObservation(observation);
+            dao.remove(observation);
+            if (videoFrame.getObservations().size() == 0) {
+                VideoArchive videoArchive = videoFrame.getVideoArchive();
+                videoArchive.removeVideoFrame(videoFrame);
+                dao.remove(videoFrame);
             }
         }
         dao.endTransaction();
@@ -75,7 +80,7 @@ public class RemoveObservationsCmd implements Command {
         final DAO dao = daoFactory.newDAO();
         final VideoArchiveDAO videoArchiveDAO = daoFactory.newVideoArchiveDAO(dao.getEntityManager());
 
-        dao.startTransaction();
+        dao.startBatchTransaction();
         for (DataBean bean : deletedData) {
             VideoArchive videoArchive = videoArchiveDAO.findByName(bean.videoArchiveName);
             if (videoArchive != null) {
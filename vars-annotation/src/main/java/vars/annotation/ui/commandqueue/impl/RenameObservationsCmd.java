@@ -9,6 +9,8 @@ import vars.annotation.ui.eventbus.ObservationsChangedEvent;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @author Brian Schlining
@@ -18,13 +20,13 @@ public class RenameObservationsCmd implements Command {
 
     private final String newConceptName;
     private final String user;
-    private final Collection<DataBean> originalData = new ArrayList<DataBean>();
+    private final Map<Object, DataBean> originalData = new LinkedHashMap<Object, DataBean>();
 
     public RenameObservationsCmd(String newConceptName, String user, Collection<Observation> observations) {
         this.newConceptName = newConceptName;
         this.user = user;
         for(Observation observation : observations) {
-            originalData.add(new DataBean(observation.getPrimaryKey(), observation));
+            originalData.put(observation.getPrimaryKey(), new DataBean(observation.getPrimaryKey(), observation));
         }
     }
 
@@ -33,14 +35,11 @@ public class RenameObservationsCmd implements Command {
         Collection<Observation> modifiedObservations = new ArrayList<Observation>();
         String conceptName = toolBelt.getPersistenceController().getValidatedConceptName(newConceptName);
         ObservationDAO observationDAO = toolBelt.getAnnotationDAOFactory().newObservationDAO();
-        observationDAO.startTransaction();
-        for (DataBean bean : originalData) {
-            Observation observation = observationDAO.findByPrimaryKey(bean.primaryKey);
-            if (observation != null) {
-                observation.setConceptName(conceptName);
-                observation.setObserver(user);
-                modifiedObservations.add(observation);
-            }
+        observationDAO.startBatchTransaction();
+        for (Observation observation : observationDAO.findByPrimaryKeys(originalData.keySet())) {
+            observation.setConceptName(conceptName);
+            observation.setObserver(user);
+            modifiedObservations.add(observation);
         }
         observationDAO.endTransaction();
         observationDAO.close();
@@ -51,14 +50,12 @@ public class RenameObservationsCmd implements Command {
     public void unapply(ToolBelt toolBelt) {
         Collection<Observation> modifiedObservations = new ArrayList<Observation>();
         ObservationDAO observationDAO = toolBelt.getAnnotationDAOFactory().newObservationDAO();
-        observationDAO.startTransaction();
-        for (DataBean bean : originalData) {
-            Observation observation = observationDAO.findByPrimaryKey(bean.primaryKey);
-            if (observation != null) {
-                observation.setConceptName(bean.originalObservation.getConceptName());
-                observation.setObserver(bean.originalObservation.getObserver());
-                modifiedObservations.add(observation);
-            }
+        observationDAO.startBatchTransaction();
+        for (Observation observation : observationDAO.findByPrimaryKeys(originalData.keySet())) {
+            DataBean bean = originalData.get(observation.getPrimaryKey());
+            observation.setConceptName(bean.originalObservation.getConceptName());
+            observation.setObserver(bean.originalObservation.getObserver());
+            modifiedObservations.add(observation);
         }
         observationDAO.endTransaction();
         observationDAO.close();
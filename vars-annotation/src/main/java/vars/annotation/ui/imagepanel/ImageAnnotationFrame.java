@@ -141,7 +141,7 @@ public class ImageAnnotationFrame extends JFrame {
     protected ConceptNameComboBox getComboBox() {
         if (comboBox == null) {
             final ToolBelt toolBelt = controller.getToolBelt();
-            comboBox = new AllConceptNamesComboBox(toolBelt.getQueryPersistenceService());
+            comboBox = new AllConceptNamesComboBox(toolBelt.getConceptHierarchyIndex());
 
             /*
              * When combo box changes, change the default concept used for point and
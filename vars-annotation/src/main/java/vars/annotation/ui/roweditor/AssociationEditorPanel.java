@@ -15,8 +15,6 @@
 
 package vars.annotation.ui.roweditor;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Collections2;
 import foxtrot.Task;
 import foxtrot.Worker;
 import java.awt.Component;
@@ -31,7 +29,6 @@ import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
-import java.util.Collection;
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
 import javax.swing.ImageIcon;
@@ -54,13 +51,12 @@ import vars.ILink;
 import vars.LinkBean;
 import vars.LinkComparator;
 import vars.LinkUtilities;
-import vars.annotation.AnnotationPersistenceService;
 import vars.annotation.Association;
 import vars.annotation.Observation;
 import vars.annotation.ui.Lookup;
 import vars.annotation.ui.ToolBelt;
 import vars.knowledgebase.Concept;
-import vars.knowledgebase.LinkTemplate;
+import vars.knowledgebase.ConceptHierarchy;
 import vars.shared.ui.FancyButton;
 import vars.shared.ui.HierachicalConceptNameComboBox;
 import vars.shared.ui.LinkListCellRenderer;
@@ -548,27 +544,18 @@ public class AssociationEditorPanel extends JPanel {
                  */
                 model.clear();
                 model.addElement(nil);
-                AnnotationPersistenceService service = controller.getToolBelt().getAnnotationPersistenceService();
+                ToolBelt toolBelt = controller.getToolBelt();
 
                 try {
 
-                    Concept concept = service.findConceptByName(observation.getConceptName());
-                    if (concept == null) {
-                        log.warn("A concept named" + observation.getConceptName() +
-                                 " was not found in the knowledgebase");
-                        concept = service.findRootConcept();
+                    String conceptName = observation.getConceptName();
+                    ConceptHierarchy hierarchy = toolBelt.getConceptHierarchyIndex().getHierarchy();
+                    if ((hierarchy.findNode(conceptName) == null) && (hierarchy.getRoot() != null)) {
+                        log.warn("A concept named" + conceptName + " was not found in the knowledgebase");
+                        conceptName = hierarchy.getRoot().getPrimaryName();
                     }
 
-                    Collection<ILink> linkTemplates = Collections2.transform(service.findLinkTemplatesFor(concept),
-                        new Function<LinkTemplate, ILink>() {
-
-                        public ILink apply(LinkTemplate from) {
-                            return (ILink) from;
-                        }
-
-                    });
-
-                    model.addAll(linkTemplates);
+                    model.addAll(toolBelt.getLinkTemplateIndex().findApplicableLinks(conceptName));
                 }
                 catch (Exception e) {
                     EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR, e);
@@ -178,7 +178,7 @@ public class RowEditorPanel extends JPanel {
 
     private JComboBox getConceptComboBox() {
         if (conceptComboBox == null) {
-            conceptComboBox = new AllConceptNamesComboBox(toolBelt.getQueryPersistenceService());
+            conceptComboBox = new AllConceptNamesComboBox(toolBelt.getConceptHierarchyIndex());
             conceptComboBox.setPreferredSize(new Dimension(250, 23));
 
             conceptComboBox.addItemListener(new ItemListener() {
@@ -89,6 +89,18 @@ public class JXObservationTable extends JXTable implements ObservationTable {
     public void updateObservation(Observation observation) {
     	((ObservationTableModel) getModel()).updateObservation(observation);
     }
+
+    public void addObservations(Collection<Observation> observations) {
+        ((ObservationTableModel) getModel()).addObservations(observations);
+    }
+
+    public void removeObservations(Collection<Observation> observations) {
+        ((ObservationTableModel) getModel()).removeObservations(observations);
+    }
+
+    public void updateObservations(Collection<Observation> observations) {
+        ((ObservationTableModel) getModel()).updateObservations(observations);
+    }
     /**
      *
      * @param columnClass
@@ -17,8 +17,12 @@ package vars.annotation.ui.table;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Vector;
+import java.util.Map;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
@@ -27,16 +31,21 @@ import org.slf4j.LoggerFactory;
 import vars.annotation.Observation;
 
 /**
- *
+ * Table model of observations. Rows are held in a list and a map from each
+ * observation's primary key to its row is kept in step with it, so finding the
+ * row of an observation doesn't require a scan of the table. The batch methods
+ * ({@link #addObservations(Collection)}, {@link #updateObservations(Collection)},
+ * and {@link #removeObservations(Collection)}) fire a single table event no
+ * matter how many rows they touch.
  *
  * @version        Enter version here..., 2009.12.12 at 10:11:31 PST
  * @author         Brian Schlining [brian@mbari.org]
  */
 public class JXObservationTableModel extends AbstractTableModel implements ObservationTableModel {
 
-    /** Map using database PrimaryKey values as the key */
-    private final List<Object> primaryKeys = new Vector<Object>();
-    private final List<Observation> observations = new Vector<Observation>();
+    /** Map using database PrimaryKey values as the key and the row as the value */
+    private final Map<Object, Integer> rows = new HashMap<Object, Integer>();
+    private final List<Observation> observations = new ArrayList<Observation>();
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final TableColumnModel tableColumnModel;
 
@@ -56,34 +65,53 @@ public class JXObservationTableModel extends AbstractTableModel implements Obser
      * @param obs The observation to add
      */
     public void addObservation(final Observation obs) {
+        if (append(obs)) {
+            final int index = observations.size() - 1;
+            fireTableRowsInserted(index, index);
+        }
+    }
+
+    /**
+     * Add observations to the end of the table model. The same rules as
+     * {@link #addObservation(Observation)} apply to each one. A single insert event
+     * is fired for all of them.
+     *
+     * @param newObservations The observations to add
+     */
+    public void addObservations(Collection<Observation> newObservations) {
+        final int first = observations.size();
+        for (Observation obs : newObservations) {
+            append(obs);
+        }
+
+        final int last = observations.size() - 1;
+        if (last >= first) {
+            fireTableRowsInserted(first, last);
+        }
+    }
+
+    /**
+     * Appends an observation without firing an event
+     *
+     * @return true if it was added
+     */
+    private boolean append(final Observation obs) {
         if ((obs != null) && (obs.getVideoFrame() != null)) {
 
             /**
              * Don't allow duplicate rows of the same observation in the table!!!!!
              */
 
-            if ((obs.getPrimaryKey() == null) || primaryKeys.contains(obs.getPrimaryKey())) {
+            if ((obs.getPrimaryKey() == null) || rows.containsKey(obs.getPrimaryKey())) {
                 log.debug("Observation does not have a primary key or is already in the TableModel");
-                return;
+                return false;
             }
 
-            primaryKeys.add(obs.getPrimaryKey());
+            rows.put(obs.getPrimaryKey(), observations.size());
             observations.add(obs);
+            addListeners(obs);
 
-            /*
-             * This property change listener redraws the row of the table when
-             * an association is added or removed from an observation.
-             */
-            obs.addPropertyChangeListener(Observation.PROP_ASSOCIATIONS, new AssociationListListener(obs));
-
-            /*
-             * This property change listener redraws the row of the table if the
-             * conceptName of the observation changes.
-             */
-            obs.addPropertyChangeListener(Observation.PROP_CONCEPT_NAME, new ConceptNameListener(obs));
-
-            final int index = primaryKeys.indexOf(obs.getPrimaryKey());
-            fireTableRowsInserted(index, index);
+            return true;
         }
         else {
             if (log.isWarnEnabled()) {
@@ -92,14 +120,50 @@ public class JXObservationTableModel extends AbstractTableModel implements Obser
             }
         }
 
+        return false;
+
+    }
+
+    /**
+     * Adds the listeners that redraw the observation's row when it changes. Any
+     * that this model added before are removed first so they don't pile up when
+     * the same instance is updated repeatedly.
+     */
+    private void addListeners(Observation observation) {
+        removeListeners(observation);
+
+        /*
+         * This property change listener redraws the row of the table when
+         * an association is added or removed from an observation.
+         */
+        observation.addPropertyChangeListener(Observation.PROP_ASSOCIATIONS, new AssociationListListener(observation));
+
+        /*
+         * This property change listener redraws the row of the table if the
+         * conceptName of the observation changes.
+         */
+        observation.addPropertyChangeListener(Observation.PROP_CONCEPT_NAME, new ConceptNameListener(observation));
+    }
+
+    private void removeListeners(Observation observation) {
+        PropertyChangeListener[] pcl = observation.getPropertyChangeListeners();
+        for (PropertyChangeListener listener : pcl) {
+            if (listener instanceof AssociationListListener || listener instanceof ConceptNameListener) {
+                observation.removePropertyChangeListener(listener);
+            }
+        }
     }
 
     /**
      * Remove all observations from the model
      */
     public void clear() {
+        for (Observation observation : observations) {
+            removeListeners(observation);
+        }
+
         observations.clear();
-        primaryKeys.clear();
+        rows.clear();
         redrawAll();
     }
 
@@ -138,8 +202,11 @@ public class JXObservationTableModel extends AbstractTableModel implements Obser
      */
     public int getObservationRow(Observation observation) {
         int row = -1;
-        if (observation != null) {
-            row = primaryKeys.indexOf(observation.getPrimaryKey());
+        if ((observation != null) && (observation.getPrimaryKey() != null)) {
+            Integer idx = rows.get(observation.getPrimaryKey());
+            if (idx != null) {
+                row = idx;
+            }
         }
 
         if (log.isDebugEnabled()) {
@@ -209,60 +276,136 @@ public class JXObservationTableModel extends AbstractTableModel implements Obser
      * @param obs
      */
     public void removeObservation(Observation obs) {
-
-        final int index = primaryKeys.indexOf(obs.getPrimaryKey());
+        final int index = getObservationRow(obs);
         if (index >= 0) {
-
-            // Remove propertychangelisteners
-            Observation observation = observations.get(index);
-            PropertyChangeListener[] pcl = observation.getPropertyChangeListeners();
-            for (PropertyChangeListener listener : pcl) {
-                if (listener instanceof AssociationListListener || listener instanceof ConceptNameListener) {
-                    observation.removePropertyChangeListener(listener);
-                }
-            }
+            removeListeners(observations.get(index));
             observations.remove(index);
-            primaryKeys.remove(index);
+            rows.remove(obs.getPrimaryKey());
+            reindex(index);
             fireTableRowsDeleted(index, index);
         }
     }
 
+    /**
+     * Remove observations from the model. The remaining rows are compacted in one
+     * pass and a single event is fired: a delete event if the removed rows were
+     * next to each other, otherwise a data changed event.
+     *
+     * @param oldObservations The observations to remove. Ones that are not in the
+     *      model are ignored
+     */
+    public void removeObservations(Collection<Observation> oldObservations) {
+        BitSet removed = new BitSet(observations.size());
+        for (Observation obs : oldObservations) {
+            int index = getObservationRow(obs);
+            if (index >= 0) {
+                removed.set(index);
+            }
+        }
+
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        final int first = removed.nextSetBit(0);
+        final int last = removed.length() - 1;
+        int n = first;
+        for (int i = first; i < observations.size(); i++) {
+            Observation observation = observations.get(i);
+            if (removed.get(i)) {
+                removeListeners(observation);
+                rows.remove(observation.getPrimaryKey());
+            }
+            else {
+                observations.set(n, observation);
+                n++;
+            }
+        }
+
+        observations.subList(n, observations.size()).clear();
+        reindex(first);
+
+        if (removed.cardinality() == last - first + 1) {
+            fireTableRowsDeleted(first, last);
+        }
+        else {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * Brings the row map back in step with the list from row <i>from</i> on.
+     */
+    private void reindex(int from) {
+        for (int i = from; i < observations.size(); i++) {
+            rows.put(observations.get(i).getPrimaryKey(), i);
+        }
+    }
+
     /**
      *
      * @param observation
      */
     public void updateObservation(Observation observation) {
+        int idx = replace(observation);
+        if (idx >= 0) {
+            fireTableRowsUpdated(idx, idx);
+        }
+
+    }
+
+    /**
+     * Replace observations in the model with ones that have the same primary keys.
+     * A single update event, covering all the changed rows, is fired.
+     *
+     * @param newObservations The replacement observations. Ones that are not
+     *      already in the model are ignored
+     */
+    public void updateObservations(Collection<Observation> newObservations) {
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        for (Observation observation : newObservations) {
+            int idx = replace(observation);
+            if (idx >= 0) {
+                first = Math.min(first, idx);
+                last = Math.max(last, idx);
+            }
+        }
+
+        if (last >= 0) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    /**
+     * Swaps in the observation for the one with the same primary key without
+     * firing an event
+     *
+     * @return The row that was replaced. -1 if the observation is not in the model
+     */
+    private int replace(Observation observation) {
         if ((observation != null) && (observation.getVideoFrame() != null)) {
 
             /**
              * Don't allow duplicate rows of the same observation in the table!!!!!
              */
-
-            if ((observation.getPrimaryKey() == null) || !primaryKeys.contains(observation.getPrimaryKey())) {
+            int idx = getObservationRow(observation);
+            if (idx < 0) {
                 log.debug("Observation does not have a primary key or is not already in the TableModel");
-                return;
+                return -1;
             }
 
-            int idx = primaryKeys.indexOf(observation.getPrimaryKey());
-            observations.remove(idx);
-            observations.add(idx, observation);
-
-            /*
-             * This property change listener redraws the row of the table when
-             * an association is added or removed from an observation.
-             */
-            observation.addPropertyChangeListener(Observation.PROP_ASSOCIATIONS,
-                    new AssociationListListener(observation));
+            Observation oldObservation = observations.set(idx, observation);
+            if (oldObservation != observation) {
+                removeListeners(oldObservation);
+            }
 
-            /*
-             * This property change listener redraws the row of the table if the
-             * conceptName of the observation changes.
-             */
-            observation.addPropertyChangeListener(Observation.PROP_CONCEPT_NAME, new ConceptNameListener(observation));
+            addListeners(observation);
 
-            fireTableRowsUpdated(idx, idx);
+            return idx;
         }
 
+        return -1;
     }
 
     /**
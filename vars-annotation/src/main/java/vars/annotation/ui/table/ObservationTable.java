@@ -25,6 +25,27 @@ public interface ObservationTable {
     
     void updateObservation(Observation observation);
 
+    /**
+     * Delegate method that passes the call on to the ObservationTableModel
+     *
+     * @param observations
+     */
+    void addObservations(Collection<Observation> observations);
+
+    /**
+     * Delegate method that passes the call on to the ObservationTableModel
+     *
+     * @param observations
+     */
+    void removeObservations(Collection<Observation> observations);
+
+    /**
+     * Delegate method that passes the call on to the ObservationTableModel
+     *
+     * @param observations
+     */
+    void updateObservations(Collection<Observation> observations);
+
     /**
      * @param obs
      */
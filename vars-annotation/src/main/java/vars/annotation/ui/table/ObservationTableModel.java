@@ -2,6 +2,8 @@ package vars.annotation.ui.table;
 
 import vars.annotation.Observation;
 
+import java.util.Collection;
+
 public interface ObservationTableModel {
     
     
@@ -21,6 +23,13 @@ public interface ObservationTableModel {
      * @param  obs The observation to be added.
      */
     void addObservation(final Observation obs);
+
+    /**
+     * Adds several observations to the table model, firing a single table event.
+     *
+     * @param observations The observations to be added
+     */
+    void addObservations(Collection<Observation> observations);
     
     void clear();
 
@@ -98,7 +107,22 @@ public interface ObservationTableModel {
      * @param  obs The observation to be removed.
      */
      void removeObservation(final Observation obs);
+
+    /**
+     * Removes several observations from the table model, firing a single table event.
+     *
+     * @param observations The observations to be removed
+     */
+     void removeObservations(Collection<Observation> observations);
      
      void updateObservation(Observation observation);
 
+    /**
+     * Replaces several observations in the table model with the ones that have
+     * matching primary keys, firing a single table event.
+     *
+     * @param observations The replacement observations
+     */
+     void updateObservations(Collection<Observation> observations);
+
 }
\ No newline at end of file
@@ -38,6 +38,7 @@ import vars.annotation.ui.ToolBelt;
 import vars.annotation.ui.commandqueue.Command;
 import vars.annotation.ui.commandqueue.CommandEvent;
 import vars.annotation.ui.commandqueue.impl.AddObservationCmd;
+import vars.annotation.ui.commandqueue.impl.ChangeImageReferenceCmd;
 import vars.shared.ui.video.ImageCaptureService;
 import vars.shared.ui.video.VideoControlService;
 
@@ -102,6 +103,7 @@ public class ImageCaptureAction extends ActionAdapter {
         }
 
         // --- Step 2: Get Video timecode and recordedDate
+        long start = System.nanoTime();
         final SnapTime snapTime = getSnapTime(videoControlService);
 
         // --- Step 3: Get location to write original PNG file to
@@ -116,33 +118,50 @@ public class ImageCaptureAction extends ActionAdapter {
             return;
         }
 
-        // --- Step 4: Save PNG
-        final BufferedImage bufferedImage = grabImageAndSavePng(imageCaptureService, png, snapTime);
-
-        // --- Step 5: Create JPG and add annotation off main thread
-        final File pngFile = png;
-        Runnable runnable = new Runnable() {
-
-            @Override
-            public void run() {
-                JPGPreviewUtilities.createCommentFile(pngFile, snapTime);
-                final String[] overlayText = JPGPreviewUtilities.createOverlayText(pngFile, snapTime);
-                JPGPreviewUtilities.createOverlayFile(pngFile, overlayText);
-                File jpg = null;
-                try {
-                    jpg = FileUtilities.changeExtension(pngFile, ".jpg");
-                    JPGPreviewUtilities.createJpgWithOverlay(bufferedImage, jpg, overlayText);
-                }
-                catch (Exception e) {
-                    EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR, e);
-                    log.error("Failed to write jpg preview file to " + jpg.getAbsolutePath(), e);
+        final File jpg = FileUtilities.changeExtension(png, ".jpg");
+        final String jpgReference = toImageReference(jpg);
+        final String pngReference = toImageReference(png);
+
+        // --- Step 4: Grab the image. This is the only part the user has to wait for
+        final BufferedImage bufferedImage = grabImage(imageCaptureService, png, snapTime);
+
+        /*
+         * --- Step 5: Add the annotation now, pointing at the jpg that's about to be
+         * written, so the image reference is recorded even if the write is slow or fails.
+         */
+        final String videoArchiveName = updateVideoArchive(snapTime, jpgReference);
+
+        // --- Step 6: Write the PNG and JPG off of this thread
+        ImageWritePipeline.Framegrab framegrab = new ImageWritePipeline.Framegrab(bufferedImage, png, jpg, snapTime,
+            imageCaptureService.isPngAutosaved());
+        ImageWritePipeline.getInstance().submit(framegrab, new ImageWritePipeline.Callback() {
 
+            public void completed(ImageWritePipeline.Framegrab framegrab) {
+                if (framegrab.isJpgWritten()) {
                     return;
                 }
-                updateVideoArchive(snapTime, jpg);
+
+                if (framegrab.isPngWritten() && (videoArchiveName != null) && (pngReference != null)) {
+
+                    // The preview failed but the full image is there. Point the annotation at that instead
+                    log.warn("Unable to write " + jpg.getAbsolutePath() + ". Using " + pngReference +
+                             " as the image reference");
+                    EventBus.publish(new CommandEvent(new ChangeImageReferenceCmd(videoArchiveName,
+                            snapTime.getTimeCodeAsString(), jpgReference, pngReference)));
+                }
+                else {
+                    EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR,
+                                     "Failed to write the framegrab for " + snapTime.getTimeCodeAsString() +
+                                     " to " + jpg.getParent() + ". The annotation still references " +
+                                     jpgReference);
+                }
             }
-        };
-        (new Thread(runnable, "JPEG-Generation-" + snapTime.getObservationDate().getTime())).run();
+        });
+
+        if (log.isDebugEnabled()) {
+            log.debug("Frame capture at " + snapTime.getTimeCodeAsString() + " returned in " +
+                      ((System.nanoTime() - start) / 1000000L) + " ms");
+        }
 
     }
 
@@ -177,27 +196,25 @@ public class ImageCaptureAction extends ActionAdapter {
 
     }
 
-    private BufferedImage grabImageAndSavePng(ImageCaptureService imageCaptureService, File png, SnapTime snapTime) {
+    /**
+     * Grabs the current frame. If the image capture service doesn't save the PNG
+     * itself it's left for the {@link ImageWritePipeline} to write.
+     */
+    private BufferedImage grabImage(ImageCaptureService imageCaptureService, File png, SnapTime snapTime) {
 
         if (log.isDebugEnabled()) {
-            log.debug("Attempting to save an image to " + png.getAbsolutePath());
+            log.debug("Attempting to capture an image for " + png.getAbsolutePath());
         }
 
         Image image;
-        BufferedImage bufferedImage;
-
         if (imageCaptureService.isPngAutosaved()) {
             image = imageCaptureService.capture(png);
-            bufferedImage = ImageUtilities.toBufferedImage(image);
         }
         else {
             image = imageCaptureService.capture(snapTime.getTimeCodeAsString());
-            bufferedImage = ImageUtilities.toBufferedImage(image);
-            Runnable saveRunnable = new SaveImageRunnable(bufferedImage, png);
-            (new Thread(saveRunnable, "ImageIO-" + png.getName())).run();
         }
 
-        return bufferedImage;
+        return ImageUtilities.toBufferedImage(image);
 
     }
 
@@ -212,36 +229,46 @@ public class ImageCaptureAction extends ActionAdapter {
 
     /**
      * Populate a videoFrame with the correct information
+     *
+     * @return The name of the video archive the annotation was added to. null if
+     *      no video archive is open
      */
-    private void updateVideoArchive(SnapTime snapTime, File jpg) {
+    private String updateVideoArchive(SnapTime snapTime, String imageReference) {
 
         VideoArchive videoArchive = (VideoArchive) Lookup.getVideoArchiveDispatcher().getValueObject();
-        if (videoArchive != null) {
+        if (videoArchive == null) {
+            return null;
+        }
 
-            CameraDirections cameraDirections = (CameraDirections) Lookup.getCameraDirectionDispatcher()
-                .getValueObject();
-            final String cameraDirection = cameraDirections.getDirection();
+        CameraDirections cameraDirections = (CameraDirections) Lookup.getCameraDirectionDispatcher()
+            .getValueObject();
+        final String cameraDirection = cameraDirections.getDirection();
 
-            UserAccount userAccount = (UserAccount) Lookup.getUserAccountDispatcher().getValueObject();
-            String user = (userAccount == null) ? UserAccount.USERNAME_DEFAULT : userAccount.getUserName();
-            String imageReference = null;
+        UserAccount userAccount = (UserAccount) Lookup.getUserAccountDispatcher().getValueObject();
+        String user = (userAccount == null) ? UserAccount.USERNAME_DEFAULT : userAccount.getUserName();
 
-            try {
-                imageReference = jpg.toURI().toURL().toExternalForm();
-            }
-            catch (final MalformedURLException e) {
-                if (log.isErrorEnabled()) {
-                    log.error("Problem creating a URL.", e);
-                }
-            }
+        // FIXME physical object is hardcoded. Should be set in preferences
+        Command command = new AddObservationCmd("physical object", snapTime.getTimeCodeAsString(),
+            snapTime.getRecordedDate(), videoArchive.getName(), user, cameraDirection, null, imageReference, true);
+        CommandEvent commandEvent = new CommandEvent(command);
+        EventBus.publish(commandEvent);
 
-            // FIXME physical object is hardcoded. Should be set in preferences
-            Command command = new AddObservationCmd("physical object", snapTime.getTimeCodeAsString(),
-                snapTime.getRecordedDate(), videoArchive.getName(), user, cameraDirection, null, imageReference, true);
-            CommandEvent commandEvent = new CommandEvent(command);
-            EventBus.publish(commandEvent);
+        return videoArchive.getName();
+
+    }
+
+    private String toImageReference(File file) {
+        String imageReference = null;
+        try {
+            imageReference = file.toURI().toURL().toExternalForm();
+        }
+        catch (final MalformedURLException e) {
+            if (log.isErrorEnabled()) {
+                log.error("Problem creating a URL.", e);
+            }
         }
 
+        return imageReference;
     }
 
 }
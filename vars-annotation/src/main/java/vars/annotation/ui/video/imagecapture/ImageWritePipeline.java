@@ -0,0 +1,333 @@
+package vars.annotation.ui.video.imagecapture;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.ui.VARSProperties;
+import vars.shared.ui.video.ImageCaptureException;
+
+/**
+ * Encodes and writes framegrabs in the background so that a frame capture only has
+ * to wait for the image to be grabbed. The PNG and the JPG preview (with its
+ * overlay, .comment and .overlay files) of each framegrab are written in parallel
+ * on a small pool of threads. Each write is retried a few times before it's given
+ * up on.
+ * <p>
+ * The number of framegrabs in flight is bounded. When the bound is reached
+ * {@link #submit(Framegrab, Callback)} blocks until a framegrab finishes, which
+ * keeps a runaway capture loop from filling the heap with decoded images.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ImageWritePipeline {
+
+    /** Number of times a file write is attempted before it's treated as failed */
+    public static final int MAX_ATTEMPTS = 3;
+
+    /** Milliseconds to wait after the first failed write. Doubles on each retry */
+    private static final long RETRY_DELAY = 250L;
+    private static ImageWritePipeline instance;
+    private static final Logger log = LoggerFactory.getLogger(ImageWritePipeline.class);
+    private final ThreadPoolExecutor executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    /**
+     * Constructs ...
+     *
+     * @param threads The number of encoder/writer threads
+     * @param maxInFlight The maximum number of framegrabs that can be queued or
+     *      being written at once
+     */
+    public ImageWritePipeline(int threads, int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ImageIO-" + count.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return The shared pipeline used by the annotation application. It's sized using
+     *      {@link VARSProperties#getImageWriteThreads()} and
+     *      {@link VARSProperties#getImageWriteQueueSize()}
+     */
+    public static synchronized ImageWritePipeline getInstance() {
+        if (instance == null) {
+            instance = new ImageWritePipeline(VARSProperties.getImageWriteThreads(),
+                                              VARSProperties.getImageWriteQueueSize());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Queue a framegrab to be written. This returns as soon as the work is queued
+     * unless the pipeline is full, in which case it blocks until there's room.
+     *
+     * @param framegrab The framegrab to write
+     * @param callback Notified, on one of the pipeline threads, once both files have
+     *      been written or have failed. May be null.
+     */
+    public void submit(final Framegrab framegrab, final Callback callback) {
+        if (!inFlight.tryAcquire()) {
+            log.info("Image write pipeline is full (" + maxInFlight + " framegrabs). Waiting for " +
+                     "earlier framegrabs to be written");
+            inFlight.acquireUninterruptibly();
+        }
+
+        final AtomicInteger remaining = new AtomicInteger(2);
+        Runnable pngTask = new Runnable() {
+
+            public void run() {
+                try {
+                    writePng(framegrab);
+                }
+                finally {
+                    finish(framegrab, callback, remaining);
+                }
+            }
+        };
+        Runnable jpgTask = new Runnable() {
+
+            public void run() {
+                try {
+                    writeJpg(framegrab);
+                }
+                finally {
+                    finish(framegrab, callback, remaining);
+                }
+            }
+        };
+
+        try {
+            executor.execute(pngTask);
+        }
+        catch (RuntimeException e) {
+            log.warn("The image write pipeline has been shut down. Writing " + framegrab.getPng().getName() +
+                     " on the calling thread");
+            pngTask.run();
+        }
+
+        try {
+            executor.execute(jpgTask);
+        }
+        catch (RuntimeException e) {
+            jpgTask.run();
+        }
+    }
+
+    private void finish(Framegrab framegrab, Callback callback, AtomicInteger remaining) {
+        if (remaining.decrementAndGet() == 0) {
+            inFlight.release();
+            if (callback != null) {
+                try {
+                    callback.completed(framegrab);
+                }
+                catch (Exception e) {
+                    log.error("Image write callback failed for " + framegrab.getPng().getAbsolutePath(), e);
+                }
+            }
+        }
+    }
+
+    private void writePng(Framegrab framegrab) {
+        if (framegrab.isPngSaved()) {
+            framegrab.pngWritten = framegrab.getPng().exists();
+        }
+        else {
+            try {
+                write(framegrab.getImage(), framegrab.getPng());
+                framegrab.pngWritten = true;
+            }
+            catch (ImageCaptureException e) {
+                framegrab.pngFailure = e;
+                log.error("Failed to write " + framegrab.getPng().getAbsolutePath(), e);
+            }
+        }
+    }
+
+    private void writeJpg(Framegrab framegrab) {
+        File png = framegrab.getPng();
+        SnapTime snapTime = framegrab.getSnapTime();
+        try {
+            JPGPreviewUtilities.createCommentFile(png, snapTime);
+            String[] overlayText = JPGPreviewUtilities.createOverlayText(png, snapTime);
+            JPGPreviewUtilities.createOverlayFile(png, overlayText);
+            BufferedImage jpgImage = JPGPreviewUtilities.createOverlayImage(framegrab.getImage(), overlayText);
+            write(jpgImage, framegrab.getJpg());
+            framegrab.jpgWritten = true;
+        }
+        catch (Exception e) {
+            framegrab.jpgFailure = e;
+            log.error("Failed to write jpg preview file to " + framegrab.getJpg().getAbsolutePath(), e);
+        }
+    }
+
+    private void write(BufferedImage image, File target) {
+        long delay = RETRY_DELAY;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                new SaveImageRunnable(image, target).run();
+
+                return;
+            }
+            catch (ImageCaptureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+
+                log.warn("Attempt " + attempt + " of " + MAX_ATTEMPTS + " to write " + target.getAbsolutePath() +
+                         " failed. Retrying in " + delay + " ms", e);
+
+                try {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+
+                    throw e;
+                }
+
+                delay *= 2;
+            }
+        }
+    }
+
+    /**
+     * @return The number of framegrabs that are queued or being written
+     */
+    public int getPendingCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Stops accepting new work and waits for the queued framegrabs to be written.
+     * Call this before the application exits so that no framegrabs are lost.
+     *
+     * @param timeout Maximum milliseconds to wait
+     * @return true if every queued framegrab was written before the timeout
+     */
+    public boolean shutdown(long timeout) {
+        executor.shutdown();
+        boolean done = false;
+        try {
+            done = executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!done) {
+            log.warn("Timed out waiting for " + getPendingCount() + " framegrabs to be written");
+        }
+
+        return done;
+    }
+
+    /**
+     * Notified when a framegrab has been through the pipeline.
+     */
+    public interface Callback {
+
+        /**
+         * Called once both the PNG and JPG have been written or have failed. Check
+         * {@link Framegrab#isPngWritten()} and {@link Framegrab#isJpgWritten()}.
+         */
+        void completed(Framegrab framegrab);
+    }
+
+
+    /**
+     * A single captured image and the files it should be written to.
+     */
+    public static class Framegrab {
+
+        private final BufferedImage image;
+        private final File jpg;
+        private volatile Exception jpgFailure;
+        private volatile boolean jpgWritten;
+        private final File png;
+        private volatile Exception pngFailure;
+        private final boolean pngSaved;
+        private volatile boolean pngWritten;
+        private final SnapTime snapTime;
+
+        /**
+         * Constructs ...
+         *
+         * @param image The captured image
+         * @param png The file to write the full size PNG to
+         * @param jpg The file to write the JPG preview, with overlay, to
+         * @param snapTime When the image was captured
+         * @param pngSaved true if the image capture service has already written the PNG
+         */
+        public Framegrab(BufferedImage image, File png, File jpg, SnapTime snapTime, boolean pngSaved) {
+            this.image = image;
+            this.png = png;
+            this.jpg = jpg;
+            this.snapTime = snapTime;
+            this.pngSaved = pngSaved;
+        }
+
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        public File getJpg() {
+            return jpg;
+        }
+
+        /**
+         * @return The exception that caused the JPG write to fail. null if it didn't fail
+         */
+        public Exception getJpgFailure() {
+            return jpgFailure;
+        }
+
+        public File getPng() {
+            return png;
+        }
+
+        /**
+         * @return The exception that caused the PNG write to fail. null if it didn't fail
+         */
+        public Exception getPngFailure() {
+            return pngFailure;
+        }
+
+        public SnapTime getSnapTime() {
+            return snapTime;
+        }
+
+        public boolean isJpgWritten() {
+            return jpgWritten;
+        }
+
+        public boolean isPngSaved() {
+            return pngSaved;
+        }
+
+        public boolean isPngWritten() {
+            return pngWritten;
+        }
+    }
+}
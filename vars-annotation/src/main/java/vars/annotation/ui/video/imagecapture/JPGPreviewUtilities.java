@@ -147,8 +147,23 @@ public class JPGPreviewUtilities {
      * @return
      */
     public static BufferedImage createJpgWithOverlay(final Image image, final File jpg, final String[] overlayText) {
+        final BufferedImage bi = createOverlayImage(image, overlayText);
+        new SaveImageRunnable(bi, jpg).run();
 
-        // Copy BufferedImage and set .jpg file name
+        return bi;
+    }
+
+    /**
+     * Copy the image into an RGB image, suitable for writing as a jpg, and draw the
+     * overlay text onto the copy. The original image is not modified.
+     *
+     * @param  image        a java.awt.Image to add the text overlay to
+     * @param  overlayText  The text to overlay onto the image
+     * @return A new image with the overlay drawn on it
+     */
+    public static BufferedImage createOverlayImage(final Image image, final String[] overlayText) {
+
+        // Copy BufferedImage
         final BufferedImage bi = new BufferedImage(image.getWidth(null), image.getHeight(null),
                 BufferedImage.TYPE_INT_RGB);
         Graphics2D g = (Graphics2D) bi.getGraphics();
@@ -168,9 +183,6 @@ public class JPGPreviewUtilities {
 
         g.dispose();
 
-        Runnable saveRunnable = new SaveImageRunnable(bi, jpg);
-        (new Thread(saveRunnable, "ImageIO-" + jpg.getName())).run();
-
         return bi;
     }
 
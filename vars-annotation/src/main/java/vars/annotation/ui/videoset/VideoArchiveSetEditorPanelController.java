@@ -54,9 +54,7 @@ import vars.annotation.ui.commandqueue.impl.RemoveObservationsCmd;
 import vars.annotation.ui.commandqueue.impl.RenameObservationsCmd;
 import vars.annotation.ui.table.JXObservationTable;
 import vars.annotation.ui.table.ObservationTableModel;
-import vars.knowledgebase.Concept;
-import vars.knowledgebase.ConceptDAO;
-import vars.knowledgebase.LinkTemplateDAO;
+import vars.knowledgebase.LinkTemplateIndex;
 import vars.shared.ui.LinkSelectionPanel;
 import vars.shared.ui.dialogs.ConceptNameSelectionDialog;
 import vars.shared.ui.dialogs.StandardDialog;
@@ -69,6 +67,7 @@ import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -173,36 +172,26 @@ public class VideoArchiveSetEditorPanelController {
      */
     private Collection<ILink> findLinkTemplatesForObservations(Collection<Observation> observations) {
         Collection<ILink> linkTemplates = new HashSet<ILink>();
-        Collection<String> conceptNames = new ArrayList<String>();
-
-        // The 2 DAO's share the same entityManger and thus the same transaction
-        LinkTemplateDAO linkTemplateDAO = toolBelt.getKnowledgebaseDAOFactory().newLinkTemplateDAO();
-        ConceptDAO conceptDAO = toolBelt.getKnowledgebaseDAOFactory().newConceptDAO(linkTemplateDAO.getEntityManager());
-        linkTemplateDAO.startTransaction();
+        Collection<String> conceptNames = new HashSet<String>();
+        LinkTemplateIndex linkTemplateIndex = toolBelt.getLinkTemplateIndex();
 
         // Aggregate the link templates that can be applied to the selected concepts
         for (Observation observation : observations) {
-            if (!conceptNames.contains(observation.getConceptName())) {
-                Concept concept = conceptDAO.findByName(observation.getConceptName());
-                if (concept != null) {
-
-                    // Search for the link templates that can be used by each concept
-                    // in the annotations. We'll limit the selection to these. NOTE
-                    // this isn't perfect since it allows applying linktemplates
-                    // to concepts they don't belong to.
-                    linkTemplates.addAll(linkTemplateDAO.findAllApplicableToConcept(concept));
-                }
-                else {
-                    log.debug("Unable to find Concept named '" + observation.getConceptName() +
-                            "' in the knowledgebase");
+            if (conceptNames.add(observation.getConceptName())) {
+
+                // Search for the link templates that can be used by each concept
+                // in the annotations. We'll limit the selection to these. NOTE
+                // this isn't perfect since it allows applying linktemplates
+                // to concepts they don't belong to.
+                List<ILink> links = linkTemplateIndex.findApplicableLinks(observation.getConceptName());
+                if (links.isEmpty()) {
+                    log.debug("No link templates found for '" + observation.getConceptName() + "'");
                 }
 
-                conceptNames.add(observation.getConceptName());
+                linkTemplates.addAll(links);
             }
         }
 
-        linkTemplateDAO.endTransaction();
-
         return linkTemplates;
     }
 
@@ -477,14 +466,16 @@ public class VideoArchiveSetEditorPanelController {
             // repopulate the table and pull out parts need to set other UI components
             Collection<String> names = new HashSet<String>();         // for ConceptComboBox
             Collection<ILink> associations = new HashSet<ILink>();    // for associationComboBox
+            Collection<Observation> allObservations = new ArrayList<Observation>();
             for (VideoFrame videoFrame : videoFrames) {
                 final Collection<Observation> observations = ImmutableList.copyOf(videoFrame.getObservations());
                 for (Observation observation : observations) {
-                    myTable.addObservation(observation);
+                    allObservations.add(observation);
                     names.add(observation.getConceptName());
                     associations.addAll(observation.getAssociations());
                 }
             }
+            myTable.addObservations(allObservations);
 
             // Update the conceptComboBox
             String[] namesArray = new String[names.size()];
@@ -0,0 +1,237 @@
+package vars.annotation.ui;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import vars.annotation.AnnotationDAOFactory;
+import vars.annotation.Observation;
+import vars.annotation.VideoArchive;
+import vars.annotation.VideoArchiveDAO;
+import vars.annotation.VideoArchiveSet;
+import vars.annotation.VideoFrame;
+import vars.annotation.ui.eventbus.ObservationsChangedEvent;
+import vars.annotation.ui.eventbus.VideoFramesChangedEvent;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class VideoArchivePrefetcherTest {
+
+    /** The names of the VideoArchives loaded with findWithGraph, in order */
+    private final List<String> loads = Collections.synchronizedList(new ArrayList<String>());
+    private final Map<String, VideoArchive> videoArchives = new HashMap<String, VideoArchive>();
+    private AnnotationDAOFactory annotationDAOFactory;
+
+    @Before
+    public void setup() {
+        final Set<VideoArchive> members = new HashSet<VideoArchive>();
+        final VideoArchiveSet videoArchiveSet = newProxy(VideoArchiveSet.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("getVideoArchives") ? members : null;
+            }
+        });
+
+        // Added out of order. The prefetcher sorts them by name
+        for (String name : Arrays.asList("T0001-05", "T0001-02", "T0001-00", "T0001-07", "T0001-01", "T0001-03",
+                                         "T0001-08", "T0001-04", "T0001-06")) {
+            VideoArchive videoArchive = newVideoArchive(name, videoArchiveSet);
+            videoArchives.put(name, videoArchive);
+            members.add(videoArchive);
+        }
+
+        final VideoArchiveDAO dao = newProxy(VideoArchiveDAO.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("findByPrimaryKey") || name.equals("findByName")) {
+                    return videoArchives.get(args[0]);
+                }
+                else if (name.equals("findWithGraph")) {
+                    String videoArchiveName = ((VideoArchive) args[0]).getName();
+                    loads.add(videoArchiveName);
+
+                    return newVideoArchive(videoArchiveName, null);
+                }
+
+                return null;
+            }
+        });
+
+        annotationDAOFactory = newProxy(AnnotationDAOFactory.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("newVideoArchiveDAO") ? dao : null;
+            }
+        });
+    }
+
+    @Test(timeout = 10000)
+    public void testNeighborOrder() throws InterruptedException {
+        VideoArchivePrefetcher prefetcher = new VideoArchivePrefetcher(annotationDAOFactory);
+        prefetch(prefetcher, "T0001-04", 2);
+
+        // The next one is the most likely to be opened so it's loaded first
+        assertEquals(Arrays.asList("T0001-05", "T0001-03"), loads);
+        awaitSize(prefetcher, 2);
+        VideoArchive prefetched = prefetcher.take(videoArchives.get("T0001-05"));
+        assertNotNull(prefetched);
+        assertNotSame(videoArchives.get("T0001-05"), prefetched);
+
+        // Handed out only once
+        assertNull(prefetcher.take(videoArchives.get("T0001-05")));
+        assertNotNull(prefetcher.take(videoArchives.get("T0001-03")));
+        assertNull(prefetcher.take(videoArchives.get("T0001-04")));
+
+        // The first and last only have one neighbor
+        prefetch(prefetcher, "T0001-08", 3);
+        assertEquals("T0001-07", loads.get(2));
+    }
+
+    @Test(timeout = 10000)
+    public void testSizeIsBounded() throws InterruptedException {
+        VideoArchivePrefetcher prefetcher = new VideoArchivePrefetcher(annotationDAOFactory);
+        prefetch(prefetcher, "T0001-01", 2);    // Loads 02 and 00
+        prefetch(prefetcher, "T0001-03", 3);    // Loads 04. 02 is used again
+        prefetch(prefetcher, "T0001-05", 4);    // Loads 06. 04 is used again
+        prefetch(prefetcher, "T0001-07", 5);    // Loads 08. 06 is used again
+        while (prefetcher.take(videoArchives.get("T0001-08")) == null) {
+            Thread.sleep(10);
+        }
+
+        // 00 was the least recently used when 08 pushed the cache over its limit
+        assertEquals(VideoArchivePrefetcher.MAX_VIDEO_ARCHIVES - 1, prefetcher.size());
+        assertNull(prefetcher.take(videoArchives.get("T0001-00")));
+        for (String name : Arrays.asList("T0001-02", "T0001-04", "T0001-06")) {
+            assertNotNull(name, prefetcher.take(videoArchives.get(name)));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testMaxAge() throws InterruptedException {
+        VideoArchivePrefetcher prefetcher = new VideoArchivePrefetcher(annotationDAOFactory, 50L);
+        prefetch(prefetcher, "T0001-04", 2);
+        awaitSize(prefetcher, 2);
+        Thread.sleep(100L);
+        assertNull(prefetcher.take(videoArchives.get("T0001-05")));
+        assertEquals(1, prefetcher.size());
+
+        // Expired graphs are loaded again rather than kept
+        prefetch(prefetcher, "T0001-04", 4);
+        assertEquals(Arrays.asList("T0001-05", "T0001-03", "T0001-05", "T0001-03"), loads);
+    }
+
+    @Test(timeout = 10000)
+    public void testObservationsChangedInvalidates() throws InterruptedException {
+        VideoArchivePrefetcher prefetcher = new VideoArchivePrefetcher(annotationDAOFactory);
+        prefetch(prefetcher, "T0001-04", 2);
+        awaitSize(prefetcher, 2);
+
+        Collection<Observation> observations = Arrays.asList(newObservation(videoArchives.get("T0001-05")));
+        prefetcher.respondTo(new ObservationsChangedEvent(this, observations));
+        assertNull(prefetcher.take(videoArchives.get("T0001-05")));
+        assertNotNull(prefetcher.take(videoArchives.get("T0001-03")));
+    }
+
+    @Test(timeout = 10000)
+    public void testVideoFramesChangedInvalidates() throws InterruptedException {
+        VideoArchivePrefetcher prefetcher = new VideoArchivePrefetcher(annotationDAOFactory);
+        prefetch(prefetcher, "T0001-04", 2);
+        awaitSize(prefetcher, 2);
+
+        Collection<VideoFrame> videoFrames = Arrays.asList(newVideoFrame(videoArchives.get("T0001-03")));
+        prefetcher.respondTo(new VideoFramesChangedEvent(this, videoFrames));
+        assertNull(prefetcher.take(videoArchives.get("T0001-03")));
+        assertEquals(1, prefetcher.size());
+
+        // A VideoFrame that can't say where it belongs drops everything
+        videoFrames = Arrays.asList(newVideoFrame(null));
+        prefetcher.respondTo(new VideoFramesChangedEvent(this, videoFrames));
+        assertEquals(0, prefetcher.size());
+    }
+
+    /**
+     * Prefetches the neighbors of a VideoArchive and waits for the loads to start.
+     * The prefetcher only queues the latest request so each has to be picked up
+     * before the next one is made.
+     */
+    private void prefetch(VideoArchivePrefetcher prefetcher, String name, int expectedLoads)
+            throws InterruptedException {
+        prefetcher.prefetchNeighborsOf(videoArchives.get(name));
+        while (loads.size() < expectedLoads) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitSize(VideoArchivePrefetcher prefetcher, int size) throws InterruptedException {
+        while (prefetcher.size() < size) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Observation newObservation(VideoArchive videoArchive) {
+        final VideoFrame videoFrame = newVideoFrame(videoArchive);
+
+        return newProxy(Observation.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("getVideoFrame") ? videoFrame : null;
+            }
+        });
+    }
+
+    private VideoFrame newVideoFrame(final VideoArchive videoArchive) {
+        return newProxy(VideoFrame.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("getVideoArchive") ? videoArchive : null;
+            }
+        });
+    }
+
+    private static VideoArchive newVideoArchive(final String name, final VideoArchiveSet videoArchiveSet) {
+        return newProxy(VideoArchive.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String methodName = method.getName();
+                if (methodName.equals("getName") || methodName.equals("getPrimaryKey")) {
+                    return name;
+                }
+                else if (methodName.equals("getVideoArchiveSet")) {
+                    return videoArchiveSet;
+                }
+                else if (methodName.equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                else if (methodName.equals("equals")) {
+                    return proxy == args[0];
+                }
+                else if (methodName.equals("toString")) {
+                    return "VideoArchive[" + name + "]";
+                }
+
+                return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newProxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(VideoArchivePrefetcherTest.class.getClassLoader(), new Class<?>[] { type },
+                                          handler);
+    }
+}
@@ -0,0 +1,172 @@
+package vars.annotation.ui.commandqueue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import org.junit.Before;
+import org.junit.Test;
+import vars.annotation.AnnotationDAOFactory;
+import vars.annotation.VideoArchiveDAO;
+import vars.annotation.ui.ToolBelt;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class CommandQueueTest {
+
+    /** What the commands and the batch did, in order */
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+    private CommandQueue commandQueue;
+
+    @Before
+    public void setup() {
+        ToolBelt toolBelt = new ToolBelt(newAnnotationDAOFactory(), null, null, null, null, null, null, null, null,
+                                         null, null, null, null, null, null, null);
+        commandQueue = new CommandQueue(toolBelt, 500L);
+    }
+
+    @Test
+    public void testBatchCommitAndUndo() throws InterruptedException {
+        for (String name : Arrays.asList("A", "B", "C")) {
+            commandQueue.queueCommand(new CommandEvent(new TestCommand(name, false)));
+        }
+
+        awaitCommandsExecuted(3);
+        assertEquals(1, commandQueue.getStatistics().getBatchesCommitted());
+        assertEquals(1, commits.get());
+        assertEquals(Arrays.asList("batch A", "batch B", "batch C", "after A", "after B", "after C"), events);
+
+        // Each command in the batch is undone on its own, last one first. The undo
+        // stack is filled just after the commit is counted so give it a moment.
+        Thread.sleep(200);
+        commandQueue.undo(new UndoEvent());
+        commandQueue.undo(new UndoEvent());
+        awaitCommandsExecuted(5);
+        assertEquals(Arrays.asList("unapply C", "unapply B"), events.subList(6, 8));
+    }
+
+    @Test
+    public void testFailingAfterCommitActionDoesNotReplay() throws InterruptedException {
+        commandQueue.queueCommand(new CommandEvent(new TestCommand("A", true)));
+        commandQueue.queueCommand(new CommandEvent(new TestCommand("B", true)));
+
+        awaitCommandsExecuted(2);
+        assertEquals(1, commits.get());
+        assertEquals(0, rollbacks.get());
+
+        // The failures are logged, every action still runs and no command is applied twice
+        assertEquals(Arrays.asList("batch A", "batch B", "after A", "after B"), events);
+    }
+
+    private void awaitCommandsExecuted(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while ((commandQueue.getStatistics().getCommandsExecuted() < count) &&
+                (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(count, commandQueue.getStatistics().getCommandsExecuted());
+    }
+
+    private AnnotationDAOFactory newAnnotationDAOFactory() {
+        final EntityTransaction transaction = newProxy(EntityTransaction.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("isActive")) {
+                    return true;
+                }
+                else if (method.getName().equals("rollback")) {
+                    rollbacks.incrementAndGet();
+                }
+
+                return null;
+            }
+        });
+        final EntityManager entityManager = newProxy(EntityManager.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("isOpen")) {
+                    return true;
+                }
+                else if (method.getName().equals("getTransaction")) {
+                    return transaction;
+                }
+
+                return null;
+            }
+        });
+        final VideoArchiveDAO videoArchiveDAO = newProxy(VideoArchiveDAO.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getEntityManager")) {
+                    return entityManager;
+                }
+                else if (method.getName().equals("endTransaction")) {
+                    commits.incrementAndGet();
+                }
+
+                return null;
+            }
+        });
+
+        return newProxy(AnnotationDAOFactory.class, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("newVideoArchiveDAO") ? videoArchiveDAO : null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newProxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(CommandQueueTest.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private class TestCommand implements BatchableCommand {
+
+        private final String name;
+        private final boolean failAfterCommit;
+
+        TestCommand(String name, boolean failAfterCommit) {
+            this.name = name;
+            this.failAfterCommit = failAfterCommit;
+        }
+
+        public void apply(ToolBelt toolBelt, CommandBatch batch) {
+            events.add("batch " + name);
+            batch.afterCommit(new Runnable() {
+
+                public void run() {
+                    events.add("after " + name);
+                    if (failAfterCommit) {
+                        throw new IllegalStateException("Failed after commit");
+                    }
+                }
+            });
+        }
+
+        public void apply(ToolBelt toolBelt) {
+            events.add("apply " + name);
+        }
+
+        public void unapply(ToolBelt toolBelt) {
+            events.add("unapply " + name);
+        }
+
+        public String getDescription() {
+            return "Test command " + name;
+        }
+    }
+}
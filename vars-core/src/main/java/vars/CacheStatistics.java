@@ -0,0 +1,61 @@
+package vars;
+
+/**
+ * A snapshot of the counters kept for a second-level (shared) cache. Instances are
+ * immutable; ask the {@link PersistenceCache} for a new one to see the current
+ * values.
+ *
+ * @author brian
+ */
+public class CacheStatistics {
+
+    private final long clears;
+    private final long evictions;
+    private final long hits;
+    private final long misses;
+
+    /**
+     * @param hits Lookups that were answered from the cache
+     * @param misses Lookups that had to go to the database
+     * @param evictions Objects explicitly evicted from the cache
+     * @param clears Number of times the whole cache was cleared
+     */
+    public CacheStatistics(long hits, long misses, long evictions, long clears) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.clears = clears;
+    }
+
+    public long getClears() {
+        return clears;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The fraction of lookups answered from the cache, 0 - 1. 0 if there
+     *      haven't been any lookups
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+
+        return (lookups == 0) ? 0 : hits / (double) lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics[hits=" + hits + ", misses=" + misses + ", hitRatio=" +
+               Math.round(getHitRatio() * 100) + "%, evictions=" + evictions + ", clears=" + clears + "]";
+    }
+}
@@ -15,6 +15,7 @@
 
 package vars;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.persistence.EntityManager;
@@ -60,6 +61,16 @@ public interface DAO {
 
     <T> T findByPrimaryKey(Class<T> clazz, Object primaryKey);
 
+    /**
+     * Looks up many objects at once. This is a few queries rather than one per key.
+     *
+     * @param clazz The entity class
+     * @param primaryKeys The primary keys to look up
+     * @return The objects that were found, in no particular order. Keys that
+     *      don't exist are skipped.
+     */
+    <T> List<T> findByPrimaryKeys(Class<T> clazz, Collection<?> primaryKeys);
+
     /**
      * Retrieves the object from the datastore. This ignores all state changes
      * in the provided object and returns the copy as found in the data store.
@@ -101,4 +112,12 @@ public interface DAO {
     void remove(Object object);
 
     void startTransaction();
+
+    /**
+     * Start a transaction for changes to many rows. Queries made during the
+     * transaction do not flush pending changes, so everything is written in a
+     * single flush when the transaction ends. The writes are ordered by entity type
+     * and sent to the database in JDBC batches. End it with {@link #endTransaction()}.
+     */
+    void startBatchTransaction();
 }
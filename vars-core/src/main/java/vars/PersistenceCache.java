@@ -67,6 +67,14 @@ public class PersistenceCache {
         provider.evict(object);
     }
 
+    /**
+     * @return Hit, miss and eviction counts for the underlying cache. Useful for
+     *      display or logging
+     */
+    public CacheStatistics getStatistics() {
+        return provider.getStatistics();
+    }
+
     private void notifyCacheClearedListenersAfterClear() {
         final CacheClearedEvent event = new CacheClearedEvent(this);
         final List<CacheClearedListener> listeners = new ArrayList<CacheClearedListener>(clearCacheListeners);
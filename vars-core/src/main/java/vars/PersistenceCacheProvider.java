@@ -20,4 +20,9 @@ public interface PersistenceCacheProvider {
 
     void evict(KnowledgebaseObject entity);
 
+    /**
+     * @return The current counters for the shared knowledgebase cache
+     */
+    CacheStatistics getStatistics();
+
 }
@@ -19,9 +19,12 @@ import com.google.inject.Inject;
 import vars.annotation.AnnotationDAOFactory;
 import vars.annotation.AnnotationFactory;
 import vars.annotation.AnnotationPersistenceService;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.KnowledgebaseDAOFactory;
 import vars.knowledgebase.KnowledgebaseFactory;
 import vars.knowledgebase.KnowledgebasePersistenceService;
+import vars.knowledgebase.LinkTemplateIndex;
 import vars.query.QueryPersistenceService;
 
 /**
@@ -31,8 +34,11 @@ public class ToolBelt {
 
     private final AnnotationDAOFactory annotationDAOFactory;
     private final AnnotationFactory annotationFactory;
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
+    private final ConceptNameIndex conceptNameIndex;
     private final KnowledgebaseDAOFactory knowledgebaseDAOFactory;
     private final KnowledgebaseFactory knowledgebaseFactory;
+    private final LinkTemplateIndex linkTemplateIndex;
     private final MiscDAOFactory miscDAOFactory;
     private final MiscFactory miscFactory;
     private final PersistenceCache persistenceCache;
@@ -53,6 +59,9 @@ public class ToolBelt {
      * @param miscFactory
      * @param persistenceCacheProvider
      * @param queryPersistenceService
+     * @param conceptNameIndex
+     * @param conceptHierarchyIndex
+     * @param linkTemplateIndex
      */
     @Inject
     public ToolBelt(AnnotationDAOFactory annotationDAOFactory, 
@@ -63,7 +72,10 @@ public class ToolBelt {
             PersistenceCacheProvider persistenceCacheProvider, 
             AnnotationPersistenceService annotationPersistenceService,
             KnowledgebasePersistenceService knowledgebasePersistenceService, 
-            QueryPersistenceService queryPersistenceService) {
+            QueryPersistenceService queryPersistenceService,
+            ConceptNameIndex conceptNameIndex,
+            ConceptHierarchyIndex conceptHierarchyIndex,
+            LinkTemplateIndex linkTemplateIndex) {
         this.annotationDAOFactory = annotationDAOFactory;
         this.annotationPersistenceService = annotationPersistenceService;
         this.annotationFactory = annotationFactory;
@@ -74,6 +86,23 @@ public class ToolBelt {
         this.miscFactory = miscFactory;
         this.persistenceCache = new PersistenceCache(persistenceCacheProvider);
         this.queryPersistenceService = queryPersistenceService;
+        this.conceptNameIndex = conceptNameIndex;
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
+        this.linkTemplateIndex = linkTemplateIndex;
+
+        // The indexes hold knowledgebase state so drop them whenever the cache is cleared
+        persistenceCache.addCacheClearedListener(new CacheClearedListener() {
+
+            public void afterClear(CacheClearedEvent evt) {
+                ToolBelt.this.conceptNameIndex.invalidate();
+                ToolBelt.this.conceptHierarchyIndex.invalidate();
+                ToolBelt.this.linkTemplateIndex.invalidate();
+            }
+
+            public void beforeClear(CacheClearedEvent evt) {
+                // Do nothing
+            }
+        });
     }
 
     /**
@@ -91,6 +120,28 @@ public class ToolBelt {
     }
 
 
+    /**
+     * @return A shared, in-memory copy of the knowledgebase tree
+     */
+    public ConceptHierarchyIndex getConceptHierarchyIndex() {
+        return conceptHierarchyIndex;
+    }
+
+    /**
+     * @return A shared index of the link templates, own and inherited, that apply
+     *      to each concept
+     */
+    public LinkTemplateIndex getLinkTemplateIndex() {
+        return linkTemplateIndex;
+    }
+
+    /**
+     * @return A shared index of concept names to their primary names
+     */
+    public ConceptNameIndex getConceptNameIndex() {
+        return conceptNameIndex;
+    }
+
     /**
      * @return
      */
@@ -38,7 +38,8 @@ public interface AnnotationPersistenceService {
     Concept findRootConcept();
 
     /**
-     * Retrieve the underlying {@link ConceptDAO} used.
+     * Retrieve a {@link ConceptDAO} for read-only lookups. Each call returns a new
+     * DAO; call close() on it when you're done.
      * @return
      */
     ConceptDAO getReadOnlyConceptDAO();
@@ -1,5 +1,6 @@
 package vars.annotation;
 
+import java.util.Collection;
 import java.util.List;
 import vars.DAO;
 
@@ -17,4 +18,10 @@ public interface AssociationDAO extends DAO, ConceptNameValidator<Association> {
 
     Association findByPrimaryKey(Object primaryKey);
 
+    /**
+     * @param primaryKeys
+     * @return The Associations with those primary keys, in no particular order
+     */
+    List<Association> findByPrimaryKeys(Collection<?> primaryKeys);
+
 }
@@ -15,6 +15,7 @@
 
 package vars.annotation;
 
+import java.util.Collection;
 import java.util.List;
 import vars.DAO;
 import vars.knowledgebase.Concept;
@@ -65,4 +66,10 @@ public interface ObservationDAO extends DAO, ConceptNameValidator<Observation> {
     Observation updateFields(Observation observation);
 
     Observation findByPrimaryKey(Object primaryKey);
+
+    /**
+     * @param primaryKeys
+     * @return The Observations with those primary keys, in no particular order
+     */
+    List<Observation> findByPrimaryKeys(Collection<?> primaryKeys);
 }
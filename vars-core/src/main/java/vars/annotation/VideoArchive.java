@@ -23,6 +23,7 @@ package vars.annotation;
 import vars.ILazy;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -48,6 +49,36 @@ public interface VideoArchive extends AnnotationObject, ILazy {
      */
     VideoFrame findVideoFrameByTimeCode(final String timecode);
 
+    /**
+     * @param timecode A String in the format of HH:MM:SS:FF
+     * @return The VideoFrame with the timecode closest to the argument. <b>null</b>
+     * if this VideoArchive has no VideoFrames.
+     */
+    VideoFrame findNearestVideoFrameByTimecode(final String timecode);
+
+    /**
+     * @param start The starting timecode (inclusive)
+     * @param end The ending timecode (inclusive)
+     * @return The VideoFrames between the two timecodes sorted by timecode. The
+     * list will be empty if none are found.
+     */
+    List<VideoFrame> findVideoFramesBetweenTimecodes(final String start, final String end);
+
+    /**
+     * @param date The date to search for
+     * @return The VideoFrame whose recorded date is closest to the argument.
+     * <b>null</b> if none of the VideoFrames have a recorded date.
+     */
+    VideoFrame findNearestVideoFrameByRecordedDate(final Date date);
+
+    /**
+     * @param start The starting date (inclusive)
+     * @param end The ending date (inclusive)
+     * @return The VideoFrames recorded between the two dates, sorted by recorded
+     * date. The list will be empty if none are found.
+     */
+    List<VideoFrame> findVideoFramesBetweenRecordedDates(final Date start, final Date end);
+
     /**
      * Empty VideoFrames are  those that do not contain any observations. In general,
      * this method isn't really needed. However, when reading vif files, occasionally
@@ -66,6 +66,18 @@ public interface VideoArchiveDAO extends DAO {
 
     VideoArchive findByPrimaryKey(Object primaryKey);
 
+    /**
+     * Fetch a fresh copy of a VideoArchive with all of its VideoFrames, CameraData,
+     * PhysicalData, Observations and Associations already loaded. The graph is
+     * read using a small, fixed number of queries regardless of the size of the
+     * archive. Use this, with a new DAO, instead of walking the lazy relationships
+     * of a VideoArchive. This should be called within a DAO transaction.
+     *
+     * @param videoArchive The VideoArchive to load
+     * @return The loaded VideoArchive. <b>null</b> if it's not in the database
+     */
+    VideoArchive findWithGraph(VideoArchive videoArchive);
+
     /**
      * Removes VideoFrames that do not contain observations.
      *
@@ -135,10 +135,42 @@ public interface VideoArchiveSet extends AnnotationObject {
      * This is a convience method to retrieve all <code>VideoFrames</code> that are
      * stored in all the child VideoArchives.
      *
-     * @return A collection of <i>ALL</i> VideoFrames that are part of this VideoArchiveSet
+     * @return A collection of <i>ALL</i> VideoFrames that are part of this VideoArchiveSet,
+     * sorted by timecode. The list is read-only.
      */
     List<VideoFrame> getVideoFrames();
 
+    /**
+     * @param timecode A String in the format of HH:MM:SS:FF
+     * @return The VideoFrame, from any of the child VideoArchives, with the timecode
+     * closest to the argument. <b>null</b> if there are no VideoFrames.
+     */
+    VideoFrame findNearestVideoFrameByTimecode(final String timecode);
+
+    /**
+     * @param start The starting timecode (inclusive)
+     * @param end The ending timecode (inclusive)
+     * @return The VideoFrames, from all child VideoArchives, between the two
+     * timecodes sorted by timecode. The list will be empty if none are found.
+     */
+    List<VideoFrame> findVideoFramesBetweenTimecodes(final String start, final String end);
+
+    /**
+     * @param date The date to search for
+     * @return The VideoFrame, from any of the child VideoArchives, whose recorded
+     * date is closest to the argument. <b>null</b> if none of the VideoFrames have
+     * a recorded date.
+     */
+    VideoFrame findNearestVideoFrameByRecordedDate(final Date date);
+
+    /**
+     * @param start The starting date (inclusive)
+     * @param end The ending date (inclusive)
+     * @return The VideoFrames, from all child VideoArchives, recorded between the
+     * two dates sorted by recorded date. The list will be empty if none are found.
+     */
+    List<VideoFrame> findVideoFramesBetweenRecordedDates(final Date start, final Date end);
+
     //void setVideoFrames(Collection<? extends VideoFrame> videoFrames);
 
     /**
@@ -20,6 +20,21 @@ public interface VideoArchiveSetDAO extends DAO {
 
     Set<String> findAllLinkValues(VideoArchiveSet videoArchiveSet, String linkName, Concept concept);
 
+    /**
+     * Return the distinct linkValues used in a VideoArchiveSet for a given linkName.
+     * This is done with a single query in the database; none of the VideoFrames,
+     * Observations or Associations are loaded.
+     *
+     * @param videoArchiveSet The VideoArchiveSet to search
+     * @param linkName The name of links to match
+     * @param conceptNames If not null then only the linkValues found for Observations
+     *      with one of these conceptNames are returned. Pass the descendant names of
+     *      a concept to search a whole branch of the knowledgebase
+     * @return The distinct linkValues. An empty set if none are found
+     */
+    Set<String> findAllLinkValuesByConceptNames(VideoArchiveSet videoArchiveSet, String linkName,
+            Collection<String> conceptNames);
+
     Collection<VideoArchiveSet> findAllBetweenDates(Date startDate, Date endDate);
 
     Collection<VideoArchiveSet> findAll();
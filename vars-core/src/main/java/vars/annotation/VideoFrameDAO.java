@@ -1,5 +1,7 @@
 package vars.annotation;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import vars.DAO;
 
@@ -16,6 +18,12 @@ public interface VideoFrameDAO extends DAO {
 
     VideoFrame findByPrimaryKey(Object primaryKey);
 
+    /**
+     * @param primaryKeys
+     * @return The VideoFrames with those primary keys, in no particular order
+     */
+    List<VideoFrame> findByPrimaryKeys(Collection<?> primaryKeys);
+
     VideoFrame findByTimeCodeAndVideoArchiveName(String timecode, String videoArchiveName);
 
 }
@@ -0,0 +1,300 @@
+package vars.annotation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.mbari.movie.Timecode;
+
+/**
+ * Sorted indexes of VideoFrames by timecode and by recorded date. Lookups,
+ * nearest-frame and range queries are O(log n) rather than a scan of every
+ * VideoFrame. VideoFrames without a timecode (or recorded date) are left out of
+ * that index.
+ * <p>
+ * Each VideoFrame is indexed under the keys it had when it was added. If a
+ * VideoFrame's timecode or recorded date changes it has to be removed and added
+ * again, which VideoArchive implementations do for you. This class is not
+ * thread-safe.
+ *
+ * @author brian
+ */
+public class VideoFrameIndex {
+
+    private final NavigableMap<Date, List<VideoFrame>> byDate = new TreeMap<Date, List<VideoFrame>>();
+    private final NavigableMap<String, List<VideoFrame>> byTimecode = new TreeMap<String, List<VideoFrame>>();
+
+    /** The keys each VideoFrame was indexed under */
+    private final Map<VideoFrame, Key> keys = new IdentityHashMap<VideoFrame, Key>();
+    private long modificationCount;
+
+    public VideoFrameIndex() {}
+
+    /**
+     * @param videoFrames The VideoFrames to index
+     */
+    public VideoFrameIndex(Collection<? extends VideoFrame> videoFrames) {
+        addAll(videoFrames);
+    }
+
+    public void add(VideoFrame videoFrame) {
+        if (keys.containsKey(videoFrame)) {
+            return;
+        }
+
+        Key key = new Key(videoFrame.getTimecode(), videoFrame.getRecordedDate());
+        keys.put(videoFrame, key);
+        if (key.timecode != null) {
+            put(byTimecode, key.timecode, videoFrame);
+        }
+
+        if (key.recordedDate != null) {
+            put(byDate, key.recordedDate, videoFrame);
+        }
+
+        modificationCount++;
+    }
+
+    public void addAll(Collection<? extends VideoFrame> videoFrames) {
+        for (VideoFrame videoFrame : videoFrames) {
+            add(videoFrame);
+        }
+    }
+
+    public void clear() {
+        keys.clear();
+        byTimecode.clear();
+        byDate.clear();
+        modificationCount++;
+    }
+
+    /**
+     * @return true if the VideoFrame was in the index
+     */
+    public boolean remove(VideoFrame videoFrame) {
+        Key key = keys.remove(videoFrame);
+        if (key == null) {
+            return false;
+        }
+
+        if (key.timecode != null) {
+            take(byTimecode, key.timecode, videoFrame);
+        }
+
+        if (key.recordedDate != null) {
+            take(byDate, key.recordedDate, videoFrame);
+        }
+
+        modificationCount++;
+
+        return true;
+    }
+
+    /**
+     * Re-index a VideoFrame after its timecode or recorded date has been changed.
+     * Does nothing if the VideoFrame isn't in the index.
+     */
+    public void update(VideoFrame videoFrame) {
+        if (remove(videoFrame)) {
+            add(videoFrame);
+        }
+    }
+
+    /**
+     * @return The number of VideoFrames in the index
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @return A count that changes every time the index is modified. Useful for
+     *      checking if something derived from the index is stale.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * @return The first VideoFrame with a matching timecode. null if there isn't one
+     */
+    public VideoFrame findByTimecode(String timecode) {
+        if (timecode == null) {
+            return null;
+        }
+
+        List<VideoFrame> videoFrames = byTimecode.get(timecode);
+
+        return (videoFrames == null) ? null : videoFrames.get(0);
+    }
+
+    /**
+     * @return All VideoFrames with a matching timecode.
+     */
+    public List<VideoFrame> findAllByTimecode(String timecode) {
+        List<VideoFrame> videoFrames = (timecode == null) ? null : byTimecode.get(timecode);
+
+        return (videoFrames == null)
+               ? new ArrayList<VideoFrame>() : new ArrayList<VideoFrame>(videoFrames);
+    }
+
+    /**
+     * @param start The starting timecode (inclusive)
+     * @param end The ending timecode (inclusive)
+     * @return The VideoFrames between the two timecodes, sorted by timecode
+     */
+    public List<VideoFrame> findBetweenTimecodes(String start, String end) {
+        if ((start == null) || (end == null) || (start.compareTo(end) > 0)) {
+            return new ArrayList<VideoFrame>();
+        }
+
+        return flatten(byTimecode.subMap(start, true, end, true).values());
+    }
+
+    /**
+     * @return The VideoFrame whose timecode is closest to the one given. On a tie the
+     *      earlier VideoFrame is returned. null if the index has no timecodes
+     */
+    public VideoFrame findNearestTimecode(String timecode) {
+        if (timecode == null) {
+            return null;
+        }
+
+        Map.Entry<String, List<VideoFrame>> floor = byTimecode.floorEntry(timecode);
+        Map.Entry<String, List<VideoFrame>> ceiling = byTimecode.ceilingEntry(timecode);
+        if ((floor == null) || (ceiling == null)) {
+            Map.Entry<String, List<VideoFrame>> entry = (floor == null) ? ceiling : floor;
+
+            return (entry == null) ? null : entry.getValue().get(0);
+        }
+
+        if (floor.getKey().equals(ceiling.getKey())) {
+            return floor.getValue().get(0);
+        }
+
+        double target = toFrames(timecode);
+        double below = target - toFrames(floor.getKey());
+        double above = toFrames(ceiling.getKey()) - target;
+
+        // If any of the timecodes can't be parsed (NaN) fall back to the earlier frame
+        return (above < below) ? ceiling.getValue().get(0) : floor.getValue().get(0);
+    }
+
+    /**
+     * @return The first VideoFrame recorded at the given date. null if there isn't one
+     */
+    public VideoFrame findByRecordedDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+
+        List<VideoFrame> videoFrames = byDate.get(date);
+
+        return (videoFrames == null) ? null : videoFrames.get(0);
+    }
+
+    /**
+     * @param start The starting date (inclusive)
+     * @param end The ending date (inclusive)
+     * @return The VideoFrames recorded between the two dates, sorted by recorded date
+     */
+    public List<VideoFrame> findBetweenRecordedDates(Date start, Date end) {
+        if ((start == null) || (end == null) || start.after(end)) {
+            return new ArrayList<VideoFrame>();
+        }
+
+        return flatten(byDate.subMap(start, true, end, true).values());
+    }
+
+    /**
+     * @return The VideoFrame recorded closest to the given date. On a tie the earlier
+     *      VideoFrame is returned. null if the index has no recorded dates
+     */
+    public VideoFrame findNearestRecordedDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+
+        Map.Entry<Date, List<VideoFrame>> floor = byDate.floorEntry(date);
+        Map.Entry<Date, List<VideoFrame>> ceiling = byDate.ceilingEntry(date);
+        if ((floor == null) || (ceiling == null)) {
+            Map.Entry<Date, List<VideoFrame>> entry = (floor == null) ? ceiling : floor;
+
+            return (entry == null) ? null : entry.getValue().get(0);
+        }
+
+        long below = date.getTime() - floor.getKey().getTime();
+        long above = ceiling.getKey().getTime() - date.getTime();
+
+        return (above < below) ? ceiling.getValue().get(0) : floor.getValue().get(0);
+    }
+
+    /**
+     * @return All indexed VideoFrames that have a timecode, sorted by timecode
+     */
+    public List<VideoFrame> getVideoFramesByTimecode() {
+        return flatten(byTimecode.values());
+    }
+
+    private static <K> void put(NavigableMap<K, List<VideoFrame>> map, K key, VideoFrame videoFrame) {
+        List<VideoFrame> videoFrames = map.get(key);
+        if (videoFrames == null) {
+            videoFrames = new ArrayList<VideoFrame>(1);
+            map.put(key, videoFrames);
+        }
+
+        videoFrames.add(videoFrame);
+    }
+
+    private static <K> void take(NavigableMap<K, List<VideoFrame>> map, K key, VideoFrame videoFrame) {
+        List<VideoFrame> videoFrames = map.get(key);
+        if (videoFrames != null) {
+            for (int i = 0; i < videoFrames.size(); i++) {
+                if (videoFrames.get(i) == videoFrame) {
+                    videoFrames.remove(i);
+
+                    break;
+                }
+            }
+
+            if (videoFrames.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static List<VideoFrame> flatten(Collection<List<VideoFrame>> values) {
+        List<VideoFrame> videoFrames = new ArrayList<VideoFrame>();
+        for (List<VideoFrame> list : values) {
+            videoFrames.addAll(list);
+        }
+
+        return videoFrames;
+    }
+
+    private static double toFrames(String timecode) {
+        try {
+            return new Timecode(timecode).getFrames();
+        }
+        catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static class Key {
+
+        final Date recordedDate;
+        final String timecode;
+
+        Key(String timecode, Date recordedDate) {
+            this.timecode = timecode;
+
+            // Copy it. Dates are mutable and this is used as a map key
+            this.recordedDate = (recordedDate == null) ? null : new Date(recordedDate.getTime());
+        }
+    }
+}
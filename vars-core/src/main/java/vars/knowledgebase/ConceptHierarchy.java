@@ -0,0 +1,376 @@
+package vars.knowledgebase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable, in-memory copy of the knowledgebase tree: every concept with its
+ * names, rank and parent. It's detached from the persistence layer so it can be
+ * read from any thread and walked without any database access. When the
+ * knowledgebase changes a new ConceptHierarchy is built; an existing one is never
+ * modified.
+ * <p>
+ * Nodes are numbered in preorder when the hierarchy is built, so a concept's
+ * subtree is a contiguous run of {@link #getNodes()}. This makes "all descendants
+ * of X" a sublist and "is X an ancestor of Y" a comparison of two numbers, with
+ * no walking of the tree.
+ *
+ * @author brian
+ */
+public class ConceptHierarchy {
+
+    /** Source of version numbers. Every hierarchy started gets a larger one */
+    private static final AtomicLong versions = new AtomicLong();
+    private final List<String> allNames;
+    private final Map<String, Node> caseInsensitiveNames;
+    private final Map<String, Node> names;
+    private final List<Node> nodes;
+    private final Node root;
+    private final long version;
+
+    private ConceptHierarchy(List<Node> nodes, Node root, long version) {
+        this.version = version;
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.root = root;
+        Map<String, Node> exact = new HashMap<String, Node>(nodes.size() * 4);
+        Map<String, Node> caseInsensitive = new HashMap<String, Node>(nodes.size() * 4);
+        List<String> all = new ArrayList<String>(nodes.size() * 2);
+        for (Node node : nodes) {
+            all.addAll(node.names);
+            for (String name : node.names) {
+                exact.put(name, node);
+                String key = name.toLowerCase(Locale.US);
+                if (!caseInsensitive.containsKey(key)) {
+                    caseInsensitive.put(key, node);
+                }
+            }
+        }
+        this.names = exact;
+        this.caseInsensitiveNames = caseInsensitive;
+        this.allNames = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Look up a concept by any of its names. An exact match is tried first, then a
+     * case-insensitive one.
+     *
+     * @param name A primary, common, synonym, etc. name
+     * @return The matching node. null if no concept has that name
+     */
+    public Node findNode(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        Node node = names.get(name);
+        if (node == null) {
+            node = caseInsensitiveNames.get(name.toLowerCase(Locale.US));
+        }
+
+        return node;
+    }
+
+    /**
+     * @return Every name (primary, common, synonym, etc.) of every concept, in the
+     *      same order as {@link #getNodes()}
+     */
+    public List<String> getAllNames() {
+        return allNames;
+    }
+
+    /**
+     * @return Every concept in the hierarchy
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The root concept. null if the knowledgebase is empty
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @return A number identifying this snapshot. It's handed out when its
+     *      {@link Builder} is created, before the knowledgebase is read, so a
+     *      hierarchy started later always has a larger version and holders of a
+     *      derived view can tell if it's stale
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The version of the most recently started hierarchy. Any hierarchy
+     *      with a larger version was started, and so read the knowledgebase, after
+     *      this was called
+     */
+    public static long getLatestVersion() {
+        return versions.get();
+    }
+
+    /**
+     * @param name Any name of a concept
+     * @return All the names of the concept and of every concept below it. The list
+     *      is empty if no concept has that name
+     */
+    public List<String> findDescendantNames(String name) {
+        Node node = findNode(name);
+
+        return (node == null) ? new ArrayList<String>() : node.getDescendantNames();
+    }
+
+    /**
+     * @param ancestorName Any name of the possible ancestor
+     * @param descendantName Any name of the possible descendant
+     * @return true if the first concept is above the second one in the tree. A
+     *      concept is not its own ancestor. false if either name is unknown
+     */
+    public boolean isAncestor(String ancestorName, String descendantName) {
+        Node ancestor = findNode(ancestorName);
+        Node descendant = findNode(descendantName);
+
+        return (ancestor != null) && (descendant != null) && ancestor.isAncestorOf(descendant);
+    }
+
+    /**
+     * Collects the raw rows read from the knowledgebase and links them into a
+     * {@link ConceptHierarchy}. Concepts are identified by their primary key.
+     */
+    public static class Builder {
+
+        private final Map<Object, Node> nodesById = new HashMap<Object, Node>();
+        private final Map<Object, Object> parentIds = new HashMap<Object, Object>();
+        private final long version = versions.incrementAndGet();
+
+        /**
+         * @param id The primary key of the concept
+         * @param parentId The primary key of the parent concept. null for the root
+         * @param rankName
+         * @param rankLevel
+         */
+        public void addConcept(Object id, Object parentId, String rankName, String rankLevel) {
+            Node node = new Node(rankName, rankLevel);
+            nodesById.put(id, node);
+            if (parentId != null) {
+                parentIds.put(id, parentId);
+            }
+        }
+
+        /**
+         * @param conceptId The primary key of the concept the name belongs to
+         * @param name
+         * @param primary true if this is the primary name of the concept
+         */
+        public void addName(Object conceptId, String name, boolean primary) {
+            Node node = nodesById.get(conceptId);
+            if (node != null) {
+                if (primary) {
+                    node.primaryName = name;
+                    node.names.add(0, name);
+                }
+                else {
+                    node.names.add(name);
+                }
+            }
+        }
+
+        public ConceptHierarchy build() {
+            List<Node> tops = new ArrayList<Node>();
+            Node root = null;
+            for (Map.Entry<Object, Node> entry : nodesById.entrySet()) {
+                Node node = entry.getValue();
+                Object parentId = parentIds.get(entry.getKey());
+                Node parent = (parentId == null) ? null : nodesById.get(parentId);
+                if (parent != null) {
+                    node.parent = parent;
+                    parent.children.add(node);
+                }
+                else {
+                    if (parentId == null) {
+                        root = node;
+                    }
+
+                    // Concepts whose parent is missing still get numbered as their own subtree
+                    tops.add(node);
+                }
+            }
+
+            if (root != null) {
+                tops.remove(root);
+                tops.add(0, root);
+            }
+
+            List<Node> nodes = new ArrayList<Node>(nodesById.size());
+            for (Node top : tops) {
+                number(top, nodes);
+            }
+
+            List<Node> order = Collections.unmodifiableList(nodes);
+            for (Node node : nodes) {
+                node.order = order;
+                node.freeze();
+            }
+
+            return new ConceptHierarchy(nodes, root, version);
+        }
+
+        /**
+         * Appends the subtree to the list in preorder, recording on each node the
+         * range of positions its subtree covers. Iterative so a deep tree can't
+         * overflow the stack.
+         */
+        private static void number(Node top, List<Node> nodes) {
+            LinkedList<Node> stack = new LinkedList<Node>();
+            stack.push(top);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                node.first = nodes.size();
+                nodes.add(node);
+                for (int i = node.children.size() - 1; i >= 0; i--) {
+                    stack.push(node.children.get(i));
+                }
+            }
+
+            // Children always come after their parent so walking backwards sees them first
+            for (int i = nodes.size() - 1; i >= top.first; i--) {
+                Node node = nodes.get(i);
+                node.last = node.first;
+                for (Node child : node.children) {
+                    node.last = Math.max(node.last, child.last);
+                }
+            }
+        }
+    }
+
+    /**
+     * A single concept in the hierarchy.
+     */
+    public static class Node {
+
+        private List<Node> children = new ArrayList<Node>();
+
+        /** Preorder position of this node and of the last node in its subtree */
+        private int first;
+        private int last;
+        private List<String> names = new ArrayList<String>(2);
+        private List<Node> order;
+        private Node parent;
+        private String primaryName;
+        private final String rankLevel;
+        private final String rankName;
+
+        private Node(String rankName, String rankLevel) {
+            this.rankName = rankName;
+            this.rankLevel = rankLevel;
+        }
+
+        private void freeze() {
+            children = Collections.unmodifiableList(children);
+            names = Collections.unmodifiableList(names);
+        }
+
+        /**
+         * @return The concepts from the root down to, and including, this one
+         */
+        public List<Node> getAncestors() {
+            List<Node> ancestors = new ArrayList<Node>();
+            Node node = this;
+            while (node != null) {
+                ancestors.add(node);
+                node = node.parent;
+            }
+            Collections.reverse(ancestors);
+
+            return ancestors;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        /**
+         * @return This concept and every concept below it, in preorder
+         */
+        public List<Node> getDescendants() {
+            return order.subList(first, last + 1);
+        }
+
+        /**
+         * @return All the names of this concept and of every concept below it
+         */
+        public List<String> getDescendantNames() {
+            List<String> descendantNames = new ArrayList<String>();
+            for (Node node : getDescendants()) {
+                descendantNames.addAll(node.names);
+            }
+
+            return descendantNames;
+        }
+
+        /**
+         * @param node
+         * @return true if node is somewhere below this concept. A concept is not its
+         *      own ancestor
+         */
+        public boolean isAncestorOf(Node node) {
+            return (node != null) && (node != this) && (node.order == order) && (node.first > first) &&
+                   (node.first <= last);
+        }
+
+        /**
+         * @return All of the names of this concept. The primary name is first
+         */
+        public List<String> getNames() {
+            return names;
+        }
+
+        /**
+         * @return The parent concept. null for the root
+         */
+        public Node getParent() {
+            return parent;
+        }
+
+        public String getPrimaryName() {
+            return primaryName;
+        }
+
+        /**
+         * @return The rank level and rank name combined, e.g. 'subphylum'. If there's
+         *      no rank level this is just the rank name. null if there's no rank
+         */
+        public String getRank() {
+            if ((rankLevel == null) || (rankLevel.length() == 0)) {
+                return rankName;
+            }
+
+            return rankLevel + rankName;
+        }
+
+        public String getRankLevel() {
+            return rankLevel;
+        }
+
+        public String getRankName() {
+            return rankName;
+        }
+
+        @Override
+        public String toString() {
+            return primaryName;
+        }
+    }
+}
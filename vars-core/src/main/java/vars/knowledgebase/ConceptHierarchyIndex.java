@@ -0,0 +1,25 @@
+package vars.knowledgebase;
+
+/**
+ * Provides a shared {@link ConceptHierarchy} so that code that needs to walk the
+ * knowledgebase tree (ancestors, ranks, etc.) doesn't have to lazy-load it one
+ * concept at a time. Implementations must be thread-safe.
+ *
+ * @author brian
+ */
+public interface ConceptHierarchyIndex {
+
+    /**
+     * @return The current snapshot of the knowledgebase tree. Only the first call
+     *      waits for it to be loaded
+     */
+    ConceptHierarchy getHierarchy();
+
+    /**
+     * Mark the current snapshot as stale. A new one is built in the background and
+     * swapped in when it's ready; until then the current one is still returned.
+     * Call this when concepts are added, removed, moved or renamed.
+     */
+    void invalidate();
+
+}
@@ -0,0 +1,35 @@
+package vars.knowledgebase;
+
+/**
+ * An in-memory map of every concept name in the knowledgebase to the primary name
+ * of its concept. It's used to validate the names used by Observations and
+ * Associations without a knowledgebase query per name. Implementations must be
+ * thread-safe.
+ *
+ * @author brian
+ */
+public interface ConceptNameIndex {
+
+    /**
+     * Look up the primary name for a concept name. An exact match is tried first,
+     * then a case-insensitive one.
+     *
+     * @param name A concept name. It can be a primary, alternate, common, etc. name
+     * @return The primary name of the concept that the name belongs to. null if the
+     *      name was not found. The answer reflects the knowledgebase as of the last
+     *      {@link #invalidate()}, so callers don't need to ask the database again.
+     */
+    String findPrimaryName(String name);
+
+    /**
+     * Forget what's known about the names. Call this when concept names are added,
+     * removed or changed; lookups made after it returns see the change.
+     */
+    void invalidate();
+
+    /**
+     * @return The number of names in the index. This will load the index if needed
+     */
+    int size();
+
+}
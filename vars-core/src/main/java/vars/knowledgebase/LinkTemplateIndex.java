@@ -0,0 +1,54 @@
+package vars.knowledgebase;
+
+import java.util.List;
+import vars.ILink;
+
+/**
+ * Provides, for every concept, the link templates that can be applied to it: its
+ * own plus those inherited from all of its ancestors. Lookups are a single map
+ * access instead of a walk up the tree. Implementations must be thread-safe.
+ *
+ * @author brian
+ */
+public interface LinkTemplateIndex {
+
+    /**
+     * @param conceptName Any name of the concept
+     * @return The links applicable to the concept, its own first followed by those
+     *      of its parent, grandparent, etc. The list is read-only. It's empty if no
+     *      concept has that name
+     */
+    List<ILink> findApplicableLinks(String conceptName);
+
+    /**
+     * Record a link template that was added to a concept. Call this after the
+     * change has been written to the knowledgebase.
+     *
+     * @param conceptName The name of the concept that owns the link template
+     * @param link The link template that was added
+     */
+    void add(String conceptName, ILink link);
+
+    /**
+     * Record a link template that was removed from a concept.
+     *
+     * @param conceptName The name of the concept that owned the link template
+     * @param link The link template that was removed. It's matched on linkName,
+     *      toConcept and linkValue
+     */
+    void remove(String conceptName, ILink link);
+
+    /**
+     * Throw away the index. It's reloaded the next time it's used.
+     */
+    void invalidate();
+
+    /**
+     * @return A number that changes whenever the link templates may have changed:
+     *      on {@link #add}, {@link #remove}, {@link #invalidate()} and when the index
+     *      is reloaded. Other caches of link templates compare it to tell when
+     *      they're stale.
+     */
+    long getVersion();
+
+}
@@ -0,0 +1,134 @@
+package vars.query;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary statistics for one column of the Annotations view: row, null and
+ * distinct counts, the minimum and maximum values, the most frequent values and,
+ * for numeric columns, an equal-width histogram between the minimum and maximum.
+ * Instances are immutable and serializable so that they can be cached locally.
+ *
+ * @author brian
+ */
+public class ColumnStatistics implements Serializable {
+
+    private static final long serialVersionUID = 2926541832190441167L;
+    private final String columnName;
+    private final String columnType;
+    private final long created = System.currentTimeMillis();
+    private final long distinctCount;
+    private final long[] histogram;
+    private final Object max;
+    private final Object min;
+    private final long nullCount;
+    private final long rowCount;
+    private final Map<Object, Long> topValues;
+
+    /**
+     * Constructs ...
+     *
+     * @param columnName The name of the column
+     * @param columnType The class name of the column's values (e.g. java.lang.String)
+     * @param rowCount The number of rows in the view
+     * @param nullCount The number of rows where the column is null
+     * @param distinctCount The number of distinct, non-null values in the column
+     * @param min The smallest value. <b>null</b> if every row is null
+     * @param max The largest value. <b>null</b> if every row is null
+     * @param topValues The most frequent values, mapped to the number of rows that
+     *      have them, in order of decreasing count. May be empty
+     * @param histogram Row counts for equal-width bins spanning min to max. May be
+     *      empty
+     */
+    public ColumnStatistics(String columnName, String columnType, long rowCount, long nullCount, long distinctCount,
+                            Object min, Object max, Map<Object, Long> topValues, long[] histogram) {
+        this.columnName = columnName;
+        this.columnType = columnType;
+        this.rowCount = rowCount;
+        this.nullCount = nullCount;
+        this.distinctCount = distinctCount;
+        this.min = min;
+        this.max = max;
+        this.topValues = Collections.unmodifiableMap(new LinkedHashMap<Object, Long>(topValues));
+        this.histogram = histogram.clone();
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public String getColumnType() {
+        return columnType;
+    }
+
+    /**
+     * @return The time, in milliseconds since the epoch, when the statistics were
+     *      gathered
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    /**
+     * @return The distinct values in {@link #getTopValues()}, most frequent first.
+     *      When {@link #isComplete()} is true these are all the non-null values
+     *      found in the column
+     */
+    public List<Object> getDistinctValues() {
+        return new ArrayList<Object>(topValues.keySet());
+    }
+
+    /**
+     * @return Row counts for equal-width bins spanning {@link #getMin()} to
+     *      {@link #getMax()}. Empty if no histogram was gathered for the column.
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    public Object getMax() {
+        return max;
+    }
+
+    public Object getMin() {
+        return min;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return The most frequent values mapped to their row counts, in order of
+     *      decreasing count. The map is read-only
+     */
+    public Map<Object, Long> getTopValues() {
+        return topValues;
+    }
+
+    /**
+     * @return true if {@link #getTopValues()} holds every distinct non-null value
+     *      in the column
+     */
+    public boolean isComplete() {
+        return topValues.size() >= distinctCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStatistics[" + columnName + ": rows=" + rowCount + ", nulls=" + nullCount + ", distinct=" +
+               distinctCount + ", min=" + min + ", max=" + max + "]";
+    }
+}
@@ -18,6 +18,28 @@ import vars.ILink;
  */
 public interface QueryPersistenceService extends IQueryable {
 
+    /**
+     * Gathers the statistics for one column of the Annotations view. This scans
+     * the view so it's slow; the UI should read the statistics from a cache
+     * instead of calling this directly. Boolean columns are not supported.
+     *
+     * @param columnName The name of the column
+     * @param maxValues The maximum number of most-frequent values to return. Only
+     *      gathered for String columns
+     * @param histogramBins The number of histogram bins. Only gathered for numeric
+     *      columns
+     * @return The statistics for the column
+     */
+    ColumnStatistics getColumnStatistics(String columnName, int maxValues, int histogramBins);
+
+    /**
+     * @return A cheap fingerprint of the contents of the Annotations view, built
+     *      from indexed keys, the indexed last-updated times and the database's
+     *      own table statistics rather than by scanning tables. It changes when
+     *      annotations are added, edited or deleted.
+     */
+    String getAnnotationsSignature();
+
     Integer getCountOfUniqueValuesByColumn(String columnName);
 
     Map<String, String> getMetaData();
@@ -0,0 +1,52 @@
+package vars.knowledgebase;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the subtree and ancestor lookups of {@link ConceptHierarchy}.
+ *
+ * @author brian
+ */
+public class ConceptHierarchyTest {
+
+    ConceptHierarchy hierarchy;
+
+    @Before
+    public void setup() {
+        ConceptHierarchy.Builder builder = new ConceptHierarchy.Builder();
+        builder.addConcept(1L, null, null, null);
+        builder.addName(1L, "object", true);
+        builder.addConcept(2L, 1L, "phylum", null);
+        builder.addName(2L, "Cnidaria", true);
+        builder.addConcept(3L, 2L, "class", null);
+        builder.addName(3L, "Anthozoa", true);
+        builder.addName(3L, "corals", false);
+        builder.addConcept(4L, 2L, "class", null);
+        builder.addName(4L, "Scyphozoa", true);
+        builder.addConcept(5L, 1L, "phylum", null);
+        builder.addName(5L, "Mollusca", true);
+        hierarchy = builder.build();
+    }
+
+    @Test
+    public void testDescendantNames() {
+        Assert.assertEquals(Arrays.asList("Cnidaria", "Anthozoa", "corals", "Scyphozoa"),
+                            hierarchy.findDescendantNames("cnidaria"));
+        Assert.assertEquals(Arrays.asList("Anthozoa", "corals"), hierarchy.findDescendantNames("corals"));
+        Assert.assertEquals(6, hierarchy.findDescendantNames("object").size());
+        Assert.assertTrue(hierarchy.findDescendantNames("missing").isEmpty());
+    }
+
+    @Test
+    public void testIsAncestor() {
+        Assert.assertTrue(hierarchy.isAncestor("object", "Scyphozoa"));
+        Assert.assertTrue(hierarchy.isAncestor("Cnidaria", "corals"));
+        Assert.assertFalse(hierarchy.isAncestor("Mollusca", "Anthozoa"));
+        Assert.assertFalse(hierarchy.isAncestor("Anthozoa", "Cnidaria"));
+        Assert.assertFalse(hierarchy.isAncestor("Anthozoa", "Anthozoa"));
+        Assert.assertFalse(hierarchy.isAncestor("object", "missing"));
+    }
+}
@@ -12,12 +12,11 @@
 
 package vars;
 
-import org.mbari.sql.QueryableImpl;
 import org.mbari.sql.QueryFunction;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.inject.Inject;
 import java.math.BigDecimal;
-import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.DateFormat;
@@ -35,6 +34,8 @@ import org.mbari.movie.Timecode;
 import org.mbari.math.Matlib;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import vars.jpa.ConnectionPools;
+import vars.jpa.PooledQueryableImpl;
 
 /**
  * Fetches data external to VARS from the MBARI EXPD database. THis is a read-only
@@ -42,7 +43,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author brian
  */
-public class EXPDPersistenceService extends QueryableImpl implements ExternalDataPersistenceService {
+public class EXPDPersistenceService extends PooledQueryableImpl implements ExternalDataPersistenceService {
 
     public static final int SAMPLERATE_MILLSEC = 15 * 1000;
     private static final Calendar CALENDAR = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
@@ -75,17 +76,18 @@ public class EXPDPersistenceService extends QueryableImpl implements ExternalDat
             return arg0.getAlternateTimecode() != null;
         }
     };
-    
-    private final ThreadLocal<Connection> connections = new ThreadLocal<Connection>();
 
     private static final ResourceBundle bundle = ResourceBundle.getBundle("annotation-jdbc", Locale.US);
 
     /**
      * Constructs ...
+     *
+     * @param connectionPools
      */
-    public EXPDPersistenceService() {
+    @Inject
+    public EXPDPersistenceService(ConnectionPools connectionPools) {
         super(bundle.getString("jdbc.url"), bundle.getString("jdbc.username"),
-                bundle.getString("jdbc.password"), bundle.getString("jdbc.driver"));
+                bundle.getString("jdbc.password"), bundle.getString("jdbc.driver"), connectionPools);
         try {
             Class.forName(bundle.getString("jdbc.driver"));
         } catch (ClassNotFoundException ex) {
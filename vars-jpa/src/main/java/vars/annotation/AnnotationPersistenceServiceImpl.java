@@ -15,7 +15,6 @@
 
 package vars.annotation;
 
-import org.mbari.sql.QueryableImpl;
 import org.mbari.sql.QueryFunction;
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
@@ -28,24 +27,28 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 
-import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import org.mbari.text.IgnoreCaseToStringComparator;
 import vars.*;
+import vars.jpa.ConnectionPools;
+import vars.jpa.PooledQueryableImpl;
 import vars.knowledgebase.Concept;
 import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
 import vars.knowledgebase.ConceptName;
 import vars.knowledgebase.LinkTemplate;
-import vars.knowledgebase.LinkTemplateDAO;
+import vars.knowledgebase.LinkTemplateIndex;
 import vars.knowledgebase.jpa.ConceptDAOImpl;
-import vars.knowledgebase.jpa.LinkTemplateDAOImpl;
+import vars.knowledgebase.jpa.KnowledgebaseReadCache;
 
 /**
- * All methods in this class are thread safe. They are backed by threadLocal EntityManagers OR
- * by a single use JDBC connection.
+ * All methods in this class are thread safe. Knowledgebase lookups are answered by a
+ * bounded {@link KnowledgebaseReadCache}; everything else uses short-lived DAOs OR a
+ * JDBC connection borrowed from the shared connection pool.
  * @author brian
  */
-public class AnnotationPersistenceServiceImpl extends QueryableImpl implements AnnotationPersistenceService {
+public class AnnotationPersistenceServiceImpl extends PooledQueryableImpl implements AnnotationPersistenceService {
 
     private static final String jdbcDriver;
     private static final String jdbcPassword;
@@ -60,34 +63,62 @@ public class AnnotationPersistenceServiceImpl extends QueryableImpl implements A
         jdbcDriver = bundle.getString("jdbc.driver");
     }
 
-    /** JPA is not thread safe, so once DAO per thread */
-    private final ThreadLocal<EntityManager> readOnlyEntityManagers = new ThreadLocal<EntityManager>();
     private final EntityManagerFactory kbEntityManagerFactory;
     private final AnnotationDAOFactory annotationDAOFactory;
-    private final PersistenceCache persistenceCache;
+    private final KnowledgebaseReadCache knowledgebaseReadCache;
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
 
-    private final Map<Concept, List<String>> descendantNameCache = Collections.synchronizedMap(new HashMap<Concept, List<String>>());
     /**
      * Constructs ...
      *
      * @param kbEntityManagerFactory
      * @param persistenceCache
+     * @param connectionPools
+     * @param conceptHierarchyIndex
+     * @param linkTemplateIndex
      */
     @Inject
     public AnnotationPersistenceServiceImpl(AnnotationDAOFactory annotationDAOFactory,
             @Named("knowledgebasePersistenceUnit") EntityManagerFactory kbEntityManagerFactory,
-            PersistenceCache persistenceCache) {
-        super(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver);
+            PersistenceCache persistenceCache, ConnectionPools connectionPools,
+            ConceptHierarchyIndex conceptHierarchyIndex, LinkTemplateIndex linkTemplateIndex) {
+        super(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver, connectionPools);
         this.annotationDAOFactory = annotationDAOFactory;
         this.kbEntityManagerFactory = kbEntityManagerFactory;
-        this.persistenceCache = persistenceCache;
+        this.knowledgebaseReadCache = new KnowledgebaseReadCache(kbEntityManagerFactory, persistenceCache,
+                linkTemplateIndex);
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
 
     }
 
+    /**
+     * The names are read from the shared {@link ConceptHierarchyIndex}, so this is
+     * a single in-memory lookup and reflects the knowledgebase as of its last
+     * invalidation. Falls back to the database for concepts that aren't in the
+     * index yet.
+     */
     public List<String> findDescendantNamesFor(Concept concept) {
-        List<String> desendantNames = descendantNameCache.get(concept);
+        List<String> desendantNames = null;
+        if (concept != null) {
+            ConceptName primaryName = concept.getPrimaryConceptName();
+            ConceptHierarchy.Node node = (primaryName == null)
+                    ? null : conceptHierarchyIndex.getHierarchy().findNode(primaryName.getName());
+            if ((node != null) && node.getPrimaryName().equals(primaryName.getName())) {
+                desendantNames = node.getDescendantNames();
+                Collections.sort(desendantNames, new IgnoreCaseToStringComparator());
+            }
+        }
+
         if (desendantNames == null && concept != null) {
-            Collection<ConceptName> names = getReadOnlyConceptDAO().findDescendentNames(concept);
+            ConceptDAO dao = getReadOnlyConceptDAO();
+            Collection<ConceptName> names;
+            try {
+                names = dao.findDescendentNames(concept);
+            }
+            finally {
+                dao.close();
+            }
+
             Collection<String> namesAsStrings = Collections2.transform(names, new Function<ConceptName, String>() {
                 public String apply(ConceptName from) {
                     return from.getName();
@@ -95,7 +126,6 @@ public class AnnotationPersistenceServiceImpl extends QueryableImpl implements A
             });
             desendantNames = new ArrayList<String>(namesAsStrings);
             Collections.sort(desendantNames, new IgnoreCaseToStringComparator());
-            descendantNameCache.put(concept, desendantNames);
         }
 
         // Don't return null. Alwasy return at least an empty list
@@ -108,22 +138,16 @@ public class AnnotationPersistenceServiceImpl extends QueryableImpl implements A
 
 
     /**
-     * Yes this duplicates functionality in {@link ConceptDAO}. But this version keeps
-     * a transaction open so that the L1 cache never gets cleared. This greatly speeds
-     * up lookups!!
+     * Yes this duplicates functionality in {@link ConceptDAO}. But this version is
+     * answered from a {@link KnowledgebaseReadCache} so repeated lookups of the
+     * same concept don't hit the database. The children and grandchildren of the
+     * concept are loaded too.
      *
      * @param name
      * @return
      */
     public Concept findConceptByName(String name) {
-        Concept concept = getReadOnlyConceptDAO().findByName(name);
-
-        // Let's load the children and grandchildren into our transaction
-        for (Concept child : concept.getChildConcepts()) {
-            child.getChildConcepts();
-        }
-
-        return concept;
+        return knowledgebaseReadCache.findConceptByName(name);
     }
 
     /**
@@ -132,68 +156,43 @@ public class AnnotationPersistenceServiceImpl extends QueryableImpl implements A
      * @return
      */
     public Concept findRootConcept() {
-        Concept concept = getReadOnlyConceptDAO().findRoot();
-
-        // Let's load the children and grand-children into our transaction
-        for (Concept child : concept.getChildConcepts()) {
-            child.getChildConcepts();
-        }
-
-        return concept;
+        return knowledgebaseReadCache.findRootConcept();
     }
 
     /**
-     * @return
+     * @return A ConceptDAO backed by a new EntityManager. Call close() on it when
+     *      you're done.
      */
     public ConceptDAO getReadOnlyConceptDAO() {
-        EntityManager entityManager = getReadOnlyEntityManager();
-        return new ConceptDAOImpl(entityManager);
+        return new ConceptDAOImpl(kbEntityManagerFactory.createEntityManager());
     }
 
-    
     /**
-     * These entitymanagers are never closed (until garbage collected) They are for
-     * queries since their L1 cache never gets cleared. This greatly speeds up
-     * queries. The entitymanger returned already has a transaction running.
-     * @return
+     * Answered from the {@link KnowledgebaseReadCache}, which is kept in step with
+     * the {@link LinkTemplateIndex} the UI uses, so a link template added or removed
+     * through the index is seen here too.
      */
-    private EntityManager getReadOnlyEntityManager() {
-        EntityManager entityManager = readOnlyEntityManagers.get();
-        if (entityManager == null || !entityManager.isOpen()) {
-            entityManager = kbEntityManagerFactory.createEntityManager();
-
-            DAO dao = new vars.jpa.DAO(entityManager);
-
-            dao.startTransaction();
-            persistenceCache.addCacheClearedListener(new MyCacheClearedListener(dao));
-            readOnlyEntityManagers.set(entityManager);
-        }
-
-        return entityManager;
-    }
-    
     public Collection<LinkTemplate> findLinkTemplatesFor(Concept concept) {
-        LinkTemplateDAO dao = new LinkTemplateDAOImpl(getReadOnlyEntityManager());
-        concept = dao.find(concept);
-        Collection<LinkTemplate> linkTemplates = dao.findAllApplicableToConcept(concept);
-        return linkTemplates;
+        return knowledgebaseReadCache.findLinkTemplatesFor(concept);
     }
-    
+
     /**
-     * Looks up the 'identity-reference' values for a given concept within a {@link VideoArchiveSet}
-     * These are used to tag an annotation as the same creature that's been seen before.
+     * Looks up the 'identity-reference' values for a given concept, and all of its
+     * descendants, within a {@link VideoArchiveSet}. These are used to tag an
+     * annotation as the same creature that's been seen before. This is a single
+     * query no matter how many VideoArchives are in the set.
+     *
+     * @param videoArchiveSet The VideoArchiveSet to search
+     * @param concept The concept whose branch is searched. If null the
+     *      'identity-reference' values for every concept are returned
      */
     public Collection<String> findAllReferenceNumbers(VideoArchiveSet videoArchiveSet, Concept concept) {
-        VideoArchiveDAO dao = annotationDAOFactory.newVideoArchiveDAO();
+        Collection<String> conceptNames = (concept == null) ? null : findDescendantNamesFor(concept);
+        VideoArchiveSetDAO dao = annotationDAOFactory.newVideoArchiveSetDAO();
         dao.startTransaction();
-        Collection<String> referenceNumbers = new TreeSet<String>();
-        for (VideoArchive videoArchive : new ArrayList<VideoArchive>(videoArchiveSet.getVideoArchives())) {
-            // TODO identity-reference is hard coded. It should be pulled out into a properties file
-            Set<String> values = dao.findAllLinkValues(videoArchive, "identity-reference", concept);
-            for (String string : values) {
-                referenceNumbers.add(string);
-            }
-        }
+        // TODO identity-reference is hard coded. It should be pulled out into a properties file
+        Collection<String> referenceNumbers = new TreeSet<String>(dao.findAllLinkValuesByConceptNames(videoArchiveSet,
+            "identity-reference", conceptNames));
         dao.endTransaction();
         dao.close();
         return referenceNumbers;
@@ -293,26 +292,34 @@ public class AnnotationPersistenceServiceImpl extends QueryableImpl implements A
         Collection<ConceptName> conceptNames = new ArrayList<ConceptName>(concept.getConceptNames());
         conceptNames.remove(concept.getPrimaryConceptName());
 
-        String sql1 = "UPDATE Observation SET ConceptName = ? WHERE ConceptName = ?";
-        String sql2 = "UPDATE Association SET ToConcept = ? WHERE ToConcept = ?";
+        // Bump the version column too, as JPA would, so caches keyed on it see the change
+        String sql1 = "UPDATE Observation SET ConceptName = ?, LAST_UPDATED_TIME = CURRENT_TIMESTAMP " +
+                "WHERE ConceptName = ?";
+        String sql2 = "UPDATE Association SET ToConcept = ?, LAST_UPDATED_TIME = CURRENT_TIMESTAMP " +
+                "WHERE ToConcept = ?";
 
         try {
             Connection connection = getConnection();
-            PreparedStatement preparedStatement1 = connection.prepareStatement(sql1);
-            PreparedStatement preparedStatement2 = connection.prepareStatement(sql2);
-            for (ConceptName conceptName: conceptNames) {
-                preparedStatement1.setString(1, primaryName);
-                preparedStatement1.setString(2, conceptName.getName());
-                preparedStatement1.addBatch();
-                preparedStatement2.setString(1, primaryName);
-                preparedStatement2.setString(2, conceptName.getName());
-                preparedStatement2.addBatch();
+            try {
+                PreparedStatement preparedStatement1 = connection.prepareStatement(sql1);
+                PreparedStatement preparedStatement2 = connection.prepareStatement(sql2);
+                for (ConceptName conceptName: conceptNames) {
+                    preparedStatement1.setString(1, primaryName);
+                    preparedStatement1.setString(2, conceptName.getName());
+                    preparedStatement1.addBatch();
+                    preparedStatement2.setString(1, primaryName);
+                    preparedStatement2.setString(2, conceptName.getName());
+                    preparedStatement2.addBatch();
+                }
+                preparedStatement1.executeBatch();
+                preparedStatement2.executeBatch();
+                //connection.commit();
+                preparedStatement1.close();
+                preparedStatement2.close();
+            }
+            finally {
+                connection.close();
             }
-            preparedStatement1.executeBatch();
-            preparedStatement2.executeBatch();
-            //connection.commit();
-            preparedStatement1.close();
-            preparedStatement2.close();
         }
         catch (Exception e) {
             throw new VARSException("Failed to update concept-names used by annotations", e);
@@ -373,40 +380,4 @@ public class AnnotationPersistenceServiceImpl extends QueryableImpl implements A
         };
         return executeQueryFunction(sql, queryFunction);
     }
-    
-
-    private class MyCacheClearedListener implements CacheClearedListener {
-
-        private final DAO dao;
-
-        /**
-         * Constructs ...
-         *
-         * @param dao
-         */
-        public MyCacheClearedListener(DAO dao) {
-            this.dao = dao;
-        }
-
-        /**
-         *
-         * @param evt
-         */
-        public void afterClear(CacheClearedEvent evt) {
-            dao.startTransaction();
-        }
-
-        /**
-         *
-         * @param evt
-         */
-        public void beforeClear(CacheClearedEvent evt) {
-            dao.endTransaction();    // Close the transaction
-            dao.close();
-            descendantNameCache.clear();
-        }
-    }
-
-
-    
 }
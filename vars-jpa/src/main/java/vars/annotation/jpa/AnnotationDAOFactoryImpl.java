@@ -31,6 +31,7 @@ import vars.annotation.VideoArchiveDAO;
 import vars.annotation.VideoArchiveSetDAO;
 import vars.annotation.VideoFrameDAO;
 import vars.jpa.EntityManagerFactoryAspect;
+import vars.knowledgebase.ConceptNameIndex;
 
 /**
  * Created by IntelliJ IDEA.
@@ -42,6 +43,7 @@ import vars.jpa.EntityManagerFactoryAspect;
 public class AnnotationDAOFactoryImpl implements AnnotationDAOFactory, EntityManagerFactoryAspect {
 
     private final AnnotationFactory annotationFactory;
+    private final ConceptNameIndex conceptNameIndex;
     private final EntityManagerFactory entityManagerFactory;
 
     /**
@@ -49,12 +51,14 @@ public class AnnotationDAOFactoryImpl implements AnnotationDAOFactory, EntityMan
      *
      * @param entityManagerFactory
      * @param annotationFactory
+     * @param conceptNameIndex Used by the DAOs to validate concept names
      */
     @Inject
     public AnnotationDAOFactoryImpl(@Named("annotationPersistenceUnit") EntityManagerFactory entityManagerFactory,
-                                    AnnotationFactory annotationFactory) {
+                                    AnnotationFactory annotationFactory, ConceptNameIndex conceptNameIndex) {
         this.entityManagerFactory = entityManagerFactory;
         this.annotationFactory = annotationFactory;
+        this.conceptNameIndex = conceptNameIndex;
     }
 
     /**
@@ -68,7 +72,7 @@ public class AnnotationDAOFactoryImpl implements AnnotationDAOFactory, EntityMan
      * @return
      */
     public AssociationDAO newAssociationDAO() {
-        return new AssociationDAOImpl(entityManagerFactory.createEntityManager());
+        return new AssociationDAOImpl(entityManagerFactory.createEntityManager(), conceptNameIndex);
     }
 
     /**
@@ -77,7 +81,7 @@ public class AnnotationDAOFactoryImpl implements AnnotationDAOFactory, EntityMan
      * @return
      */
     public AssociationDAO newAssociationDAO(EntityManager entityManager) {
-        return new AssociationDAOImpl(entityManager);
+        return new AssociationDAOImpl(entityManager, conceptNameIndex);
     }
 
     /**
@@ -132,7 +136,7 @@ public class AnnotationDAOFactoryImpl implements AnnotationDAOFactory, EntityMan
      * @return
      */
     public ObservationDAO newObservationDAO() {
-        return new ObservationDAOImpl(entityManagerFactory.createEntityManager());
+        return new ObservationDAOImpl(entityManagerFactory.createEntityManager(), conceptNameIndex);
     }
 
     /**
@@ -141,7 +145,7 @@ public class AnnotationDAOFactoryImpl implements AnnotationDAOFactory, EntityMan
      * @return
      */
     public ObservationDAO newObservationDAO(EntityManager entityManager) {
-        return new ObservationDAOImpl(entityManager);
+        return new ObservationDAOImpl(entityManager, conceptNameIndex);
     }
 
     /**
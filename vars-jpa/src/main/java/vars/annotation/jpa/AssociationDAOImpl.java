@@ -4,9 +4,12 @@ import vars.annotation.AssociationDAO;
 import vars.annotation.Association;
 import vars.jpa.DAO;
 import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.Concept;
 import com.google.inject.Inject;
 import java.util.List;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Map;
 import javax.persistence.EntityManager;
 
@@ -20,9 +23,23 @@ import javax.persistence.EntityManager;
 public class AssociationDAOImpl extends DAO implements AssociationDAO {
 
 
+    private final ConceptNameIndex conceptNameIndex;
+
     @Inject
     public AssociationDAOImpl(EntityManager entityManager) {
+        this(entityManager, null);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManager
+     * @param conceptNameIndex Used to validate names without querying the
+     *      knowledgebase. If null the ConceptDAO passed to validateName is used
+     */
+    public AssociationDAOImpl(EntityManager entityManager, ConceptNameIndex conceptNameIndex) {
         super(entityManager);
+        this.conceptNameIndex = conceptNameIndex;
     }
 
     public List<Association> findAllByConceptNameAndValues(String conceptName,
@@ -38,9 +55,17 @@ public class AssociationDAOImpl extends DAO implements AssociationDAO {
      * @param conceptDAO {@inheritDoc}
      */
     public void validateName(Association ass, ConceptDAO conceptDAO) {
-        Concept concept = conceptDAO.findByName(ass.getToConcept());
-        if (concept != null) {
-            ass.setToConcept(concept.getPrimaryConceptName().getName());
+        String primaryName = (conceptNameIndex == null) ? null : conceptNameIndex.findPrimaryName(ass.getToConcept());
+        if ((primaryName == null) && (conceptNameIndex == null)) {
+            // The index checks the database itself for names it doesn't know
+            Concept concept = conceptDAO.findByName(ass.getToConcept());
+            if (concept != null) {
+                primaryName = concept.getPrimaryConceptName().getName();
+            }
+        }
+
+        if (primaryName != null) {
+            ass.setToConcept(primaryName);
         }
         else {
             log.warn(ass + " contains a 'toConcept', " + ass.getToConcept() + " that was not found in the knowlegebase");
@@ -51,4 +76,8 @@ public class AssociationDAOImpl extends DAO implements AssociationDAO {
     public Association findByPrimaryKey(Object primaryKey) {
         return findByPrimaryKey(AssociationImpl.class, primaryKey);
     }
+
+    public List<Association> findByPrimaryKeys(Collection<?> primaryKeys) {
+        return new ArrayList<Association>(findByPrimaryKeys(AssociationImpl.class, primaryKeys));
+    }
 }
@@ -60,7 +60,13 @@ import vars.jpa.TransactionLogger;
     @NamedQuery(name = "Association.findByLinkValue",
                 query = "SELECT a FROM Association a WHERE a.linkValue = :linkValue"),
     @NamedQuery(name = "Association.findByConceptNameAndLinkFields",
-                query = "SELECT a FROM Association a WHERE a.observation.conceptName = :conceptName AND a.linkName = :linkName AND a.toConcept = :toConcept AND a.linkValue = :linkValue")
+                query = "SELECT a FROM Association a WHERE a.observation.conceptName = :conceptName AND a.linkName = :linkName AND a.toConcept = :toConcept AND a.linkValue = :linkValue"),
+    @NamedQuery(name = "Association.findLinkValuesByVideoArchiveSet",
+                query = "SELECT DISTINCT a.linkValue FROM Association a WHERE a.linkName = :linkName AND a.observation.videoFrame.videoArchive.videoArchiveSet.id = :videoArchiveSetId"),
+    @NamedQuery(name = "Association.findLinkValuesByVideoArchiveSetAndConceptNames",
+                query = "SELECT DISTINCT a.linkValue FROM Association a WHERE a.linkName = :linkName AND a.observation.videoFrame.videoArchive.videoArchiveSet.id = :videoArchiveSetId AND a.observation.conceptName IN :conceptNames"),
+    @NamedQuery(name = "Association.findLinkValuesAndConceptNamesByVideoArchiveSet",
+                query = "SELECT DISTINCT a.linkValue, a.observation.conceptName FROM Association a WHERE a.linkName = :linkName AND a.observation.videoFrame.videoArchive.videoArchiveSet.id = :videoArchiveSetId")
 
 })
 public class AssociationImpl implements Serializable, Association, JPAEntity {
@@ -5,9 +5,11 @@ import vars.annotation.ObservationDAO;
 import vars.annotation.Observation;
 import vars.knowledgebase.Concept;
 import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.ConceptName;
 
 import java.util.List;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -30,9 +32,23 @@ import javax.persistence.Query;
  */
 public class ObservationDAOImpl extends DAO implements ObservationDAO {
 
+    private final ConceptNameIndex conceptNameIndex;
+
     @Inject
     public ObservationDAOImpl(EntityManager entityManager) {
+        this(entityManager, null);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManager
+     * @param conceptNameIndex Used to validate names without querying the
+     *      knowledgebase. If null the ConceptDAO passed to validateName is used
+     */
+    public ObservationDAOImpl(EntityManager entityManager, ConceptNameIndex conceptNameIndex) {
         super(entityManager);
+        this.conceptNameIndex = conceptNameIndex;
     }
 
     public List<Observation> findAllByConceptName(String conceptName) {
@@ -163,9 +179,17 @@ public class ObservationDAOImpl extends DAO implements ObservationDAO {
     }
 
     public void validateName(Observation object, ConceptDAO conceptDAO) {
-        Concept concept = conceptDAO.findByName(object.getConceptName());
-        if (concept != null) {
-            object.setConceptName(concept.getPrimaryConceptName().getName());
+        String primaryName = (conceptNameIndex == null) ? null : conceptNameIndex.findPrimaryName(object.getConceptName());
+        if ((primaryName == null) && (conceptNameIndex == null)) {
+            // The index checks the database itself for names it doesn't know
+            Concept concept = conceptDAO.findByName(object.getConceptName());
+            if (concept != null) {
+                primaryName = concept.getPrimaryConceptName().getName();
+            }
+        }
+
+        if (primaryName != null) {
+            object.setConceptName(primaryName);
         }
         else {
             log.warn(object + " contains a 'conceptName', " + object.getConceptName() + " that was not found in the knowlegebase");
@@ -176,4 +200,8 @@ public class ObservationDAOImpl extends DAO implements ObservationDAO {
     public Observation findByPrimaryKey(Object primaryKey) {
         return findByPrimaryKey(ObservationImpl.class, primaryKey);
     }
+
+    public List<Observation> findByPrimaryKeys(Collection<?> primaryKeys) {
+        return new ArrayList<Observation>(findByPrimaryKeys(ObservationImpl.class, primaryKeys));
+    }
 }
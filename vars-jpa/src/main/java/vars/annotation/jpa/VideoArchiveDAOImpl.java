@@ -16,12 +16,11 @@ import java.util.HashMap;
 import com.google.inject.Inject;
 import javax.persistence.EntityManager;
 import vars.annotation.AnnotationFactory;
-import vars.annotation.Association;
 import vars.annotation.CameraDeployment;
-import vars.annotation.Observation;
 import vars.annotation.VideoArchive;
 import vars.annotation.VideoArchiveDAO;
 import vars.annotation.VideoArchiveSet;
+import vars.annotation.VideoArchiveSetDAO;
 import vars.annotation.VideoFrame;
 
 /**
@@ -47,7 +46,9 @@ public class VideoArchiveDAOImpl extends DAO implements VideoArchiveDAO {
     }
 
     /**
-     * This should only be called within JPA/DAO transaction
+     * This should only be called within JPA/DAO transaction. The search covers the
+     * whole VideoArchiveSet that the VideoArchive belongs to and is done with a
+     * single query.
      * @param videoArchive
      * @param linkName
      * @param concept
@@ -55,23 +56,14 @@ public class VideoArchiveDAOImpl extends DAO implements VideoArchiveDAO {
      */
     public Set<String> findAllLinkValues(VideoArchive videoArchive, String linkName, Concept concept) {
 
-        // Due to lazy loading we want to iterate through all objects in a collection
         videoArchive = find(videoArchive);
-        Collection<? extends VideoFrame> videoFrames = videoArchive.getVideoArchiveSet().getVideoFrames();
-        Set<String> linkValues = new HashSet<String>();
-        for (VideoFrame videoFrame : videoFrames) {
-            for (Observation observation : videoFrame.getObservations()) {
-                if (concept == null || concept.getConceptName(observation.getConceptName()) != null) {
-                    for (Association association : observation.getAssociations()) {
-                        if (linkName.equals(association.getLinkName())) {
-                            linkValues.add(association.getLinkValue());
-                        }
-                    }
-                }
-            }
+        if (videoArchive == null || videoArchive.getVideoArchiveSet() == null) {
+            return new HashSet<String>();
         }
 
-        return linkValues;
+        VideoArchiveSetDAO dao = new VideoArchiveSetDAOImpl(getEntityManager(), annotationFactory);
+
+        return dao.findAllLinkValues(videoArchive.getVideoArchiveSet(), linkName, concept);
     }
 
     /**
@@ -172,4 +164,10 @@ public class VideoArchiveDAOImpl extends DAO implements VideoArchiveDAO {
         return findByPrimaryKey(VideoArchiveImpl.class, primaryKey);
     }
 
+    public VideoArchive findWithGraph(VideoArchive videoArchive) {
+        Object primaryKey = ((JPAEntity) videoArchive).getId();
+
+        return (primaryKey == null) ? null : new VideoArchiveGraphLoader(getEntityManager()).load(primaryKey);
+    }
+
 }
@@ -0,0 +1,91 @@
+package vars.annotation.jpa;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.QueryHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.Observation;
+import vars.annotation.VideoArchive;
+import vars.annotation.VideoFrame;
+
+/**
+ * Loads a VideoArchive together with its entire annotation graph:
+ * VideoArchive &rarr; VideoFrame &rarr; CameraData/PhysicalData &rarr; Observation
+ * &rarr; Association. Walking that graph one lazy relationship at a time costs
+ * several SELECTs per VideoFrame. Here each relationship is batch fetched (joined
+ * back to the VideoArchive query) so the whole graph is read with one query per
+ * level no matter how many VideoFrames the archive has.
+ * <p>
+ * The batch hints only apply to objects built by the query. The EntityManager
+ * should not already hold the VideoArchive, so use a fresh DAO.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class VideoArchiveGraphLoader {
+
+    /** Relationships that are batch fetched along with the VideoArchive */
+    private static final String[] BATCH_PATHS = {
+        "v.videoFrames", "v.videoFrames.cameraData", "v.videoFrames.physicalData", "v.videoFrames.observations",
+        "v.videoFrames.observations.associations"
+    };
+    private static final String QUERY = "SELECT v FROM VideoArchive v WHERE v.id = :id";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManager The EntityManager to load the graph into. It should be
+     *      in a transaction.
+     */
+    public VideoArchiveGraphLoader(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param primaryKey The primary key of the VideoArchive to load
+     * @return The VideoArchive with all of its VideoFrames, CameraData, PhysicalData,
+     *      Observations and Associations loaded. null if no match was found.
+     */
+    public VideoArchive load(Object primaryKey) {
+        long start = System.currentTimeMillis();
+        Query query = entityManager.createQuery(QUERY);
+        query.setParameter("id", primaryKey);
+        query.setHint(QueryHints.BATCH_TYPE, BatchFetchType.JOIN);
+        for (String path : BATCH_PATHS) {
+            query.setHint(QueryHints.BATCH, path);
+        }
+
+        List<VideoArchive> videoArchives = query.getResultList();
+        if (videoArchives.isEmpty()) {
+            return null;
+        }
+
+        /*
+         * Touching a relationship on any one object triggers the batch read for all
+         * of them, so this walk only issues one query per relationship.
+         */
+        VideoArchive videoArchive = videoArchives.get(0);
+        int observationCount = 0;
+        List<VideoFrame> videoFrames = videoArchive.getVideoFrames();
+        for (VideoFrame videoFrame : videoFrames) {
+            videoFrame.getCameraData();
+            videoFrame.getPhysicalData();
+            for (Observation observation : videoFrame.getObservations()) {
+                observation.getAssociations().size();
+                observationCount++;
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + videoArchive + " with " + videoFrames.size() + " VideoFrames and " +
+                      observationCount + " Observations in " + (System.currentTimeMillis() - start) + " ms");
+        }
+
+        return videoArchive;
+    }
+}
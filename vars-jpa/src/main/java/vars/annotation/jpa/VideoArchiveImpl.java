@@ -11,8 +11,7 @@ import java.io.Serializable;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import javax.persistence.*;
 
@@ -20,7 +19,7 @@ import com.google.common.collect.Iterables;
 import vars.annotation.VideoArchive;
 import vars.annotation.VideoArchiveSet;
 import vars.annotation.VideoFrame;
-import vars.annotation.VideoFrameTCBean;
+import vars.annotation.VideoFrameIndex;
 import vars.jpa.JPAEntity;
 import vars.jpa.KeyNullifier;
 import vars.jpa.TransactionLogger;
@@ -44,6 +43,14 @@ public class VideoArchiveImpl implements Serializable, VideoArchive, JPAEntity {
     @Transient
     private final Predicate<VideoFrame> emptyVideoFramePredicate = new EmptyVideoFramePredicate();
 
+    /** Lookup index over videoFrames. Built on first use */
+    @Transient
+    private transient VideoFrameIndex videoFrameIndex;
+
+    /** The videoFrames list that videoFrameIndex was built from */
+    @Transient
+    private transient List<VideoFrame> indexedVideoFrames;
+
     @Id
     @Column(name = "id", nullable = false, updatable = false)
     @GeneratedValue(strategy = GenerationType.TABLE, generator = "VideoArchive_Gen")
@@ -86,45 +93,108 @@ public class VideoArchiveImpl implements Serializable, VideoArchive, JPAEntity {
         return videoFrames;
     }
 
-    private int indexByTimecode(final String timecode) {
-        return Collections.binarySearch(getVideoFrames(),
-                new VideoFrameTCBean(timecode),
-                new Comparator<VideoFrame>() {
-            @Override
-            public int compare(VideoFrame o1, VideoFrame o2) {
-                return o1.getTimecode().compareTo(o2.getTimecode());
+    /**
+     * Returns the index of the VideoFrames, building it first if needed. Callers
+     * must hold the lock on getVideoFrames(). The index is kept in sync by
+     * addVideoFrame, removeVideoFrame and the VideoFrame setters; it's only
+     * rebuilt when JPA has loaded or replaced the list.
+     */
+    private VideoFrameIndex getVideoFrameIndex() {
+        List<VideoFrame> frames = getVideoFrames();
+        if (videoFrameIndex == null) {
+            videoFrameIndex = new VideoFrameIndex();
+        }
+
+        if (indexedVideoFrames != frames) {
+            videoFrameIndex.clear();
+            videoFrameIndex.addAll(frames);
+            indexedVideoFrames = frames;
+        }
+
+        return videoFrameIndex;
+    }
+
+    /**
+     * @return true if the index exists and matches videoFrames, so it can be
+     *      updated in place. Callers must hold the lock on getVideoFrames().
+     */
+    private boolean isVideoFrameIndexCurrent() {
+        return (videoFrameIndex != null) && (indexedVideoFrames == videoFrames);
+    }
+
+    /**
+     * @return A count that changes whenever the VideoFrames or their timecodes or
+     *      recorded dates change.
+     */
+    long getVideoFrameModificationCount() {
+        synchronized (getVideoFrames()) {
+            return getVideoFrameIndex().getModificationCount();
+        }
+    }
+
+    /**
+     * Called by a VideoFrame when its timecode or recorded date changes.
+     */
+    void reindex(VideoFrame videoFrame) {
+        // Don't touch videoFrames unless it's already been read. It may be lazy.
+        if (videoFrameIndex != null) {
+            synchronized (getVideoFrames()) {
+                if (isVideoFrameIndexCurrent()) {
+                    videoFrameIndex.update(videoFrame);
+                }
             }
-        });
+        }
     }
 
     public void addVideoFrame(final VideoFrame videoFrame) {
 
-        getVideoFrames().add(videoFrame);
-        ((VideoFrameImpl) videoFrame).setVideoArchive(this);
-
-//        int idx = indexByTimecode(videoFrame.getTimecode());
-//
-//        if (idx >= 0) {
-//            throw new IllegalArgumentException("A VideoFrame with a timecode of " + videoFrame.getTimecode() +
-//                    " already exists in " + this + ".");
-//        }
-//        else {
-//            int insertIdx = -idx - 1;
-//            getVideoFrames().add(insertIdx, videoFrame);
-//            ((VideoFrameImpl) videoFrame).setVideoArchive(this);
-//        }
+        List<VideoFrame> frames = getVideoFrames();
+        synchronized (frames) {
+            frames.add(videoFrame);
+            ((VideoFrameImpl) videoFrame).setVideoArchive(this);
+            if (isVideoFrameIndexCurrent()) {
+                videoFrameIndex.add(videoFrame);
+            }
+        }
     }
 
     public VideoFrame findVideoFrameByTimeCode(final String timecode) {
-//        int idx = indexByTimecode(timecode);
-//        return (idx >= 0) ? getVideoFrames().get(idx) : null;
-        VideoFrame videoFrame = null;
-        for (VideoFrame vf : getVideoFrames()) {
-            if (vf.getTimecode().equals(timecode)) {
-                videoFrame = vf;
-            }
+        synchronized (getVideoFrames()) {
+            return getVideoFrameIndex().findByTimecode(timecode);
+        }
+    }
+
+    public VideoFrame findNearestVideoFrameByTimecode(final String timecode) {
+        synchronized (getVideoFrames()) {
+            return getVideoFrameIndex().findNearestTimecode(timecode);
+        }
+    }
+
+    public List<VideoFrame> findVideoFramesBetweenTimecodes(final String start, final String end) {
+        synchronized (getVideoFrames()) {
+            return getVideoFrameIndex().findBetweenTimecodes(start, end);
+        }
+    }
+
+    public VideoFrame findNearestVideoFrameByRecordedDate(final Date date) {
+        synchronized (getVideoFrames()) {
+            return getVideoFrameIndex().findNearestRecordedDate(date);
+        }
+    }
+
+    public List<VideoFrame> findVideoFramesBetweenRecordedDates(final Date start, final Date end) {
+        synchronized (getVideoFrames()) {
+            return getVideoFrameIndex().findBetweenRecordedDates(start, end);
+        }
+    }
+
+    /**
+     * @return The VideoFrames that have a timecode, sorted by timecode.
+     */
+    List<VideoFrame> getVideoFramesByTimecode() {
+        synchronized (getVideoFrames()) {
+            return getVideoFrameIndex().getVideoFramesByTimecode();
         }
-        return videoFrame;
     }
 
     public Collection<VideoFrame> getEmptyVideoFrames() {
@@ -132,8 +202,14 @@ public class VideoArchiveImpl implements Serializable, VideoArchive, JPAEntity {
     }
 
     public void removeVideoFrame(VideoFrame videoFrame) {
-        if (getVideoFrames().remove(videoFrame)) {
-            ((VideoFrameImpl) videoFrame).setVideoArchive(null);
+        List<VideoFrame> frames = getVideoFrames();
+        synchronized (frames) {
+            if (frames.remove(videoFrame)) {
+                ((VideoFrameImpl) videoFrame).setVideoArchive(null);
+                if (isVideoFrameIndexCurrent()) {
+                    videoFrameIndex.remove(videoFrame);
+                }
+            }
         }
     }
 
@@ -2,7 +2,9 @@ package vars.annotation.jpa;
 
 import vars.annotation.*;
 import vars.jpa.DAO;
+import vars.jpa.JPAEntity;
 import vars.knowledgebase.Concept;
+import vars.knowledgebase.ConceptName;
 
 import java.util.*;
 
@@ -12,12 +14,15 @@ import javax.persistence.EntityManager;
 
 public class VideoArchiveSetDAOImpl extends DAO implements VideoArchiveSetDAO {
 
-    private final VideoArchiveDAO videoArchiveDAO;
+    /**
+     * Concept name lists longer than this are filtered in memory rather than
+     * passed to the database in an IN clause
+     */
+    private static final int MAX_IN_LIST_SIZE = 500;
 
     @Inject
     public VideoArchiveSetDAOImpl(EntityManager entityManager, AnnotationFactory annotationFactory) {
         super(entityManager);
-        this.videoArchiveDAO = new VideoArchiveDAOImpl(entityManager, annotationFactory);
     }
 
     public Set<String> findAllLinkValues(VideoArchiveSet videoArchiveSet, String linkName) {
@@ -25,10 +30,58 @@ public class VideoArchiveSetDAOImpl extends DAO implements VideoArchiveSetDAO {
     }
 
     public Set<String> findAllLinkValues(VideoArchiveSet videoArchiveSet, String linkName, Concept concept) {
+        Collection<String> conceptNames = null;
+        if (concept != null) {
+            conceptNames = new ArrayList<String>();
+            for (ConceptName conceptName : concept.getConceptNames()) {
+                conceptNames.add(conceptName.getName());
+            }
+        }
+
+        return findAllLinkValuesByConceptNames(videoArchiveSet, linkName, conceptNames);
+    }
+
+    public Set<String> findAllLinkValuesByConceptNames(VideoArchiveSet videoArchiveSet, String linkName,
+            Collection<String> conceptNames) {
+
         Set<String> linkValues = new HashSet<String>();
-        for (VideoArchive videoArchive : videoArchiveSet.getVideoArchives()) {
-            linkValues.addAll(videoArchiveDAO.findAllLinkValues(videoArchive, linkName, concept));
+        Object id = ((JPAEntity) videoArchiveSet).getId();
+        if (id == null) {
+            return linkValues;
+        }
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("linkName", linkName);
+        params.put("videoArchiveSetId", id);
+
+        if (conceptNames == null) {
+            linkValues.addAll(findByNamedQuery("Association.findLinkValuesByVideoArchiveSet", params));
+        }
+        else if (conceptNames.isEmpty()) {
+            // Nothing can match
         }
+        else if (conceptNames.size() <= MAX_IN_LIST_SIZE) {
+            params.put("conceptNames", new ArrayList<String>(conceptNames));
+            linkValues.addAll(findByNamedQuery("Association.findLinkValuesByVideoArchiveSetAndConceptNames",
+                    params));
+        }
+        else {
+
+            /*
+             * Big branches of the knowledgebase would exceed the number of parameters
+             * some databases allow in an IN clause. Filter on the conceptName here instead
+             */
+            Set<String> names = new HashSet<String>(conceptNames);
+            List<Object[]> rows = findByNamedQuery("Association.findLinkValuesAndConceptNamesByVideoArchiveSet",
+                params);
+            for (Object[] row : rows) {
+                if (names.contains(row[1])) {
+                    linkValues.add((String) row[0]);
+                }
+            }
+        }
+
+        linkValues.remove(null);
 
         return linkValues;
     }
@@ -9,7 +9,6 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import java.io.Serializable;
 import java.sql.Timestamp;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -35,11 +34,11 @@ import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.persistence.Transient;
 import javax.persistence.Version;
-import vars.VideoMomentByTimecodeComparator;
 import vars.annotation.CameraDeployment;
 import vars.annotation.VideoArchive;
 import vars.annotation.VideoArchiveSet;
 import vars.annotation.VideoFrame;
+import vars.annotation.VideoFrameIndex;
 import vars.jpa.JPAEntity;
 import vars.jpa.KeyNullifier;
 import vars.jpa.TransactionLogger;
@@ -86,8 +85,20 @@ import vars.jpa.TransactionLogger;
 })
 public class VideoArchiveSetImpl implements Serializable, VideoArchiveSet, JPAEntity {
 
+    /**
+     * Lookup index over the VideoFrames of every child VideoArchive. Rebuilt when
+     * the VideoArchives, or any of their VideoFrames, change.
+     */
     @Transient
-    private final VideoMomentByTimecodeComparator comparator = new VideoMomentByTimecodeComparator();
+    private transient VideoFrameIndex videoFrameIndex;
+
+    /** Sum of the child VideoArchives' modification counts when the index was built */
+    @Transient
+    private transient long indexedVersion;
+
+    /** Read-only, timecode sorted view returned by getVideoFrames() */
+    @Transient
+    private transient List<VideoFrame> sortedVideoFrames;
 
 
     @Id
@@ -159,6 +170,7 @@ public class VideoArchiveSetImpl implements Serializable, VideoArchiveSet, JPAEn
 
         if(getVideoArchives().add(videoArchive)) {
             ((VideoArchiveImpl) videoArchive).setVideoArchiveSet(this);
+            invalidateVideoFrameIndex();
         }
  
     }
@@ -166,6 +178,7 @@ public class VideoArchiveSetImpl implements Serializable, VideoArchiveSet, JPAEn
     public void removeVideoArchive(VideoArchive videoArchive) {
         if(getVideoArchives().remove(videoArchive)) {
             ((VideoArchiveImpl) videoArchive).setVideoArchiveSet(null);
+            invalidateVideoFrameIndex();
         }
     }
 
@@ -190,14 +203,59 @@ public class VideoArchiveSetImpl implements Serializable, VideoArchiveSet, JPAEn
         return videoArchive;
     }
 
-    public List<VideoFrame> getVideoFrames() {
-        List<VideoFrame> videoFrames = new ArrayList<VideoFrame>();
+    public synchronized List<VideoFrame> getVideoFrames() {
+        VideoFrameIndex index = getVideoFrameIndex();
+        if (sortedVideoFrames == null) {
+            sortedVideoFrames = Collections.unmodifiableList(index.getVideoFramesByTimecode());
+        }
+
+        return sortedVideoFrames;
+    }
+
+    public synchronized VideoFrame findNearestVideoFrameByTimecode(String timecode) {
+        return getVideoFrameIndex().findNearestTimecode(timecode);
+    }
+
+    public synchronized List<VideoFrame> findVideoFramesBetweenTimecodes(String start, String end) {
+        return getVideoFrameIndex().findBetweenTimecodes(start, end);
+    }
+
+    public synchronized VideoFrame findNearestVideoFrameByRecordedDate(Date date) {
+        return getVideoFrameIndex().findNearestRecordedDate(date);
+    }
+
+    public synchronized List<VideoFrame> findVideoFramesBetweenRecordedDates(Date start, Date end) {
+        return getVideoFrameIndex().findBetweenRecordedDates(start, end);
+    }
+
+    /**
+     * Returns the combined index of every child VideoArchive's VideoFrames. The
+     * modification counts of the VideoArchives only ever increase, so if their sum
+     * hasn't changed neither have the VideoFrames.
+     */
+    private VideoFrameIndex getVideoFrameIndex() {
+        long version = 0;
         for (VideoArchive videoArchive : getVideoArchives()) {
-            videoFrames.addAll(videoArchive.getVideoFrames());
+            version += ((VideoArchiveImpl) videoArchive).getVideoFrameModificationCount();
         }
-        Collections.sort(videoFrames, comparator);
 
-        return videoFrames;
+        if ((videoFrameIndex == null) || (version != indexedVersion)) {
+            VideoFrameIndex index = new VideoFrameIndex();
+            for (VideoArchive videoArchive : getVideoArchives()) {
+                index.addAll(((VideoArchiveImpl) videoArchive).getVideoFramesByTimecode());
+            }
+
+            videoFrameIndex = index;
+            indexedVersion = version;
+            sortedVideoFrames = null;
+        }
+
+        return videoFrameIndex;
+    }
+
+    private synchronized void invalidateVideoFrameIndex() {
+        videoFrameIndex = null;
+        sortedVideoFrames = null;
     }
 
     public boolean hasSequenceNumber(int seqNumber) {
@@ -6,6 +6,8 @@ import java.util.Set;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashSet;
 
 import com.google.inject.Inject;
@@ -40,6 +42,10 @@ public class VideoFrameDAOImpl extends DAO implements VideoFrameDAO {
         return findByPrimaryKey(VideoFrameImpl.class, primaryKey);
     }
 
+    public List<VideoFrame> findByPrimaryKeys(Collection<?> primaryKeys) {
+        return new ArrayList<VideoFrame>(findByPrimaryKeys(VideoFrameImpl.class, primaryKeys));
+    }
+
     public VideoFrame findByTimeCodeAndVideoArchiveName(String timecode, String videoArchiveName) {
         final Map<String, Object> params = new HashMap<String, Object>();
         params.put("timecode", timecode);
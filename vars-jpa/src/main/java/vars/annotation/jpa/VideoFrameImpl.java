@@ -234,10 +234,21 @@ public class VideoFrameImpl implements Serializable, VideoFrame, JPAEntity {
 
     public void setRecordedDate(Date dtg) {
         this.recordedDate = dtg;
+        reindex();
     }
 
     public void setTimecode(String timecode) {
         this.timecode = timecode;
+        reindex();
+    }
+
+    /**
+     * Keeps the parent VideoArchive's lookup index in sync with this VideoFrame
+     */
+    private void reindex() {
+        if (videoArchive != null) {
+            ((VideoArchiveImpl) videoArchive).reindex(this);
+        }
     }
 
     void setVideoArchive(VideoArchive videoArchive) {
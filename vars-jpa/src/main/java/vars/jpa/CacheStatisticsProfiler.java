@@ -0,0 +1,65 @@
+package vars.jpa;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.Record;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+
+/**
+ * A light-weight profiler that only counts the cache hits and misses EclipseLink
+ * reports for a session. Nothing is timed. It's installed by
+ * {@link KnowledgebaseCacheCustomizer} and read by {@link JPACacheProvider}.
+ *
+ * @author brian
+ */
+public class CacheStatisticsProfiler extends SessionProfilerAdapter {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * A profiler with a weight of NONE is never called by EclipseLink.
+     */
+    @Override
+    public int getProfileWeight() {
+        return SessionProfiler.NORMAL;
+    }
+
+    @Override
+    public void occurred(String operationName, AbstractSession session) {
+        count(operationName);
+    }
+
+    @Override
+    public void occurred(String operationName, DatabaseQuery query, AbstractSession session) {
+        count(operationName);
+    }
+
+    /**
+     * Once a profiler is installed every query is routed through it. Just run it.
+     */
+    @Override
+    public Object profileExecutionOfQuery(DatabaseQuery query, Record row, AbstractSession session) {
+        return session.internalExecuteQuery(query, (AbstractRecord) row);
+    }
+
+    private void count(String operationName) {
+        if (SessionProfiler.CacheHits.equals(operationName)) {
+            hits.incrementAndGet();
+        }
+        else if (SessionProfiler.CacheMisses.equals(operationName)) {
+            misses.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * @(#)ConnectionPool.java   2026.10.18 at 09:12:44 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.jpa;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small, bounded JDBC connection pool. Connections handed out by the pool are
+ * proxies; calling <code>close()</code> on them returns the underlying connection
+ * to the pool instead of closing it. The pool:
+ * <ul>
+ *  <li>never has more than {@link ConnectionPoolConfig#getMaxSize()} connections checked out</li>
+ *  <li>validates idle connections before handing them out</li>
+ *  <li>closes connections that have been idle too long (see {@link #evictIdleConnections()})</li>
+ *  <li>logs a warning, with the stack trace of the borrower, for connections that
+ *      are held longer than the leak detection threshold (see {@link #detectLeaks()})</li>
+ * </ul>
+ *
+ * Use {@link ConnectionPools} to obtain shared instances.
+ *
+ * @author brian
+ */
+public class ConnectionPool implements DataSource {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<PooledConnection>();
+    private final Map<PooledConnection, Borrow> activeConnections = new ConcurrentHashMap<PooledConnection,
+                                                                        Borrow>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final ConnectionPoolConfig config;
+    private final String jdbcPassword;
+    private final String jdbcUrl;
+    private final String jdbcUsername;
+    private final Semaphore permits;
+    private volatile boolean closed = false;
+    private PrintWriter logWriter;
+
+    /**
+     * Constructs ...
+     *
+     * @param jdbcUrl
+     * @param jdbcUsername
+     * @param jdbcPassword
+     * @param jdbcDriver The driver class. It will be loaded if it's not null.
+     * @param config
+     */
+    public ConnectionPool(String jdbcUrl, String jdbcUsername, String jdbcPassword, String jdbcDriver,
+                          ConnectionPoolConfig config) {
+        this.jdbcUrl = jdbcUrl;
+        this.jdbcUsername = jdbcUsername;
+        this.jdbcPassword = jdbcPassword;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+
+        if (jdbcDriver != null) {
+            try {
+                Class.forName(jdbcDriver);
+            }
+            catch (ClassNotFoundException e) {
+                log.warn("Failed to load JDBC driver, " + jdbcDriver, e);
+            }
+        }
+    }
+
+    /**
+     * Borrow a connection from the pool. Blocks until a connection becomes available
+     * or the acquire timeout expires. Call close() on the returned connection to
+     * return it to the pool.
+     *
+     * @return A pooled connection
+     * @throws SQLException If the pool is exhausted, closed or a connection can not be
+     *      opened.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool for " + jdbcUrl + " has been closed");
+        }
+
+        waiting.incrementAndGet();
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection to " + jdbcUrl, e);
+        }
+        finally {
+            waiting.decrementAndGet();
+        }
+
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new SQLException("Timed out after " + config.getAcquireTimeoutMillis() +
+                                   " ms waiting for a connection to " + jdbcUrl + ". " + getStatistics());
+        }
+
+        try {
+            PooledConnection pooledConnection = takeIdleConnection();
+            if (pooledConnection == null) {
+                pooledConnection = new PooledConnection(DriverManager.getConnection(jdbcUrl, jdbcUsername,
+                        jdbcPassword));
+                created.incrementAndGet();
+                log.debug("Opened new connection to {}", jdbcUrl);
+            }
+
+            activeConnections.put(pooledConnection, new Borrow());
+            borrowed.incrementAndGet();
+
+            return pooledConnection.newHandle();
+        }
+        catch (SQLException e) {
+            permits.release();
+
+            throw e;
+        }
+        catch (RuntimeException e) {
+            permits.release();
+
+            throw e;
+        }
+    }
+
+    /**
+     * EclipseLink may ask for connections using explicit credentials. Requests for
+     * the pool's own user are served from the pool, anything else gets an unpooled
+     * connection.
+     */
+    public Connection getConnection(String username, String password) throws SQLException {
+        if ((username == null) || username.equals(jdbcUsername)) {
+            return getConnection();
+        }
+
+        return DriverManager.getConnection(jdbcUrl, username, password);
+    }
+
+    /**
+     * Pull a validated connection off of the idle queue
+     * @return A connection or null if none are available
+     */
+    private PooledConnection takeIdleConnection() {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            long idleTime = System.currentTimeMillis() - pooledConnection.lastUsed;
+            if ((idleTime < config.getValidationIntervalMillis()) || isValid(pooledConnection.connection)) {
+                return pooledConnection;
+            }
+
+            validationFailures.incrementAndGet();
+            log.debug("Discarding connection to {} that failed validation", jdbcUrl);
+            closeQuietly(pooledConnection.connection);
+        }
+
+        return null;
+    }
+
+    private boolean isValid(Connection connection) {
+        boolean valid = false;
+        try {
+            if (!connection.isClosed()) {
+                if (config.getValidationQuery() == null) {
+                    try {
+                        valid = connection.isValid(config.getValidationTimeoutSecs());
+                    }
+                    catch (AbstractMethodError e) {
+
+                        // Older (JDBC 3) drivers, like jTDS, don't implement isValid
+                        valid = true;
+                    }
+                    catch (SQLFeatureNotSupportedException e) {
+                        valid = true;
+                    }
+                }
+                else {
+                    Statement statement = connection.createStatement();
+                    try {
+                        statement.setQueryTimeout(config.getValidationTimeoutSecs());
+                        statement.execute(config.getValidationQuery());
+                        valid = true;
+                    }
+                    finally {
+                        statement.close();
+                    }
+                }
+            }
+        }
+        catch (SQLException e) {
+            log.debug("Connection validation failed", e);
+        }
+
+        return valid;
+    }
+
+    /**
+     * Returns a connection to the pool. Called when the proxy handed out by the
+     * pool is closed.
+     */
+    private void release(PooledConnection pooledConnection) {
+        activeConnections.remove(pooledConnection);
+        boolean reusable = !closed;
+        try {
+            if (pooledConnection.connection.isClosed()) {
+                reusable = false;
+            }
+            else if (!pooledConnection.connection.getAutoCommit()) {
+
+                // Don't leak uncommitted work into the next borrower
+                pooledConnection.connection.rollback();
+                pooledConnection.connection.setAutoCommit(true);
+            }
+        }
+        catch (SQLException e) {
+            log.debug("Discarding connection to " + jdbcUrl + " that could not be reset", e);
+            reusable = false;
+        }
+
+        if (reusable) {
+            pooledConnection.lastUsed = System.currentTimeMillis();
+            idleConnections.offerFirst(pooledConnection);
+        }
+        else {
+            closeQuietly(pooledConnection.connection);
+        }
+
+        permits.release();
+    }
+
+    /**
+     * Close any connections that have been idle longer than the idle timeout.
+     */
+    public void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (Iterator<PooledConnection> i = idleConnections.iterator(); i.hasNext(); ) {
+            PooledConnection pooledConnection = i.next();
+            if ((now - pooledConnection.lastUsed > config.getIdleTimeoutMillis()) &&
+                    idleConnections.remove(pooledConnection)) {
+                log.debug("Closing connection to {} that was idle for {} ms", jdbcUrl,
+                          now - pooledConnection.lastUsed);
+                closeQuietly(pooledConnection.connection);
+            }
+        }
+    }
+
+    /**
+     * Logs a warning for every connection that has been checked out longer than
+     * the leak detection threshold. Each checkout is only reported once.
+     */
+    public void detectLeaks() {
+        long threshold = config.getLeakDetectionThresholdMillis();
+        if (threshold <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (Borrow borrow : new ArrayList<Borrow>(activeConnections.values())) {
+            if (!borrow.reported && (now - borrow.time > threshold)) {
+                borrow.reported = true;
+                leaksDetected.incrementAndGet();
+                log.warn("A connection to " + jdbcUrl + " has been checked out by thread '" + borrow.threadName +
+                         "' for " + (now - borrow.time) + " ms. It may have been leaked. It was borrowed at:",
+                         borrow.stackTrace);
+            }
+        }
+    }
+
+    /**
+     * Closes all idle connections and refuses any new requests. Connections that
+     * are still checked out are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        List<PooledConnection> connections = new ArrayList<PooledConnection>();
+        idleConnections.drainTo(connections);
+        for (PooledConnection pooledConnection : connections) {
+            closeQuietly(pooledConnection.connection);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            log.debug("Failed to close connection to " + jdbcUrl, e);
+        }
+    }
+
+    public ConnectionPoolConfig getConfig() {
+        return config;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    /**
+     * @return A snapshot of the current pool state
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        return new ConnectionPoolStatistics(jdbcUrl, config.getMaxSize(), activeConnections.size(),
+                                            idleConnections.size(), waiting.get(), created.get(), borrowed.get(),
+                                            timeouts.get(), validationFailures.get(), leaksDetected.get());
+    }
+
+    public PrintWriter getLogWriter() throws SQLException {
+        return logWriter;
+    }
+
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.logWriter = out;
+    }
+
+    public void setLoginTimeout(int seconds) throws SQLException {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    public int getLoginTimeout() throws SQLException {
+        return DriverManager.getLoginTimeout();
+    }
+
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+
+        throw new SQLException(getClass().getName() + " is not a wrapper for " + iface.getName());
+    }
+
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Records who checked out a connection and when
+     */
+    private static class Borrow {
+
+        final long time = System.currentTimeMillis();
+        final String threadName = Thread.currentThread().getName();
+        final Exception stackTrace = new Exception("Connection borrowed here");
+        volatile boolean reported = false;
+    }
+
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private class PooledConnection {
+
+        final Connection connection;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * @return A new proxy for this connection. Each checkout gets its own proxy
+         *      so that a stale reference can not return the connection twice.
+         */
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class[] { Connection.class }, new ConnectionHandler(this));
+        }
+    }
+
+
+    /**
+     * Intercepts close() and isClosed() on the proxy handed out to callers.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final PooledConnection pooledConnection;
+        private boolean handleClosed = false;
+
+        ConnectionHandler(PooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name) && (args == null)) {
+                synchronized (this) {
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pooledConnection);
+                    }
+                }
+
+                return null;
+            }
+            else if ("isClosed".equals(name) && (args == null)) {
+                return handleClosed || pooledConnection.connection.isClosed();
+            }
+            else if ("equals".equals(name) && (args != null) && (args.length == 1)) {
+                return proxy == args[0];
+            }
+            else if ("hashCode".equals(name) && (args == null)) {
+                return System.identityHashCode(proxy);
+            }
+            else if ("toString".equals(name) && (args == null)) {
+                return "PooledConnection[" + jdbcUrl + (handleClosed ? ", closed]" : "]");
+            }
+
+            if (handleClosed) {
+                throw new SQLException("This connection has already been returned to the pool");
+            }
+
+            try {
+                return method.invoke(pooledConnection.connection, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
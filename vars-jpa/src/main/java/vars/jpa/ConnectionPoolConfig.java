@@ -0,0 +1,146 @@
+/*
+ * @(#)ConnectionPoolConfig.java   2026.10.18 at 09:12:44 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.jpa;
+
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+/**
+ * Settings used by a {@link ConnectionPool}. The defaults can be overridden in
+ * <i>connection-pool.properties</i> on the classpath.
+ *
+ * @author brian
+ */
+public class ConnectionPoolConfig {
+
+    /** Name of the ResourceBundle that the default configuration is read from */
+    public static final String BUNDLE_NAME = "connection-pool";
+
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final String validationQuery;
+    private final int validationTimeoutSecs;
+    private final long validationIntervalMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+
+    /**
+     *
+     * @param maxSize The maximum number of connections that can be open at once.
+     * @param acquireTimeoutMillis How long a caller will wait for a connection before failing
+     * @param validationQuery SQL used to check a connection before it is handed out. If
+     *      null or empty, {@link java.sql.Connection#isValid(int)} is used instead.
+     * @param validationTimeoutSecs The timeout used when validating a connection
+     * @param validationIntervalMillis Idle connections are only validated if they have
+     *      been idle for longer than this.
+     * @param idleTimeoutMillis Idle connections are closed after this many milliseconds
+     * @param leakDetectionThresholdMillis A connection that is checked out longer than this
+     *      is reported as a possible leak. Use 0 to turn off leak detection.
+     */
+    public ConnectionPoolConfig(int maxSize, long acquireTimeoutMillis, String validationQuery,
+                                int validationTimeoutSecs, long validationIntervalMillis, long idleTimeoutMillis,
+                                long leakDetectionThresholdMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1. You supplied " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.validationQuery = ((validationQuery == null) || (validationQuery.trim().length() == 0))
+                               ? null : validationQuery.trim();
+        this.validationTimeoutSecs = validationTimeoutSecs;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    /**
+     * @return A config using the values in <i>connection-pool.properties</i>. Any
+     *      missing value falls back to a built-in default.
+     */
+    public static ConnectionPoolConfig newDefaultConfig() {
+        ResourceBundle bundle = null;
+        try {
+            bundle = ResourceBundle.getBundle(BUNDLE_NAME, Locale.US);
+        }
+        catch (MissingResourceException e) {
+            // Use the built-in defaults
+        }
+
+        return new ConnectionPoolConfig(getInt(bundle, "pool.maxSize", 10),
+                                        getLong(bundle, "pool.acquireTimeout", 30000L),
+                                        getString(bundle, "pool.validationQuery", null),
+                                        getInt(bundle, "pool.validationTimeout", 5),
+                                        getLong(bundle, "pool.validationInterval", 30000L),
+                                        getLong(bundle, "pool.idleTimeout", 600000L),
+                                        getLong(bundle, "pool.leakDetectionThreshold", 60000L));
+    }
+
+    private static String getString(ResourceBundle bundle, String key, String defaultValue) {
+        String value = defaultValue;
+        if (bundle != null) {
+            try {
+                value = bundle.getString(key);
+            }
+            catch (MissingResourceException e) {
+                // Use the default
+            }
+        }
+
+        return value;
+    }
+
+    private static int getInt(ResourceBundle bundle, String key, int defaultValue) {
+        String value = getString(bundle, key, null);
+        return ((value == null) || (value.trim().length() == 0)) ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long getLong(ResourceBundle bundle, String key, long defaultValue) {
+        String value = getString(bundle, key, null);
+        return ((value == null) || (value.trim().length() == 0)) ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    public long getAcquireTimeoutMillis() {
+        return acquireTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getValidationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+
+    /**
+     * @return The validation SQL or null if {@link java.sql.Connection#isValid(int)}
+     *      should be used
+     */
+    public String getValidationQuery() {
+        return validationQuery;
+    }
+
+    public int getValidationTimeoutSecs() {
+        return validationTimeoutSecs;
+    }
+}
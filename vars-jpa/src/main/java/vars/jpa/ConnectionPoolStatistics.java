@@ -0,0 +1,108 @@
+/*
+ * @(#)ConnectionPoolStatistics.java   2026.10.18 at 09:12:44 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.jpa;
+
+/**
+ * An immutable snapshot of the state of a {@link ConnectionPool}
+ *
+ * @author brian
+ */
+public class ConnectionPoolStatistics {
+
+    private final String name;
+    private final int maxSize;
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final long created;
+    private final long borrowed;
+    private final long timeouts;
+    private final long validationFailures;
+    private final long leaksDetected;
+
+    /**
+     *
+     * @param name The name of the pool (usually the JDBC url)
+     * @param maxSize The maximum number of connections allowed
+     * @param active The number of connections currently checked out
+     * @param idle The number of open connections waiting in the pool
+     * @param waiting The number of threads waiting for a connection
+     * @param created The total number of physical connections opened
+     * @param borrowed The total number of times a connection was checked out
+     * @param timeouts The number of times a caller gave up waiting for a connection
+     * @param validationFailures The number of connections that failed validation
+     * @param leaksDetected The number of connections reported as possible leaks
+     */
+    public ConnectionPoolStatistics(String name, int maxSize, int active, int idle, int waiting, long created,
+                                    long borrowed, long timeouts, long validationFailures, long leaksDetected) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.created = created;
+        this.borrowed = borrowed;
+        this.timeouts = timeouts;
+        this.validationFailures = validationFailures;
+        this.leaksDetected = leaksDetected;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public long getBorrowed() {
+        return borrowed;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[" + name + "] active=" + active + "/" + maxSize + ", idle=" + idle + ", waiting=" +
+               waiting + ", created=" + created + ", borrowed=" + borrowed + ", timeouts=" + timeouts +
+               ", validationFailures=" + validationFailures + ", leaks=" + leaksDetected;
+    }
+}
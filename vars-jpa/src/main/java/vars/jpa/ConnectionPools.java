@@ -0,0 +1,149 @@
+/*
+ * @(#)ConnectionPools.java   2026.10.18 at 09:12:44 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.jpa;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the {@link ConnectionPool}s shared by a VARS application. There is
+ * one pool per database url/user combination, so the JPA persistence units and
+ * the JDBC based services (e.g. {@link PooledQueryableImpl}) that point at the
+ * same database share connections. This is bound as a singleton in
+ * {@link VarsJpaModule}.
+ *
+ * @author brian
+ */
+public class ConnectionPools {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Map<String, ConnectionPool> pools = new HashMap<String, ConnectionPool>();
+    private final ConnectionPoolConfig config;
+    private final ScheduledExecutorService housekeeper;
+
+    /**
+     * Constructs a registry using the settings from <i>connection-pool.properties</i>
+     */
+    public ConnectionPools() {
+        this(ConnectionPoolConfig.newDefaultConfig());
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param config The settings used for every pool created by this registry
+     */
+    public ConnectionPools(ConnectionPoolConfig config) {
+        this.config = config;
+        housekeeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vars-connection-pool-housekeeper");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        housekeeper.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                for (ConnectionPool pool : getPools()) {
+                    try {
+                        pool.detectLeaks();
+                        pool.evictIdleConnections();
+                    }
+                    catch (Exception e) {
+                        log.warn("Housekeeping failed for connection pool " + pool.getJdbcUrl(), e);
+                    }
+                }
+            }
+        }, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fetch the shared pool for a database, creating it if needed.
+     *
+     * @param jdbcUrl
+     * @param jdbcUsername
+     * @param jdbcPassword
+     * @param jdbcDriver
+     * @return The pool for the given url and user.
+     */
+    public synchronized ConnectionPool getPool(String jdbcUrl, String jdbcUsername, String jdbcPassword,
+            String jdbcDriver) {
+        String key = jdbcUsername + "@" + jdbcUrl;
+        ConnectionPool pool = pools.get(key);
+        if (pool == null) {
+            log.info("Creating connection pool (max size = {}) for {}", config.getMaxSize(), jdbcUrl);
+            pool = new ConnectionPool(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver, config);
+            pools.put(key, pool);
+        }
+
+        return pool;
+    }
+
+    /**
+     * Fetch the shared pool for a database described by a jdbc ResourceBundle
+     * (e.g. <i>annotation-jdbc</i>). The bundle needs to define jdbc.url,
+     * jdbc.username, jdbc.password and jdbc.driver.
+     *
+     * @param bundleName
+     * @return The pool for the database in the bundle
+     */
+    public ConnectionPool getPool(String bundleName) {
+        ResourceBundle bundle = ResourceBundle.getBundle(bundleName, Locale.US);
+        return getPool(bundle.getString("jdbc.url"), bundle.getString("jdbc.username"),
+                       bundle.getString("jdbc.password"), bundle.getString("jdbc.driver"));
+    }
+
+    /**
+     * @return A copy of all the pools created so far
+     */
+    public synchronized List<ConnectionPool> getPools() {
+        return new ArrayList<ConnectionPool>(pools.values());
+    }
+
+    /**
+     * @return A snapshot of the state of every pool
+     */
+    public List<ConnectionPoolStatistics> getStatistics() {
+        List<ConnectionPoolStatistics> statistics = new ArrayList<ConnectionPoolStatistics>();
+        for (ConnectionPool pool : getPools()) {
+            statistics.add(pool.getStatistics());
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Closes all pools and stops the housekeeping thread
+     */
+    public synchronized void close() {
+        housekeeper.shutdownNow();
+        for (ConnectionPool pool : pools.values()) {
+            pool.close();
+        }
+
+        pools.clear();
+    }
+}
@@ -17,13 +17,18 @@ package vars.jpa;
 
 import com.google.inject.Inject;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
 import javax.persistence.PersistenceException;
 import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,8 +45,13 @@ import org.slf4j.LoggerFactory;
  */
 public class DAO implements vars.DAO, EntityManagerAspect {
 
+    /** Largest number of primary keys passed in a single IN clause */
+    private static final int MAX_IN_LIST_SIZE = 500;
     protected final Logger log = LoggerFactory.getLogger(getClass());
     private final EntityManager entityManager;
+
+    /** The flush mode to restore when a batch transaction ends. null if not in one */
+    private FlushModeType batchFlushMode;
     private final String JDBC_URL_KEY = "javax.persistence.jdbc.url";
 
     /**
@@ -107,9 +117,23 @@ public class DAO implements vars.DAO, EntityManagerAspect {
                 throw e;
             }
             finally {
+                endBatch();
                 log.debug("JPA Transaction Ended");
             }
         }
+        else {
+            endBatch();
+        }
+    }
+
+    private void endBatch() {
+        if (batchFlushMode != null) {
+            if (entityManager.isOpen()) {
+                entityManager.setFlushMode(batchFlushMode);
+            }
+
+            batchFlushMode = null;
+        }
     }
 
     /**
@@ -216,6 +240,36 @@ public class DAO implements vars.DAO, EntityManagerAspect {
         return value;
     }
 
+    /**
+     * Looks up many objects at once using 'SELECT ... WHERE id IN (...)'. Large
+     * collections of keys are split across several queries.
+     *
+     * @param clazz The entity class (e.g. ObservationImpl.class)
+     * @param primaryKeys
+     * @param <T>
+     * @return The objects that were found, in no particular order
+     */
+    public <T> List<T> findByPrimaryKeys(Class<T> clazz, Collection<?> primaryKeys) {
+        List<T> values = new ArrayList<T>(primaryKeys.size());
+        if (primaryKeys.isEmpty()) {
+            return values;
+        }
+
+        log.debug("Executing FIND for {} using {} primary keys", clazz, primaryKeys.size());
+        String entityName = entityManager.getMetamodel().entity(clazz).getName();
+        String jpql = "SELECT e FROM " + entityName + " e WHERE e.id IN :ids";
+        List<Object> keys = new ArrayList<Object>(new LinkedHashSet<Object>(primaryKeys));
+        keys.remove(null);
+        for (int i = 0; i < keys.size(); i += MAX_IN_LIST_SIZE) {
+            TypedQuery<T> query = entityManager.createQuery(jpql, clazz);
+            query.setParameter("ids", new ArrayList<Object>(keys.subList(i, Math.min(keys.size(),
+                    i + MAX_IN_LIST_SIZE))));
+            values.addAll(query.getResultList());
+        }
+
+        return values;
+    }
+
     /**
      * @return
      */
@@ -305,6 +359,24 @@ public class DAO implements vars.DAO, EntityManagerAspect {
         }
     }
 
+    /**
+     * Start a transaction for writing many rows. The EntityManager's flush mode is
+     * set to COMMIT so that queries made during the transaction don't flush
+     * changes piecemeal; it's restored by {@link #endTransaction()}. The
+     * persistence units are configured for JDBC batch writing
+     * ('eclipselink.jdbc.batch-writing' in persistence.xml), so the single flush
+     * at commit is sent as batches of identical statements, one entity type at
+     * a time.
+     */
+    public void startBatchTransaction() {
+        if (batchFlushMode == null) {
+            batchFlushMode = entityManager.getFlushMode();
+            entityManager.setFlushMode(FlushModeType.COMMIT);
+        }
+
+        startTransaction();
+    }
+
     /**
      * The findByNamedQuery method needs a Map of parameters. This method
      * generates the map for you. For example, instead of using:
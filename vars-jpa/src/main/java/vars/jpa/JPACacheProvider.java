@@ -5,17 +5,23 @@
 
 package vars.jpa;
 
+import vars.CacheStatistics;
 import vars.PersistenceCacheProvider;
 
+import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.Cache;
 import javax.persistence.EntityManagerFactory;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.SessionProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import vars.VARSObject;
 import vars.annotation.AnnotationObject;
+import vars.knowledgebase.Concept;
+import vars.knowledgebase.ConceptName;
 import vars.knowledgebase.KnowledgebaseObject;
 
 /**
@@ -29,7 +35,8 @@ public class JPACacheProvider implements PersistenceCacheProvider {
     private final EntityManagerFactory annoEmf;
     private final EntityManagerFactory miscEmf;
     private final Logger log = LoggerFactory.getLogger(getClass());
-
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong clears = new AtomicLong();
 
 
     @Inject
@@ -46,7 +53,9 @@ public class JPACacheProvider implements PersistenceCacheProvider {
      * Clear the second level cache
      */
     public void clear() {
-        
+
+        log.info("Clearing caches. Knowledgebase " + getStatistics());
+        clears.incrementAndGet();
         Cache cache = kbEmf.getCache();
         cache.evictAll();
 
@@ -62,8 +71,50 @@ public class JPACacheProvider implements PersistenceCacheProvider {
         evict(annoEmf.getCache(), entity);
     }
 
+    /**
+     * Evicts a knowledgebase object from the shared cache. Evicting a Concept also
+     * evicts its ConceptNames (which are cached separately) so that renames made
+     * elsewhere are picked up.
+     */
     public void evict(KnowledgebaseObject entity) {
-        evict(kbEmf.getCache(), entity);
+        Cache cache = kbEmf.getCache();
+        evict(cache, entity);
+        evictions.incrementAndGet();
+
+        if (entity instanceof Concept) {
+            try {
+                for (ConceptName conceptName : ((Concept) entity).getConceptNames()) {
+                    evict(cache, conceptName);
+                    evictions.incrementAndGet();
+                }
+            }
+            catch (Exception e) {
+                log.info("Failed to evict the names of " + entity + " from cache", e);
+            }
+        }
+    }
+
+    /**
+     * @return Counters for the shared knowledgebase cache. Hits and misses are only
+     *      available when the knowledgebase unit uses {@link KnowledgebaseCacheCustomizer};
+     *      otherwise they're 0. Evictions count explicit calls to evict; objects that
+     *      EclipseLink drops on its own to stay within the size bound aren't counted.
+     */
+    public CacheStatistics getStatistics() {
+        long hits = 0;
+        long misses = 0;
+        try {
+            SessionProfiler profiler = JpaHelper.getServerSession(kbEmf).getProfiler();
+            if (profiler instanceof CacheStatisticsProfiler) {
+                hits = ((CacheStatisticsProfiler) profiler).getHits();
+                misses = ((CacheStatisticsProfiler) profiler).getMisses();
+            }
+        }
+        catch (Exception e) {
+            log.debug("Unable to read cache statistics", e);
+        }
+
+        return new CacheStatistics(hits, misses, evictions.get(), clears.get());
     }
 
     private void evict(Cache cache, VARSObject entity) {
@@ -0,0 +1,101 @@
+package vars.jpa;
+
+import org.eclipse.persistence.config.CacheIsolationType;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.descriptors.invalidation.TimeToLiveCacheInvalidationPolicy;
+import org.eclipse.persistence.sessions.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Session customizer for the knowledgebase persistence unit. The knowledgebase is
+ * read far more often than it is written (every annotation looks up a concept and
+ * its link templates) so, on top of what {@link UniqueIdSequenceCustomizer} does,
+ * this turns on EclipseLink's shared (2nd level) cache for the knowledgebase
+ * entities. The cache is bounded: each entity type keeps at most
+ * <i>vars.cache.kb.size</i> objects softly reachable, the rest are held weakly and
+ * dropped by the garbage collector. Cached objects are refreshed from the database
+ * after <i>vars.cache.kb.expiry</i> milliseconds so that edits made by other
+ * clients are eventually seen. It's registered in persistence.xml using:
+ * <pre>
+ * &lt;property name="eclipselink.session.customizer" value="vars.jpa.KnowledgebaseCacheCustomizer"/&gt;
+ * </pre>
+ *
+ * Both values are read from system properties, falling back to the persistence
+ * unit properties of the same name. A size of 0 leaves the cache configuration in
+ * persistence.xml untouched. Hit and miss counts are collected by a
+ * {@link CacheStatisticsProfiler}; use {@link vars.PersistenceCache#getStatistics()}
+ * to read them.
+ *
+ * @author brian
+ */
+public class KnowledgebaseCacheCustomizer extends UniqueIdSequenceCustomizer {
+
+    /** Property used to set the number of objects kept per entity type */
+    public static final String PROP_CACHE_SIZE = "vars.cache.kb.size";
+
+    /** Property used to set the time, in milliseconds, an object stays valid in the cache */
+    public static final String PROP_CACHE_EXPIRY = "vars.cache.kb.expiry";
+
+    /** Cache size used if none is configured */
+    public static final int DEFAULT_CACHE_SIZE = 5000;
+
+    /** Expiry used if none is configured. 10 minutes */
+    public static final long DEFAULT_CACHE_EXPIRY = 10 * 60 * 1000L;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Override
+    public void customize(Session session) throws Exception {
+        super.customize(session);
+
+        int size = (int) getLong(session, PROP_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        if (size <= 0) {
+            log.info("The shared cache for '{}' is left as configured in persistence.xml", session.getName());
+            return;
+        }
+
+        long expiry = getLong(session, PROP_CACHE_EXPIRY, DEFAULT_CACHE_EXPIRY);
+
+        /*
+         * All of the knowledgebase entities are shared. Concepts reference metadata,
+         * link templates, media, etc.; mixing shared and isolated descriptors would
+         * just push EclipseLink into its 'protected' mode.
+         */
+        for (ClassDescriptor descriptor : session.getDescriptors().values()) {
+            if (descriptor.isAggregateDescriptor()) {
+                continue;
+            }
+
+            descriptor.setCacheIsolation(CacheIsolationType.SHARED);
+            descriptor.useSoftCacheWeakIdentityMap();
+            descriptor.setIdentityMapSize(size);
+
+            if (expiry > 0) {
+                descriptor.setCacheInvalidationPolicy(new TimeToLiveCacheInvalidationPolicy(expiry));
+            }
+        }
+
+        session.setProfiler(new CacheStatisticsProfiler());
+        log.info("Shared cache for '{}' keeps up to {} objects per entity with an expiry of {} ms",
+                 new Object[] { session.getName(), size, expiry });
+    }
+
+    private long getLong(Session session, String name, long defaultValue) {
+        Object value = System.getProperty(name);
+        if (value == null) {
+            value = session.getProperty(name);
+        }
+
+        long n = defaultValue;
+        if (value != null) {
+            try {
+                n = Long.parseLong(value.toString().trim());
+            }
+            catch (NumberFormatException e) {
+                log.warn("Invalid value for " + name + ": '" + value + "'. Using " + defaultValue);
+            }
+        }
+
+        return n;
+    }
+}
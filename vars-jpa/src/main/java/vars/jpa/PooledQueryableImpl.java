@@ -0,0 +1,107 @@
+/*
+ * @(#)PooledQueryableImpl.java   2026.10.18 at 09:12:44 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.jpa;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.mbari.sql.QueryFunction;
+import org.mbari.sql.QueryResults;
+import org.mbari.sql.QueryableImpl;
+import vars.VARSException;
+
+/**
+ * A {@link QueryableImpl} that borrows its connections from a shared
+ * {@link ConnectionPool} instead of holding a raw connection open per thread.
+ * Connections returned by {@link #getConnection()} MUST be closed by the caller;
+ * closing them returns them to the pool.
+ *
+ * @author brian
+ */
+public class PooledQueryableImpl extends QueryableImpl {
+
+    private final ConnectionPool connectionPool;
+
+    /**
+     * Constructs ...
+     *
+     * @param jdbcUrl
+     * @param jdbcUsername
+     * @param jdbcPassword
+     * @param jdbcDriver
+     * @param connectionPools The registry that the shared pool is fetched from
+     */
+    public PooledQueryableImpl(String jdbcUrl, String jdbcUsername, String jdbcPassword, String jdbcDriver,
+                               ConnectionPools connectionPools) {
+        super(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver);
+        this.connectionPool = connectionPools.getPool(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver);
+    }
+
+    /**
+     * @return A connection borrowed from the pool. Close it when you're done with it!
+     * @throws SQLException
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connectionPool.getConnection();
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Executes a query and passes the ResultSet to a {@link QueryFunction}. The
+     * connection, statement and resultset are all closed before this returns.
+     */
+    @Override
+    public <T> T executeQueryFunction(String query, QueryFunction<T> queryFunction) {
+        try {
+            Connection connection = getConnection();
+            try {
+                Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+                try {
+                    ResultSet resultSet = statement.executeQuery(query);
+                    try {
+                        return queryFunction.apply(resultSet);
+                    }
+                    finally {
+                        resultSet.close();
+                    }
+                }
+                finally {
+                    statement.close();
+                }
+            }
+            finally {
+                connection.close();
+            }
+        }
+        catch (SQLException e) {
+            throw new VARSException("Failed to execute query: " + query, e);
+        }
+    }
+
+    @Override
+    public QueryResults executeQuery(String query) throws Exception {
+        return executeQueryFunction(query, new QueryFunction<QueryResults>() {
+            public QueryResults apply(ResultSet resultSet) throws SQLException {
+                return new QueryResults(resultSet);
+            }
+        });
+    }
+}
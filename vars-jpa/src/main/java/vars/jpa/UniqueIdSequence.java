@@ -0,0 +1,165 @@
+/*
+ * @(#)UniqueIdSequence.java   2026.10.18 at 11:02:10 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.jpa;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Vector;
+import javax.sql.DataSource;
+import org.eclipse.persistence.internal.databaseaccess.Accessor;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.sessions.DatasourceLogin;
+import org.eclipse.persistence.sessions.JNDIConnector;
+import org.eclipse.persistence.sequencing.TableSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.VARSPersistenceException;
+
+/**
+ * A {@link TableSequence} for the VARS <i>UniqueID</i> table that reserves a block
+ * of keys at a time. EclipseLink hands the keys in a block out from memory, so
+ * only one round trip to the UniqueID table is needed per block instead of one
+ * per inserted row.<p>
+ *
+ * The block is reserved in its own short JDBC transaction, so the UniqueID row is
+ * not locked for the duration of the caller's transaction. A block is reserved by
+ * adding the block size to NextID and using the keys <i>(NextID - size, NextID]</i>.
+ * Older clients that increment NextID by one (allocationSize = 1) use the same
+ * convention, so they can safely share the table with this sequence.
+ *
+ * @author brian
+ */
+public class UniqueIdSequence extends TableSequence {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Constructs ...
+     *
+     * @param name The name of the sequence
+     * @param blockSize The number of keys reserved per round trip
+     * @param initialValue
+     */
+    public UniqueIdSequence(String name, int blockSize, int initialValue) {
+        super(name, blockSize, initialValue);
+    }
+
+    /**
+     * Blocks are reserved outside of the callers transaction
+     */
+    @Override
+    public boolean shouldUseTransaction() {
+        return false;
+    }
+
+    @Override
+    public Object getGeneratedValue(Accessor accessor, AbstractSession writeSession, String seqName) {
+        return reserveBlock(writeSession, seqName, 1);
+    }
+
+    /**
+     * Reserve a block of keys.
+     *
+     * @param accessor Not used. The block is reserved on a separate connection
+     * @param writeSession
+     * @param seqName The value of the TableName column in UniqueID (e.g. 'Observation')
+     * @param size The number of keys to reserve
+     * @return A Vector of the reserved keys in ascending order
+     */
+    @Override
+    public Vector getGeneratedVector(Accessor accessor, AbstractSession writeSession, String seqName, int size) {
+        long last = reserveBlock(writeSession, seqName, size);
+        Vector<Long> keys = new Vector<Long>(size);
+        for (long key = last - size + 1; key <= last; key++) {
+            keys.add(key);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Adds <i>size</i> to NextID and returns the new value of NextID, which is the
+     * last key in the reserved block.
+     */
+    private long reserveBlock(AbstractSession writeSession, String seqName, int size) {
+        String updateSql = "UPDATE " + getTableName() + " SET " + getCounterFieldName() + " = " +
+                           getCounterFieldName() + " + ? WHERE " + getNameFieldName() + " = ?";
+        String selectSql = "SELECT " + getCounterFieldName() + " FROM " + getTableName() + " WHERE " +
+                           getNameFieldName() + " = ?";
+        try {
+            Connection connection = getConnection(writeSession);
+            try {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    PreparedStatement update = connection.prepareStatement(updateSql);
+                    update.setInt(1, size);
+                    update.setString(2, seqName);
+                    int n = update.executeUpdate();
+                    update.close();
+                    if (n != 1) {
+                        throw new SQLException("Expected one row in " + getTableName() + " for '" + seqName +
+                                               "' but found " + n);
+                    }
+
+                    PreparedStatement select = connection.prepareStatement(selectSql);
+                    select.setString(1, seqName);
+                    ResultSet resultSet = select.executeQuery();
+                    resultSet.next();
+                    long last = resultSet.getLong(1);
+                    resultSet.close();
+                    select.close();
+                    connection.commit();
+                    log.debug("Reserved keys {} to {} for {}", new Object[] { last - size + 1, last, seqName });
+
+                    return last;
+                }
+                catch (SQLException e) {
+                    connection.rollback();
+
+                    throw e;
+                }
+                finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+            finally {
+                connection.close();
+            }
+        }
+        catch (SQLException e) {
+            throw new VARSPersistenceException("Failed to reserve " + size + " keys for " + seqName + " from " +
+                                               getTableName(), e);
+        }
+    }
+
+    /**
+     * Use the persistence unit's DataSource (i.e. the shared {@link ConnectionPool})
+     * if there is one. Otherwise open a new connection using the session's login.
+     */
+    private Connection getConnection(AbstractSession writeSession) throws SQLException {
+        DatasourceLogin login = writeSession.getDatasourceLogin();
+        if (login.getConnector() instanceof JNDIConnector) {
+            DataSource dataSource = ((JNDIConnector) login.getConnector()).getDataSource();
+            if (dataSource != null) {
+                return dataSource.getConnection();
+            }
+        }
+
+        return (Connection) login.connectToDatasource(null, writeSession);
+    }
+}
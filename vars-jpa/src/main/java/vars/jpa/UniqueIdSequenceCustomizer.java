@@ -0,0 +1,96 @@
+/*
+ * @(#)UniqueIdSequenceCustomizer.java   2026.10.18 at 11:02:10 PDT
+ *
+ * Copyright 2026 MBARI
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package vars.jpa;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.sequencing.Sequence;
+import org.eclipse.persistence.sequencing.TableSequence;
+import org.eclipse.persistence.sessions.DatasourceLogin;
+import org.eclipse.persistence.sessions.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The entities map their primary keys with <code>@TableGenerator(table = "UniqueID",
+ * allocationSize = 1)</code>. This customizer replaces each of those generators
+ * with a {@link UniqueIdSequence} that reserves keys in blocks. It's registered in
+ * persistence.xml using:
+ * <pre>
+ * &lt;property name="eclipselink.session.customizer" value="vars.jpa.UniqueIdSequenceCustomizer"/&gt;
+ * </pre>
+ *
+ * The block size is read from the system property <i>vars.id.block-size</i>,
+ * falling back to the persistence unit property of the same name. A block size of
+ * 1 leaves the generators untouched.
+ *
+ * @author brian
+ */
+public class UniqueIdSequenceCustomizer implements SessionCustomizer {
+
+    /** Property used to set the number of keys reserved per round trip */
+    public static final String PROP_BLOCK_SIZE = "vars.id.block-size";
+
+    /** Block size used if none is configured */
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+    private static final String TABLE_NAME = "UniqueID";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    public void customize(Session session) throws Exception {
+        int blockSize = getBlockSize(session);
+        if (blockSize <= 1) {
+            log.info("Primary keys for '{}' will be allocated one at a time", session.getName());
+            return;
+        }
+
+        DatasourceLogin login = session.getDatasourceLogin();
+        List<Sequence> sequences = new ArrayList<Sequence>(login.getSequences().values());
+        for (Sequence sequence : sequences) {
+            if ((sequence instanceof TableSequence) && !(sequence instanceof UniqueIdSequence)) {
+                TableSequence tableSequence = (TableSequence) sequence;
+                if (TABLE_NAME.equalsIgnoreCase(tableSequence.getTableName())) {
+                    UniqueIdSequence uniqueIdSequence = new UniqueIdSequence(tableSequence.getName(), blockSize,
+                        tableSequence.getInitialValue());
+                    uniqueIdSequence.setTableName(tableSequence.getTableName());
+                    uniqueIdSequence.setNameFieldName(tableSequence.getNameFieldName());
+                    uniqueIdSequence.setCounterFieldName(tableSequence.getCounterFieldName());
+                    login.addSequence(uniqueIdSequence);
+                }
+            }
+        }
+
+        log.info("Primary keys for '{}' will be allocated in blocks of {}", session.getName(), blockSize);
+    }
+
+    private int getBlockSize(Session session) {
+        Object value = System.getProperty(PROP_BLOCK_SIZE);
+        if (value == null) {
+            value = session.getProperty(PROP_BLOCK_SIZE);
+        }
+
+        int blockSize = DEFAULT_BLOCK_SIZE;
+        if (value != null) {
+            try {
+                blockSize = Integer.parseInt(value.toString().trim());
+            }
+            catch (NumberFormatException e) {
+                log.warn("Invalid value for " + PROP_BLOCK_SIZE + ": '" + value + "'. Using " + DEFAULT_BLOCK_SIZE);
+            }
+        }
+
+        return blockSize;
+    }
+}
@@ -14,6 +14,7 @@
 
 package vars.jpa;
 
+import vars.VARSException;
 import vars.VarsUserPreferencesFactory;
 import com.google.inject.Binder;
 import com.google.inject.Inject;
@@ -23,6 +24,8 @@ import com.google.inject.Scopes;
 import com.google.inject.name.Names;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.prefs.PreferencesFactory;
 
@@ -42,12 +45,18 @@ import vars.annotation.AnnotationPersistenceService;
 import vars.annotation.AnnotationPersistenceServiceImpl;
 import vars.annotation.jpa.AnnotationDAOFactoryImpl;
 import vars.annotation.jpa.AnnotationFactoryImpl;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.KnowledgebasePersistenceService;
 import vars.knowledgebase.KnowledgebaseDAOFactory;
 import vars.knowledgebase.KnowledgebasePersistenceServiceImpl;
 import vars.knowledgebase.KnowledgebaseFactory;
+import vars.knowledgebase.LinkTemplateIndex;
+import vars.knowledgebase.jpa.ConceptHierarchyIndexImpl;
+import vars.knowledgebase.jpa.ConceptNameIndexImpl;
 import vars.knowledgebase.jpa.KnowledgebaseDAOFactoryImpl;
 import vars.knowledgebase.jpa.KnowledgebaseFactoryImpl;
+import vars.knowledgebase.jpa.LinkTemplateIndexImpl;
 import vars.query.QueryPersistenceService;
 import vars.query.QueryPersistenceServiceImpl;
 
@@ -63,6 +72,7 @@ public class VarsJpaModule implements Module {
     private final String annotationPersistenceUnit;
     private final String knowledgebasePersistenceUnit;
     private final String miscPersistenceUnit;
+    private final ConnectionPools connectionPools = new ConnectionPools();
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /**
@@ -89,14 +99,20 @@ public class VarsJpaModule implements Module {
         }};
         binder.bind(DateFormat.class).toInstance(dateFormatISO);
         
+        // Bind the shared connection pools. Used by the EntityManagerFactories and the JDBC services
+        binder.bind(ConnectionPools.class).toInstance(connectionPools);
+
         // Bind the EntityManagerFactories
-        binder.bind(EntityManagerFactory.class).annotatedWith(Names.named("annotationPersistenceUnit")).toInstance(Persistence.createEntityManagerFactory(annotationPersistenceUnit));
-        binder.bind(EntityManagerFactory.class).annotatedWith(Names.named("knowledgebasePersistenceUnit")).toInstance(Persistence.createEntityManagerFactory(knowledgebasePersistenceUnit));
-        binder.bind(EntityManagerFactory.class).annotatedWith(Names.named("miscPersistenceUnit")).toInstance(Persistence.createEntityManagerFactory(miscPersistenceUnit));
+        binder.bind(EntityManagerFactory.class).annotatedWith(Names.named("annotationPersistenceUnit")).toInstance(newEntityManagerFactory(annotationPersistenceUnit));
+        binder.bind(EntityManagerFactory.class).annotatedWith(Names.named("knowledgebasePersistenceUnit")).toInstance(newEntityManagerFactory(knowledgebasePersistenceUnit));
+        binder.bind(EntityManagerFactory.class).annotatedWith(Names.named("miscPersistenceUnit")).toInstance(newEntityManagerFactory(miscPersistenceUnit));
 
         // Bind annotation object and DAO factories
         binder.bind(AnnotationDAOFactory.class).to(AnnotationDAOFactoryImpl.class).in(Scopes.SINGLETON);
         binder.bind(AnnotationFactory.class).to(AnnotationFactoryImpl.class);
+        binder.bind(ConceptHierarchyIndex.class).to(ConceptHierarchyIndexImpl.class).in(Scopes.SINGLETON);
+        binder.bind(ConceptNameIndex.class).to(ConceptNameIndexImpl.class).in(Scopes.SINGLETON);
+        binder.bind(LinkTemplateIndex.class).to(LinkTemplateIndexImpl.class).in(Scopes.SINGLETON);
         binder.bind(AnnotationPersistenceService.class).to(AnnotationPersistenceServiceImpl.class).in(Scopes.SINGLETON);
         binder.bind(ExternalDataPersistenceService.class).to(EXPDPersistenceService.class);
         binder.bind(KnowledgebaseDAOFactory.class).to(KnowledgebaseDAOFactoryImpl.class).in(Scopes.SINGLETON);
@@ -111,6 +127,39 @@ public class VarsJpaModule implements Module {
 
     }
 
+    /**
+     * Creates an EntityManagerFactory whose connections come from the shared
+     * {@link ConnectionPools} rather than from EclipseLink's internal pool. The
+     * JDBC settings are read from the persistence unit. EclipseLink doesn't log in
+     * until the first EntityManager is created, so the bootstrap factory is cheap.
+     *
+     * @param persistenceUnit The name of the persistence unit
+     * @return An EntityManagerFactory backed by a pooled DataSource
+     * @throws VARSException if the persistence unit has no javax.persistence.jdbc.url.
+     *      Without one the connections can't be pooled, and EclipseLink would
+     *      otherwise carry on with a connection per EntityManager
+     */
+    private EntityManagerFactory newEntityManagerFactory(String persistenceUnit) {
+        EntityManagerFactory bootstrap = Persistence.createEntityManagerFactory(persistenceUnit);
+        Map<String, Object> properties = bootstrap.getProperties();
+        String url = (String) properties.get("javax.persistence.jdbc.url");
+        if ((url == null) || (url.trim().length() == 0)) {
+            bootstrap.close();
+            throw new VARSException("The persistence unit '" + persistenceUnit +
+                                    "' has no javax.persistence.jdbc.url, so its connections can't be pooled." +
+                                    " Set it in persistence.xml");
+        }
+
+        bootstrap.close();
+        ConnectionPool pool = connectionPools.getPool(url, (String) properties.get("javax.persistence.jdbc.user"),
+            (String) properties.get("javax.persistence.jdbc.password"),
+            (String) properties.get("javax.persistence.jdbc.driver"));
+        Map<String, Object> overrides = new HashMap<String, Object>();
+        overrides.put("javax.persistence.nonJtaDataSource", pool);
+
+        return Persistence.createEntityManagerFactory(persistenceUnit, overrides);
+    }
+
     /**
      * This allows us to bind a single VarsUserPreferenceFactory object to
      * several different bindings.
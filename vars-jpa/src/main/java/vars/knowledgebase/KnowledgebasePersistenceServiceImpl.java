@@ -9,12 +9,14 @@ import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Collection;
 import java.util.ArrayList;
+import com.google.inject.Inject;
 import org.mbari.sql.QueryFunction;
 
-import org.mbari.sql.QueryableImpl;
 import vars.VARSException;
 import vars.annotation.Association;
 import vars.annotation.Observation;
+import vars.jpa.ConnectionPools;
+import vars.jpa.PooledQueryableImpl;
 
 /**
  * Created by IntelliJ IDEA.
@@ -23,7 +25,7 @@ import vars.annotation.Observation;
  * Time: 12:58:56 PM
  * To change this template use File | Settings | File Templates.
  */
-public class KnowledgebasePersistenceServiceImpl extends QueryableImpl implements KnowledgebasePersistenceService {
+public class KnowledgebasePersistenceServiceImpl extends PooledQueryableImpl implements KnowledgebasePersistenceService {
 
     private static final String jdbcPassword;
     private static final String jdbcUrl;
@@ -40,9 +42,12 @@ public class KnowledgebasePersistenceServiceImpl extends QueryableImpl implement
 
     /**
      * Constructs ...
+     *
+     * @param connectionPools
      */
-    public KnowledgebasePersistenceServiceImpl() {
-        super(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver);
+    @Inject
+    public KnowledgebasePersistenceServiceImpl(ConnectionPools connectionPools) {
+        super(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver, connectionPools);
     }
 
 
@@ -66,15 +71,20 @@ public class KnowledgebasePersistenceServiceImpl extends QueryableImpl implement
         String sql = "UPDATE LinkTemplate SET ToConcept = ? WHERE ToConcept = ?";
         try {
             Connection connection = getConnection();
-            PreparedStatement preparedStatement = connection.prepareStatement(sql);
-            for (ConceptName conceptName : conceptNames) {
-                preparedStatement.setString(1, primaryName);
-                preparedStatement.setString(2, conceptName.getName());
-                preparedStatement.addBatch();
+            try {
+                PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                for (ConceptName conceptName : conceptNames) {
+                    preparedStatement.setString(1, primaryName);
+                    preparedStatement.setString(2, conceptName.getName());
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+                //connection.commit();
+                preparedStatement.close();
+            }
+            finally {
+                connection.close();
             }
-            preparedStatement.executeBatch();
-            //connection.commit();
-            preparedStatement.close();
         }
         catch (Exception e) {
             throw new VARSException("Failed to update LinkTemplates", e);
@@ -104,11 +114,16 @@ public class KnowledgebasePersistenceServiceImpl extends QueryableImpl implement
 
         try {
             Connection connection = getConnection();
-            PreparedStatement preparedStatement = connection.prepareStatement(sql);
-            preparedStatement.setString(1, conceptname);
-            boolean exists = queryFunction.apply(preparedStatement.executeQuery());
-            preparedStatement.close();
-            return exists;
+            try {
+                PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                preparedStatement.setString(1, conceptname);
+                boolean exists = queryFunction.apply(preparedStatement.executeQuery());
+                preparedStatement.close();
+                return exists;
+            }
+            finally {
+                connection.close();
+            }
         }
         catch (Exception e) {
             throw new VARSException("Failed to execute " + sql, e);
@@ -13,6 +13,7 @@ import com.google.inject.Inject;
 
 import java.util.Collection;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -30,6 +31,8 @@ import javax.persistence.EntityManager;
  */
 public class ConceptDAOImpl extends DAO implements ConceptDAO {
 
+    /** Largest number of values passed in a single IN clause */
+    private static final int MAX_IN_LIST_SIZE = 500;
 
     @Inject
     public ConceptDAOImpl(EntityManager entityManager) {
@@ -87,29 +90,45 @@ public class ConceptDAOImpl extends DAO implements ConceptDAO {
     public Collection<ConceptName> findDescendentNames(Concept concept) {
 
         Collection<ConceptName> conceptNames = new ArrayList<ConceptName>();
+        Long id = ((JPAEntity) concept).getId();
+        if (id == null) {
+            conceptNames.addAll(concept.getConceptNames());
+            return conceptNames;
+        }
 
-        Concept mergedConcept = findByPrimaryKey(ConceptImpl.class, ((JPAEntity) concept).getId());
-        conceptNames.addAll(mergedConcept.getConceptNames());
-        findDescendentNames(mergedConcept.getChildConcepts(), conceptNames);
+        /*
+         * Walk down the tree a level at a time collecting only the ids. Then fetch
+         * the names for all of them. This is one query per level (and per chunk of
+         * ids) instead of a lazy load of every concept.
+         */
+        List<Object> ids = new ArrayList<Object>();
+        List<Object> level = new ArrayList<Object>();
+        level.add(id);
+        while (!level.isEmpty()) {
+            ids.addAll(level);
+            level = findInChunks("Concept.findChildIdsByParentIds", "parentIds", level);
+        }
+
+        conceptNames.addAll(findInChunks("ConceptName.findByConceptIds", "conceptIds", ids));
 
         return conceptNames;
 
     }
 
-
     /**
-     * Private method for recursively collecting conceptnames
-     * @param concepts A collection of concepts. Normally this is from concept.getChildConcepts()
-     * @param conceptNames The colleciton of ConceptNames used to collect all the individual
-     *      ConceptName objects
+     * Runs a named query with an IN parameter, splitting the values so that the
+     * IN clause never exceeds {@link #MAX_IN_LIST_SIZE}
      */
-    private void findDescendentNames(Collection<Concept> concepts, Collection<ConceptName> conceptNames) {
-
-        for (Concept concept : concepts) {
-            //log.info("In findDescendentNames processing " + concept);
-            conceptNames.addAll(concept.getConceptNames());
-            findDescendentNames(concept.getChildConcepts(), conceptNames);
+    private <T> List<T> findInChunks(String namedQuery, String parameterName, List<?> values) {
+        List<T> results = new ArrayList<T>();
+        for (int i = 0; i < values.size(); i += MAX_IN_LIST_SIZE) {
+            List<?> chunk = values.subList(i, Math.min(values.size(), i + MAX_IN_LIST_SIZE));
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put(parameterName, new ArrayList<Object>(chunk));
+            results.addAll(findByNamedQuery(namedQuery, params));
         }
+
+        return results;
     }
 
 
@@ -125,16 +144,25 @@ public class ConceptDAOImpl extends DAO implements ConceptDAO {
      */
     public Collection<Concept> findDescendents(Concept concept) {
         Collection<Concept> concepts = new ArrayList<Concept>();
-        findDescendents(concept, concepts);
+        concepts.add(concept);
+        if (((JPAEntity) concept).getId() == null) {
+            return concepts;
+        }
 
-        return concepts;
-    }
+        // One query per level of the tree (and per chunk of ids)
+        List<Concept> level = new ArrayList<Concept>();
+        level.add(concept);
+        while (!level.isEmpty()) {
+            List<Object> parentIds = new ArrayList<Object>(level.size());
+            for (Concept c : level) {
+                parentIds.add(((JPAEntity) c).getId());
+            }
 
-    private void findDescendents(Concept concept, Collection<Concept> concepts) {
-        concepts.add(concept);
-        for (Concept child : concept.getChildConcepts()) {
-            findDescendents(child, concepts);
+            level = findInChunks("Concept.findChildrenByParentIds", "parentIds", parentIds);
+            concepts.addAll(level);
         }
+
+        return concepts;
     }
 
 
@@ -149,7 +177,10 @@ public class ConceptDAOImpl extends DAO implements ConceptDAO {
         // Bring ALL child concepts into the transaction first
         startTransaction();
         concept = find(concept);
-        Queue<Concept> queue = new LinkedList<Concept>(findDescendents(concept));
+        // findDescendents is ordered by level. Reversed, children come before their parents
+        List<Concept> descendents = new ArrayList<Concept>(findDescendents(concept));
+        Collections.reverse(descendents);
+        Queue<Concept> queue = new LinkedList<Concept>(descendents);
         endTransaction();
         while(queue.size() > 0) {
             Concept c = queue.poll();
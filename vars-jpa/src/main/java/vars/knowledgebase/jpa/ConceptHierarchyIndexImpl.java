@@ -0,0 +1,165 @@
+package vars.knowledgebase.jpa;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameTypes;
+
+/**
+ * {@link ConceptHierarchyIndex} that reads the entire knowledgebase tree with two
+ * queries: one for the concepts (with their parent and rank) and one for all of
+ * the concept names. The snapshot is swapped out as a whole so readers never
+ * block. It's loaded lazily on first use, which is the only time a reader
+ * waits. After {@link #invalidate()} the old snapshot is served while a new one
+ * is built on a background thread.
+ *
+ * @author brian
+ */
+public class ConceptHierarchyIndexImpl implements ConceptHierarchyIndex {
+
+    private static final String CONCEPT_QUERY = "SELECT c.id, p.id, c.rankName, c.rankLevel " +
+        "FROM Concept c LEFT JOIN c.parentConcept p";
+    private static final String NAME_QUERY = "SELECT c.id, n.name, n.nameType FROM ConceptName n JOIN n.concept c";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Object loadLock = new Object();
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile ConceptHierarchy hierarchy;
+
+    /** true while a rebuild is waiting to start. Invalidations are coalesced into it */
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private final ExecutorService executor;
+    private final Runnable reloadTask = new Runnable() {
+
+        public void run() {
+            // Cleared before loading so that an invalidation during the load queues another
+            reloadQueued.set(false);
+            try {
+                synchronized (loadLock) {
+                    hierarchy = load();
+                }
+            }
+            catch (Exception e) {
+                log.warn("Failed to reload the concept hierarchy. Keeping the previous snapshot", e);
+            }
+        }
+    };
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManagerFactory
+     */
+    @Inject
+    public ConceptHierarchyIndexImpl(@Named("knowledgebasePersistenceUnit") EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+
+        // A single daemon thread that exits when idle
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ConceptHierarchyIndex");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        executor = threadPoolExecutor;
+    }
+
+    public ConceptHierarchy getHierarchy() {
+        ConceptHierarchy h = hierarchy;
+        if (h == null) {
+            synchronized (loadLock) {
+                h = hierarchy;
+                if (h == null) {
+                    h = load();
+                    hierarchy = h;
+                }
+            }
+        }
+
+        return h;
+    }
+
+    public void invalidate() {
+        log.debug("Invalidating the concept hierarchy");
+        if (reloadQueued.compareAndSet(false, true)) {
+            executor.execute(reloadTask);
+        }
+    }
+
+    /**
+     * Reads the knowledgebase tree. Called on first use and on the background
+     * thread after an invalidation.
+     *
+     * @return A new snapshot
+     */
+    protected ConceptHierarchy load() {
+        long start = System.currentTimeMillis();
+
+        // Created first so the version is handed out before the knowledgebase is read
+        ConceptHierarchy.Builder builder = new ConceptHierarchy.Builder();
+        List<Object[]> concepts;
+        List<Object[]> names;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            concepts = entityManager.createQuery(CONCEPT_QUERY).getResultList();
+            names = entityManager.createQuery(NAME_QUERY).getResultList();
+        }
+        finally {
+            entityManager.close();
+        }
+
+        for (Object[] row : concepts) {
+            builder.addConcept(row[0], row[1], (String) row[2], (String) row[3]);
+        }
+
+        String primary = ConceptNameTypes.PRIMARY.getName();
+        for (Object[] row : names) {
+            builder.addName(row[0], (String) row[1], primary.equalsIgnoreCase((String) row[2]));
+        }
+
+        ConceptHierarchy h = builder.build();
+        log.info("Loaded " + h.size() + " concepts and " + h.getAllNames().size() +
+                 " names into concept hierarchy version " + h.getVersion() + " in " +
+                 (System.currentTimeMillis() - start) + " ms. Estimated size is " +
+                 (estimateBytes(h) / 1024) + " KB");
+
+        return h;
+    }
+
+    /**
+     * A rough estimate of the heap used by a hierarchy, assuming a 64-bit VM with
+     * compressed pointers. Good enough to spot a knowledgebase that has outgrown
+     * being held in memory.
+     */
+    private static long estimateBytes(ConceptHierarchy h) {
+        long bytes = 0;
+        for (ConceptHierarchy.Node node : h.getNodes()) {
+
+            // Node + its children and names lists
+            bytes += 48 + 2 * (40 + 4 * node.getChildren().size());
+            for (String name : node.getNames()) {
+
+                // The String, its chars, two map entries and a slot in allNames
+                bytes += 40 + 2 * name.length() + 2 * 48 + 4;
+            }
+        }
+
+        return bytes;
+    }
+}
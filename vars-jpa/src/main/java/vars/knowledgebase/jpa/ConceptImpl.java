@@ -66,6 +66,10 @@ import vars.knowledgebase.ConceptNameTypes;
     @NamedQuery(name = "Concept.findByTaxonomyType",
                 query = "SELECT c FROM Concept c WHERE c.taxonomyType = :taxonomyType") ,
     @NamedQuery(name = "Concept.findRoot", query = "SELECT c FROM Concept c WHERE c.parentConcept IS NULL") ,
+    @NamedQuery(name = "Concept.findChildrenByParentIds",
+                query = "SELECT c FROM Concept c WHERE c.parentConcept.id IN :parentIds") ,
+    @NamedQuery(name = "Concept.findChildIdsByParentIds",
+                query = "SELECT c.id FROM Concept c WHERE c.parentConcept.id IN :parentIds") ,
     @NamedQuery(name = "Concept.findAll", query = "SELECT c FROM Concept c"),
     @NamedQuery(name = "Concept.findByName", query = "SELECT c FROM Concept c, IN (c.conceptNames) AS n WHERE n.name = :name"),
     @NamedQuery(name = "Concept.findAllByNameGlob", query = "SELECT DISTINCT c FROM Concept c, IN (c.conceptNames) AS n WHERE lower(n.name) LIKE :name ORDER BY n.name")
@@ -68,6 +68,8 @@ import vars.knowledgebase.ConceptName;
     @NamedQuery(name = "ConceptName.findByNameType",
                 query = "SELECT c FROM ConceptName c WHERE c.nameType = :nameType") ,
     @NamedQuery(name = "ConceptName.findAll", query = "SELECT c FROM ConceptName c") ,
+    @NamedQuery(name = "ConceptName.findByConceptIds",
+                query = "SELECT c FROM ConceptName c WHERE c.concept.id IN :conceptIds") ,
     @NamedQuery(name = "ConceptName.findByNameLike", query = "SELECT c FROM ConceptName c WHERE lower(c.name) LIKE :name ORDER BY c.name")
 
 })
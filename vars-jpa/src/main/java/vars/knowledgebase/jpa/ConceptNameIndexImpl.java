@@ -0,0 +1,145 @@
+package vars.knowledgebase.jpa;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameIndex;
+import vars.knowledgebase.ConceptNameTypes;
+
+/**
+ * {@link ConceptNameIndex} backed by the {@link ConceptHierarchyIndex}, so the
+ * names aren't held in memory twice. A name that isn't in the hierarchy is looked
+ * up in the database once and the answer, including "not found", is remembered
+ * until the next {@link #invalidate()}. Callers can rely on a null answer without
+ * asking the database again.<p>
+ *
+ * After {@link #invalidate()} the hierarchy is rebuilt in the background. Until a
+ * hierarchy that was started after the invalidation is available, every name is
+ * looked up in the database (and remembered) instead, so changes are seen right
+ * away.
+ *
+ * @author brian
+ */
+public class ConceptNameIndexImpl implements ConceptNameIndex {
+
+    /** The number of database lookups remembered. They're all dropped when it's exceeded */
+    private static final int MAX_LOOKUPS = 10000;
+
+    /** Stands in for a name that isn't in the knowledgebase, as the map can't hold null */
+    private static final String MISSING = "";
+    private static final String QUERY = "SELECT n.name, p.name FROM ConceptName n, ConceptName p " +
+        "WHERE n.concept = p.concept AND LOWER(p.nameType) = :primary AND LOWER(n.name) = :name";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile Lookups lookups = new Lookups(0);
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManagerFactory Used for the names that aren't in the hierarchy
+     * @param conceptHierarchyIndex
+     */
+    @Inject
+    public ConceptNameIndexImpl(@Named("knowledgebasePersistenceUnit") EntityManagerFactory entityManagerFactory,
+                                ConceptHierarchyIndex conceptHierarchyIndex) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
+    }
+
+    public String findPrimaryName(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        Lookups l = lookups;
+        ConceptHierarchy hierarchy = conceptHierarchyIndex.getHierarchy();
+        if (hierarchy.getVersion() > l.staleVersion) {
+            ConceptHierarchy.Node node = hierarchy.findNode(name);
+            if (node != null) {
+                return node.getPrimaryName();
+            }
+        }
+
+        String primaryName = l.primaryNames.get(name);
+        if (primaryName == null) {
+            primaryName = loadPrimaryName(name);
+            if (l.primaryNames.size() >= MAX_LOOKUPS) {
+                l.primaryNames.clear();
+            }
+
+            l.primaryNames.put(name, (primaryName == null) ? MISSING : primaryName);
+        }
+
+        return ((primaryName == null) || primaryName.equals(MISSING)) ? null : primaryName;
+    }
+
+    public void invalidate() {
+        log.debug("Invalidating the concept name index");
+
+        // The hierarchies already started may have read the knowledgebase before the change
+        lookups = new Lookups(ConceptHierarchy.getLatestVersion());
+        conceptHierarchyIndex.invalidate();
+    }
+
+    public int size() {
+        return conceptHierarchyIndex.getHierarchy().getAllNames().size();
+    }
+
+    /**
+     * Looks a name up in the knowledgebase.
+     *
+     * @return The primary name of the concept with the name. An exact match is
+     *      preferred over a case-insensitive one. null if no concept has that name
+     */
+    protected String loadPrimaryName(String name) {
+        List<Object[]> rows;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Query query = entityManager.createQuery(QUERY);
+            query.setParameter("primary", ConceptNameTypes.PRIMARY.getName().toLowerCase(Locale.US));
+            query.setParameter("name", name.toLowerCase(Locale.US));
+            rows = query.getResultList();
+        }
+        finally {
+            entityManager.close();
+        }
+
+        String primaryName = null;
+        for (Object[] row : rows) {
+            if (name.equals(row[0])) {
+                return (String) row[1];
+            }
+            else if (primaryName == null) {
+                primaryName = (String) row[1];
+            }
+        }
+
+        return primaryName;
+    }
+
+    /**
+     * The database lookups made since an invalidation
+     */
+    private static class Lookups {
+
+        final ConcurrentMap<String, String> primaryNames = new ConcurrentHashMap<String, String>();
+
+        /** Hierarchies with this version or lower may predate the invalidation */
+        final long staleVersion;
+
+        Lookups(long staleVersion) {
+            this.staleVersion = staleVersion;
+        }
+    }
+}
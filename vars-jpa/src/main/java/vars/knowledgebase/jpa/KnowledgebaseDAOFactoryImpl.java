@@ -32,17 +32,21 @@ import vars.knowledgebase.*;
  */
 public class KnowledgebaseDAOFactoryImpl implements KnowledgebaseDAOFactory, EntityManagerFactoryAspect {
 
+    private final ConceptNameIndex conceptNameIndex;
     private final EntityManagerFactory entityManagerFactory;
 
     /**
      * Constructs ...
      *
      * @param entityManagerFactory
+     * @param conceptNameIndex Used by the link DAOs to validate concept names
      */
     @Inject
     public KnowledgebaseDAOFactoryImpl(
-            @Named("knowledgebasePersistenceUnit") EntityManagerFactory entityManagerFactory) {
+            @Named("knowledgebasePersistenceUnit") EntityManagerFactory entityManagerFactory,
+            ConceptNameIndex conceptNameIndex) {
         this.entityManagerFactory = entityManagerFactory;
+        this.conceptNameIndex = conceptNameIndex;
     }
 
     /**
@@ -144,7 +148,7 @@ public class KnowledgebaseDAOFactoryImpl implements KnowledgebaseDAOFactory, Ent
      * @return
      */
     public LinkRealizationDAO newLinkRealizationDAO() {
-        return new LinkRealizationDAOImpl(entityManagerFactory.createEntityManager());
+        return new LinkRealizationDAOImpl(entityManagerFactory.createEntityManager(), conceptNameIndex);
     }
 
     /**
@@ -153,14 +157,14 @@ public class KnowledgebaseDAOFactoryImpl implements KnowledgebaseDAOFactory, Ent
      * @return
      */
     public LinkRealizationDAO newLinkRealizationDAO(EntityManager entityManager) {
-        return new LinkRealizationDAOImpl(entityManager);
+        return new LinkRealizationDAOImpl(entityManager, conceptNameIndex);
     }
 
     /**
      * @return
      */
     public LinkTemplateDAO newLinkTemplateDAO() {
-        return new LinkTemplateDAOImpl(entityManagerFactory.createEntityManager());
+        return new LinkTemplateDAOImpl(entityManagerFactory.createEntityManager(), conceptNameIndex);
     }
 
     /**
@@ -169,7 +173,7 @@ public class KnowledgebaseDAOFactoryImpl implements KnowledgebaseDAOFactory, Ent
      * @return
      */
     public LinkTemplateDAO newLinkTemplateDAO(EntityManager entityManager) {
-        return new LinkTemplateDAOImpl(entityManager);
+        return new LinkTemplateDAOImpl(entityManager, conceptNameIndex);
     }
 
     /**
@@ -0,0 +1,277 @@
+package vars.knowledgebase.jpa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.CacheClearedEvent;
+import vars.CacheClearedListener;
+import vars.PersistenceCache;
+import vars.knowledgebase.Concept;
+import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.LinkTemplate;
+import vars.knowledgebase.LinkTemplateDAO;
+import vars.knowledgebase.LinkTemplateIndex;
+
+/**
+ * A bounded, thread-safe cache of the concepts and link templates that the
+ * annotation UI reads over and over again. Each lookup that misses borrows an
+ * EntityManager just long enough to load the objects (the children and
+ * grandchildren of a concept are loaded too) and closes it, so no transaction or
+ * database connection is held between lookups.
+ *
+ * Entries are kept in least-recently-used order. At most <i>maxEntries</i>
+ * concepts and <i>maxEntries</i> link template lists are kept, and an entry older
+ * than <i>expiryMillis</i> is reloaded on its next use. Everything is dropped when
+ * the {@link PersistenceCache} is cleared or {@link #clear()} is called; call
+ * {@link #close()} to detach it from the PersistenceCache once it's no longer
+ * needed. The link templates are also dropped whenever the
+ * {@link LinkTemplateIndex#getVersion()} changes, so edits recorded in the index
+ * show up here right away instead of when the entries expire.
+ *
+ * The cached objects are detached and shared between threads. Treat them as
+ * read-only.
+ *
+ * @author brian
+ */
+public class KnowledgebaseReadCache implements CacheClearedListener {
+
+    /** Default number of concepts, and link template lists, to keep */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** Default age, in milliseconds, after which an entry is reloaded. 10 minutes */
+    public static final long DEFAULT_EXPIRY = 10 * 60 * 1000L;
+
+    /** Cache key used for the root concept */
+    private static final String ROOT = "";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Map<String, Entry<Concept>> concepts;
+    private final long expiryMillis;
+
+    /** Incremented on every clear so that a load that overlaps one isn't cached */
+    private long generation;
+    private final EntityManagerFactory kbEntityManagerFactory;
+    private final Map<Object, Entry<List<LinkTemplate>>> linkTemplates;
+    private final LinkTemplateIndex linkTemplateIndex;
+
+    /** The {@link LinkTemplateIndex#getVersion()} the cached link templates were loaded at */
+    private long linkTemplatesVersion;
+    private final PersistenceCache persistenceCache;
+
+    /**
+     * Constructs ...
+     *
+     * @param kbEntityManagerFactory
+     * @param persistenceCache
+     * @param linkTemplateIndex
+     */
+    public KnowledgebaseReadCache(EntityManagerFactory kbEntityManagerFactory, PersistenceCache persistenceCache,
+                                  LinkTemplateIndex linkTemplateIndex) {
+        this(kbEntityManagerFactory, persistenceCache, linkTemplateIndex, DEFAULT_MAX_ENTRIES, DEFAULT_EXPIRY);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param kbEntityManagerFactory Used to borrow EntityManagers for loading
+     * @param persistenceCache This cache is cleared whenever the persistenceCache is
+     * @param linkTemplateIndex The link templates are dropped whenever its version changes
+     * @param maxEntries The maximum number of concepts (and link template lists) kept
+     * @param expiryMillis Entries older than this are reloaded. 0 or less means never
+     */
+    public KnowledgebaseReadCache(EntityManagerFactory kbEntityManagerFactory, PersistenceCache persistenceCache,
+                                  LinkTemplateIndex linkTemplateIndex, int maxEntries, long expiryMillis) {
+        this.kbEntityManagerFactory = kbEntityManagerFactory;
+        this.persistenceCache = persistenceCache;
+        this.linkTemplateIndex = linkTemplateIndex;
+        this.linkTemplatesVersion = linkTemplateIndex.getVersion();
+        this.expiryMillis = expiryMillis;
+        concepts = new LruMap<String, Entry<Concept>>(maxEntries);
+        linkTemplates = new LruMap<Object, Entry<List<LinkTemplate>>>(maxEntries);
+        persistenceCache.addCacheClearedListener(this);
+    }
+
+    public void afterClear(CacheClearedEvent evt) {
+        clear();
+    }
+
+    public void beforeClear(CacheClearedEvent evt) {
+
+        // Do nothing
+    }
+
+    /**
+     * Drop all cached concepts and link templates
+     */
+    public synchronized void clear() {
+        concepts.clear();
+        linkTemplates.clear();
+        generation++;
+    }
+
+    /**
+     * Clears the cache and stops listening to the {@link PersistenceCache}
+     */
+    public void close() {
+        persistenceCache.removeCacheClearedListener(this);
+        clear();
+    }
+
+    /**
+     * @param name Any name (primary, synonym, etc.) of the concept
+     * @return The matching concept, with its children and grandchildren loaded.
+     *      <b>null</b> if no concept has that name
+     */
+    public Concept findConceptByName(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        return findConcept(name);
+    }
+
+    /**
+     * @param concept The concept whose link templates are returned
+     * @return All the link templates that apply to the concept, including those
+     *      inherited from its ancestors. The returned collection is a copy
+     */
+    public Collection<LinkTemplate> findLinkTemplatesFor(Concept concept) {
+        Object key = (concept == null) ? null : concept.getPrimaryKey();
+        if (key == null) {
+            return new ArrayList<LinkTemplate>(loadLinkTemplates(concept));
+        }
+
+        long startGeneration;
+        long startVersion = linkTemplateIndex.getVersion();
+        synchronized (this) {
+            if (startVersion != linkTemplatesVersion) {
+                linkTemplates.clear();
+                linkTemplatesVersion = startVersion;
+            }
+
+            Entry<List<LinkTemplate>> entry = linkTemplates.get(key);
+            if (isValid(entry)) {
+                return new ArrayList<LinkTemplate>(entry.value);
+            }
+
+            startGeneration = generation;
+        }
+
+        List<LinkTemplate> values = loadLinkTemplates(concept);
+        synchronized (this) {
+            if ((startGeneration == generation) && (startVersion == linkTemplateIndex.getVersion())) {
+                linkTemplates.put(key, new Entry<List<LinkTemplate>>(values));
+            }
+        }
+
+        return new ArrayList<LinkTemplate>(values);
+    }
+
+    /**
+     * @return The root concept with its children and grandchildren loaded
+     */
+    public Concept findRootConcept() {
+        return findConcept(ROOT);
+    }
+
+    private Concept findConcept(String key) {
+        long startGeneration;
+        synchronized (this) {
+            Entry<Concept> entry = concepts.get(key);
+            if (isValid(entry)) {
+                return entry.value;
+            }
+
+            startGeneration = generation;
+        }
+
+        Concept concept = loadConcept(key);
+        if (concept != null) {
+            synchronized (this) {
+                if (startGeneration == generation) {
+                    concepts.put(key, new Entry<Concept>(concept));
+                }
+            }
+        }
+
+        return concept;
+    }
+
+    private boolean isValid(Entry<?> entry) {
+        return (entry != null) &&
+               ((expiryMillis <= 0) || (System.currentTimeMillis() - entry.created < expiryMillis));
+    }
+
+    private Concept loadConcept(String key) {
+        ConceptDAO dao = new ConceptDAOImpl(kbEntityManagerFactory.createEntityManager());
+        try {
+            Concept concept = ROOT.equals(key) ? dao.findRoot() : dao.findByName(key);
+            if (concept != null) {
+
+                // Load the names, children and grandchildren before the EntityManager is closed
+                concept.getConceptNames().size();
+                for (Concept child : concept.getChildConcepts()) {
+                    child.getChildConcepts().size();
+                }
+            }
+
+            return concept;
+        }
+        finally {
+            dao.close();
+        }
+    }
+
+    private List<LinkTemplate> loadLinkTemplates(Concept concept) {
+        if (concept == null) {
+            return Collections.emptyList();
+        }
+
+        LinkTemplateDAO dao = new LinkTemplateDAOImpl(kbEntityManagerFactory.createEntityManager());
+        try {
+            Concept managedConcept = dao.find(concept);
+            if (managedConcept == null) {
+                log.debug("Unable to find " + concept + " in the knowledgebase");
+
+                return Collections.emptyList();
+            }
+
+            return Collections.unmodifiableList(
+                new ArrayList<LinkTemplate>(dao.findAllApplicableToConcept(managedConcept)));
+        }
+        finally {
+            dao.close();
+        }
+    }
+
+    private static class Entry<T> {
+
+        final long created = System.currentTimeMillis();
+        final T value;
+
+        Entry(T value) {
+            this.value = value;
+        }
+    }
+
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private final int maxEntries;
+
+        LruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package vars.knowledgebase.jpa;
 
 import vars.jpa.DAO;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.LinkRealizationDAO;
 import vars.knowledgebase.LinkRealization;
 import vars.knowledgebase.ConceptDAO;
@@ -23,11 +24,24 @@ import javax.persistence.EntityManager;
 public class LinkRealizationDAOImpl extends DAO implements LinkRealizationDAO {
 
     private final ConceptDAO conceptDAO;
+    private final ConceptNameIndex conceptNameIndex;
 
     @Inject
     public LinkRealizationDAOImpl(EntityManager entityManager) {
+        this(entityManager, null);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManager
+     * @param conceptNameIndex Used to validate names without querying the
+     *      knowledgebase. If null every name is looked up with a ConceptDAO
+     */
+    public LinkRealizationDAOImpl(EntityManager entityManager, ConceptNameIndex conceptNameIndex) {
         super(entityManager);
         this.conceptDAO = new ConceptDAOImpl(entityManager);
+        this.conceptNameIndex = conceptNameIndex;
     }
 
     public Collection<LinkRealization> findAllByLinkName(String linkName) {
@@ -37,14 +51,24 @@ public class LinkRealizationDAOImpl extends DAO implements LinkRealizationDAO {
     }
 
     public void validateName(LinkRealization object) {
-        Concept concept = conceptDAO.findByName(object.getToConcept());
-        if (concept != null) {
-            object.setToConcept(concept.getPrimaryConceptName().getName());
+        String toConcept = object.getToConcept();
+        String primaryName = (conceptNameIndex == null) ? null : conceptNameIndex.findPrimaryName(toConcept);
+        if ((primaryName == null) && (conceptNameIndex == null)) {
+            // The index checks the database itself for names it doesn't know
+            Concept concept = conceptDAO.findByName(toConcept);
+            if (concept != null) {
+                primaryName = concept.getPrimaryConceptName().getName();
+            }
+        }
+
+        if (primaryName != null) {
+            object.setToConcept(primaryName);
         }
         else {
-            log.warn(object + " contains a 'conceptName', " + object.getToConcept() +
+            log.warn(object + " contains a 'conceptName', " + toConcept +
                     " that was not found in the knowlegebase");
         }
     }
+
     
 }
@@ -26,6 +26,7 @@ import javax.persistence.EntityManager;
 import vars.jpa.DAO;
 import vars.knowledgebase.Concept;
 import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.LinkTemplate;
 import vars.knowledgebase.LinkTemplateDAO;
 
@@ -39,6 +40,7 @@ import vars.knowledgebase.LinkTemplateDAO;
 public class LinkTemplateDAOImpl extends DAO implements LinkTemplateDAO {
 
     private final ConceptDAO conceptDAO;
+    private final ConceptNameIndex conceptNameIndex;
 
     /**
      * Constructs ...
@@ -47,8 +49,20 @@ public class LinkTemplateDAOImpl extends DAO implements LinkTemplateDAO {
      */
     @Inject
     public LinkTemplateDAOImpl(EntityManager entityManager) {
+        this(entityManager, null);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManager
+     * @param conceptNameIndex Used to validate names without querying the
+     *      knowledgebase. If null every name is looked up with a ConceptDAO
+     */
+    public LinkTemplateDAOImpl(EntityManager entityManager, ConceptNameIndex conceptNameIndex) {
         super(entityManager);
         this.conceptDAO = new ConceptDAOImpl(entityManager);
+        this.conceptNameIndex = conceptNameIndex;
     }
 
     /**
@@ -121,12 +135,21 @@ public class LinkTemplateDAOImpl extends DAO implements LinkTemplateDAO {
      * @param object
      */
     public void validateName(LinkTemplate object) {
-        Concept concept = conceptDAO.findByName(object.getToConcept());
-        if (concept != null) {
-            object.setToConcept(concept.getPrimaryConceptName().getName());
+        String toConcept = object.getToConcept();
+        String primaryName = (conceptNameIndex == null) ? null : conceptNameIndex.findPrimaryName(toConcept);
+        if ((primaryName == null) && (conceptNameIndex == null)) {
+            // The index checks the database itself for names it doesn't know
+            Concept concept = conceptDAO.findByName(toConcept);
+            if (concept != null) {
+                primaryName = concept.getPrimaryConceptName().getName();
+            }
+        }
+
+        if (primaryName != null) {
+            object.setToConcept(primaryName);
         }
         else {
-            log.warn(object + " contains a 'conceptName', " + object.getToConcept() +
+            log.warn(object + " contains a 'conceptName', " + toConcept +
                      " that was not found in the knowlegebase");
         }
     }
@@ -0,0 +1,250 @@
+package vars.knowledgebase.jpa;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.ILink;
+import vars.LinkBean;
+import vars.LinkComparator;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameTypes;
+import vars.knowledgebase.LinkTemplateIndex;
+
+/**
+ * {@link LinkTemplateIndex} built on top of the {@link ConceptHierarchyIndex}. All
+ * link templates are read with one query and the inherited lists are computed in
+ * a single preorder pass of the hierarchy, so a parent's list is always ready
+ * before its children's. A concept without link templates of its own shares its
+ * parent's list. Adds and removes only recompute the subtree of the concept that
+ * changed, into a copy that's swapped in when it's done, so readers never see a
+ * half-updated subtree. The index is rebuilt whenever the hierarchy snapshot
+ * changes.
+ *
+ * @author brian
+ */
+public class LinkTemplateIndexImpl implements LinkTemplateIndex {
+
+    private static final String QUERY = "SELECT n.name, t.linkName, t.toConcept, t.linkValue " +
+        "FROM LinkTemplate t JOIN t.conceptMetadata m JOIN m.concept c JOIN c.conceptNames n " +
+        "WHERE UPPER(n.nameType) = :nameType";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Object loadLock = new Object();
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile Snapshot snapshot;
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Constructs ...
+     *
+     * @param entityManagerFactory
+     * @param conceptHierarchyIndex
+     */
+    @Inject
+    public LinkTemplateIndexImpl(@Named("knowledgebasePersistenceUnit") EntityManagerFactory entityManagerFactory,
+                                 ConceptHierarchyIndex conceptHierarchyIndex) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
+    }
+
+    public void add(String conceptName, ILink link) {
+        synchronized (loadLock) {
+            Snapshot s = snapshot;
+            ConceptHierarchy.Node node = (s == null) ? null : s.hierarchy.findNode(conceptName);
+            if (node == null) {
+
+                // Nothing loaded yet or a concept we don't know about. Start over on the next lookup
+                snapshot = null;
+                version.incrementAndGet();
+
+                return;
+            }
+
+            List<ILink> links = new ArrayList<ILink>(s.getOwnLinks(node));
+            links.add(new LinkBean(link.getLinkName(), link.getToConcept(), link.getLinkValue(),
+                                   node.getPrimaryName()));
+            s.setOwnLinks(node, links);
+            version.incrementAndGet();
+        }
+    }
+
+    public List<ILink> findApplicableLinks(String conceptName) {
+        Snapshot s = getSnapshot(conceptHierarchyIndex.getHierarchy());
+        ConceptHierarchy.Node node = s.hierarchy.findNode(conceptName);
+        List<ILink> links = (node == null) ? null : s.inherited.get(node);
+
+        return (links == null) ? Collections.<ILink>emptyList() : links;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void invalidate() {
+        log.debug("Invalidating the link template index");
+        snapshot = null;
+        version.incrementAndGet();
+    }
+
+    public void remove(String conceptName, ILink link) {
+        synchronized (loadLock) {
+            Snapshot s = snapshot;
+            ConceptHierarchy.Node node = (s == null) ? null : s.hierarchy.findNode(conceptName);
+            if (node == null) {
+                snapshot = null;
+                version.incrementAndGet();
+
+                return;
+            }
+
+            LinkComparator comparator = new LinkComparator();
+            List<ILink> links = new ArrayList<ILink>(s.getOwnLinks(node));
+            for (int i = 0; i < links.size(); i++) {
+                if (comparator.compare(links.get(i), link) == 0) {
+                    links.remove(i);
+                    s.setOwnLinks(node, links);
+                    version.incrementAndGet();
+
+                    break;
+                }
+            }
+        }
+    }
+
+    private Snapshot getSnapshot(ConceptHierarchy hierarchy) {
+        Snapshot s = snapshot;
+        if ((s == null) || (s.hierarchy.getVersion() < hierarchy.getVersion())) {
+            synchronized (loadLock) {
+                s = snapshot;
+                if ((s == null) || (s.hierarchy.getVersion() < hierarchy.getVersion())) {
+                    long start = System.currentTimeMillis();
+                    s = new Snapshot(hierarchy, loadLinks());
+                    snapshot = s;
+                    version.incrementAndGet();
+                    log.info("Indexed link templates for " + hierarchy.size() + " concepts in " +
+                             (System.currentTimeMillis() - start) + " ms");
+                }
+            }
+        }
+
+        return s;
+    }
+
+    /**
+     * @return Every link template in the knowledgebase keyed by the primary name of
+     *      the concept that owns it
+     */
+    protected Map<String, List<ILink>> loadLinks() {
+        List<Object[]> rows;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            rows = entityManager.createQuery(QUERY)
+                .setParameter("nameType", ConceptNameTypes.PRIMARY.getName().toUpperCase(Locale.US))
+                .getResultList();
+        }
+        finally {
+            entityManager.close();
+        }
+
+        Map<String, List<ILink>> links = new HashMap<String, List<ILink>>();
+        for (Object[] row : rows) {
+            String conceptName = (String) row[0];
+            List<ILink> list = links.get(conceptName);
+            if (list == null) {
+                list = new ArrayList<ILink>();
+                links.put(conceptName, list);
+            }
+
+            list.add(new LinkBean((String) row[1], (String) row[2], (String) row[3], conceptName));
+        }
+
+        return links;
+    }
+
+    /**
+     * The link templates of each concept in one version of the hierarchy.
+     */
+    private static class Snapshot {
+
+        final ConceptHierarchy hierarchy;
+
+        /**
+         * Every node has an entry. Never modified once it's published; changes are
+         * made to a copy that replaces it, so readers don't need to lock.
+         */
+        volatile Map<ConceptHierarchy.Node, List<ILink>> inherited;
+
+        /** Only nodes with link templates of their own have an entry. Guarded by loadLock */
+        final Map<ConceptHierarchy.Node, List<ILink>> own = new IdentityHashMap<ConceptHierarchy.Node,
+            List<ILink>>();
+
+        Snapshot(ConceptHierarchy hierarchy, Map<String, List<ILink>> links) {
+            this.hierarchy = hierarchy;
+            for (Map.Entry<String, List<ILink>> entry : links.entrySet()) {
+                ConceptHierarchy.Node node = hierarchy.findNode(entry.getKey());
+                if (node != null) {
+                    own.put(node, Collections.unmodifiableList(new ArrayList<ILink>(entry.getValue())));
+                }
+            }
+
+            Map<ConceptHierarchy.Node, List<ILink>> map = new IdentityHashMap<ConceptHierarchy.Node,
+                List<ILink>>(hierarchy.size());
+            update(map, hierarchy.getNodes());
+            inherited = map;
+        }
+
+        List<ILink> getOwnLinks(ConceptHierarchy.Node node) {
+            List<ILink> links = own.get(node);
+
+            return (links == null) ? Collections.<ILink>emptyList() : links;
+        }
+
+        void setOwnLinks(ConceptHierarchy.Node node, List<ILink> links) {
+            if (links.isEmpty()) {
+                own.remove(node);
+            }
+            else {
+                own.put(node, Collections.unmodifiableList(links));
+            }
+
+            Map<ConceptHierarchy.Node, List<ILink>> map = new IdentityHashMap<ConceptHierarchy.Node,
+                List<ILink>>(inherited);
+            update(map, node.getDescendants());
+            inherited = map;
+        }
+
+        /**
+         * Recompute the inherited links of the nodes into the map. They must be in
+         * preorder and the parent of the first one must already be done.
+         */
+        private void update(Map<ConceptHierarchy.Node, List<ILink>> map, List<ConceptHierarchy.Node> nodes) {
+            for (ConceptHierarchy.Node node : nodes) {
+                ConceptHierarchy.Node parent = node.getParent();
+                List<ILink> parentLinks = (parent == null)
+                        ? Collections.<ILink>emptyList() : map.get(parent);
+                List<ILink> ownLinks = own.get(node);
+                if (ownLinks == null) {
+                    map.put(node, parentLinks);
+                }
+                else {
+                    List<ILink> links = new ArrayList<ILink>(ownLinks.size() + parentLinks.size());
+                    links.addAll(ownLinks);
+                    links.addAll(parentLinks);
+                    map.put(node, Collections.unmodifiableList(links));
+                }
+            }
+        }
+    }
+}
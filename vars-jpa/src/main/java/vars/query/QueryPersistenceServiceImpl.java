@@ -15,15 +15,19 @@
 
 package vars.query;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.*;
 
+import com.google.inject.Inject;
 import org.mbari.sql.QueryFunction;
 import org.mbari.sql.QueryResults;
 import org.mbari.sql.QueryableImpl;
 import vars.ILink;
 import vars.LinkBean;
 import vars.VARSException;
+import vars.jpa.ConnectionPools;
+import vars.jpa.PooledQueryableImpl;
 
 /**
  * DAO for use by the query app. This drops out of hibernate and uses a lot of
@@ -32,28 +36,35 @@ import vars.VARSException;
  */
 public class QueryPersistenceServiceImpl implements QueryPersistenceService {
 
+    /** The tables whose rows make up the Annotations view */
+    private static final String[] ANNOTATION_TABLES = { "VideoArchiveSet", "CameraPlatformDeployment",
+            "VideoArchive", "VideoFrame", "CameraData", "PhysicalData", "Observation", "Association" };
+
     private final QueryableImpl annoQueryable;
     private final QueryableImpl kbQueryable;
     private final String url;
 
     /**
      * Constructs ...
+     *
+     * @param connectionPools The shared pools that connections are borrowed from
      */
-    public QueryPersistenceServiceImpl() {
+    @Inject
+    public QueryPersistenceServiceImpl(ConnectionPools connectionPools) {
         ResourceBundle bundle = ResourceBundle.getBundle("annotation-jdbc", Locale.US);
         String jdbcUrl = bundle.getString("jdbc.url");
         url = jdbcUrl;
         String jdbcUsername = bundle.getString("jdbc.username");
         String jdbcPassword = bundle.getString("jdbc.password");
         String jdbcDriver = bundle.getString("jdbc.driver");
-        annoQueryable = new QueryableImpl(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver);
+        annoQueryable = new PooledQueryableImpl(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver, connectionPools);
 
         bundle = ResourceBundle.getBundle("knowledgebase-jdbc", Locale.US);
         jdbcUrl = bundle.getString("jdbc.url");
         jdbcUsername = bundle.getString("jdbc.username");
         jdbcPassword = bundle.getString("jdbc.password");
         jdbcDriver = bundle.getString("jdbc.driver");
-        kbQueryable = new QueryableImpl(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver);
+        kbQueryable = new PooledQueryableImpl(jdbcUrl, jdbcUsername, jdbcPassword, jdbcDriver, connectionPools);
 
     }
 
@@ -204,15 +215,21 @@ public class QueryPersistenceServiceImpl implements QueryPersistenceService {
         Collection<ILink> links = new ArrayList<ILink>();
         try {
             Connection connection = annoQueryable.getConnection();
-            PreparedStatement preparedStatement = connection.prepareStatement(sb.toString());
-            int idx = 1;
-            for (String name : conceptNames) {
-                preparedStatement.setString(idx, name);
-                idx++;
+            try {
+                PreparedStatement preparedStatement = connection.prepareStatement(sb.toString());
+                int idx = 1;
+                for (String name : conceptNames) {
+                    preparedStatement.setString(idx, name);
+                    idx++;
+                }
+                ResultSet resultSet = preparedStatement.executeQuery();
+                links.addAll((Collection<ILink>) queryFunction.apply(resultSet));
+                resultSet.close();
+                preparedStatement.close();
+            }
+            finally {
+                connection.close();
             }
-            ResultSet resultSet = preparedStatement.executeQuery();
-            links.addAll((Collection<ILink>) queryFunction.apply(resultSet));
-            preparedStatement.close();
         }
         catch (Exception e) {
             throw new VARSException("Failed to execute PreparedStatement of " + sb.toString(), e);
@@ -226,28 +243,186 @@ public class QueryPersistenceServiceImpl implements QueryPersistenceService {
     }
 
     /**
-     * Returns the count of unique columns found in the table for a given column
+     * Returns the count of unique values found in the table for a given column. A
+     * null counts as one value.
      * @param columnName
      * @return
      */
     public Integer getCountOfUniqueValuesByColumn(String columnName) {
 
-        final QueryFunction queryFunction = new QueryFunction() {
+        final QueryFunction<Integer> queryFunction = new QueryFunction<Integer>() {
 
-            public Object apply(ResultSet resultSet) throws SQLException {
-                Integer count = 0;
-                while (resultSet.next()) {
-                    count++;
+            public Integer apply(ResultSet resultSet) throws SQLException {
+                int count = 0;
+                if (resultSet.next()) {
+                    count = resultSet.getInt(1);
+                    if (resultSet.getInt(2) > 0) {
+                        count++;
+                    }
                 }
 
                 return count;
             }
         };
 
-        String query = "SELECT DISTINCT " + columnName + " FROM Annotations";
+        String query = "SELECT COUNT(DISTINCT " + columnName + "), COUNT(*) - COUNT(" + columnName +
+                       ") FROM Annotations";
 
-        return (Integer) annoQueryable.executeQueryFunction(query, queryFunction);
+        return annoQueryable.executeQueryFunction(query, queryFunction);
+
+    }
+
+    /**
+     * The signature is built from three cheap markers for each of the tables behind
+     * the Annotations view:
+     * <ul>
+     * <li>MAX(id), read from the primary key index. It catches inserts</li>
+     * <li>MAX(LAST_UPDATED_TIME), read from the idx_*_LUT index. It's the JPA
+     * version column, so it catches edits</li>
+     * <li>A row count from the database's catalog instead of COUNT(*). It
+     * catches deletes. On SQL Server it's the count kept in sys.partitions and on
+     * PostgreSQL the number of rows inserted, updated and deleted. Other databases
+     * (i.e. Derby, which is only used for small local databases) fall back to
+     * COUNT(*)</li>
+     * </ul>
+     * None of them scan the table's rows.
+     *
+     * @return
+     */
+    public String getAnnotationsSignature() {
+        String lowerCaseUrl = url.toLowerCase();
+        StringBuilder sb = new StringBuilder();
+        for (String table : ANNOTATION_TABLES) {
+            if (sb.length() > 0) {
+                sb.append(" UNION ALL ");
+            }
+
+            sb.append("SELECT (SELECT MAX(id) FROM ").append(table).append("), ");
+            sb.append("(SELECT MAX(LAST_UPDATED_TIME) FROM ").append(table).append("), ");
+            if (lowerCaseUrl.contains("jtds") || lowerCaseUrl.contains("sqlserver")) {
+                sb.append("(SELECT SUM(p.rows) FROM sys.partitions p WHERE p.object_id = OBJECT_ID('")
+                    .append(table).append("') AND p.index_id IN (0, 1))");
+            }
+            else if (lowerCaseUrl.contains("postgresql")) {
+                sb.append("(SELECT n_tup_ins + n_tup_upd + n_tup_del FROM pg_stat_user_tables WHERE relname = '")
+                    .append(table.toLowerCase()).append("')");
+            }
+            else {
+                sb.append("(SELECT COUNT(*) FROM ").append(table).append(")");
+            }
+
+            // Derby requires a FROM clause
+            sb.append(lowerCaseUrl.contains("derby") ? " FROM SYSIBM.SYSDUMMY1" : "");
+        }
+
+        final QueryFunction<String> queryFunction = new QueryFunction<String>() {
+
+            public String apply(ResultSet resultSet) throws SQLException {
+                StringBuilder signature = new StringBuilder();
+                while (resultSet.next()) {
+                    Timestamp lastUpdated = resultSet.getTimestamp(2);
+                    signature.append(resultSet.getLong(1)).append(":")
+                        .append((lastUpdated == null) ? 0L : lastUpdated.getTime()).append(":")
+                        .append(resultSet.getLong(3)).append(";");
+                }
+
+                return signature.toString();
+            }
+        };
+
+        return annoQueryable.executeQueryFunction(sb.toString(), queryFunction);
+    }
+
+    /**
+     * Uses one aggregate query for the counts and the range. String columns get a
+     * GROUP BY for the most frequent values and numeric columns get a GROUP BY on
+     * the bin number for the histogram.
+     *
+     * @param columnName
+     * @param maxValues
+     * @param histogramBins
+     * @return
+     */
+    public ColumnStatistics getColumnStatistics(final String columnName, final int maxValues, int histogramBins) {
+        final Object[] summary = new Object[6];
+        QueryFunction<Object[]> summaryFunction = new QueryFunction<Object[]>() {
+
+            public Object[] apply(ResultSet resultSet) throws SQLException {
+                if (resultSet.next()) {
+                    summary[0] = resultSet.getLong(1);
+                    summary[1] = resultSet.getLong(2);
+                    summary[2] = resultSet.getLong(3);
+                    summary[3] = resultSet.getObject(4);
+                    summary[4] = resultSet.getObject(5);
+                }
+
+                summary[5] = resultSet.getMetaData().getColumnClassName(4);
+
+                return summary;
+            }
+        };
+
+        annoQueryable.executeQueryFunction("SELECT COUNT(*), COUNT(" + columnName + "), COUNT(DISTINCT " +
+                columnName + "), MIN(" + columnName + "), MAX(" + columnName + ") FROM Annotations",
+                summaryFunction);
+
+        long rowCount = (summary[0] == null) ? 0 : (Long) summary[0];
+        long nonNullCount = (summary[1] == null) ? 0 : (Long) summary[1];
+        long distinctCount = (summary[2] == null) ? 0 : (Long) summary[2];
+        Object min = summary[3];
+        Object max = summary[4];
+        String columnType = (String) summary[5];
+
+        // Most frequent values
+        final Map<Object, Long> topValues = new LinkedHashMap<Object, Long>();
+        if (String.class.getName().equals(columnType) && (maxValues > 0) && (distinctCount > 0)) {
+            String query = "SELECT " + columnName + ", COUNT(*) FROM Annotations WHERE " + columnName +
+                           " IS NOT NULL GROUP BY " + columnName + " ORDER BY 2 DESC, 1";
+            annoQueryable.executeQueryFunction(query, new QueryFunction<Map<Object, Long>>() {
+
+                public Map<Object, Long> apply(ResultSet resultSet) throws SQLException {
+                    while ((topValues.size() < maxValues) && resultSet.next()) {
+                        topValues.put(resultSet.getObject(1), resultSet.getLong(2));
+                    }
+
+                    return topValues;
+                }
+            });
+        }
+
+        // Equal width histogram
+        long[] histogram = new long[0];
+        if ((min instanceof Number) && (max instanceof Number) && (histogramBins > 0)) {
+            double lower = ((Number) min).doubleValue();
+            double upper = ((Number) max).doubleValue();
+            histogram = new long[(upper > lower) ? histogramBins : 1];
+            if (upper > lower) {
+                final long[] bins = histogram;
+                String bin = "FLOOR((" + columnName + " - " + BigDecimal.valueOf(lower).toPlainString() + ") / " +
+                             BigDecimal.valueOf((upper - lower) / histogramBins).toPlainString() + ")";
+                String query = "SELECT " + bin + ", COUNT(*) FROM Annotations WHERE " + columnName +
+                               " IS NOT NULL GROUP BY " + bin;
+                annoQueryable.executeQueryFunction(query, new QueryFunction<long[]>() {
+
+                    public long[] apply(ResultSet resultSet) throws SQLException {
+                        while (resultSet.next()) {
+
+                            // The max value lands on the upper edge of the last bin
+                            int i = Math.max(0, Math.min(bins.length - 1, resultSet.getInt(1)));
+                            bins[i] += resultSet.getLong(2);
+                        }
+
+                        return bins;
+                    }
+                });
+            }
+            else {
+                histogram[0] = nonNullCount;
+            }
+        }
 
+        return new ColumnStatistics(columnName, columnType, rowCount, rowCount - nonNullCount, distinctCount, min,
+                                    max, topValues, histogram);
     }
 
     /**
@@ -0,0 +1,158 @@
+package vars.annotation.jpa;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.AnnotationDAOFactory;
+import vars.annotation.AnnotationFactory;
+import vars.annotation.Observation;
+import vars.annotation.ObservationDAO;
+import vars.annotation.VideoArchive;
+import vars.annotation.VideoArchiveSet;
+import vars.annotation.VideoArchiveSetDAO;
+import vars.annotation.VideoFrame;
+import vars.jpa.JPAEntity;
+import vars.jpa.VarsJpaTestModule;
+import vars.testing.AnnotationTestObjectFactory;
+
+/**
+ * Renames 5,000 Observations on Derby the way RenameObservationsCmd used to (a
+ * find per row in a normal transaction) and with a batch transaction
+ * ({@link ObservationDAO#findByPrimaryKeys} and
+ * {@link vars.DAO#startBatchTransaction()}), logging the number of SQL calls,
+ * wall time and rows per second of each. It's not picked up by surefire's default
+ * includes; run it explicitly with
+ * <code>mvn test -Dtest=BatchRenameObservationsBenchmark</code>.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class BatchRenameObservationsBenchmark {
+
+    private static final int OBSERVATIONS = 5000;
+    public final Logger log = LoggerFactory.getLogger(getClass());
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final List<Object> primaryKeys = new ArrayList<Object>();
+    AnnotationDAOFactory daoFactory;
+    AnnotationTestObjectFactory testObjectFactory;
+    VideoArchiveSet videoArchiveSet;
+
+    @Before
+    public void setup() {
+        Injector injector = Guice.createInjector(new VarsJpaTestModule());
+        daoFactory = injector.getInstance(AnnotationDAOFactory.class);
+        testObjectFactory = new AnnotationTestObjectFactory(injector.getInstance(AnnotationFactory.class));
+
+        videoArchiveSet = testObjectFactory.makeVideoArchiveSet();
+        VideoArchive videoArchive = testObjectFactory.makeVideoArchive();
+        videoArchiveSet.addVideoArchive(videoArchive);
+        List<Observation> observations = new ArrayList<Observation>(OBSERVATIONS);
+        for (int i = 0; i < OBSERVATIONS; i++) {
+            VideoFrame videoFrame = testObjectFactory.makeVideoFrame();
+            videoArchive.addVideoFrame(videoFrame);
+            Observation observation = testObjectFactory.makeObservation("benchmark");
+            videoFrame.addObservation(observation);
+            observations.add(observation);
+        }
+
+        VideoArchiveSetDAO dao = daoFactory.newVideoArchiveSetDAO();
+        dao.startTransaction();
+        dao.persist(videoArchiveSet);
+        dao.endTransaction();
+        dao.close();
+
+        for (Observation observation : observations) {
+            primaryKeys.add(observation.getPrimaryKey());
+        }
+
+        // Count every SQL call sent to the database
+        EntityManager entityManager = daoFactory.newObservationDAO().getEntityManager();
+        entityManager.unwrap(JpaEntityManager.class).getServerSession().getEventManager().addListener(
+            new SessionEventAdapter() {
+
+            @Override
+            public void preExecuteCall(SessionEvent event) {
+                statementCount.incrementAndGet();
+            }
+        });
+        entityManager.close();
+    }
+
+    @After
+    public void cleanup() {
+        VideoArchiveSetDAO dao = daoFactory.newVideoArchiveSetDAO();
+        dao.startTransaction();
+        VideoArchiveSet vas = dao.findByPrimaryKey(videoArchiveSet.getClass(), ((JPAEntity) videoArchiveSet).getId());
+        if (vas != null) {
+            dao.remove(vas);
+        }
+        dao.endTransaction();
+        dao.close();
+    }
+
+    @Test
+    public void benchmark() {
+        log.info("---------- BENCHMARK: rename " + OBSERVATIONS + " Observations ----------");
+
+        // --- A find per row
+        statementCount.set(0);
+        long start = System.currentTimeMillis();
+        ObservationDAO dao = daoFactory.newObservationDAO();
+        dao.startTransaction();
+        int n = 0;
+        for (Object primaryKey : primaryKeys) {
+            Observation observation = dao.findByPrimaryKey(primaryKey);
+            observation.setConceptName("row-by-row");
+            n++;
+        }
+        dao.endTransaction();
+        dao.close();
+        report("Row by row", n, statementCount.get(), System.currentTimeMillis() - start);
+        int rowStatements = statementCount.get();
+
+        // --- Batch transaction
+        statementCount.set(0);
+        start = System.currentTimeMillis();
+        dao = daoFactory.newObservationDAO();
+        dao.startBatchTransaction();
+        n = 0;
+        for (Observation observation : dao.findByPrimaryKeys(primaryKeys)) {
+            observation.setConceptName("batched");
+            n++;
+        }
+        dao.endTransaction();
+        dao.close();
+        report("Batched", n, statementCount.get(), System.currentTimeMillis() - start);
+        int batchStatements = statementCount.get();
+
+        Assert.assertEquals(OBSERVATIONS, n);
+        Assert.assertTrue("Expected fewer SQL calls when batching (" + batchStatements + " vs " + rowStatements +
+                          ")", batchStatements < rowStatements);
+
+        dao = daoFactory.newObservationDAO();
+        dao.startTransaction();
+        for (Observation observation : dao.findByPrimaryKeys(primaryKeys)) {
+            Assert.assertEquals("batched", observation.getConceptName());
+        }
+        dao.endTransaction();
+        dao.close();
+    }
+
+    private void report(String name, int rows, int statements, long millis) {
+        double seconds = Math.max(millis, 1) / 1000D;
+        log.info(name + ": " + rows + " rows renamed with " + statements + " SQL calls in " + millis + " ms (" +
+                 Math.round(rows / seconds) + " rows/s, " + Math.round(statements / seconds) + " statements/s)");
+    }
+}
@@ -0,0 +1,146 @@
+package vars.annotation.jpa;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.AnnotationDAOFactory;
+import vars.annotation.AnnotationFactory;
+import vars.annotation.Association;
+import vars.annotation.Observation;
+import vars.annotation.VideoArchive;
+import vars.annotation.VideoArchiveDAO;
+import vars.annotation.VideoArchiveSet;
+import vars.annotation.VideoArchiveSetDAO;
+import vars.annotation.VideoFrame;
+import vars.jpa.JPAEntity;
+import vars.jpa.VarsJpaTestModule;
+import vars.testing.AnnotationTestObjectFactory;
+
+/**
+ * Compares walking the lazy relationships of a 10,000 frame VideoArchive with
+ * loading it through {@link VideoArchiveGraphLoader}, logging the number of SQL
+ * statements and the wall time of each. It's not picked up by surefire's default
+ * includes; run it explicitly with
+ * <code>mvn test -Dtest=VideoArchiveGraphLoaderBenchmark</code>.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class VideoArchiveGraphLoaderBenchmark {
+
+    private static final int FRAMES = 10000;
+    public final Logger log = LoggerFactory.getLogger(getClass());
+    private final AtomicInteger statementCount = new AtomicInteger();
+    AnnotationDAOFactory daoFactory;
+    AnnotationTestObjectFactory testObjectFactory;
+    VideoArchiveSet videoArchiveSet;
+    VideoArchive videoArchive;
+
+    @Before
+    public void setup() {
+        Injector injector = Guice.createInjector(new VarsJpaTestModule());
+        daoFactory = injector.getInstance(AnnotationDAOFactory.class);
+        testObjectFactory = new AnnotationTestObjectFactory(injector.getInstance(AnnotationFactory.class));
+
+        videoArchiveSet = testObjectFactory.makeVideoArchiveSet();
+        videoArchive = testObjectFactory.makeVideoArchive();
+        videoArchiveSet.addVideoArchive(videoArchive);
+        for (int i = 0; i < FRAMES; i++) {
+            VideoFrame videoFrame = testObjectFactory.makeVideoFrame();
+            videoArchive.addVideoFrame(videoFrame);
+            Observation observation = testObjectFactory.makeObservation("benchmark-" + (i % 100));
+            videoFrame.addObservation(observation);
+            Association association = testObjectFactory.makeAssociation();
+            observation.addAssociation(association);
+        }
+
+        VideoArchiveSetDAO dao = daoFactory.newVideoArchiveSetDAO();
+        dao.startTransaction();
+        dao.persist(videoArchiveSet);
+        dao.endTransaction();
+        dao.close();
+
+        // Count every SQL statement sent to the database
+        EntityManager entityManager = daoFactory.newVideoArchiveDAO().getEntityManager();
+        entityManager.unwrap(JpaEntityManager.class).getServerSession().getEventManager().addListener(
+            new SessionEventAdapter() {
+
+            @Override
+            public void preExecuteCall(SessionEvent event) {
+                statementCount.incrementAndGet();
+            }
+        });
+        entityManager.close();
+    }
+
+    @After
+    public void cleanup() {
+        VideoArchiveSetDAO dao = daoFactory.newVideoArchiveSetDAO();
+        dao.startTransaction();
+        VideoArchiveSet vas = dao.findByPrimaryKey(videoArchiveSet.getClass(), ((JPAEntity) videoArchiveSet).getId());
+        if (vas != null) {
+            dao.remove(vas);
+        }
+        dao.endTransaction();
+        dao.close();
+    }
+
+    @Test
+    public void benchmark() {
+        log.info("---------- BENCHMARK: VideoArchiveGraphLoader with " + FRAMES + " VideoFrames ----------");
+
+        // --- Walk the lazy relationships
+        statementCount.set(0);
+        long start = System.currentTimeMillis();
+        VideoArchiveDAO dao = daoFactory.newVideoArchiveDAO();
+        dao.startTransaction();
+        VideoArchive lazyArchive = dao.find(videoArchive);
+        int lazyCount = countAssociations(lazyArchive);
+        dao.endTransaction();
+        dao.close();
+        int lazyStatements = statementCount.get();
+        log.info("Lazy walk: " + lazyStatements + " SQL statements in " + (System.currentTimeMillis() - start) +
+                 " ms");
+
+        // --- Use the graph loader
+        statementCount.set(0);
+        start = System.currentTimeMillis();
+        dao = daoFactory.newVideoArchiveDAO();
+        dao.startTransaction();
+        VideoArchive loadedArchive = dao.findWithGraph(videoArchive);
+        int loadedCount = countAssociations(loadedArchive);
+        dao.endTransaction();
+        dao.close();
+        int loaderStatements = statementCount.get();
+        log.info("VideoArchiveGraphLoader: " + loaderStatements + " SQL statements in " +
+                 (System.currentTimeMillis() - start) + " ms");
+
+        Assert.assertEquals(FRAMES, lazyCount);
+        Assert.assertEquals(FRAMES, loadedCount);
+        Assert.assertTrue("Expected a fixed number of statements but found " + loaderStatements,
+                          loaderStatements <= 10);
+    }
+
+    private static int countAssociations(VideoArchive videoArchive) {
+        int n = 0;
+        for (VideoFrame videoFrame : videoArchive.getVideoFrames()) {
+            videoFrame.getCameraData().getImageReference();
+            videoFrame.getPhysicalData().getDepth();
+            for (Observation observation : videoFrame.getObservations()) {
+                n += observation.getAssociations().size();
+            }
+        }
+
+        return n;
+    }
+}
@@ -0,0 +1,135 @@
+package vars.annotation.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import vars.annotation.VideoArchive;
+import vars.annotation.VideoArchiveSet;
+import vars.annotation.VideoFrame;
+
+/**
+ * Checks that the VideoFrame lookups on VideoArchive and VideoArchiveSet stay in
+ * sync as VideoFrames are added, removed and edited.
+ *
+ * @author brian
+ */
+public class VideoFrameIndexTest {
+
+    VideoArchiveSet videoArchiveSet;
+    VideoArchive videoArchiveA;
+    VideoArchive videoArchiveB;
+
+    @Before
+    public void setup() {
+        videoArchiveSet = new VideoArchiveSetImpl();
+        videoArchiveA = new VideoArchiveImpl();
+        videoArchiveA.setName("A");
+        videoArchiveB = new VideoArchiveImpl();
+        videoArchiveB.setName("B");
+        videoArchiveSet.addVideoArchive(videoArchiveA);
+        videoArchiveSet.addVideoArchive(videoArchiveB);
+
+        videoArchiveA.addVideoFrame(makeVideoFrame("00:00:10:00", 10000L));
+        videoArchiveA.addVideoFrame(makeVideoFrame("00:00:30:00", 30000L));
+        videoArchiveA.addVideoFrame(makeVideoFrame("00:00:20:00", 20000L));
+        videoArchiveB.addVideoFrame(makeVideoFrame("00:00:15:00", 15000L));
+    }
+
+    private VideoFrame makeVideoFrame(String timecode, long time) {
+        VideoFrame videoFrame = new VideoFrameImpl();
+        videoFrame.setTimecode(timecode);
+        videoFrame.setRecordedDate(new Date(time));
+
+        return videoFrame;
+    }
+
+    @Test
+    public void testVideoArchiveLookups() {
+        Assert.assertEquals("00:00:20:00", videoArchiveA.findVideoFrameByTimeCode("00:00:20:00").getTimecode());
+        Assert.assertNull(videoArchiveA.findVideoFrameByTimeCode("00:00:15:00"));
+
+        List<VideoFrame> range = videoArchiveA.findVideoFramesBetweenTimecodes("00:00:10:00", "00:00:25:00");
+        Assert.assertEquals(2, range.size());
+        Assert.assertEquals("00:00:10:00", range.get(0).getTimecode());
+        Assert.assertEquals("00:00:20:00", range.get(1).getTimecode());
+
+        Assert.assertEquals("00:00:30:00", videoArchiveA.findNearestVideoFrameByTimecode("00:00:26:00").getTimecode());
+        Assert.assertEquals("00:00:20:00", videoArchiveA.findNearestVideoFrameByTimecode("00:00:24:00").getTimecode());
+        Assert.assertEquals("00:00:10:00", videoArchiveA.findNearestVideoFrameByTimecode("00:00:00:00").getTimecode());
+
+        Assert.assertEquals("00:00:20:00",
+                            videoArchiveA.findNearestVideoFrameByRecordedDate(new Date(21000L)).getTimecode());
+        Assert.assertEquals(2, videoArchiveA.findVideoFramesBetweenRecordedDates(new Date(15000L),
+                new Date(30000L)).size());
+    }
+
+    @Test
+    public void testEditsAreIndexed() {
+        VideoFrame videoFrame = videoArchiveA.findVideoFrameByTimeCode("00:00:20:00");
+        videoFrame.setTimecode("00:00:40:00");
+        Assert.assertNull(videoArchiveA.findVideoFrameByTimeCode("00:00:20:00"));
+        Assert.assertSame(videoFrame, videoArchiveA.findVideoFrameByTimeCode("00:00:40:00"));
+
+        videoArchiveA.removeVideoFrame(videoFrame);
+        Assert.assertNull(videoArchiveA.findVideoFrameByTimeCode("00:00:40:00"));
+
+        // A remove and add that leaves the size unchanged, as LocalVideoArchiveCache does
+        // when it swaps in an updated copy of a VideoFrame
+        VideoFrame old = videoArchiveA.findVideoFrameByTimeCode("00:00:10:00");
+        VideoFrame copy = makeVideoFrame("00:00:12:00", 12000L);
+        videoArchiveA.removeVideoFrame(old);
+        videoArchiveA.addVideoFrame(copy);
+        Assert.assertNull(videoArchiveA.findVideoFrameByTimeCode("00:00:10:00"));
+        Assert.assertSame(copy, videoArchiveA.findVideoFrameByTimeCode("00:00:12:00"));
+
+        // Edits to a VideoFrame after it's added
+        copy.setTimecode("00:00:50:00");
+        copy.setRecordedDate(new Date(50000L));
+        Assert.assertNull(videoArchiveA.findVideoFrameByTimeCode("00:00:12:00"));
+        Assert.assertSame(copy, videoArchiveA.findVideoFrameByTimeCode("00:00:50:00"));
+        Assert.assertSame(copy, videoArchiveA.findNearestVideoFrameByRecordedDate(new Date(49000L)));
+        Assert.assertEquals("00:00:50:00", videoArchiveSet.findNearestVideoFrameByTimecode("00:00:49:00").getTimecode());
+
+        // Edits to a removed VideoFrame are ignored
+        old.setTimecode("00:00:12:00");
+        Assert.assertNull(videoArchiveA.findVideoFrameByTimeCode("00:00:12:00"));
+    }
+
+    @Test
+    public void testReplacedListIsIndexed() {
+        Assert.assertNotNull(videoArchiveA.findVideoFrameByTimeCode("00:00:10:00"));
+
+        // As when JPA loads or refreshes the VideoFrames
+        VideoFrameImpl videoFrame = (VideoFrameImpl) makeVideoFrame("00:00:50:00", 50000L);
+        videoFrame.setVideoArchive(videoArchiveA);
+        ((VideoArchiveImpl) videoArchiveA).videoFrames = new ArrayList<VideoFrame>(Arrays.asList(videoFrame));
+        Assert.assertNull(videoArchiveA.findVideoFrameByTimeCode("00:00:10:00"));
+        Assert.assertSame(videoFrame, videoArchiveA.findVideoFrameByTimeCode("00:00:50:00"));
+        Assert.assertEquals(2, videoArchiveSet.getVideoFrames().size());
+    }
+
+    @Test
+    public void testVideoArchiveSetLookups() {
+        List<VideoFrame> videoFrames = videoArchiveSet.getVideoFrames();
+        Assert.assertEquals(4, videoFrames.size());
+        Assert.assertEquals("00:00:15:00", videoFrames.get(1).getTimecode());
+        Assert.assertSame(videoFrames, videoArchiveSet.getVideoFrames());
+
+        Assert.assertEquals("00:00:15:00",
+                            videoArchiveSet.findNearestVideoFrameByTimecode("00:00:16:00").getTimecode());
+        Assert.assertEquals(3, videoArchiveSet.findVideoFramesBetweenRecordedDates(new Date(0L),
+                new Date(20000L)).size());
+
+        videoArchiveB.addVideoFrame(makeVideoFrame("00:00:05:00", 5000L));
+        videoFrames = videoArchiveSet.getVideoFrames();
+        Assert.assertEquals(5, videoFrames.size());
+        Assert.assertEquals("00:00:05:00", videoFrames.get(0).getTimecode());
+
+        videoArchiveSet.removeVideoArchive(videoArchiveB);
+        Assert.assertEquals(3, videoArchiveSet.getVideoFrames().size());
+    }
+}
@@ -0,0 +1,202 @@
+package vars.jpa;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the limits, validation and leak detection of the {@link ConnectionPool}
+ * against an in-memory Derby database.
+ *
+ * @author brian
+ */
+public class ConnectionPoolTest {
+
+    private static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+    private static final String NAME = "connectionPoolTest";
+    private static final String URL = "jdbc:derby:memory:" + NAME + ";create=true";
+    private ConnectionPool pool;
+
+    @After
+    public void cleanup() {
+        if (pool != null) {
+            pool.close();
+        }
+
+        shutdownDatabase();
+    }
+
+    private ConnectionPool newPool(int maxSize, long acquireTimeout, long validationInterval, long leakThreshold) {
+        ConnectionPoolConfig config = new ConnectionPoolConfig(maxSize, acquireTimeout, null, 5,
+                                          validationInterval, 600000L, leakThreshold);
+        pool = new ConnectionPool(URL, "", "", DRIVER, config);
+
+        return pool;
+    }
+
+    private static void shutdownDatabase() {
+        try {
+            DriverManager.getConnection("jdbc:derby:memory:" + NAME + ";drop=true");
+        }
+        catch (SQLException e) {
+
+            // Derby always reports a shutdown or drop as an exception
+        }
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws SQLException {
+        newPool(2, 1000L, 30000L, 0L);
+        for (int i = 0; i < 10; i++) {
+            Connection connection = pool.getConnection();
+            Assert.assertFalse(connection.isClosed());
+            connection.close();
+            Assert.assertTrue(connection.isClosed());
+        }
+
+        ConnectionPoolStatistics statistics = pool.getStatistics();
+        Assert.assertEquals(1, statistics.getCreated());
+        Assert.assertEquals(10, statistics.getBorrowed());
+        Assert.assertEquals(0, statistics.getActive());
+        Assert.assertEquals(1, statistics.getIdle());
+    }
+
+    @Test(timeout = 30000)
+    public void testSizeIsBounded() throws Exception {
+        final int maxSize = 3;
+        final int threads = 10;
+        newPool(maxSize, 10000L, 30000L, 0L);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final List<Exception> errors = new ArrayList<Exception>();
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+
+                public void run() {
+                    try {
+                        for (int j = 0; j < 20; j++) {
+                            Connection connection = pool.getConnection();
+                            int n = active.incrementAndGet();
+                            synchronized (maxActive) {
+                                maxActive.set(Math.max(maxActive.get(), n));
+                            }
+
+                            Thread.sleep(1);
+                            active.decrementAndGet();
+                            connection.close();
+                        }
+                    }
+                    catch (Exception e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        done.await();
+        Assert.assertTrue("Unexpected errors: " + errors, errors.isEmpty());
+        Assert.assertTrue("Saw " + maxActive.get() + " connections in use", maxActive.get() <= maxSize);
+        Assert.assertTrue(pool.getStatistics().getCreated() <= maxSize);
+        Assert.assertEquals(threads * 20, pool.getStatistics().getBorrowed());
+    }
+
+    @Test
+    public void testExhaustionTimesOut() throws SQLException {
+        newPool(2, 100L, 30000L, 0L);
+        Connection a = pool.getConnection();
+        Connection b = pool.getConnection();
+        long start = System.currentTimeMillis();
+        try {
+            pool.getConnection();
+            Assert.fail("The pool handed out more than its maximum number of connections");
+        }
+        catch (SQLException e) {
+
+            // Expected
+        }
+
+        Assert.assertTrue(System.currentTimeMillis() - start >= 100L);
+        Assert.assertEquals(1, pool.getStatistics().getTimeouts());
+
+        // Once one is returned it can be borrowed again
+        a.close();
+        Connection c = pool.getConnection();
+        Assert.assertEquals(2, pool.getStatistics().getCreated());
+        b.close();
+        c.close();
+    }
+
+    @Test
+    public void testIdleConnectionsAreValidated() throws SQLException {
+        newPool(2, 1000L, 0L, 0L);
+        pool.getConnection().close();
+        Assert.assertEquals(1, pool.getStatistics().getIdle());
+
+        // Shutting the database down closes the idle connection underneath the pool
+        try {
+            DriverManager.getConnection("jdbc:derby:memory:" + NAME + ";shutdown=true");
+        }
+        catch (SQLException e) {
+
+            // Expected
+        }
+
+        Connection connection = pool.getConnection();
+        Assert.assertTrue(connection.isValid(5));
+        connection.close();
+        Assert.assertEquals(1, pool.getStatistics().getValidationFailures());
+        Assert.assertEquals(2, pool.getStatistics().getCreated());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        newPool(2, 1000L, 30000L, 50L);
+        Connection leaked = pool.getConnection();
+        Connection returned = pool.getConnection();
+        returned.close();
+        pool.detectLeaks();
+        Assert.assertEquals(0, pool.getStatistics().getLeaksDetected());
+
+        Thread.sleep(100L);
+        pool.detectLeaks();
+        Assert.assertEquals(1, pool.getStatistics().getLeaksDetected());
+
+        // Each checkout is only reported once
+        pool.detectLeaks();
+        Assert.assertEquals(1, pool.getStatistics().getLeaksDetected());
+        leaked.close();
+        Assert.assertEquals(0, pool.getStatistics().getActive());
+    }
+
+    @Test
+    public void testReturnedHandleCantBeUsed() throws SQLException {
+        newPool(1, 1000L, 30000L, 0L);
+        Connection connection = pool.getConnection();
+        connection.close();
+
+        // A second close must not return the connection to the pool twice
+        connection.close();
+        Assert.assertEquals(1, pool.getStatistics().getIdle());
+        try {
+            connection.createStatement();
+            Assert.fail("A returned connection was still usable");
+        }
+        catch (SQLException e) {
+
+            // Expected
+        }
+    }
+}
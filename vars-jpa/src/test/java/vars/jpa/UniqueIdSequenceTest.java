@@ -0,0 +1,79 @@
+package vars.jpa;
+
+import java.util.HashSet;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.annotation.jpa.VideoArchiveSetImpl;
+
+/**
+ * Compares insert throughput on Derby when primary keys are allocated one at a
+ * time (the old allocationSize = 1 behavior) and in blocks using
+ * {@link UniqueIdSequence}.
+ */
+public class UniqueIdSequenceTest {
+
+    private static final String PERSISTENCE_UNIT = "vars-jpa-test";
+    private static final int INSERT_COUNT = 2000;
+    public final Logger log = LoggerFactory.getLogger(getClass());
+
+    @After
+    public void cleanup() {
+        System.clearProperty(UniqueIdSequenceCustomizer.PROP_BLOCK_SIZE);
+    }
+
+    @Test
+    public void insertsPerSecond() {
+        Set<Long> ids = new HashSet<Long>();
+        double before = measure(1, ids);
+        double after = measure(UniqueIdSequenceCustomizer.DEFAULT_BLOCK_SIZE, ids);
+        log.info("Inserts per second on Derby: allocationSize = 1 -> " + Math.round(before) + ", block size = " +
+                 UniqueIdSequenceCustomizer.DEFAULT_BLOCK_SIZE + " -> " + Math.round(after) + " (" +
+                 Math.round(after / before * 100D) / 100D + "x)");
+        Assert.assertEquals("Primary keys were reused", INSERT_COUNT * 2, ids.size());
+    }
+
+    /**
+     * Inserts INSERT_COUNT rows, one transaction per row just like the annotation
+     * app does
+     *
+     * @return inserts per second
+     */
+    private double measure(int blockSize, Set<Long> ids) {
+        System.setProperty(UniqueIdSequenceCustomizer.PROP_BLOCK_SIZE, String.valueOf(blockSize));
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+        EntityManager entityManager = emf.createEntityManager();
+
+        // Warm up the connection and sequencing
+        insert(entityManager, "WARMUP-" + blockSize);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < INSERT_COUNT; i++) {
+            VideoArchiveSetImpl videoArchiveSet = insert(entityManager, "IDTEST-" + blockSize + "-" + i);
+            ids.add(videoArchiveSet.getId());
+        }
+        double seconds = (System.nanoTime() - start) / 1000000000D;
+
+        entityManager.close();
+        emf.close();
+
+        return INSERT_COUNT / seconds;
+    }
+
+    private VideoArchiveSetImpl insert(EntityManager entityManager, String shipName) {
+        VideoArchiveSetImpl videoArchiveSet = new VideoArchiveSetImpl();
+        videoArchiveSet.setPlatformName("Ventana");
+        videoArchiveSet.setShipName(shipName);
+        entityManager.getTransaction().begin();
+        entityManager.persist(videoArchiveSet);
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+        return videoArchiveSet;
+    }
+}
@@ -0,0 +1,107 @@
+package vars.knowledgebase.jpa;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import vars.knowledgebase.ConceptHierarchy;
+
+/**
+ * Checks that readers of the {@link ConceptHierarchyIndexImpl} keep getting the
+ * previous snapshot while a new one is built in the background. Runs without a
+ * database by building the snapshots directly.
+ *
+ * @author brian
+ */
+public class ConceptHierarchyIndexTest {
+
+    final AtomicInteger loads = new AtomicInteger();
+    CountDownLatch reloadStarted;
+    CountDownLatch releaseReload;
+    ConceptHierarchyIndexImpl index;
+
+    @Before
+    public void setup() {
+        reloadStarted = new CountDownLatch(1);
+        releaseReload = new CountDownLatch(1);
+        index = new ConceptHierarchyIndexImpl(null) {
+
+            @Override
+            protected ConceptHierarchy load() {
+                int n = loads.incrementAndGet();
+                if (n > 1) {
+                    reloadStarted.countDown();
+                    try {
+                        releaseReload.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                ConceptHierarchy.Builder builder = new ConceptHierarchy.Builder();
+                builder.addConcept(1L, null, null, null);
+                builder.addName(1L, "object-" + n, true);
+
+                return builder.build();
+            }
+        };
+    }
+
+    @Test
+    public void testFirstLoad() {
+        ConceptHierarchy hierarchy = index.getHierarchy();
+        Assert.assertNotNull(hierarchy.findNode("object-1"));
+        Assert.assertSame(hierarchy, index.getHierarchy());
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testReadersDontBlockDuringReload() throws InterruptedException {
+        ConceptHierarchy first = index.getHierarchy();
+        index.invalidate();
+        reloadStarted.await();
+
+        // The reload is stuck but readers still get the old snapshot
+        Assert.assertSame(first, index.getHierarchy());
+
+        releaseReload.countDown();
+        ConceptHierarchy second = awaitNewHierarchy(first);
+        Assert.assertNotNull(second.findNode("object-2"));
+        Assert.assertNull(second.findNode("object-1"));
+    }
+
+    @Test(timeout = 10000)
+    public void testInvalidationsAreCoalesced() throws InterruptedException {
+        ConceptHierarchy first = index.getHierarchy();
+        index.invalidate();
+        reloadStarted.await();
+
+        // These arrive during the reload, which may have read old data, so one more is run
+        index.invalidate();
+        index.invalidate();
+        index.invalidate();
+        releaseReload.countDown();
+
+        ConceptHierarchy hierarchy = awaitNewHierarchy(first);
+        while (hierarchy.findNode("object-3") == null) {
+            Thread.sleep(10);
+            hierarchy = index.getHierarchy();
+        }
+
+        Thread.sleep(200);
+        Assert.assertEquals(3, loads.get());
+    }
+
+    private ConceptHierarchy awaitNewHierarchy(ConceptHierarchy old) throws InterruptedException {
+        ConceptHierarchy hierarchy = index.getHierarchy();
+        while (hierarchy == old) {
+            TimeUnit.MILLISECONDS.sleep(10);
+            hierarchy = index.getHierarchy();
+        }
+
+        return hierarchy;
+    }
+}
@@ -0,0 +1,105 @@
+package vars.knowledgebase.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameIndex;
+
+/**
+ * Checks that the {@link ConceptNameIndex} answers from the hierarchy, remembers
+ * the names it had to look up in the database and doesn't trust a hierarchy that
+ * predates an invalidation. Runs without a database by supplying the lookups
+ * directly.
+ *
+ * @author brian
+ */
+public class ConceptNameIndexLookupTest {
+
+    ConceptHierarchy hierarchy;
+    int hierarchyInvalidations;
+    ConceptNameIndex index;
+
+    /** The names looked up in the "database" */
+    final List<String> lookups = new ArrayList<String>();
+
+    @Before
+    public void setup() {
+        hierarchy = makeHierarchy();
+        final ConceptHierarchyIndex conceptHierarchyIndex = new ConceptHierarchyIndex() {
+
+            public ConceptHierarchy getHierarchy() {
+                return hierarchy;
+            }
+
+            public void invalidate() {
+                hierarchyInvalidations++;
+            }
+        };
+
+        index = new ConceptNameIndexImpl(null, conceptHierarchyIndex) {
+
+            @Override
+            protected String loadPrimaryName(String name) {
+                lookups.add(name);
+
+                return name.equalsIgnoreCase("newfish") ? "newfish" : null;
+            }
+        };
+    }
+
+    private static ConceptHierarchy makeHierarchy() {
+        ConceptHierarchy.Builder builder = new ConceptHierarchy.Builder();
+        builder.addConcept(1L, null, null, null);
+        builder.addConcept(2L, 1L, null, null);
+        builder.addName(1L, "object", true);
+        builder.addName(2L, "fish", true);
+        builder.addName(2L, "pisces", false);
+
+        return builder.build();
+    }
+
+    @Test
+    public void testHierarchy() {
+        Assert.assertEquals("fish", index.findPrimaryName("fish"));
+        Assert.assertEquals("fish", index.findPrimaryName("pisces"));
+        Assert.assertEquals("fish", index.findPrimaryName("PISCES"));
+        Assert.assertEquals(3, index.size());
+        Assert.assertTrue("Names in the hierarchy don't need the database", lookups.isEmpty());
+    }
+
+    @Test
+    public void testMissesAreRemembered() {
+        Assert.assertNull(index.findPrimaryName("missing"));
+        Assert.assertNull(index.findPrimaryName("missing"));
+        Assert.assertEquals("newfish", index.findPrimaryName("NewFish"));
+        Assert.assertEquals("newfish", index.findPrimaryName("NewFish"));
+        Assert.assertEquals(Arrays.asList("missing", "NewFish"), lookups);
+
+        // Until the next invalidation
+        index.invalidate();
+        Assert.assertNull(index.findPrimaryName("missing"));
+        Assert.assertEquals(Arrays.asList("missing", "NewFish", "missing"), lookups);
+    }
+
+    @Test
+    public void testStaleHierarchyIsNotTrusted() {
+        Assert.assertEquals("fish", index.findPrimaryName("fish"));
+        index.invalidate();
+        Assert.assertEquals(1, hierarchyInvalidations);
+
+        // The old hierarchy may still be served while the new one is built
+        Assert.assertNull(index.findPrimaryName("fish"));
+        Assert.assertNull(index.findPrimaryName("fish"));
+        Assert.assertEquals(Arrays.asList("fish"), lookups);
+
+        // A hierarchy started after the invalidation is used again
+        hierarchy = makeHierarchy();
+        Assert.assertEquals("fish", index.findPrimaryName("fish"));
+        Assert.assertEquals(Arrays.asList("fish"), lookups);
+    }
+}
@@ -0,0 +1,63 @@
+package vars.knowledgebase.jpa;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.jpa.VarsJpaTestModule;
+import vars.knowledgebase.Concept;
+import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.ConceptNameIndex;
+import vars.knowledgebase.KnowledgebaseDAOFactory;
+import vars.knowledgebase.KnowledgebaseFactory;
+import vars.testing.KnowledgebaseTestObjectFactory;
+
+/**
+ * Checks that the {@link ConceptNameIndex} resolves every kind of name to the
+ * primary name and picks up changes after it's invalidated.
+ */
+public class ConceptNameIndexTest {
+
+    public final Logger log = LoggerFactory.getLogger(getClass());
+    KnowledgebaseDAOFactory daoFactory;
+    ConceptNameIndex conceptNameIndex;
+    KnowledgebaseTestObjectFactory testObjectFactory;
+
+    @Before
+    public void setup() {
+        Injector injector = Guice.createInjector(new VarsJpaTestModule());
+        daoFactory = injector.getInstance(KnowledgebaseDAOFactory.class);
+        conceptNameIndex = injector.getInstance(ConceptNameIndex.class);
+        testObjectFactory = new KnowledgebaseTestObjectFactory(injector.getInstance(KnowledgebaseFactory.class));
+    }
+
+    @Test
+    public void lookup() {
+        log.info("---------- TEST: lookup ----------");
+        ConceptDAO dao = daoFactory.newConceptDAO();
+        Concept concept = testObjectFactory.makeConcept("IndexTest");
+        dao.startTransaction();
+        dao.persist(concept);
+        dao.endTransaction();
+
+        conceptNameIndex.invalidate();
+        Assert.assertEquals("IndexTest-primary", conceptNameIndex.findPrimaryName("IndexTest-primary"));
+        Assert.assertEquals("IndexTest-primary", conceptNameIndex.findPrimaryName("IndexTest-common"));
+        Assert.assertEquals("IndexTest-primary", conceptNameIndex.findPrimaryName("indextest-SYNONYM"));
+        Assert.assertNull(conceptNameIndex.findPrimaryName("IndexTest-missing"));
+
+        dao.startTransaction();
+        concept = dao.find(concept);
+        dao.cascadeRemove(concept);
+        dao.endTransaction();
+        dao.close();
+
+        Assert.assertNotNull("Index should be a snapshot until invalidated",
+                             conceptNameIndex.findPrimaryName("IndexTest-common"));
+        conceptNameIndex.invalidate();
+        Assert.assertNull(conceptNameIndex.findPrimaryName("IndexTest-common"));
+    }
+}
@@ -0,0 +1,132 @@
+package vars.knowledgebase.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import vars.ILink;
+import vars.LinkBean;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.LinkTemplateIndex;
+
+/**
+ * Checks that the {@link LinkTemplateIndex} inherits link templates down the
+ * hierarchy and keeps the subtree in sync on adds and removes. Runs without a
+ * database by supplying the link templates directly.
+ *
+ * @author brian
+ */
+public class LinkTemplateIndexTest {
+
+    ConceptHierarchy hierarchy;
+    LinkTemplateIndex index;
+    int loads;
+
+    @Before
+    public void setup() {
+        hierarchy = makeHierarchy();
+        final ConceptHierarchyIndex conceptHierarchyIndex = new ConceptHierarchyIndex() {
+
+            public ConceptHierarchy getHierarchy() {
+                return hierarchy;
+            }
+
+            public void invalidate() {}
+        };
+
+        index = new LinkTemplateIndexImpl(null, conceptHierarchyIndex) {
+
+            @Override
+            protected Map<String, List<ILink>> loadLinks() {
+                loads++;
+                Map<String, List<ILink>> links = new HashMap<String, List<ILink>>();
+                links.put("object", new ArrayList<ILink>(Arrays.asList(link("size", "object"))));
+                links.put("animal", new ArrayList<ILink>(Arrays.asList(link("behavior", "animal"))));
+
+                return links;
+            }
+        };
+    }
+
+    private static ConceptHierarchy makeHierarchy() {
+        ConceptHierarchy.Builder builder = new ConceptHierarchy.Builder();
+        builder.addConcept(1L, null, null, null);
+        builder.addConcept(2L, 1L, null, null);
+        builder.addConcept(3L, 2L, null, null);
+        builder.addConcept(4L, 1L, null, null);
+        builder.addName(1L, "object", true);
+        builder.addName(2L, "animal", true);
+        builder.addName(3L, "fish", true);
+        builder.addName(3L, "pisces", false);
+        builder.addName(4L, "rock", true);
+
+        return builder.build();
+    }
+
+    private static ILink link(String linkName, String fromConcept) {
+        return new LinkBean(linkName, ILink.VALUE_SELF, ILink.VALUE_NIL, fromConcept);
+    }
+
+    private static List<String> linkNames(List<ILink> links) {
+        List<String> names = new ArrayList<String>();
+        for (ILink link : links) {
+            names.add(link.getLinkName());
+        }
+
+        return names;
+    }
+
+    @Test
+    public void testInheritance() {
+        Assert.assertEquals(Arrays.asList("size"), linkNames(index.findApplicableLinks("object")));
+        Assert.assertEquals(Arrays.asList("behavior", "size"), linkNames(index.findApplicableLinks("fish")));
+        Assert.assertEquals(Arrays.asList("behavior", "size"), linkNames(index.findApplicableLinks("Pisces")));
+        Assert.assertEquals(Arrays.asList("size"), linkNames(index.findApplicableLinks("rock")));
+        Assert.assertTrue(index.findApplicableLinks("missing").isEmpty());
+        Assert.assertEquals(1, loads);
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        index.findApplicableLinks("object");
+        index.add("fish", link("color", "fish"));
+        Assert.assertEquals(Arrays.asList("color", "behavior", "size"),
+                            linkNames(index.findApplicableLinks("fish")));
+        Assert.assertEquals(Arrays.asList("behavior", "size"), linkNames(index.findApplicableLinks("animal")));
+
+        index.remove("object", link("size", "object"));
+        Assert.assertEquals(Arrays.asList("color", "behavior"), linkNames(index.findApplicableLinks("fish")));
+        Assert.assertTrue(index.findApplicableLinks("rock").isEmpty());
+        Assert.assertEquals("Changes should not reload the index", 1, loads);
+
+        // A new hierarchy snapshot means a fresh load
+        hierarchy = makeHierarchy();
+        Assert.assertEquals(Arrays.asList("behavior", "size"), linkNames(index.findApplicableLinks("fish")));
+        Assert.assertEquals(2, loads);
+    }
+
+    @Test
+    public void testVersion() {
+        index.findApplicableLinks("object");
+        long version = index.getVersion();
+        Assert.assertEquals(version, index.getVersion());
+
+        // Other caches of link templates rely on every change moving the version
+        index.add("fish", link("color", "fish"));
+        Assert.assertTrue(index.getVersion() > version);
+        version = index.getVersion();
+
+        index.remove("fish", link("color", "fish"));
+        Assert.assertTrue(index.getVersion() > version);
+        version = index.getVersion();
+
+        index.invalidate();
+        Assert.assertTrue(index.getVersion() > version);
+        Assert.assertEquals(Arrays.asList("behavior", "size"), linkNames(index.findApplicableLinks("fish")));
+    }
+}
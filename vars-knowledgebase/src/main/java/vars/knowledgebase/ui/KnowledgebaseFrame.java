@@ -317,9 +317,10 @@ public class KnowledgebaseFrame extends JFrame {
     protected ConceptTreePanel getTreePanel() {
         if (treePanel == null) {
 
-            treePanel = new ConceptTreePanel(toolBelt.getKnowledgebaseDAOFactory());
+            treePanel = new ConceptTreePanel(toolBelt.getConceptHierarchyIndex());
 
-            final ConceptTreeModel treeModel = new ConceptTreeModel(toolBelt.getKnowledgebaseDAOFactory());
+            final ConceptTreeModel treeModel = new ConceptTreeModel(toolBelt.getKnowledgebaseDAOFactory(),
+                    toolBelt.getConceptHierarchyIndex());
 
             final JXTree tree = new JXTree(treeModel);
             tree.setCellRenderer(new ConceptTreeCellRenderer());
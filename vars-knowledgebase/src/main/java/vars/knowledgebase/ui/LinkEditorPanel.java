@@ -250,12 +250,12 @@ public class LinkEditorPanel extends javax.swing.JPanel implements ILockableEdit
         jLabel1 = new javax.swing.JLabel();
         linkNameField = new javax.swing.JTextField();
         jLabel2 = new javax.swing.JLabel();
-        toConceptComboBox = new AllConceptNamesComboBox(toolBelt.getQueryPersistenceService());
+        toConceptComboBox = new AllConceptNamesComboBox(toolBelt.getConceptHierarchyIndex());
         jLabel3 = new javax.swing.JLabel();
         linkValueField = new javax.swing.JTextField();
         jSeparator1 = new javax.swing.JSeparator();
         jLabel5 = new javax.swing.JLabel();
-        fromConceptComboBox = new AllConceptNamesComboBox(toolBelt.getQueryPersistenceService());
+        fromConceptComboBox = new AllConceptNamesComboBox(toolBelt.getConceptHierarchyIndex());
 
         jLabel4.setText("Search:");
 
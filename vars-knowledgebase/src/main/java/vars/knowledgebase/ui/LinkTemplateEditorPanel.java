@@ -220,6 +220,9 @@ public class LinkTemplateEditorPanel extends EditorPanel {
             linkTemplateDAO.startTransaction();
             linkTemplate = linkTemplateDAO.find(linkTemplate);
             // TODO what if linkTemplate is null
+            final String oldFromConcept = linkTemplate.getFromConcept();
+            final ILink oldLink = new LinkBean(linkTemplate.getLinkName(), linkTemplate.getToConcept(),
+                    linkTemplate.getLinkValue());
             // Change the parent concept
             if (!linkTemplate.getFromConcept().equals(newLink.getFromConcept())) {
                 final ConceptDAO conceptDAO = factory.newConceptDAO(linkTemplateDAO.getEntityManager());
@@ -251,6 +254,10 @@ public class LinkTemplateEditorPanel extends EditorPanel {
             linkTemplate.setToConcept(newLink.getToConcept());
             linkTemplateDAO.endTransaction();
             linkTemplateDAO.close();
+
+            LinkTemplateIndex linkTemplateIndex = getToolBelt().getLinkTemplateIndex();
+            linkTemplateIndex.remove(oldFromConcept, oldLink);
+            linkTemplateIndex.add(newLink.getFromConcept(), newLink);
         }
 
         
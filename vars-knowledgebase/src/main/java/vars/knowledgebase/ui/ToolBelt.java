@@ -22,10 +22,13 @@ import vars.PersistenceCacheProvider;
 import vars.annotation.AnnotationDAOFactory;
 import vars.annotation.AnnotationFactory;
 import vars.annotation.AnnotationPersistenceService;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.HistoryFactory;
 import vars.knowledgebase.KnowledgebaseDAOFactory;
 import vars.knowledgebase.KnowledgebaseFactory;
 import vars.knowledgebase.KnowledgebasePersistenceService;
+import vars.knowledgebase.LinkTemplateIndex;
 import vars.knowledgebase.ui.actions.ApproveHistoryTask;
 import vars.knowledgebase.ui.actions.RejectHistoryTask;
 import vars.query.QueryPersistenceService;
@@ -61,10 +64,14 @@ public class ToolBelt extends vars.ToolBelt {
                     PersistenceCacheProvider persistenceCacheProvider,
                     AnnotationPersistenceService annotationPersistenceService,
                     KnowledgebasePersistenceService knowledgebasePersistenceService,
-                    QueryPersistenceService queryPersistenceService) {
+                    QueryPersistenceService queryPersistenceService,
+                    ConceptNameIndex conceptNameIndex,
+                    ConceptHierarchyIndex conceptHierarchyIndex,
+                    LinkTemplateIndex linkTemplateIndex) {
         super(annotationDAOFactory, annotationFactory, knowledgebaseDAOFactory, knowledgebaseFactory, miscDAOFactory,
               miscFactory, persistenceCacheProvider, annotationPersistenceService, knowledgebasePersistenceService,
-              queryPersistenceService);
+              queryPersistenceService, conceptNameIndex, conceptHierarchyIndex,
+              linkTemplateIndex);
         historyFactory = new HistoryFactory(knowledgebaseFactory);
         approveHistoryTask = new ApproveHistoryTask(this);
         rejectHistoryTask = new RejectHistoryTask(this);
@@ -164,6 +164,8 @@ public class ApproveHistoryTask extends AbstractHistoryTask {
         finally {
             dao.endTransaction();
             dao.close();
+            toolBelt.getConceptNameIndex().invalidate();
+            toolBelt.getConceptHierarchyIndex().invalidate();
         }
     }
 
@@ -194,6 +196,8 @@ public class ApproveHistoryTask extends AbstractHistoryTask {
         }
         dao.endTransaction();
         dao.close();
+        toolBelt.getConceptNameIndex().invalidate();
+        toolBelt.getConceptHierarchyIndex().invalidate();
     }
 
     private class ADeleteChildConceptTask extends GenericApproveTask {
@@ -518,6 +522,8 @@ public class ApproveHistoryTask extends AbstractHistoryTask {
                     linkTemplate = (LinkTemplate) matchingLinkTemplates.iterator().next();
                     conceptMetadata.removeLinkTemplate(linkTemplate);
                     dao.remove(linkTemplate);
+                    toolBelt.getLinkTemplateIndex().remove(
+                        conceptMetadata.getConcept().getPrimaryConceptName().getName(), link);
                     super.approve(userAccount, history, dao);
                 }
                 else {
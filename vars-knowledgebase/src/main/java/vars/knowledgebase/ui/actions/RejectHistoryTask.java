@@ -155,6 +155,10 @@ public class RejectHistoryTask extends AbstractHistoryTask {
         finally {
             dao.endTransaction();
             dao.close();
+
+            // Rejects can add back, move back or delete concepts
+            toolBelt.getConceptNameIndex().invalidate();
+            toolBelt.getConceptHierarchyIndex().invalidate();
         }
     }
 
@@ -530,6 +534,8 @@ public class RejectHistoryTask extends AbstractHistoryTask {
 
                 conceptMetadata.removeLinkTemplate(linkTemplate);
                 dao.remove(linkTemplate);
+                toolBelt.getLinkTemplateIndex().remove(
+                    conceptMetadata.getConcept().getPrimaryConceptName().getName(), linkBean);
 
             }
 
@@ -31,7 +31,8 @@ public class ConceptTreeDemo {
         Injector injector = (Injector) Lookup.getGuiceInjectorDispatcher().getValueObject();
         ToolBelt toolBelt = injector.getInstance(ToolBelt.class);
         JFrame frame = new JFrame();
-        TreeModel treeModel = new ConceptTreeModel(toolBelt.getKnowledgebaseDAOFactory());
+        TreeModel treeModel = new ConceptTreeModel(toolBelt.getKnowledgebaseDAOFactory(),
+                toolBelt.getConceptHierarchyIndex());
         JXTree tree = new JXTree(treeModel);
         tree.setCellRenderer(new ConceptTreeCellRenderer());
         frame.add(tree);
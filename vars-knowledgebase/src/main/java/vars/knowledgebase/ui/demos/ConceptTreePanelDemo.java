@@ -33,8 +33,9 @@ public class ConceptTreePanelDemo {
         Injector injector = (Injector) Lookup.getGuiceInjectorDispatcher().getValueObject();
         ToolBelt toolBelt = injector.getInstance(ToolBelt.class);
         JFrame frame = new JFrame();
-        ConceptTreePanel panel = new ConceptTreePanel(toolBelt.getKnowledgebaseDAOFactory());
-        final ConceptTreeModel treeModel = new ConceptTreeModel(toolBelt.getKnowledgebaseDAOFactory());
+        ConceptTreePanel panel = new ConceptTreePanel(toolBelt.getConceptHierarchyIndex());
+        final ConceptTreeModel treeModel = new ConceptTreeModel(toolBelt.getKnowledgebaseDAOFactory(),
+                toolBelt.getConceptHierarchyIndex());
         JXTree tree = new JXTree(treeModel);
         tree.setCellRenderer(new ConceptTreeCellRenderer());
         panel.setJTree(tree);
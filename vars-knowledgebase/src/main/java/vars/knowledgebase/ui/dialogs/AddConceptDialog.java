@@ -129,7 +129,7 @@ public class AddConceptDialog extends javax.swing.JDialog {
         authorField = new javax.swing.JTextField();
         nameField = new javax.swing.JTextField();
         parentLabel = new javax.swing.JLabel();
-        conceptComboBox = new AllConceptNamesComboBox(toolBelt.getQueryPersistenceService());
+        conceptComboBox = new AllConceptNamesComboBox(toolBelt.getConceptHierarchyIndex());
         cancelButton = new FancyButton();
         okButton = new FancyButton();
         jScrollPane1 = new javax.swing.JScrollPane();
@@ -526,6 +526,9 @@ public class AddConceptDialog extends javax.swing.JDialog {
             dao.close();
 
             if (history != null) {
+                // The new concept has to show up in the name and subtree lookups
+                toolBelt.getConceptNameIndex().invalidate();
+                toolBelt.getConceptHierarchyIndex().invalidate();
                 EventBus.publish(Lookup.TOPIC_APPROVE_HISTORY, history);
             }
 
@@ -638,6 +641,10 @@ public class AddConceptDialog extends javax.swing.JDialog {
             conceptDAO.endTransaction();
             conceptDAO.close();
 
+            // The concept may have been renamed or moved to a new parent
+            toolBelt.getConceptNameIndex().invalidate();
+            toolBelt.getConceptHierarchyIndex().invalidate();
+
             EventBus.publish(Lookup.TOPIC_APPROVE_HISTORIES, histories);
 
         }
@@ -179,7 +179,7 @@ public class AddLinkTemplateDialog extends JDialog {
                                 c.getConceptMetadata().addHistory(history);
                                 linkTemplateDAO.persist(history);
                                 linkTemplateDAO.endTransaction();
-                            
+                                toolBelt.getLinkTemplateIndex().add(p.getFromConcept(), linkTemplate);
                             }
                             catch (Exception e1) {
                                 EventBus.publish(Lookup.TOPIC_NONFATAL_ERROR, e1);
@@ -0,0 +1,301 @@
+package vars.query;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.shared.ui.GlobalLookup;
+
+/**
+ * Keeps the {@link ColumnStatistics} of every String, numeric and date column in
+ * the Annotations view so that the value panels of the query UI can fill in their
+ * lists and ranges without scanning the view.
+ *
+ * The catalog is saved to a single file in the settings directory and read back
+ * when it's created, so the statistics from the last session are available right
+ * away. Gathering a column's statistics scans the view, so the catalog is refreshed
+ * lazily: only the columns a value panel has asked for with {@link #get(String)}
+ * since the last refresh are considered. A low priority background thread
+ * refreshes them one at a time, stalest first, saving after each column. A
+ * requested column is only gathered again if the
+ * {@link QueryPersistenceService#getAnnotationsSignature()} has changed since it
+ * was gathered or it's older than {@link #MAX_AGE}. If no column was requested
+ * the database isn't touched at all.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+@Singleton
+public class ColumnStatisticsCatalog {
+
+    /** Name of the cache file in the settings directory */
+    public static final String CACHE_FILE_NAME = "query-column-statistics.ser";
+
+    /** Number of histogram bins gathered for numeric columns */
+    public static final int HISTOGRAM_BINS = 20;
+
+    /** Statistics older than this, in milliseconds, are refreshed. 1 day */
+    public static final long MAX_AGE = 24 * 60 * 60 * 1000L;
+
+    /** Maximum number of distinct values kept for a String column */
+    public static final int MAX_VALUES = 5000;
+
+    /** Minutes between refreshes */
+    private static final long REFRESH_INTERVAL = 60;
+
+    /** Seconds to wait after startup before the first refresh so the UI's own queries go first */
+    private static final long STARTUP_DELAY = 30;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** column name -> entry. Only replaced by the refresh thread */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /** Columns requested since the last refresh */
+    private final Set<String> requested = Collections.synchronizedSet(new LinkedHashSet<String>());
+    private final File cacheFile;
+    private final ScheduledThreadPoolExecutor executor;
+    private final QueryPersistenceService queryPersistenceService;
+
+    /**
+     * Constructs ...
+     *
+     * @param queryPersistenceService
+     */
+    @Inject
+    public ColumnStatisticsCatalog(QueryPersistenceService queryPersistenceService) {
+        this(queryPersistenceService, new File(GlobalLookup.getSettingsDirectory(), CACHE_FILE_NAME));
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param queryPersistenceService Used to gather the statistics
+     * @param cacheFile The file the catalog is saved to and loaded from
+     */
+    public ColumnStatisticsCatalog(QueryPersistenceService queryPersistenceService, File cacheFile) {
+        this.queryPersistenceService = queryPersistenceService;
+        this.cacheFile = cacheFile;
+        load();
+
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ColumnStatisticsCatalog");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+                try {
+                    refresh();
+                }
+                catch (Exception e) {
+                    log.warn("Failed to refresh the column statistics", e);
+                }
+            }
+        }, STARTUP_DELAY, REFRESH_INTERVAL * 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the cached statistics and marks the column to be checked by the next
+     * refresh.
+     *
+     * @param columnName The name of a column in the Annotations view
+     * @return The most recent statistics for the column. <b>null</b> if none have
+     *      been gathered yet. Never blocks on the database
+     */
+    public ColumnStatistics get(String columnName) {
+        if (columnName == null) {
+            return null;
+        }
+
+        requested.add(columnName);
+        Entry entry = entries.get(columnName);
+
+        return (entry == null) ? null : entry.statistics;
+    }
+
+    private void load() {
+        if ((cacheFile == null) || !cacheFile.exists()) {
+            return;
+        }
+
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            String url = (String) in.readObject();
+            Map<String, Entry> map = (Map<String, Entry>) in.readObject();
+            if (url.equals(queryPersistenceService.getURL())) {
+                entries.putAll(map);
+                log.debug("Loaded statistics for " + map.size() + " columns from " + cacheFile);
+            }
+        }
+        catch (Exception e) {
+            log.info("Unable to read " + cacheFile + ". The column statistics will be gathered again", e);
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (Exception e) {
+
+                    // Do nothing
+                }
+            }
+        }
+    }
+
+    /**
+     * Brings the requested columns up to date. Runs on the calling thread; it's
+     * normally called by the background thread. Columns that are up to date are
+     * skipped.
+     */
+    public synchronized void refresh() {
+        List<String> columnNames;
+        synchronized (requested) {
+            columnNames = new ArrayList<String>(requested);
+            requested.clear();
+        }
+
+        if (columnNames.isEmpty()) {
+            return;
+        }
+
+        String signature = queryPersistenceService.getAnnotationsSignature();
+        Map<String, String> metadata = queryPersistenceService.getMetaData();
+        long now = System.currentTimeMillis();
+        boolean removed = entries.keySet().retainAll(metadata.keySet());
+        for (Iterator<String> i = columnNames.iterator(); i.hasNext(); ) {
+            String columnName = i.next();
+            Entry entry = entries.get(columnName);
+            if (!isSupported(columnName, metadata.get(columnName)) ||
+                    ((entry != null) && signature.equals(entry.signature) &&
+                     (now - entry.statistics.getCreated() <= MAX_AGE))) {
+                i.remove();
+            }
+        }
+
+        // Stalest columns first. Columns that have never been gathered are stalest of all
+        Collections.sort(columnNames, new Comparator<String>() {
+
+            public int compare(String a, String b) {
+                return Long.valueOf(created(a)).compareTo(created(b));
+            }
+        });
+
+        if (removed && columnNames.isEmpty()) {
+            save();
+        }
+
+        for (String columnName : columnNames) {
+            long start = System.currentTimeMillis();
+            try {
+                entries.put(columnName,
+                            new Entry(queryPersistenceService.getColumnStatistics(columnName, MAX_VALUES,
+                                HISTOGRAM_BINS), signature));
+                log.debug("Gathered statistics for " + columnName + " in " + (System.currentTimeMillis() - start) +
+                          " ms");
+            }
+            catch (Exception e) {
+                log.warn("Failed to gather statistics for " + columnName, e);
+            }
+
+            save();
+        }
+    }
+
+    private long created(String columnName) {
+        Entry entry = entries.get(columnName);
+
+        return (entry == null) ? 0 : entry.statistics.getCreated();
+    }
+
+    /**
+     * The catalog covers the columns that the value panels can use. Boolean columns
+     * and foreign keys are skipped.
+     */
+    private boolean isSupported(String columnName, String columnType) {
+        return (columnName.toUpperCase().indexOf("ID_FK") < 0) && (columnType != null) &&
+               !columnType.equals(Boolean.class.getName());
+    }
+
+    /**
+     * Writes the catalog to a temporary file and then renames it so that a reader
+     * never sees a partially written file.
+     */
+    private void save() {
+        if (cacheFile == null) {
+            return;
+        }
+
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            out.writeObject(queryPersistenceService.getURL());
+            out.writeObject(new HashMap<String, Entry>(entries));
+            out.close();
+            out = null;
+            if (!tmpFile.renameTo(cacheFile)) {
+                cacheFile.delete();
+                tmpFile.renameTo(cacheFile);
+            }
+        }
+        catch (Exception e) {
+            log.warn("Failed to write the column statistics to " + cacheFile, e);
+        }
+        finally {
+            if (out != null) {
+                try {
+                    out.close();
+                }
+                catch (Exception e) {
+
+                    // Do nothing
+                }
+            }
+        }
+    }
+
+    /**
+     * The statistics of a column and the signature of the Annotations view when
+     * they were gathered.
+     */
+    private static class Entry implements Serializable {
+
+        private static final long serialVersionUID = -4461803245617009732L;
+        final String signature;
+        final ColumnStatistics statistics;
+
+        Entry(ColumnStatistics statistics, String signature) {
+            this.statistics = statistics;
+            this.signature = signature;
+        }
+    }
+}
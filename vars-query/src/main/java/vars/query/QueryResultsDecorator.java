@@ -1,8 +1,8 @@
 package vars.query;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -14,175 +14,139 @@ import org.mbari.sql.QueryResults;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import vars.knowledgebase.Concept;
-import vars.knowledgebase.ConceptDAO;
-import vars.knowledgebase.KnowledgebaseDAOFactory;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
 
+/**
+ * Adds knowledgebase information (hierarchy and phylogeny) to query results. All
+ * lookups are done against an in-memory {@link ConceptHierarchy} so decorating a
+ * column is a single pass with no database access.
+ */
 public class QueryResultsDecorator {
     
     private static final Logger log = LoggerFactory.getLogger(QueryResultsDecorator.class);
-    private final KnowledgebaseDAOFactory knowledgebaseDAOFactory;
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
 
 
-    public QueryResultsDecorator(KnowledgebaseDAOFactory knowledgebaseDAOFactory) {
-        this.knowledgebaseDAOFactory = knowledgebaseDAOFactory;
+    public QueryResultsDecorator(ConceptHierarchyIndex conceptHierarchyIndex) {
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
     }
 
 
     public void addHierarchy(QueryResults queryResults)  {
-        Set<String> columnNames = (Set<String>) queryResults.getColumnNames();
-        for (String name : columnNames) {
-            if (name.equalsIgnoreCase("conceptname")) {
-
-                /*
-                 * Create a list of all the unique conceptNames
-                 */
-                List<String> conceptNames = queryResults.getResults(name);
-                Set<String> uniqueNames = new HashSet<String>();
-                uniqueNames.addAll(conceptNames);
-
-                /*
-                 * Iterate through each conceptname and create a hierarchy for each.
-                 */
-                Map<String, String> map = new HashMap<String, String>();
-                ConceptDAO dao = knowledgebaseDAOFactory.newConceptDAO();
-                for (String n : uniqueNames) {
-
-                    Concept concept = dao.findByName(n);
-                    if (concept == null) {
-                        log.info("Unable to find " + n + " in the knowledgebase");
-                    }
-
-                    /*
-                     * Generate a List of Concepts as we walk up the heirarchy
-                     */
-                    List<Concept> ancestors = new ArrayList<Concept>();
-                    while (concept != null) {
-                        ancestors.add(concept);
-                        concept = concept.getParentConcept();
-                    }
-                    // Flip the list so it goes from the top of the hierarcy down to our name
-                    Collections.reverse(ancestors);
-
-                    /*
-                     * Create a comma-separated list of the hieracy and put it in the map for storage
-                     */
-                    StringBuilder sb = new StringBuilder();
-                    for (int i = 0; i < ancestors.size() - 1; i++) {
-                        Concept c = ancestors.get(i);
-                        sb.append(c.getPrimaryConceptName().getName()).append(",");
-                    }
-                    sb.append(ancestors.get(ancestors.size() - 1).getPrimaryConceptName().getName()); // Append last element without a trailing ','
-                    map.put(n, sb.toString());
+        String name = findConceptNameColumn(queryResults);
+        if (name == null) {
+            return;
+        }
 
-                    /*
-                     * Populate the queryResults with a new column
-                     */
-                    Map resultsMap = queryResults.getResultsMap();
-                    List aList = new ArrayList();
-                    for (String string : conceptNames) {
-                        aList.add(map.get(string));
-                    }
-                    resultsMap.put("Hierarchy", aList);
+        List<String> conceptNames = queryResults.getResults(name);
+        ConceptHierarchy hierarchy = conceptHierarchyIndex.getHierarchy();
+
+        /*
+         * Create a comma-separated list of the hierarchy, from the top down to our
+         * name, once for each unique name.
+         */
+        Map<String, String> map = new HashMap<String, String>();
+        for (String n : new HashSet<String>(conceptNames)) {
+            ConceptHierarchy.Node node = hierarchy.findNode(n);
+            if (node == null) {
+                log.info("Unable to find " + n + " in the knowledgebase");
+                continue;
+            }
 
+            StringBuilder sb = new StringBuilder();
+            for (ConceptHierarchy.Node ancestor : node.getAncestors()) {
+                if (sb.length() > 0) {
+                    sb.append(",");
                 }
-                dao.close();
-                break; // exit for loop after processing the conceptname column
+                sb.append(ancestor.getPrimaryName());
             }
-           
+            map.put(n, sb.toString());
+        }
+
+        /*
+         * Populate the queryResults with a new column
+         */
+        List<String> aList = new ArrayList<String>(conceptNames.size());
+        for (String string : conceptNames) {
+            aList.add(map.get(string));
         }
+        queryResults.getResultsMap().put("Hierarchy", aList);
     }
     
     private void addPhylogeny(QueryResults queryResults, List<String> phylogeny) {
-        Set<String> columnNames = (Set<String>) queryResults.getColumnNames();
-        for (String name : columnNames) {
-            if (name.equalsIgnoreCase("conceptname")) {
+        String name = findConceptNameColumn(queryResults);
+        if (name == null) {
+            return;
+        }
 
-                /*
-                 * Create a list of all the unique conceptNames
-                 */
-                List<String> conceptNames = queryResults.getResults(name);
-                Set<String> uniqueNames = new HashSet<String>();
-                uniqueNames.addAll(conceptNames);
+        List<String> conceptNames = queryResults.getResults(name);
+        ConceptHierarchy hierarchy = conceptHierarchyIndex.getHierarchy();
 
-                /*
-                 * Iterate through each conceptname and create a hierarchy for each.
-                 */
-                Map<String, List<String>> map = new HashMap<String, List<String>>();
-                ConceptDAO conceptDao = knowledgebaseDAOFactory.newConceptDAO();
-                for (String n : uniqueNames) {
-                    Concept concept = conceptDao.findByName(n);
+        /*
+         * Index of each rank in the phylogeny
+         */
+        Map<String, Integer> rankIndex = new HashMap<String, Integer>();
+        for (int i = 0; i < phylogeny.size(); i++) {
+            rankIndex.put(phylogeny.get(i), i);
+        }
 
-                    /*
-                     * Generate a List of Concepts as we walk up the heirarchy.
-                     * Only use concepts with no rank level AND whos rank name
-                     * is found within the phylogeny array
-                     */
-                    List<String> ancestors = new ArrayList<String>(phylogeny.size());
-                    String primaryName = (concept == null) ? n : concept.getPrimaryConceptName().getName();
-                    map.put(primaryName, ancestors);
-                    for (int i = 0; i < phylogeny.size(); i++) {
-                        ancestors.add(null);
-                    }
+        /*
+         * Walk up the hierarchy once for each unique name. Only use concepts
+         * whose rank is found within the phylogeny array
+         */
+        Map<String, String[]> map = new HashMap<String, String[]>();
+        for (String n : new HashSet<String>(conceptNames)) {
+            String[] ancestors = new String[phylogeny.size()];
+            map.put(n, ancestors);
+            ConceptHierarchy.Node node = hierarchy.findNode(n);
+            while (node != null) {
+                Integer idx = rankIndex.get(node.getRank());
+                if (idx != null) {
+                    ancestors[idx] = node.getPrimaryName();
+                }
+                node = node.getParent();
+            }
 
+            if (log.isDebugEnabled()) {
+                log.debug(n + ": " + Arrays.toString(ancestors));
+            }
+        }
 
-                    while (concept != null) {
-                        String rank = null;
-                        if (concept.getRankLevel() == null || concept.getRankLevel().length() == 0) {
-                            rank = concept.getRankName();
-                        }
-                        else {
-                            rank = concept.getRankLevel() + concept.getRankName();
-                        }
-                                                    
-                        if (phylogeny.contains(rank)) {
-                            int idx = phylogeny.indexOf(rank);
-                            if (log.isDebugEnabled()) {
-                                log.debug("Found rank of '" + rank + "' for '" + concept + 
-                                        "'. Adding as ancestors.add(" + idx + ", " +
-                                        concept + ")");
-                            }
-                            ancestors.set(idx, concept.getPrimaryConceptName().getName());
-                        }
-                        concept = concept.getParentConcept();
-                    }
-                    
-                    if (log.isDebugEnabled()) {
-                        log.debug(n + ": " + ancestors.toString());
-                    }
+        /*
+         * Populate the queryResults with the new columns
+         */
+        List<List<String>> columns = new ArrayList<List<String>>(phylogeny.size());
+        for (int i = 0; i < phylogeny.size(); i++) {
+            columns.add(new ArrayList<String>(conceptNames.size()));
+        }
 
-                }
-                conceptDao.close();
-               
-                
-                /*
-                 * Populate the queryResults with the new columns
-                 */
-                Map resultsMap = queryResults.getResultsMap();
-                for (int i = 0; i < phylogeny.size(); i++) {
-                    List<String> terms = new ArrayList<String>(conceptNames.size());
-                    for (String cn : conceptNames) {
-                        List<String> ancestors = map.get(cn);
-                        boolean added = false;
-                        if (ancestors != null) {
-                            String concept = ancestors.get(i);
-                            if (concept != null) {
-                                terms.add(concept);
-                                added = true;
-                            }
-                        }
-                        
-                        if (!added) {
-                            terms.add("");
-                        }
-                    }
-                    resultsMap.put(phylogeny.get(i), terms);
-                }
-                
-                break;
+        for (String cn : conceptNames) {
+            String[] ancestors = map.get(cn);
+            for (int i = 0; i < ancestors.length; i++) {
+                columns.get(i).add((ancestors[i] == null) ? "" : ancestors[i]);
+            }
+        }
 
+        Map resultsMap = queryResults.getResultsMap();
+        for (int i = 0; i < phylogeny.size(); i++) {
+            resultsMap.put(phylogeny.get(i), columns.get(i));
+        }
+    }
+
+    /**
+     * @return The name of the column containing concept names (matched
+     *      case-insensitively). null if there isn't one
+     */
+    private static String findConceptNameColumn(QueryResults queryResults) {
+        Set<String> columnNames = (Set<String>) queryResults.getColumnNames();
+        for (String name : columnNames) {
+            if (name.equalsIgnoreCase("conceptname")) {
+                return name;
             }
         }
+
+        return null;
     }
     
     /**
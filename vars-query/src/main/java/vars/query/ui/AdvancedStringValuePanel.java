@@ -42,6 +42,8 @@ import org.mbari.text.IgnoreCaseToStringComparator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import vars.VARSException;
+import vars.query.ColumnStatistics;
+import vars.query.ColumnStatisticsCatalog;
 import vars.query.QueryPersistenceService;
 
 /**
@@ -58,6 +60,7 @@ public class AdvancedStringValuePanel extends ValuePanel {
     /** Flag is true if fetching data from database. False otherwise */
     private volatile transient boolean scanFlag = false;
     private JList list;
+    private final ColumnStatisticsCatalog columnStatisticsCatalog;
     private final Icon listIcon;
     private ListListModel listModel;
     private final QueryPersistenceService queryDAO;
@@ -69,11 +72,14 @@ public class AdvancedStringValuePanel extends ValuePanel {
     /**
      * @param name
      * @param queryDAO
+     * @param columnStatisticsCatalog
      */
     @Inject
-    public AdvancedStringValuePanel(String name, QueryPersistenceService queryDAO) {
+    public AdvancedStringValuePanel(String name, QueryPersistenceService queryDAO,
+                                    ColumnStatisticsCatalog columnStatisticsCatalog) {
         super(name);
         this.queryDAO = queryDAO;
+        this.columnStatisticsCatalog = columnStatisticsCatalog;
         listIcon = new ImageIcon(getClass().getResource("/images/vars/query/16px/table_view.png"));
         textFieldIcon = new ImageIcon(getClass().getResource("/images/vars/query/16px/pencil2.png"));
         initialize();
@@ -114,10 +120,22 @@ public class AdvancedStringValuePanel extends ValuePanel {
     @SuppressWarnings(value = "unchecked")
     private ListListModel getListModel() {
         if (listModel == null) {
-            scanFlag = true;
             listModel = new ListListModel(Collections.synchronizedList(new ArrayList()));
 
-            // Get DISTINCT Values from the databse
+            /*
+             * Use the values from the column statistics if they're all there. Otherwise
+             * get DISTINCT Values from the databse
+             */
+            ColumnStatistics statistics = columnStatisticsCatalog.get(getValueName());
+            if ((statistics != null) && statistics.isComplete()) {
+                List results = statistics.getDistinctValues();
+                Collections.sort(results, new IgnoreCaseToStringComparator());
+                setValues(results);
+
+                return listModel;
+            }
+
+            scanFlag = true;
 
             /*
              * Fetch from the database off of the EDT. During the fetch disable
@@ -129,8 +147,6 @@ public class AdvancedStringValuePanel extends ValuePanel {
 
                 protected Object doInBackground() throws Exception {
                     try {
-
-                        // TODO this needs to be spun off in SwingWorker
                         results.addAll(queryDAO.getUniqueValuesByColumn(getValueName()));
                     }
                     catch (VARSException e1) {
@@ -145,38 +161,7 @@ public class AdvancedStringValuePanel extends ValuePanel {
                 @Override
                 protected void done() {
                     super.done();
-
-                    /*
-                     * If the contents of a JList are too long, it won't calculate
-                     * the cell size. This causes the JList to appear as a single
-                     * row in the UI; pretty annoying when there's 1000's of items
-                     * in the list!! As a workaround we'll create a prototype
-                     * cell value for the list to work with. It'll use this
-                     * prototype to caculate cell height and width.
-                     */
-                    if (results.size() > VISIBLE_ROW_COUNT) {
-                        String prototype = " ";
-
-                        for (Iterator it = results.iterator(); it.hasNext(); ) {
-                            int maxLength = 0;
-                            Object object = it.next();
-
-                            if (object != null) {
-                                String s = object.toString();
-                                int length = s.length();
-
-                                if (length > maxLength) {
-                                    maxLength = length;
-                                    prototype = s;
-                                }
-                            }
-                        }
-
-                        getList().setPrototypeCellValue(prototype);
-                    }
-
-
-                    listModel.addAll(results);
+                    setValues(results);
 
                     Icon currentIcon = getToggleButton().isSelected() ? textFieldIcon : listIcon;
 
@@ -192,6 +177,42 @@ public class AdvancedStringValuePanel extends ValuePanel {
         return listModel;
     }
 
+    @SuppressWarnings(value = "unchecked")
+    private void setValues(List results) {
+
+        /*
+         * If the contents of a JList are too long, it won't calculate
+         * the cell size. This causes the JList to appear as a single
+         * row in the UI; pretty annoying when there's 1000's of items
+         * in the list!! As a workaround we'll create a prototype
+         * cell value for the list to work with. It'll use this
+         * prototype to caculate cell height and width.
+         */
+        if (results.size() > VISIBLE_ROW_COUNT) {
+            String prototype = " ";
+
+            for (Iterator it = results.iterator(); it.hasNext(); ) {
+                int maxLength = 0;
+                Object object = it.next();
+
+                if (object != null) {
+                    String s = object.toString();
+                    int length = s.length();
+
+                    if (length > maxLength) {
+                        maxLength = length;
+                        prototype = s;
+                    }
+                }
+            }
+
+            getList().setPrototypeCellValue(prototype);
+        }
+
+
+        listModel.addAll(results);
+    }
+
     /**
      *
      * @return
@@ -8,6 +8,8 @@ import org.mbari.swing.SpinningDial;
 import org.mbari.swingworker.SwingWorker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import vars.query.ColumnStatistics;
+import vars.query.ColumnStatisticsCatalog;
 import vars.query.QueryPersistenceService;
 
 import javax.swing.Box;
@@ -42,6 +44,7 @@ public class JXDateValuePanel extends ValuePanel {
     private JXDatePicker maxEntryField;
     private JXDatePicker minEntryField;
     private final QueryPersistenceService queryPersistenceService;
+    private final ColumnStatisticsCatalog columnStatisticsCatalog;
     private JButton scanButton;
     private ActionListener constrainActionListener = new ActionListener() {
         @Override
@@ -60,9 +63,11 @@ public class JXDateValuePanel extends ValuePanel {
         }
     };
 
-    public JXDateValuePanel(String name, QueryPersistenceService queryDAO) {
+    public JXDateValuePanel(String name, QueryPersistenceService queryDAO,
+                            ColumnStatisticsCatalog columnStatisticsCatalog) {
         super(name);
         this.queryPersistenceService = queryDAO;
+        this.columnStatisticsCatalog = columnStatisticsCatalog;
         initialize();
     }
 
@@ -203,5 +208,20 @@ public class JXDateValuePanel extends ValuePanel {
         this.add(getMaxDateField());
         this.add(Box.createHorizontalGlue());
         this.add(getScanButton());
+        prefill();
+    }
+
+    /**
+     * Fills in the range from the column statistics, if they've been gathered,
+     * without constraining the query. The scan button still reads the current
+     * range from the database.
+     */
+    private void prefill() {
+        ColumnStatistics statistics = columnStatisticsCatalog.get(getValueName());
+        if ((statistics != null) && (statistics.getMin() instanceof Date) && (statistics.getMax() instanceof Date)) {
+            getMinDateField().setDate((Date) statistics.getMin());
+            getMaxDateField().setDate((Date) statistics.getMax());
+            getConstrainCheckBox().setSelected(false);
+        }
     }
 }
@@ -33,6 +33,8 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.util.List;
+import vars.query.ColumnStatistics;
+import vars.query.ColumnStatisticsCatalog;
 import vars.query.QueryPersistenceService;
 
 
@@ -57,17 +59,22 @@ public class NumberValuePanel extends ValuePanel {
     
     private final QueryPersistenceService queryDAO;
 
+    private final ColumnStatisticsCatalog columnStatisticsCatalog;
     
 
     /**
      * This is the default constructor
      *
      * @param name
+     * @param queryDAO
+     * @param columnStatisticsCatalog
      */
     @Inject
-    public NumberValuePanel(String name, QueryPersistenceService queryDAO) {
+    public NumberValuePanel(String name, QueryPersistenceService queryDAO,
+                            ColumnStatisticsCatalog columnStatisticsCatalog) {
         super(name);
         this.queryDAO = queryDAO;
+        this.columnStatisticsCatalog = columnStatisticsCatalog;
         initialize();
     }
 
@@ -269,5 +276,20 @@ public class NumberValuePanel extends ValuePanel {
         this.add(maxLabel, null);
         this.add(getMaxTextField(), null);
         this.add(getScanButton());
+        prefill();
+    }
+
+    /**
+     * Fills in the range from the column statistics, if they've been gathered,
+     * without constraining the query. The scan button still reads the current
+     * range from the database.
+     */
+    private void prefill() {
+        ColumnStatistics statistics = columnStatisticsCatalog.get(getValueName());
+        if ((statistics != null) && (statistics.getMin() != null)) {
+            getMinTextField().setText(statistics.getMin().toString());
+            getMaxTextField().setText(statistics.getMax().toString());
+            getConstrainCheckBox().setSelected(false);
+        }
     }
 }
@@ -0,0 +1,78 @@
+package vars.query.ui;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+import vars.query.ui.db.RowSpool;
+
+/**
+ * A non-editable TableModel backed by a {@link RowSpool}. Only the pages that have
+ * been displayed recently are kept in memory; the rest are read from the spool
+ * when the table scrolls to them.
+ *
+ * @author Brian Schlining
+ */
+public class PagedQueryResultsTableModel extends AbstractTableModel {
+
+    /** The number of pages kept in memory */
+    private static final int MAX_CACHED_PAGES = 20;
+    private final RowSpool rowSpool;
+    private final int rowCount;
+    private final int pageSize;
+
+    /** Least-recently-used cache of pages. key = page index */
+    private final Map<Integer, Object[][]> pages = new LinkedHashMap<Integer, Object[][]>(MAX_CACHED_PAGES * 2, 0.75F,
+        true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+
+    /**
+     * Constructs ...
+     *
+     * @param rowSpool A spool that has been finished
+     */
+    public PagedQueryResultsTableModel(RowSpool rowSpool) {
+        this.rowSpool = rowSpool;
+        this.pageSize = rowSpool.getPageSize();
+        this.rowCount = (int) Math.min(Integer.MAX_VALUE, rowSpool.getRowCount());
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return rowSpool.getColumnNames().get(column);
+    }
+
+    public int getColumnCount() {
+        return rowSpool.getColumnNames().size();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Object[][] page = getPage(rowIndex / pageSize);
+        int i = rowIndex % pageSize;
+
+        return (i < page.length) ? page[i][columnIndex] : null;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    private Object[][] getPage(int pageIndex) {
+        Object[][] page = pages.get(pageIndex);
+        if (page == null) {
+            page = rowSpool.readPage(pageIndex);
+            pages.put(pageIndex, page);
+        }
+
+        return page;
+    }
+}
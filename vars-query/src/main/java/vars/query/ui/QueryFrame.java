@@ -39,12 +39,15 @@ import org.mbari.awt.event.ActionAdapter;
 import org.mbari.util.Dispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import vars.knowledgebase.KnowledgebaseDAOFactory;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.query.ColumnStatisticsCatalog;
 import vars.query.QueryPersistenceService;
-import vars.query.ui.db.QueryAction;
 import vars.query.ui.db.QueryActionImpl;
 import vars.query.ui.db.QueryActionUI;
+import vars.query.ui.db.QueryExecutionService;
 import vars.query.ui.db.QueryExecutor;
+import vars.query.ui.db.QueryResultsCache;
+import vars.query.ui.db.preparedstatement.ConceptNameSetTable;
 import vars.query.ui.db.preparedstatement.EscapedQueryExecutorImpl;
 import vars.query.ui.db.sql.SQLGenerator;
 
@@ -71,21 +74,30 @@ public class QueryFrame extends JFrame {
     private JTabbedPane tabbedPane = null;
     private ActionMap actionMap = new ActionMap();
     private final QueryPersistenceService queryPersistenceService;
-    private final KnowledgebaseDAOFactory knowledgebaseDAOFactory;
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
+    private final ColumnStatisticsCatalog columnStatisticsCatalog;
+    private ConceptNameSetTable conceptNameSetTable;
+    private int maxInListSize = EscapedQueryExecutorImpl.DEFAULT_MAX_IN_LIST_SIZE;
+    private QueryResultsCache queryResultsCache;
+    private boolean queryResultsCacheRead;
+    private QueryExecutionService queryExecutionService;
 
     /**
      *
      *
-     * @param knowledgebaseDAOFactory
+     * @param conceptHierarchyIndex
      * @param queryPersistenceService
+     * @param columnStatisticsCatalog
      * @throws HeadlessException
      */
     @Inject
-    public QueryFrame(KnowledgebaseDAOFactory knowledgebaseDAOFactory, QueryPersistenceService queryPersistenceService)
+    public QueryFrame(ConceptHierarchyIndex conceptHierarchyIndex, QueryPersistenceService queryPersistenceService,
+                      ColumnStatisticsCatalog columnStatisticsCatalog)
             throws HeadlessException {
         super();
-        this.knowledgebaseDAOFactory = knowledgebaseDAOFactory;
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
         this.queryPersistenceService = queryPersistenceService;
+        this.columnStatisticsCatalog = columnStatisticsCatalog;
         initialize();
     }
 
@@ -178,7 +190,7 @@ public class QueryFrame extends JFrame {
 
     private RefineSearchPanel getRefineSearchPanel() {
         if (refineSearchPanel == null) {
-            refineSearchPanel = new RefineSearchPanel(queryPersistenceService);
+            refineSearchPanel = new RefineSearchPanel(queryPersistenceService, columnStatisticsCatalog);
         }
 
         return refineSearchPanel;
@@ -219,6 +231,99 @@ public class QueryFrame extends JFrame {
         return resetButton;
     }
 
+    /**
+     * @return The number of rows fetched per round trip when streaming results. Read
+     *      from 'query.fetch.size' in the resource bundle.
+     */
+    private int getFetchSize() {
+        int fetchSize = EscapedQueryExecutorImpl.DEFAULT_FETCH_SIZE;
+        try {
+            ResourceBundle bundle = ResourceBundle.getBundle(Lookup.RESOURCE_BUNDLE, Locale.US);
+            fetchSize = Integer.parseInt(bundle.getString("query.fetch.size"));
+        }
+        catch (Exception e) {
+            log.debug("Unable to read query.fetch.size. Using " + fetchSize, e);
+        }
+
+        return fetchSize;
+    }
+
+    /**
+     * @return The table used for long concept name lists. <b>null</b> if
+     *      'query.conceptnames.table' in the resource bundle is false, in which
+     *      case all names are inlined. The size above which the table is used is
+     *      read from 'query.conceptnames.inlist.max'
+     */
+    private ConceptNameSetTable getConceptNameSetTable() {
+        if (conceptNameSetTable == null) {
+            boolean useTable = true;
+            try {
+                ResourceBundle bundle = ResourceBundle.getBundle(Lookup.RESOURCE_BUNDLE, Locale.US);
+                useTable = Boolean.parseBoolean(bundle.getString("query.conceptnames.table"));
+                maxInListSize = Integer.parseInt(bundle.getString("query.conceptnames.inlist.max"));
+            }
+            catch (Exception e) {
+                log.debug("Unable to read the query.conceptnames properties. Using defaults", e);
+            }
+
+            conceptNameSetTable = useTable ? new ConceptNameSetTable() : null;
+        }
+
+        return conceptNameSetTable;
+    }
+
+    /**
+     * @return The cache of query results shared by every search from this frame.
+     *      <b>null</b> if 'query.cache.enabled' in the resource bundle is false. The
+     *      budgets are read from 'query.cache.memory.mb' and 'query.cache.disk.mb'
+     */
+    private QueryResultsCache getQueryResultsCache() {
+        if (!queryResultsCacheRead) {
+            queryResultsCacheRead = true;
+            boolean enabled = true;
+            long maxMemory = QueryResultsCache.DEFAULT_MAX_MEMORY;
+            long maxDisk = QueryResultsCache.DEFAULT_MAX_DISK;
+            try {
+                ResourceBundle bundle = ResourceBundle.getBundle(Lookup.RESOURCE_BUNDLE, Locale.US);
+                enabled = Boolean.parseBoolean(bundle.getString("query.cache.enabled"));
+                maxMemory = Long.parseLong(bundle.getString("query.cache.memory.mb")) * 1024 * 1024;
+                maxDisk = Long.parseLong(bundle.getString("query.cache.disk.mb")) * 1024 * 1024;
+            }
+            catch (Exception e) {
+                log.debug("Unable to read the query.cache properties. Using defaults", e);
+            }
+
+            queryResultsCache = enabled ? new QueryResultsCache(queryPersistenceService, maxMemory, maxDisk) : null;
+        }
+
+        return queryResultsCache;
+    }
+
+    /**
+     * @return The pool that every search from this frame runs on. Its size is read
+     *      from 'query.concurrent.max' and the per-query time limit, in seconds,
+     *      from 'query.timeout.seconds' (0 is no limit)
+     */
+    private QueryExecutionService getQueryExecutionService() {
+        if (queryExecutionService == null) {
+            int maxConcurrentQueries = QueryExecutionService.DEFAULT_MAX_CONCURRENT_QUERIES;
+            int timeout = 0;
+            try {
+                ResourceBundle bundle = ResourceBundle.getBundle(Lookup.RESOURCE_BUNDLE, Locale.US);
+                maxConcurrentQueries = Integer.parseInt(bundle.getString("query.concurrent.max"));
+                timeout = Integer.parseInt(bundle.getString("query.timeout.seconds"));
+            }
+            catch (Exception e) {
+                log.debug("Unable to read the query.concurrent.max or query.timeout.seconds properties. " +
+                          "Using defaults", e);
+            }
+
+            queryExecutionService = new QueryExecutionService(maxConcurrentQueries, timeout);
+        }
+
+        return queryExecutionService;
+    }
+
     private ActionAdapter getSearchAction() {
         if (searchAction == null) {
             searchAction = new ActionAdapter() {
@@ -230,17 +335,24 @@ public class QueryFrame extends JFrame {
                     /*
                      * Create a QueryAction
                      */
+                    boolean streamResults = getSearchPanel().getCbStreamResults().isSelected();
                     QueryExecutor queryExecutor = new EscapedQueryExecutorImpl(getSearchPanel().getConceptConstraints(),
                             getRefineSearchPanel().getValuePanels(),
                             getSearchPanel().getCbAllInterpretations().isSelected(),
                             getSearchPanel().getCbAllAssociations().isSelected(),
-                            queryPersistenceService.getAnnotationQueryable());
-                    QueryAction queryAction = new QueryActionImpl(queryExecutor,
-                            knowledgebaseDAOFactory,
-                            getSearchPanel().getCbHierarchy().isSelected(),
-                            getSearchPanel().getCbPhylogeny().isSelected(),
-                            getSearchPanel().getCbFullPhylogeny().isSelected(),
-                            getSearchPanel().getCbAssociationPerColumn().isSelected());
+                            queryPersistenceService.getAnnotationQueryable(),
+                            getFetchSize(),
+                            getConceptNameSetTable(),
+                            maxInListSize);
+                    QueryActionImpl queryAction = new QueryActionImpl(queryExecutor,
+                            conceptHierarchyIndex,
+                            !streamResults && getSearchPanel().getCbHierarchy().isSelected(),
+                            !streamResults && getSearchPanel().getCbPhylogeny().isSelected(),
+                            !streamResults && getSearchPanel().getCbFullPhylogeny().isSelected(),
+                            !streamResults && getSearchPanel().getCbAssociationPerColumn().isSelected(),
+                            getQueryResultsCache());
+                    queryAction.setStreamResults(streamResults);
+                    queryAction.setQueryExecutionService(getQueryExecutionService());
 
                     /*
                      * This generates the UI components for a QueryAction such
@@ -21,6 +21,7 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.util.Date;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
@@ -35,10 +36,15 @@ import javax.swing.JTabbedPane;
 import javax.swing.JTable;
 import javax.swing.JToolBar;
 import javax.swing.SwingConstants;
+import javax.swing.filechooser.FileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.mbari.awt.event.ActionAdapter;
 import org.mbari.sql.QueryResults;
+import vars.query.ui.db.ColumnarQueryResults;
+import vars.query.ui.db.RowSource;
+import vars.query.ui.db.RowSpool;
+import vars.query.ui.export.ExportFormat;
 
 
 /**
@@ -63,7 +69,9 @@ public class QueryResultsFrame extends JFrame {
 
     private final String query;
  
-    private final QueryResults queryResults;
+    private final ColumnarQueryResults results;
+
+    private final RowSpool rowSpool;
 
     private JMenuItem saveMenuItem = null;
 
@@ -114,12 +122,50 @@ public class QueryResultsFrame extends JFrame {
      * @param query
      */
     public QueryResultsFrame(QueryResults queryResults, String query, String databaseUrl) {
+        this(ColumnarQueryResults.from(queryResults), query, databaseUrl);
+    }
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param results
+     * @param query
+     * @param databaseUrl
+     */
+    public QueryResultsFrame(ColumnarQueryResults results, String query, String databaseUrl) {
+        super();
+        this.results = results;
+        this.rowSpool = null;
+        this.query = query;
+        this.databaseUrl = databaseUrl == null ? "unknown" : databaseUrl;
+        initialize();
+    }
+
+    /**
+     * Displays results that were streamed to a {@link RowSpool}. The spool is
+     * deleted when this frame is disposed.
+     *
+     * @param rowSpool
+     * @param query
+     * @param databaseUrl
+     */
+    public QueryResultsFrame(RowSpool rowSpool, String query, String databaseUrl) {
         super();
-        this.queryResults = queryResults;
+        this.results = null;
+        this.rowSpool = rowSpool;
         this.query = query;
         this.databaseUrl = databaseUrl == null ? "unknown" : databaseUrl;
         initialize();
     }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        if (rowSpool != null) {
+            rowSpool.delete();
+        }
+    }
     //~--- get methods --------------------------------------------------------
 
     /**
@@ -208,7 +254,7 @@ public class QueryResultsFrame extends JFrame {
      */
     private JTable getDataTable() {
         if (dataTable == null) {
-            dataTable = new QueryResultsTable(queryResults);
+            dataTable = (rowSpool == null) ? new QueryResultsTable(results) : new QueryResultsTable(rowSpool);
         }
 
         return dataTable;
@@ -319,7 +365,7 @@ public class QueryResultsFrame extends JFrame {
             queryText.append(temp).append("</strong></p><br>");
 
             // Append the record count
-            queryText.append("<p>TOTAL RECORDS: ").append(queryResults.rowCount()).append("</p><br>");
+            queryText.append("<p>TOTAL RECORDS: ").append(getRowCount()).append("</p><br>");
             queryText.append("</body></html>");
             queryLabel.setText(queryText.toString());
             queryLabel.setVerticalAlignment(SwingConstants.TOP);
@@ -345,12 +391,44 @@ public class QueryResultsFrame extends JFrame {
     }
 
     /**
-     * <p><!-- Method description --></p>
-     * @return
-     * @uml.property  name="queryResults"
+     * @return A file chooser with a filter for each format. The first format is
+     *      selected
+     */
+    private static JFileChooser newExportChooser(ExportFormat... formats) {
+        JFileChooser chooser = new JFileChooser();
+        FileFilter first = null;
+        for (ExportFormat format : formats) {
+            FileFilter filter = new ExportFileFilter(format);
+            chooser.addChoosableFileFilter(filter);
+            if (first == null) {
+                first = filter;
+            }
+        }
+
+        chooser.setFileFilter(first);
+
+        return chooser;
+    }
+
+    /**
+     * @return The file selected in a chooser from {@link #newExportChooser(ExportFormat...)}.
+     *      If the name doesn't have the extension of a format the extension of
+     *      the selected filter is added
      */
-    public QueryResults getQueryResults() {
-        return queryResults;
+    private static File getSelectedFile(JFileChooser chooser) {
+        File file = chooser.getSelectedFile();
+        if ((chooser.getFileFilter() instanceof ExportFileFilter) && (ExportFormat.forFile(file, null) == null)) {
+            file = new File(file.getPath() + ((ExportFileFilter) chooser.getFileFilter()).format.getExtension());
+        }
+
+        return file;
+    }
+
+    /**
+     * @return The results displayed in this frame, either in memory or spooled to disk
+     */
+    public RowSource getRowSource() {
+        return (rowSpool == null) ? results : rowSpool;
     }
 
     /**
@@ -375,11 +453,13 @@ public class QueryResultsFrame extends JFrame {
                      */
                     int option = chooser.showSaveDialog(QueryResultsFrame.this);
                     if (option == JFileChooser.APPROVE_OPTION) {
-                        SaveQueryResultsAction action = new SaveQueryResultsAction(chooser.getSelectedFile(), queryResults, query, databaseUrl);
+                        SaveQueryResultsAction action = new SaveQueryResultsAction(getSelectedFile(chooser),
+                                getRowSource(), query, databaseUrl);
                         action.doAction();
                     }
                 }
-                private final JFileChooser chooser = new JFileChooser();
+                private final JFileChooser chooser = newExportChooser(ExportFormat.TAB_DELIMITED,
+                        ExportFormat.TAB_DELIMITED_GZIP, ExportFormat.COLUMNAR);
             };
         }
 
@@ -396,12 +476,12 @@ public class QueryResultsFrame extends JFrame {
                      */
                     int option = chooser.showSaveDialog(QueryResultsFrame.this);
                     if (option == JFileChooser.APPROVE_OPTION) {
-                        SaveQueryResultsAsKMLAction action = new SaveQueryResultsAsKMLAction(chooser.getSelectedFile(), 
-                                queryResults, query, databaseUrl);
+                        SaveQueryResultsAsKMLAction action = new SaveQueryResultsAsKMLAction(getSelectedFile(chooser),
+                                getRowSource(), query, databaseUrl);
                         action.doAction();
                     }
                 }
-                private final JFileChooser chooser = new JFileChooser();
+                private final JFileChooser chooser = newExportChooser(ExportFormat.KML, ExportFormat.KMZ);
             };
         }
 
@@ -532,8 +612,37 @@ public class QueryResultsFrame extends JFrame {
      */
     private void initialize() {
         this.setJMenuBar(getAMenuBar());
+
+        // Closing the window has to dispose it so that a spool is deleted
+        this.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
         this.setSize(300, 200);
         this.setContentPane(getJContentPane());
-        this.setTitle("VARS Query Results (" + queryResults.rowCount() + " rows)");
+        this.setTitle("VARS Query Results (" + getRowCount() + " rows)");
+    }
+
+    private long getRowCount() {
+        return getRowSource().getRowCount();
+    }
+
+    /**
+     * Shows directories and the files of one {@link ExportFormat}
+     */
+    private static class ExportFileFilter extends FileFilter {
+
+        final ExportFormat format;
+
+        ExportFileFilter(ExportFormat format) {
+            this.format = format;
+        }
+
+        @Override
+        public boolean accept(File f) {
+            return f.isDirectory() || (ExportFormat.forFile(f, null) == format);
+        }
+
+        @Override
+        public String getDescription() {
+            return format.getDescription() + " (*" + format.getExtension() + ")";
+        }
     }
-}
\ No newline at end of file
+}
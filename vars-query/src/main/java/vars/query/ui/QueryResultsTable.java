@@ -23,13 +23,15 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import javax.swing.JFrame;
 import javax.swing.JTable;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableColumn;
 import org.mbari.sql.QueryResults;
 import org.mbari.swing.JImageUrlFrame;
 import org.mbari.swing.table.TableSorter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import vars.query.ui.db.ColumnarQueryResults;
+import vars.query.ui.db.RowSpool;
 
 /**
  *
@@ -47,6 +49,16 @@ public class QueryResultsTable extends JTable {
      * @param queryResults
      */
     public QueryResultsTable(QueryResults queryResults) {
+        this(ColumnarQueryResults.from(queryResults));
+    }
+
+    /**
+     * Constructs ...
+     *
+     *
+     * @param results
+     */
+    public QueryResultsTable(ColumnarQueryResults results) {
         super();
         setAutoCreateColumnsFromModel(true);
         setAutoResizeMode(AUTO_RESIZE_OFF);
@@ -54,10 +66,26 @@ public class QueryResultsTable extends JTable {
         /*
          * Add the ability to sort by columns
          */
-        TableSorter tableSorter = new TableSorter(new QueryResultsTableModel(queryResults));
+        TableSorter tableSorter = new TableSorter(new QueryResultsTableModel(results));
         setModel(tableSorter);
         tableSorter.setTableHeader(getTableHeader());
-        setColumnWidths();
+        setColumnWidths(getRowCount());
+        addMouseListener(getUrlMouseListener());
+    }
+
+    /**
+     * Displays streamed results. The rows are read from the spool a page at a time
+     * as the table is scrolled. Sorting is not available since it would require all
+     * the rows to be in memory.
+     *
+     * @param rowSpool A spool that has been finished
+     */
+    public QueryResultsTable(RowSpool rowSpool) {
+        super();
+        setAutoCreateColumnsFromModel(true);
+        setAutoResizeMode(AUTO_RESIZE_OFF);
+        setModel(new PagedQueryResultsTableModel(rowSpool));
+        setColumnWidths(Math.min(getRowCount(), rowSpool.getPageSize()));
         addMouseListener(getUrlMouseListener());
     }
 
@@ -137,10 +165,10 @@ public class QueryResultsTable extends JTable {
      * Process all the values in the tables to set the column width so that all
      * data is displayed without the user having to resize the table cells.
      *
+     * @param rowCount The number of rows, starting at the first, to examine
      */
-    private void setColumnWidths() {
+    private void setColumnWidths(int rowCount) {
         int columnCount = getColumnCount();
-        int rowCount = getRowCount();
         for (int col = 0; col < columnCount; col++) {
             int width = getColumnName(col).length();
             for (int row = 0; row < rowCount; row++) {
@@ -162,19 +190,38 @@ public class QueryResultsTable extends JTable {
     }
 
     /**
-     * <p>Generates a non-editable TableModel based on the contents of a queryResult.</p>
+     * <p>Generates a non-editable TableModel based on the contents of a queryResult.
+     * Values are read directly from the columnar results rather than copied.</p>
      *
      */
-    class QueryResultsTableModel extends DefaultTableModel {
+    class QueryResultsTableModel extends AbstractTableModel {
+
+        private final ColumnarQueryResults results;
 
         /**
          *
          *
-         * @param queryResults
+         * @param results
          */
-        QueryResultsTableModel(QueryResults queryResults) {
-            super(queryResults.getDataArray(),
-                  (String[]) queryResults.getColumnNames().toArray(new String[queryResults.getColumnNames().size()]));
+        QueryResultsTableModel(ColumnarQueryResults results) {
+            this.results = results;
+        }
+
+        public int getColumnCount() {
+            return results.getColumnCount();
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return results.getColumnNames().get(column);
+        }
+
+        public int getRowCount() {
+            return (int) results.getRowCount();
+        }
+
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            return results.getValueAt(rowIndex, columnIndex);
         }
 
         /*
@@ -47,6 +47,7 @@ import org.mbari.util.Dispatcher;
 import org.mbari.util.ImmutableCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import vars.query.ColumnStatisticsCatalog;
 import vars.query.QueryPersistenceService;
 
 /**
@@ -156,6 +157,7 @@ public class RefineSearchPanel extends JPanel {
     private String[] stringConstraints = new String[] { "Observer", "ShipName", "PlatformName", "ChiefScientist",
             "Direction" };
     private Collection constraintNames;
+    private final ColumnStatisticsCatalog columnStatisticsCatalog;
 
     /**
      * Metadata representing information about the Annotations view in the database.
@@ -170,12 +172,14 @@ public class RefineSearchPanel extends JPanel {
      * This is the default constructor
      *
      * @param queryDAO
+     * @param columnStatisticsCatalog Supplies the values and ranges shown in the value panels
      */
     @Inject
-    public RefineSearchPanel(QueryPersistenceService queryDAO) {
+    public RefineSearchPanel(QueryPersistenceService queryDAO, ColumnStatisticsCatalog columnStatisticsCatalog) {
         super();
         constraintNames = Arrays.asList(stringConstraints);
         this.queryDAO = queryDAO;
+        this.columnStatisticsCatalog = columnStatisticsCatalog;
         initialize();
     }
 
@@ -319,10 +323,10 @@ public class RefineSearchPanel extends JPanel {
                      */
 
                     //valuePanel = new StringLikeValuePanel(name);
-                    valuePanel = new AdvancedStringValuePanel(name, queryDAO);
+                    valuePanel = new AdvancedStringValuePanel(name, queryDAO, columnStatisticsCatalog);
                 }
                 else {
-                    valuePanel = new AdvancedStringValuePanel(name, queryDAO);
+                    valuePanel = new AdvancedStringValuePanel(name, queryDAO, columnStatisticsCatalog);
                 }
             }
             catch (Exception e) {
@@ -330,13 +334,13 @@ public class RefineSearchPanel extends JPanel {
             }
         }
         else if (type.equals("java.sql.Timestamp")) {
-            valuePanel = new JXDateValuePanel(name, queryDAO);
+            valuePanel = new JXDateValuePanel(name, queryDAO, columnStatisticsCatalog);
         }
         else if (type.equals("java.lang.Boolean")) {
             valuePanel = new BooleanValuePanel(name);
         }
         else {
-            valuePanel = new NumberValuePanel(name, queryDAO);
+            valuePanel = new NumberValuePanel(name, queryDAO, columnStatisticsCatalog);
         }
 
         if (DEFAULT_RETURNS.contains(name)) {
@@ -19,8 +19,11 @@ package vars.query.ui;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
 import javax.swing.JFileChooser;
 import javax.swing.ProgressMonitor;
 import org.slf4j.Logger;
@@ -28,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import org.mbari.awt.event.ActionAdapter;
 import org.mbari.awt.event.ActionRunnable;
 import vars.query.ui.actions.SaveFramegrabsAction;
+import vars.query.ui.db.RowHandler;
 
 
 
@@ -78,6 +82,10 @@ public class SaveImagesFromQueryResultsAction extends ActionAdapter {
         int option = getChooser().showOpenDialog(queryResultsFrame);
         if (option == JFileChooser.APPROVE_OPTION) {
             action.setSaveLocation(getChooser().getSelectedFile());
+            action.setWorkerCount(getIntProperty("framegrab.download.workers",
+                    SaveFramegrabsAction.DEFAULT_WORKER_COUNT));
+            action.setMaxConnectionsPerHost(getIntProperty("framegrab.download.connections.per.host",
+                    SaveFramegrabsAction.DEFAULT_CONNECTIONS_PER_HOST));
             URL[] urls = getImageURLs();
             action.setUrls(urls);
             action.setProgressMonitor(
@@ -104,46 +112,72 @@ public class SaveImagesFromQueryResultsAction extends ActionAdapter {
         return chooser;
     }
 
+    /**
+     * @return The integer value of key in the resource bundle, or defaultValue if
+     *      it's missing or not a number
+     */
+    private int getIntProperty(String key, int defaultValue) {
+        int value = defaultValue;
+        try {
+            ResourceBundle bundle = ResourceBundle.getBundle(Lookup.RESOURCE_BUNDLE, Locale.US);
+            value = Integer.parseInt(bundle.getString(key).trim());
+        }
+        catch (Exception e) {
+            log.debug("Unable to read " + key + ". Using " + value, e);
+        }
+
+        return value;
+    }
+
     /**
      * This method walks a QueryResults object data set searching for all
      * data items that start with "http" (case insensitive) and returns them
-     * in an array of URLs
+     * in an array of URLs. Each URL is only listed once, even if it appears on
+     * several rows.
      *
      * @return An array containing all URLs found in a QueryResults object.
      */
-    @SuppressWarnings("unchecked")
     private URL[] getImageURLs() {
-        Object[][] data = queryResultsFrame.getQueryResults().getDataArray();
-        Collection urlList = new ArrayList();
-        for (int row = 0; row < data.length; row++) {
-            Object[] dataRow = data[row];
-            for (int col = 0; col < dataRow.length; col++) {
-                Object obj = data[row][col];
-                if (obj != null) {
-                    String s = obj.toString();
-                    String sUpper = s.toUpperCase();
-                    if (sUpper.startsWith("HTTP")) {
-                        if (sUpper.endsWith(".PNG") ||
-                                sUpper.endsWith(".JPG") ||
-                                sUpper.endsWith(".JPEG") ||
-                                sUpper.endsWith(".TIF") ||
-                                sUpper.endsWith(".TIFF") ||
-                                sUpper.endsWith(".GIF")) {
-                            try {
-                                URL url = new URL(s);
-                                urlList.add(url);
-                            } catch (MalformedURLException e) {
-                                log.info(
-                                        "The value, " + s +
-                                        ", is not a valid URL");
+        final Map<String, URL> urlMap = new LinkedHashMap<String, URL>();
+        queryResultsFrame.getRowSource().replay(new RowHandler() {
+
+            public void start(List<String> columnNames) {
+                // Nothing to do
+            }
+
+            public void row(Object[] row) {
+                for (Object obj : row) {
+                    if (obj != null) {
+                        String s = obj.toString();
+                        String sUpper = s.toUpperCase();
+                        if (sUpper.startsWith("HTTP")) {
+                            if (sUpper.endsWith(".PNG") ||
+                                    sUpper.endsWith(".JPG") ||
+                                    sUpper.endsWith(".JPEG") ||
+                                    sUpper.endsWith(".TIF") ||
+                                    sUpper.endsWith(".TIFF") ||
+                                    sUpper.endsWith(".GIF")) {
+                                try {
+                                    if (!urlMap.containsKey(s)) {
+                                        urlMap.put(s, new URL(s));
+                                    }
+                                } catch (MalformedURLException e) {
+                                    log.info(
+                                            "The value, " + s +
+                                            ", is not a valid URL");
+                                }
                             }
                         }
                     }
                 }
             }
-        }
 
-        return (URL[]) urlList.toArray(new URL[urlList.size()]);
+            public void finish() {
+                // Nothing to do
+            }
+        });
+
+        return urlMap.values().toArray(new URL[urlMap.size()]);
     }
 
     //~--- set methods --------------------------------------------------------
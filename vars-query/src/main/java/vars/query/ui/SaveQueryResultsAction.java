@@ -17,15 +17,16 @@
 
 package vars.query.ui;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.Date;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.mbari.awt.event.ActionAdapter;
 import org.mbari.sql.QueryResults;
+import vars.VARSException;
+import vars.query.ui.db.QueryResultsRowSource;
+import vars.query.ui.db.RowSource;
+import vars.query.ui.export.ExportFormat;
+import vars.query.ui.export.RowExporter;
 
 //~--- classes ----------------------------------------------------------------
 
@@ -54,10 +55,9 @@ public class SaveQueryResultsAction extends ActionAdapter {
 	 */
     private final String query;
     /**
-	 * @uml.property  name="queryResults"
-	 * @uml.associationEnd  multiplicity="(1 1)"
-	 */
-    private final QueryResults queryResults;
+     * The rows to save. In-memory results are wrapped in a {@link QueryResultsRowSource}
+     */
+    private final RowSource rowSource;
 
     private final String databaseUrl;
 
@@ -82,8 +82,22 @@ public class SaveQueryResultsAction extends ActionAdapter {
      */
     public SaveQueryResultsAction(File file, QueryResults queryResults,
             String query, String databaseUrl) {
+        this(file, new QueryResultsRowSource(queryResults), query, databaseUrl);
+    }
+
+    /**
+     * Writes streamed results. Rows are written one at a time as they're read from
+     * the source so memory use doesn't depend on the number of rows.
+     *
+     * @param file
+     * @param rowSource
+     * @param query
+     * @param databaseUrl
+     */
+    public SaveQueryResultsAction(File file, RowSource rowSource,
+            String query, String databaseUrl) {
         this.file = file;
-        this.queryResults = queryResults;
+        this.rowSource = rowSource;
         this.query = query;
         this.databaseUrl = databaseUrl == null ? "unknown" : databaseUrl;
     }
@@ -96,38 +110,17 @@ public class SaveQueryResultsAction extends ActionAdapter {
      */
 
     /**
-     * <p>Writes the query results out as tab-delimited text to a file</p>
+     * <p>Writes the query results out to a file. The format is chosen from the
+     * file's extension (see {@link ExportFormat#forFile(File, ExportFormat)}),
+     * tab-delimited text if it doesn't match one.</p>
      *
      */
     public void doAction() {
-        /*
-         * Write out the string
-         */
+        ExportFormat format = ExportFormat.forFile(file, ExportFormat.TAB_DELIMITED);
         try {
-            BufferedWriter out = new BufferedWriter(new FileWriter(file));
-            out.write(header());
-            queryResults.writeFormattedResults(out);
-            out.close();
-        } catch (IOException e) {
+            RowExporter.export(rowSource, file, format, query, databaseUrl);
+        } catch (VARSException e) {
             log.error("Unable to save to " + file.getAbsolutePath(), e);
         }
     }
-
-    /**
-     * Generates a simple header with a few bits of useful information
-     * @return
-     */
-    private String header() {
-        StringBuffer sb = new StringBuffer();
-        sb.append("# ").append(new Date()).append("\n");
-        sb.append("#\n");
-        sb.append("# DATABASE\n# ").append(databaseUrl).append("\n");
-        sb.append("#\n");
-        sb.append("# QUERY\n# ").append(query).append("\n");
-        sb.append("#\n");
-        sb.append(
-                "# TOTAL RECORDS: ").append(
-                queryResults.rowCount()).append("\n");
-        return sb.toString();
-    }
 }
@@ -82,6 +82,7 @@ public class SearchPanel extends JPanel {
     private JCheckBox cbHierarchy;
     private JCheckBox cbPhylogeny;
     private JCheckBox cbAssociationPerColumn;
+    private JCheckBox cbStreamResults;
     private ActionAdapter clearAction;
     private final Timer delayTimer;
     private final Injector injector;
@@ -184,6 +185,7 @@ public class SearchPanel extends JPanel {
             allPanel.add(getCbPhylogeny());
             allPanel.add(getCbFullPhylogeny());
             allPanel.add(getCbAssociationPerColumn());
+            allPanel.add(getCbStreamResults());
         }
 
         return allPanel;
@@ -268,6 +270,29 @@ public class SearchPanel extends JPanel {
         return cbAssociationPerColumn;
     }
 
+    protected JCheckBox getCbStreamResults() {
+        if (cbStreamResults == null) {
+            cbStreamResults = new JCheckBox();
+            cbStreamResults.setText("Stream large results");
+            cbStreamResults.setToolTipText(
+                "Page results from disk instead of loading them into memory. Hierarchy, phylogeny and association columns are not available");
+            cbStreamResults.addItemListener(new ItemListener() {
+
+                public void itemStateChanged(ItemEvent e) {
+
+                    // These options need all the results in memory
+                    boolean enabled = e.getStateChange() != ItemEvent.SELECTED;
+                    getCbHierarchy().setEnabled(enabled);
+                    getCbPhylogeny().setEnabled(enabled);
+                    getCbFullPhylogeny().setEnabled(enabled);
+                    getCbAssociationPerColumn().setEnabled(enabled);
+                }
+            });
+        }
+
+        return cbStreamResults;
+    }
+
     private ActionAdapter getClearAction() {
         if (clearAction == null) {
             clearAction = new ActionAdapter() {
@@ -6,9 +6,12 @@ import vars.PersistenceCacheProvider;
 import vars.annotation.AnnotationDAOFactory;
 import vars.annotation.AnnotationFactory;
 import vars.annotation.AnnotationPersistenceService;
+import vars.knowledgebase.ConceptHierarchyIndex;
+import vars.knowledgebase.ConceptNameIndex;
 import vars.knowledgebase.KnowledgebaseDAOFactory;
 import vars.knowledgebase.KnowledgebaseFactory;
 import vars.knowledgebase.KnowledgebasePersistenceService;
+import vars.knowledgebase.LinkTemplateIndex;
 import vars.query.QueryPersistenceService;
 
 import com.google.inject.Inject;
@@ -24,11 +27,15 @@ public class ToolBelt extends vars.ToolBelt {
 			PersistenceCacheProvider persistenceCacheProvider,
 			AnnotationPersistenceService annotationPersistenceService,
 			KnowledgebasePersistenceService knowledgebasePersistenceService,
-			QueryPersistenceService queryPersistenceService) {
+			QueryPersistenceService queryPersistenceService,
+			ConceptNameIndex conceptNameIndex,
+			ConceptHierarchyIndex conceptHierarchyIndex,
+			LinkTemplateIndex linkTemplateIndex) {
 		super(annotationDAOFactory, annotationFactory, knowledgebaseDAOFactory,
 				knowledgebaseFactory, miscDAOFactory, miscFactory,
 				persistenceCacheProvider, annotationPersistenceService,
-				knowledgebasePersistenceService, queryPersistenceService);
+				knowledgebasePersistenceService, queryPersistenceService, conceptNameIndex,
+				conceptHierarchyIndex, linkTemplateIndex);
 	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package vars.query.ui.actions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records which framegrabs have been downloaded into a directory, along with the
+ * size and ETag the server reported for each. It's stored as a properties file in
+ * the download directory so an export that's cancelled, or that crashes, can pick
+ * up where it left off and skip files that haven't changed on the server. For an
+ * image that's only partly downloaded it holds the validator (the ETag or
+ * Last-Modified date) of the copy the '.part' file came from, so the rest is only
+ * appended if the server still has that same copy.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+class FramegrabManifest {
+
+    /** Name of the manifest file written into the download directory */
+    static final String FILE_NAME = ".vars-framegrabs.manifest";
+
+    /** Prefix of the keys holding the validators of partial downloads */
+    private static final String PART_PREFIX = "part:";
+    private static final Logger log = LoggerFactory.getLogger(FramegrabManifest.class);
+    private final Properties entries = new Properties();
+    private final File file;
+    private int unsavedCount;
+
+    /**
+     * Constructs ...
+     *
+     * @param directory The download directory. An existing manifest in it is read
+     */
+    FramegrabManifest(File directory) {
+        this.file = new File(directory, FILE_NAME);
+        if (file.exists()) {
+            InputStream in = null;
+            try {
+                in = new FileInputStream(file);
+                entries.load(in);
+                log.debug("Read " + entries.size() + " entries from " + file.getAbsolutePath());
+            }
+            catch (IOException e) {
+                log.warn("Unable to read " + file.getAbsolutePath() + ". All framegrabs will be checked", e);
+                entries.clear();
+            }
+            finally {
+                close(in);
+            }
+        }
+    }
+
+    /**
+     * @return The ETag recorded for the url. null if there isn't one
+     */
+    synchronized String getETag(String url) {
+        String value = entries.getProperty(url);
+        if (value == null) {
+            return null;
+        }
+
+        int idx = value.indexOf(' ');
+
+        return ((idx < 0) || (idx == value.length() - 1)) ? null : value.substring(idx + 1);
+    }
+
+    /**
+     * @return The ETag or Last-Modified date of the copy of the url that's been
+     *      partly downloaded. null if there isn't one
+     */
+    synchronized String getPartValidator(String url) {
+        return entries.getProperty(PART_PREFIX + url);
+    }
+
+    /**
+     * @return The size recorded for the url. -1 if the url has not been downloaded
+     */
+    synchronized long getLength(String url) {
+        String value = entries.getProperty(url);
+        if (value == null) {
+            return -1;
+        }
+
+        int idx = value.indexOf(' ');
+        try {
+            return Long.parseLong((idx < 0) ? value : value.substring(0, idx));
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Record a completed download. The manifest is written out every so often; call
+     * {@link #save()} when the export is finished.
+     *
+     * @param url The url that was downloaded
+     * @param length The number of bytes written
+     * @param eTag The ETag reported by the server. May be null
+     */
+    synchronized void put(String url, long length, String eTag) {
+        entries.setProperty(url, (eTag == null) ? Long.toString(length) : length + " " + eTag);
+        entries.remove(PART_PREFIX + url);
+        unsavedCount++;
+        if (unsavedCount >= 50) {
+            save();
+        }
+    }
+
+    /**
+     * Record the copy of the url that a partial download is being written from.
+     *
+     * @param url The url being downloaded
+     * @param validator The ETag or Last-Modified date the server reported. null
+     *      if there wasn't one, in which case the partial download can't be resumed
+     */
+    synchronized void putPartValidator(String url, String validator) {
+        if (validator == null) {
+            entries.remove(PART_PREFIX + url);
+        }
+        else {
+            entries.setProperty(PART_PREFIX + url, validator);
+        }
+
+        unsavedCount++;
+    }
+
+    /**
+     * Write the manifest to disk. It's written to a temporary file first so that
+     * an interruption never leaves a truncated manifest behind.
+     */
+    synchronized void save() {
+        if (unsavedCount == 0) {
+            return;
+        }
+
+        File tmp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tmp);
+            entries.store(out, "Framegrabs downloaded by VARS Query");
+            out.close();
+            out = null;
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Unable to replace " + file.getAbsolutePath());
+            }
+
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Unable to rename " + tmp.getAbsolutePath() + " to " + file.getName());
+            }
+
+            unsavedCount = 0;
+        }
+        catch (IOException e) {
+            log.warn("Failed to write the download manifest to " + file.getAbsolutePath(), e);
+        }
+        finally {
+            close(out);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (IOException e) {
+                // Nothing to do
+            }
+        }
+    }
+}
@@ -21,8 +21,22 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.swing.ProgressMonitor;
 import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
@@ -45,6 +59,15 @@ import org.mbari.awt.event.ActionAdapter;
  * action.doAction();
  *
  * </pre>
+ *
+ * Images are downloaded by a pool of worker threads, with a limit on the number of
+ * simultaneous connections to any one host. Failed downloads are retried with an
+ * increasing delay. Completed downloads are recorded in a manifest in the save
+ * location (see {@link FramegrabManifest}) so that running the same export again
+ * only fetches images that are missing, incomplete or have changed on the server.
+ * A partially downloaded image is resumed where it stopped if the server supports
+ * range requests and still has the same copy of it.
+ *
  * @author brian
  * @version $Id: SaveFramegrabsAction.java 332 2006-08-01 18:38:46Z hohonuuli $
  */
@@ -53,8 +76,25 @@ public class SaveFramegrabsAction extends ActionAdapter {
 
     private static final long serialVersionUID = -2264478482293981201L;
     public static final String ACTION_NAME = "Download Images";
+    /** Default number of images downloaded at once */
+    public static final int DEFAULT_WORKER_COUNT = 4;
+    /** Default number of simultaneous connections to a single server */
+    public static final int DEFAULT_CONNECTIONS_PER_HOST = 4;
+    /** Default number of times a download is attempted before giving up on it */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final int CONNECT_TIMEOUT = 15000;
+    private static final int READ_TIMEOUT = 30000;
+    private static final long RETRY_DELAY = 500L;
+    /** HttpURLConnection has no constant for it */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final long TRANSFER_SIZE = 1024L * 1024L;
     private static final Logger log = LoggerFactory.getLogger(SaveFramegrabsAction.class);
 
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<String, Semaphore>();
+    private volatile boolean cancelled;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private int maxConnectionsPerHost = DEFAULT_CONNECTIONS_PER_HOST;
+    private FramegrabManifest manifest;
 
     private ProgressMonitor progressMonitor;
 
@@ -62,11 +102,18 @@ public class SaveFramegrabsAction extends ActionAdapter {
 
     private URL[] urls;
 
+    private int workerCount = DEFAULT_WORKER_COUNT;
+
 
     public SaveFramegrabsAction() {
         super(ACTION_NAME);
     }
 
+    /**
+     * The outcome of downloading a single url
+     */
+    private enum Result { DOWNLOADED, SKIPPED, MISSING, FAILED }
+
 
     /**
      * Copies the contents of a URL to a local file.
@@ -86,18 +133,41 @@ public class SaveFramegrabsAction extends ActionAdapter {
 
             if (success) {
                 InputStream in = src.openStream();
-                OutputStream out = new FileOutputStream(dst);
-
-                // Transfer bytes from in to out
-                byte[] buf = new byte[1024];
-                int len;
-                while ((len = in.read(buf)) > 0) {
-                    out.write(buf, 0, len);
+                try {
+                    transfer(in, dst, 0);
+                }
+                finally {
+                    in.close();
                 }
+            }
+        }
+    }
 
-                in.close();
-                out.close();
+    /**
+     * Writes the stream to the file using channel transfers, which avoids copying
+     * each block through a small heap buffer.
+     *
+     * @param in The stream to read
+     * @param dst The file to write to
+     * @param offset Number of bytes already in dst. The stream is appended after them.
+     *      If 0 the file is overwritten
+     * @return The number of bytes written
+     */
+    private static long transfer(InputStream in, File dst, long offset) throws IOException {
+        ReadableByteChannel src = Channels.newChannel(in);
+        FileOutputStream out = new FileOutputStream(dst, offset > 0);
+        try {
+            FileChannel channel = out.getChannel();
+            long position = offset;
+            long n;
+            while ((n = channel.transferFrom(src, position, TRANSFER_SIZE)) > 0) {
+                position += n;
             }
+
+            return position - offset;
+        }
+        finally {
+            out.close();
         }
     }
 
@@ -106,48 +176,368 @@ public class SaveFramegrabsAction extends ActionAdapter {
      */
     public void doAction() {
         if ((urls != null) && (saveLocation != null)) {
-            for (int i = 0; i < urls.length; i++) {
-                URL url = urls[i];
-                if (progressMonitor != null) {
-                    if (progressMonitor.isCanceled()) {
-                        break;
-                    }
+            cancelled = false;
+            if (!saveLocation.exists() && !saveLocation.mkdirs()) {
+                log.error("Unable to create " + saveLocation.getAbsolutePath());
+                closeProgressMonitor();
 
-                    SwingUtilities.invokeLater(
-                            new UpdateProgressMonitor(i,
-                            url.toExternalForm()));
-                }
+                return;
+            }
 
-                if (doesImageExist(url)) {
-                    File file = urlToLocalPath(url);
-
-                    /*
-                     * Don't copy the file if it already exists!!
-                     */
-                    if (!file.exists()) {
-                        try {
-                            copy(url, file);
-                        } catch (IOException e) {
-                            log.error(
-                                    "Unable to copy " + url + " to " +
-                                    file.getAbsolutePath(),
-                                    e);
-                        }
-                    }
+            manifest = new FramegrabManifest(saveLocation);
+
+            // Query results often list the same image on several rows
+            Map<String, URL> uniqueUrls = new LinkedHashMap<String, URL>();
+            for (URL url : urls) {
+                if (url != null) {
+                    uniqueUrls.put(url.toExternalForm(), url);
                 }
             }
 
-            if (progressMonitor != null) {
-                SwingUtilities.invokeLater(new Runnable() {
+            final int total = uniqueUrls.size();
+            final AtomicInteger finished = new AtomicInteger();
+            final AtomicInteger skipped = new AtomicInteger();
+            final AtomicInteger failed = new AtomicInteger();
+            long start = System.currentTimeMillis();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workerCount), new ThreadFactory() {
+
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "FramegrabDownloader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+
+            for (final URL url : uniqueUrls.values()) {
+                executor.execute(new Runnable() {
 
                     public void run() {
-                        progressMonitor.close();
+                        if (cancelled) {
+                            return;
+                        }
+
+                        Result result = downloadWithPermit(url);
+                        if (result == Result.SKIPPED) {
+                            skipped.incrementAndGet();
+                        }
+                        else if ((result == Result.MISSING) || (result == Result.FAILED)) {
+                            failed.incrementAndGet();
+                        }
+
+                        int n = finished.incrementAndGet();
+                        if (progressMonitor != null) {
+                            SwingUtilities.invokeLater(new UpdateProgressMonitor(n,
+                                    n + " of " + total + ": " + url.toExternalForm()));
+                        }
                     }
                 });
             }
+
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(250L, TimeUnit.MILLISECONDS)) {
+                    if (!cancelled && (progressMonitor != null) && progressMonitor.isCanceled()) {
+                        log.info("Image download cancelled after " + finished.get() + " of " + total + " images");
+                        cancelled = true;
+                        executor.shutdownNow();
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                cancelled = true;
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+
+            manifest.save();
+            log.info("Processed " + finished.get() + " of " + total + " images in " +
+                     (System.currentTimeMillis() - start) + " ms (" + skipped.get() + " already downloaded, " +
+                     failed.get() + " failed)");
+            closeProgressMonitor();
+        }
+    }
+
+    private void closeProgressMonitor() {
+        if (progressMonitor != null) {
+            SwingUtilities.invokeLater(new Runnable() {
+
+                public void run() {
+                    progressMonitor.close();
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits for a free connection to the url's host then downloads it.
+     */
+    private Result downloadWithPermit(URL url) {
+        String host = (url.getHost() == null) ? "" : url.getHost().toLowerCase();
+        Semaphore permits = hostPermits.get(host);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(Math.max(1, maxConnectionsPerHost));
+            permits = hostPermits.putIfAbsent(host, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+
+        try {
+            permits.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return Result.FAILED;
+        }
+
+        try {
+            return downloadWithRetry(url);
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    private Result downloadWithRetry(URL url) {
+        File file = urlToLocalPath(url);
+        long delay = RETRY_DELAY;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return download(url, file);
+            }
+            catch (IOException e) {
+                if (cancelled || (attempt >= maxAttempts)) {
+                    log.error("Unable to copy " + url + " to " + file.getAbsolutePath(), e);
+
+                    return Result.FAILED;
+                }
+
+                log.debug("Attempt " + attempt + " to copy " + url + " failed. Retrying in " + delay + " ms", e);
+                try {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+
+                    return Result.FAILED;
+                }
+
+                delay *= 2;
+            }
         }
     }
 
+    /**
+     * Downloads a single url. The image is written to a '.part' file that's renamed
+     * once it's complete, so a file without that extension is always a whole image.
+     * A '.part' file left by an earlier attempt is only resumed if the server still
+     * has the copy it came from, which is checked with If-Range.
+     */
+    private Result download(URL url, File file) throws IOException {
+        String key = url.toExternalForm();
+        File parent = file.getParentFile();
+        if (!parent.exists() && !parent.mkdirs() && !parent.exists()) {
+            throw new IOException("Unable to create " + parent.getAbsolutePath());
+        }
+
+        long knownLength = manifest.getLength(key);
+        String knownETag = manifest.getETag(key);
+        boolean haveCopy = file.exists() && ((knownLength < 0) || (file.length() == knownLength));
+        File part = new File(parent, file.getName() + ".part");
+        long offset = 0;
+
+        // Without an ETag a HEAD request tells us if the copy is current without fetching the image
+        boolean checkedWithHead = false;
+        if (haveCopy && (knownETag == null) && url.getProtocol().startsWith("http")) {
+            Boolean unchanged = isUnchanged(url, file);
+            if (Boolean.TRUE.equals(unchanged)) {
+                return Result.SKIPPED;
+            }
+
+            checkedWithHead = (unchanged != null);
+        }
+
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        HttpURLConnection http = (connection instanceof HttpURLConnection) ? (HttpURLConnection) connection : null;
+        if (http != null) {
+            if (haveCopy && (knownETag != null)) {
+                http.setRequestProperty("If-None-Match", knownETag);
+            }
+            else if (!haveCopy && (part.length() > 0)) {
+                String validator = manifest.getPartValidator(key);
+                if (validator == null) {
+
+                    // There's no telling which copy the part came from so start over
+                    deletePart(part);
+                }
+                else {
+                    offset = part.length();
+                    http.setRequestProperty("Range", "bytes=" + offset + "-");
+                    http.setRequestProperty("If-Range", validator);
+                }
+            }
+
+            int code = http.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                http.disconnect();
+
+                return Result.SKIPPED;
+            }
+            else if ((code == HTTP_RANGE_NOT_SATISFIABLE) && (offset > 0)) {
+
+                // The copy hasn't changed but there's nothing after the part. Either it's complete or it's bad
+                String contentRange = http.getHeaderField("Content-Range");
+                http.disconnect();
+                if ((contentRange != null) && contentRange.equals("bytes */" + offset)) {
+                    String validator = manifest.getPartValidator(key);
+                    complete(key, part, file, isETag(validator) ? validator : null);
+
+                    return Result.DOWNLOADED;
+                }
+
+                log.debug("The partial download of " + key + " doesn't match the server's copy. Starting over");
+                deletePart(part);
+
+                return download(url, file);
+            }
+            else if ((code >= 400) && (code < 500)) {
+
+                // Not there or not allowed. Retrying won't help
+                http.disconnect();
+                log.info("Unable to download " + key + ". The server responded with " + code);
+
+                return Result.MISSING;
+            }
+            else if (code >= 500) {
+                http.disconnect();
+
+                throw new IOException("The server responded to " + key + " with " + code);
+            }
+
+            // A 200 means the image changed since the part was written, or ranges aren't supported
+            String contentRange = http.getHeaderField("Content-Range");
+            if ((code != HttpURLConnection.HTTP_PARTIAL) || (contentRange == null) ||
+                    !contentRange.startsWith("bytes " + offset + "-")) {
+                offset = 0;
+            }
+        }
+
+        String eTag = connection.getHeaderField("ETag");
+        long contentLength = connection.getContentLengthLong();
+        InputStream in = connection.getInputStream();
+        try {
+            if (haveCopy && !checkedWithHead) {
+                boolean unchanged = ((eTag != null) && (knownETag != null))
+                                    ? eTag.equals(knownETag) : (contentLength == file.length());
+                if (unchanged) {
+                    manifest.put(key, file.length(), eTag);
+
+                    return Result.SKIPPED;
+                }
+            }
+
+            if (offset == 0) {
+                manifest.putPartValidator(key, validatorOf(connection));
+            }
+
+            long n = transfer(in, part, offset);
+            if ((contentLength >= 0) && (n != contentLength)) {
+                throw new IOException("Expected " + contentLength + " bytes from " + key + " but read " + n);
+            }
+        }
+        finally {
+            in.close();
+        }
+
+        complete(key, part, file, eTag);
+
+        return Result.DOWNLOADED;
+    }
+
+    /**
+     * Replaces the image with the finished '.part' file and records it in the manifest
+     */
+    private void complete(String key, File part, File file, String eTag) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to replace " + file.getAbsolutePath());
+        }
+
+        if (!part.renameTo(file)) {
+            throw new IOException("Unable to rename " + part.getAbsolutePath() + " to " + file.getName());
+        }
+
+        manifest.put(key, file.length(), eTag);
+    }
+
+    private void deletePart(File part) throws IOException {
+        if (part.exists() && !part.delete()) {
+            throw new IOException("Unable to delete " + part.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Asks the server, with a HEAD request, if the downloaded copy of an image that
+     * has no ETag in the manifest is still current. If the server now reports an
+     * ETag it's recorded.
+     *
+     * @return true if it's unchanged, false if it has changed or is gone. null if
+     *      the server won't say, in which case the image has to be fetched to tell
+     */
+    private Boolean isUnchanged(URL url, File file) throws IOException {
+        HttpURLConnection http = (HttpURLConnection) url.openConnection();
+        http.setConnectTimeout(CONNECT_TIMEOUT);
+        http.setReadTimeout(READ_TIMEOUT);
+        http.setRequestMethod("HEAD");
+        try {
+            int code = http.getResponseCode();
+            if ((code == HttpURLConnection.HTTP_BAD_METHOD) || (code == HttpURLConnection.HTTP_NOT_IMPLEMENTED)) {
+                return null;
+            }
+            else if (code != HttpURLConnection.HTTP_OK) {
+                return false;
+            }
+
+            long contentLength = http.getContentLengthLong();
+            if (contentLength < 0) {
+                return null;
+            }
+
+            boolean unchanged = (contentLength == file.length());
+            if (unchanged) {
+                manifest.put(url.toExternalForm(), file.length(), http.getHeaderField("ETag"));
+            }
+
+            return unchanged;
+        }
+        finally {
+            http.disconnect();
+        }
+    }
+
+    private static boolean isETag(String validator) {
+        return (validator != null) && (validator.startsWith("\"") || validator.startsWith("W/"));
+    }
+
+    /**
+     * @return What to send in If-Range to resume a download from this response. A
+     *      strong ETag if there is one, otherwise the Last-Modified date. null if
+     *      neither was sent
+     */
+    private static String validatorOf(URLConnection connection) {
+        String eTag = connection.getHeaderField("ETag");
+        if ((eTag != null) && !eTag.startsWith("W/")) {
+            return eTag;
+        }
+
+        return connection.getHeaderField("Last-Modified");
+    }
+
     /**
      * Checks to see if the images is available at the url
      * @param url The url of the image
@@ -167,6 +557,20 @@ public class SaveFramegrabsAction extends ActionAdapter {
         return exists;
     }
 
+    /**
+     * @param maxAttempts The number of times a download is tried before giving up on it
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param maxConnectionsPerHost The number of images that can be downloaded from
+     *      a single server at the same time
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
 
     public void setProgressMonitor(ProgressMonitor progressMonitor) {
         this.progressMonitor = progressMonitor;
@@ -185,6 +589,13 @@ public class SaveFramegrabsAction extends ActionAdapter {
         this.urls = urls;
     }
 
+    /**
+     * @param workerCount The number of images downloaded at the same time
+     */
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
 
     /**
      * Takes a URL of the framegrab and turns it into a file name. This is nescessary
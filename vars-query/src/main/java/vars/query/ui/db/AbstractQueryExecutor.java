@@ -51,5 +51,12 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
     public String getSQL() {
         return SQLGenerator.getSQL(conceptConstraints, valuePanels, allInterpretations, allAssociations);
     }
+
+    /**
+     * @return The SQL with its whitespace collapsed
+     */
+    public String getCacheKey() {
+        return getSQL().replaceAll("\\s+", " ").trim();
+    }
     
 }
@@ -0,0 +1,36 @@
+package vars.query.ui.db;
+
+import org.mbari.sql.QueryResults;
+
+/**
+ * A {@link StreamingQueryExecutor} whose queries can be cancelled on the database
+ * server, time-boxed and monitored through a {@link QueryContext}.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public interface CancellableQueryExecutor extends StreamingQueryExecutor {
+
+    /**
+     * Execute the query. The Statement and ResultSet are closed before this
+     * returns, whether it succeeds, fails or is cancelled.
+     *
+     * @param queryContext Used to cancel the query and count rows
+     * @return The results
+     * @throws vars.VARSException if the query fails, is cancelled or times out
+     */
+    QueryResults query(QueryContext queryContext);
+
+    /**
+     * Execute the query and hand each row to the handler as it's read. If the
+     * query is cancelled this returns the number of rows read so far; the handler
+     * is only finished if the cancel arrived between rows.
+     *
+     * @param rowHandler Receives the rows
+     * @param queryContext Used to cancel the query and count rows
+     * @return The number of rows read
+     * @throws vars.VARSException if the query fails or times out
+     */
+    long stream(RowHandler rowHandler, QueryContext queryContext);
+
+}
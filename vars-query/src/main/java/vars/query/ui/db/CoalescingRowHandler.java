@@ -0,0 +1,113 @@
+package vars.query.ui.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streaming version of {@link org.mbari.sql.QueryResults#coalesce(String)}. Rows that
+ * share the same value in the key column are merged into a single row before being
+ * handed to the wrapped {@link RowHandler}. Columns whose values differ between the
+ * merged rows contain the distinct values joined with ", ".<p>
+ *
+ * Rows must arrive ordered by the key column, which is what
+ * {@link StreamingQueryExecutor#stream(RowHandler)} does. Only the rows for the
+ * current key are held in memory. Rows with a null key are never merged; they're
+ * passed on as they are.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class CoalescingRowHandler implements RowHandler {
+
+    private static final String SEPARATOR = ", ";
+    private final String keyColumn;
+    private final RowHandler rowHandler;
+    private int keyIndex = -1;
+    private Object currentKey;
+    private List<Set<Object>> currentValues;
+    private Object[] mergedRow;
+
+    /**
+     * Constructs ...
+     *
+     * @param keyColumn The column to coalesce on (case-insensitive)
+     * @param rowHandler Receives the coalesced rows
+     */
+    public CoalescingRowHandler(String keyColumn, RowHandler rowHandler) {
+        this.keyColumn = keyColumn;
+        this.rowHandler = rowHandler;
+    }
+
+    public void start(List<String> columnNames) {
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(keyColumn)) {
+                keyIndex = i;
+                break;
+            }
+        }
+        currentValues = new ArrayList<Set<Object>>(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            currentValues.add(new LinkedHashSet<Object>());
+        }
+        mergedRow = new Object[columnNames.size()];
+        rowHandler.start(columnNames);
+    }
+
+    public void row(Object[] row) {
+        if (keyIndex < 0) {
+            rowHandler.row(row);
+            return;
+        }
+
+        Object key = row[keyIndex];
+        if ((currentKey != null) && !currentKey.equals(key)) {
+            flush();
+        }
+
+        // Rows without a key don't belong together. Pass them through untouched
+        if (key == null) {
+            currentKey = null;
+            rowHandler.row(row);
+            return;
+        }
+
+        currentKey = key;
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] != null) {
+                currentValues.get(i).add(row[i]);
+            }
+        }
+    }
+
+    public void finish() {
+        if (currentKey != null) {
+            flush();
+        }
+        rowHandler.finish();
+    }
+
+    private void flush() {
+        Arrays.fill(mergedRow, null);
+        for (int i = 0; i < mergedRow.length; i++) {
+            Set<Object> values = currentValues.get(i);
+            if (values.size() == 1) {
+                mergedRow[i] = values.iterator().next();
+            }
+            else if (values.size() > 1) {
+                StringBuilder sb = new StringBuilder();
+                for (Object value : values) {
+                    if (sb.length() > 0) {
+                        sb.append(SEPARATOR);
+                    }
+                    sb.append(value);
+                }
+                mergedRow[i] = sb.toString();
+            }
+            values.clear();
+        }
+        rowHandler.row(mergedRow);
+    }
+}
@@ -0,0 +1,517 @@
+package vars.query.ui.db;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single, immutable column of a {@link ColumnarQueryResults}. Values are stored in
+ * primitive arrays where possible with nulls tracked in a bitmap. Strings are
+ * dictionary-encoded so that repeated values (ConceptName, LinkName, RovName, etc.)
+ * are only stored once per column.
+ *
+ * @author Brian Schlining
+ * @since Oct 18, 2026
+ */
+abstract class Column {
+
+    /** Rough size in bytes of an object reference plus header, used for estimates only */
+    private static final int REFERENCE_SIZE = 8;
+    final BitSet nulls;
+    final int size;
+
+    Column(BitSet nulls, int size) {
+        this.nulls = nulls;
+        this.size = size;
+    }
+
+    /**
+     * @param row The row index
+     * @return The value at the row. null if the row is null
+     */
+    Object get(int row) {
+        return nulls.get(row) ? null : value(row);
+    }
+
+    /**
+     * @return An estimate of the memory used by this column in bytes
+     */
+    long estimateSize() {
+        return nulls.size() / 8 + payloadSize();
+    }
+
+    abstract long payloadSize();
+
+    abstract Object value(int row);
+
+    /**
+     * The types of values that can be stored in a primitive column. Each kind
+     * reads back as exactly the class that was stored, so a column returns the same
+     * values as the JDBC results it was built from. Anything else goes in an
+     * OBJECT column.
+     */
+    enum Kind {
+        EMPTY, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, BOOLEAN, TIMESTAMP, SQL_DATE, DATE, STRING, OBJECT;
+
+        static Kind of(Object value) {
+            if (value instanceof Integer) {
+                return INT;
+            }
+            else if (value instanceof Short) {
+                return SHORT;
+            }
+            else if (value instanceof Byte) {
+                return BYTE;
+            }
+            else if (value instanceof Long) {
+                return LONG;
+            }
+            else if (value instanceof Float) {
+                return FLOAT;
+            }
+            else if (value instanceof Double) {
+                return DOUBLE;
+            }
+            else if (value instanceof Boolean) {
+                return BOOLEAN;
+            }
+            else if (value.getClass() == Timestamp.class) {
+                return TIMESTAMP;
+            }
+            else if (value.getClass() == java.sql.Date.class) {
+                return SQL_DATE;
+            }
+            else if (value.getClass() == Date.class) {
+                return DATE;
+            }
+            else if (value instanceof String) {
+                return STRING;
+            }
+
+            return OBJECT;
+        }
+    }
+
+    /**
+     * Accumulates the values of a column. The type of the column is set by the first
+     * non-null value. If a value of a different type is added later the column falls
+     * back to storing objects.
+     */
+    static class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+        private final BitSet nulls = new BitSet();
+        private Kind kind = Kind.EMPTY;
+        private BitSet booleans;
+        private Map<String, Integer> dictionary;
+        private String[] dictionaryValues;
+        private double[] doubles;
+        private int[] ints;
+        private long[] longs;
+
+        /** The nanos of each Timestamp, which getTime() only keeps to the millisecond */
+        private int[] nanos;
+        private Object[] objects;
+        private int size;
+
+        void add(Object value) {
+            if (value == null) {
+                nulls.set(size);
+                if (kind != Kind.EMPTY) {
+                    ensureCapacity(size + 1);
+                }
+                size++;
+
+                return;
+            }
+
+            Kind valueKind = Kind.of(value);
+            if (kind == Kind.EMPTY) {
+                kind = valueKind;
+                ensureCapacity(Math.max(size + 1, INITIAL_CAPACITY));
+            }
+            else if ((valueKind != kind) && (kind != Kind.OBJECT)) {
+                promoteToObject();
+            }
+
+            ensureCapacity(size + 1);
+
+            switch (kind) {
+            case BYTE:
+            case SHORT:
+            case INT:
+                ints[size] = ((Number) value).intValue();
+                break;
+            case LONG:
+                longs[size] = (Long) value;
+                break;
+            case FLOAT:
+            case DOUBLE:
+                doubles[size] = ((Number) value).doubleValue();
+                break;
+            case BOOLEAN:
+                booleans.set(size, (Boolean) value);
+                break;
+            case TIMESTAMP:
+                longs[size] = ((Timestamp) value).getTime();
+                nanos[size] = ((Timestamp) value).getNanos();
+                break;
+            case SQL_DATE:
+            case DATE:
+                longs[size] = ((Date) value).getTime();
+                break;
+            case STRING:
+                ints[size] = encode((String) value);
+                break;
+            default:
+                objects[size] = value;
+            }
+
+            size++;
+        }
+
+        Column build() {
+            BitSet n = (BitSet) nulls.clone();
+            switch (kind) {
+            case BYTE:
+            case SHORT:
+            case INT:
+                return new IntColumn(n, size, Arrays.copyOf(ints, size), kind);
+            case LONG:
+                return new LongColumn(n, size, Arrays.copyOf(longs, size));
+            case FLOAT:
+                return new FloatColumn(n, size, Arrays.copyOf(doubles, size));
+            case DOUBLE:
+                return new DoubleColumn(n, size, Arrays.copyOf(doubles, size));
+            case BOOLEAN:
+                return new BooleanColumn(n, size, (BitSet) booleans.clone());
+            case TIMESTAMP:
+                return new TimestampColumn(n, size, Arrays.copyOf(longs, size), Arrays.copyOf(nanos, size));
+            case SQL_DATE:
+            case DATE:
+                return new DateColumn(n, size, Arrays.copyOf(longs, size), kind);
+            case STRING:
+                return new StringColumn(n, size, Arrays.copyOf(ints, size),
+                                        Arrays.copyOf(dictionaryValues, dictionary.size()));
+            case OBJECT:
+                return new ObjectColumn(n, size, Arrays.copyOf(objects, size));
+            default:
+
+                // Every value was null
+                return new ObjectColumn(n, size, new Object[size]);
+            }
+        }
+
+        private int encode(String value) {
+            Integer code = dictionary.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                if (code == dictionaryValues.length) {
+                    dictionaryValues = Arrays.copyOf(dictionaryValues, code * 2);
+                }
+                dictionaryValues[code] = value;
+                dictionary.put(value, code);
+            }
+
+            return code;
+        }
+
+        private void ensureCapacity(int capacity) {
+            switch (kind) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case STRING:
+                if (ints == null) {
+                    ints = new int[capacity];
+                    if (kind == Kind.STRING) {
+                        dictionary = new HashMap<String, Integer>();
+                        dictionaryValues = new String[64];
+                    }
+                }
+                else if (ints.length < capacity) {
+                    ints = Arrays.copyOf(ints, grow(ints.length, capacity));
+                }
+                break;
+            case LONG:
+            case TIMESTAMP:
+            case SQL_DATE:
+            case DATE:
+                if (longs == null) {
+                    longs = new long[capacity];
+                }
+                else if (longs.length < capacity) {
+                    longs = Arrays.copyOf(longs, grow(longs.length, capacity));
+                }
+
+                if (kind == Kind.TIMESTAMP) {
+                    if (nanos == null) {
+                        nanos = new int[longs.length];
+                    }
+                    else if (nanos.length < longs.length) {
+                        nanos = Arrays.copyOf(nanos, longs.length);
+                    }
+                }
+                break;
+            case FLOAT:
+            case DOUBLE:
+                if (doubles == null) {
+                    doubles = new double[capacity];
+                }
+                else if (doubles.length < capacity) {
+                    doubles = Arrays.copyOf(doubles, grow(doubles.length, capacity));
+                }
+                break;
+            case BOOLEAN:
+                if (booleans == null) {
+                    booleans = new BitSet(capacity);
+                }
+                break;
+            case OBJECT:
+                if (objects == null) {
+                    objects = new Object[capacity];
+                }
+                else if (objects.length < capacity) {
+                    objects = Arrays.copyOf(objects, grow(objects.length, capacity));
+                }
+                break;
+            default:
+            }
+        }
+
+        private static int grow(int length, int capacity) {
+            return Math.max(capacity, length + (length >> 1));
+        }
+
+        /**
+         * Mixed types in one column. Copy what we have into an object array.
+         */
+        private void promoteToObject() {
+            Column column = build();
+            Object[] values = new Object[Math.max(size + 1, INITIAL_CAPACITY)];
+            for (int i = 0; i < size; i++) {
+                values[i] = column.get(i);
+            }
+
+            kind = Kind.OBJECT;
+            objects = values;
+            ints = null;
+            longs = null;
+            nanos = null;
+            doubles = null;
+            booleans = null;
+            dictionary = null;
+            dictionaryValues = null;
+        }
+    }
+
+    static class BooleanColumn extends Column {
+
+        private final BitSet values;
+
+        BooleanColumn(BitSet nulls, int size, BitSet values) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        long payloadSize() {
+            return values.size() / 8;
+        }
+
+        Object value(int row) {
+            return values.get(row);
+        }
+    }
+
+    /**
+     * java.util.Date and java.sql.Date values. Timestamps, which have nanos, are
+     * kept in a {@link TimestampColumn}
+     */
+    static class DateColumn extends Column {
+
+        private final Kind kind;
+        private final long[] values;
+
+        DateColumn(BitSet nulls, int size, long[] values, Kind kind) {
+            super(nulls, size);
+            this.values = values;
+            this.kind = kind;
+        }
+
+        long payloadSize() {
+            return values.length * 8L;
+        }
+
+        Object value(int row) {
+            return (kind == Kind.SQL_DATE) ? new java.sql.Date(values[row]) : new Date(values[row]);
+        }
+    }
+
+    static class DoubleColumn extends Column {
+
+        private final double[] values;
+
+        DoubleColumn(BitSet nulls, int size, double[] values) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        long payloadSize() {
+            return values.length * 8L;
+        }
+
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    /**
+     * Floats are stored as doubles but returned as Floats so they format the same
+     * way as the original values.
+     */
+    static class FloatColumn extends Column {
+
+        private final double[] values;
+
+        FloatColumn(BitSet nulls, int size, double[] values) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        long payloadSize() {
+            return values.length * 8L;
+        }
+
+        Object value(int row) {
+            return (float) values[row];
+        }
+    }
+
+    /**
+     * Integers, Shorts and Bytes. They're all stored as ints and returned as the
+     * class they were added as.
+     */
+    static class IntColumn extends Column {
+
+        private final Kind kind;
+        private final int[] values;
+
+        IntColumn(BitSet nulls, int size, int[] values, Kind kind) {
+            super(nulls, size);
+            this.values = values;
+            this.kind = kind;
+        }
+
+        long payloadSize() {
+            return values.length * 4L;
+        }
+
+        Object value(int row) {
+            switch (kind) {
+            case BYTE:
+                return (byte) values[row];
+            case SHORT:
+                return (short) values[row];
+            default:
+                return values[row];
+            }
+        }
+    }
+
+    static class LongColumn extends Column {
+
+        private final long[] values;
+
+        LongColumn(BitSet nulls, int size, long[] values) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        long payloadSize() {
+            return values.length * 8L;
+        }
+
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    /**
+     * Timestamps as millis plus the nanos that getTime() drops
+     */
+    static class TimestampColumn extends Column {
+
+        private final int[] nanos;
+        private final long[] values;
+
+        TimestampColumn(BitSet nulls, int size, long[] values, int[] nanos) {
+            super(nulls, size);
+            this.values = values;
+            this.nanos = nanos;
+        }
+
+        long payloadSize() {
+            return values.length * 12L;
+        }
+
+        Object value(int row) {
+            Timestamp timestamp = new Timestamp(values[row]);
+            timestamp.setNanos(nanos[row]);
+
+            return timestamp;
+        }
+    }
+
+    static class ObjectColumn extends Column {
+
+        private final Object[] values;
+
+        ObjectColumn(BitSet nulls, int size, Object[] values) {
+            super(nulls, size);
+            this.values = values;
+        }
+
+        long payloadSize() {
+            long bytes = values.length * (long) REFERENCE_SIZE;
+            for (Object value : values) {
+                if (value != null) {
+                    bytes += 2L * value.toString().length() + REFERENCE_SIZE * 2;
+                }
+            }
+
+            return bytes;
+        }
+
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static class StringColumn extends Column {
+
+        private final int[] codes;
+        private final String[] dictionary;
+
+        StringColumn(BitSet nulls, int size, int[] codes, String[] dictionary) {
+            super(nulls, size);
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        long payloadSize() {
+            long bytes = codes.length * 4L + dictionary.length * (long) REFERENCE_SIZE;
+            for (String value : dictionary) {
+                bytes += 2L * value.length() + REFERENCE_SIZE * 5;
+            }
+
+            return bytes;
+        }
+
+        Object value(int row) {
+            return dictionary[codes[row]];
+        }
+    }
+}
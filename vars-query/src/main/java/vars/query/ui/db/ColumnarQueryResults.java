@@ -0,0 +1,189 @@
+package vars.query.ui.db;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.mbari.sql.QueryResults;
+
+/**
+ * A compact, read-only copy of query results. Each column is stored separately:
+ * numbers and dates in primitive arrays, strings dictionary-encoded and nulls in a
+ * bitmap. For a typical dive-wide query this uses a fraction of the memory of a
+ * {@link QueryResults}, whose columns are lists of boxed values and duplicated
+ * strings.<p>
+ *
+ * Build one with {@link #from(QueryResults)} or by feeding rows to a
+ * {@link Builder}. It's a {@link RowSource} so it can be written out by the same
+ * code as streamed results.
+ *
+ * @author Brian Schlining
+ * @since Oct 18, 2026
+ */
+public class ColumnarQueryResults implements RowSource {
+
+    private final List<String> columnNames;
+    private final List<Column> columns;
+    private final int rowCount;
+
+    private ColumnarQueryResults(List<String> columnNames, List<Column> columns, int rowCount) {
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Copy a QueryResults into columnar storage. The QueryResults can be discarded
+     * afterwards.
+     *
+     * @param queryResults
+     * @return The columnar copy
+     */
+    public static ColumnarQueryResults from(QueryResults queryResults) {
+        Builder builder = new Builder();
+        new QueryResultsRowSource(queryResults).replay(builder);
+
+        return builder.build();
+    }
+
+    /**
+     * Find the index of a column. An exact match is tried first, then a
+     * case-insensitive one.
+     *
+     * @param columnName
+     * @return The index of the column. -1 if it doesn't exist
+     */
+    public int findColumn(String columnName) {
+        int idx = columnNames.indexOf(columnName);
+        if (idx < 0) {
+            for (int i = 0; i < columnNames.size(); i++) {
+                if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+                    idx = i;
+                    break;
+                }
+            }
+        }
+
+        return idx;
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    /**
+     * @return The names of the columns in the order they appear in each row
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @return An estimate, in bytes, of the memory used to hold the results
+     */
+    public long getEstimatedSize() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.estimateSize();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Read-only view of a column. Unlike {@link QueryResults#getResults(String)} the
+     * values are not copied; they are unpacked as they are read.
+     *
+     * @param columnName
+     * @return The values in the column. null if the column doesn't exist
+     */
+    public List<Object> getResults(String columnName) {
+        int idx = findColumn(columnName);
+        if (idx < 0) {
+            return null;
+        }
+
+        final Column column = columns.get(idx);
+
+        return new AbstractList<Object>() {
+
+            @Override
+            public Object get(int index) {
+                return column.get(index);
+            }
+
+            @Override
+            public int size() {
+                return column.size;
+            }
+        };
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param row
+     * @param column
+     * @return The value at row, column. null if the value is null
+     */
+    public Object getValueAt(int row, int column) {
+        return columns.get(column).get(row);
+    }
+
+    public void replay(RowHandler rowHandler) {
+        rowHandler.start(columnNames);
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < rowCount; i++) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = columns.get(j).get(i);
+            }
+            rowHandler.row(row);
+        }
+        rowHandler.finish();
+    }
+
+    /**
+     * A {@link RowHandler} that packs each row it receives into columns. Call
+     * {@link #build()} after {@link #finish()}.
+     */
+    public static class Builder implements RowHandler {
+
+        private List<Column.Builder> builders = new ArrayList<Column.Builder>();
+        private List<String> columnNames = new ArrayList<String>();
+        private int rowCount;
+
+        public void start(List<String> columnNames) {
+            this.columnNames = new ArrayList<String>(columnNames);
+            builders = new ArrayList<Column.Builder>(columnNames.size());
+            for (int i = 0; i < columnNames.size(); i++) {
+                builders.add(new Column.Builder());
+            }
+        }
+
+        public void row(Object[] row) {
+            for (int i = 0; i < row.length; i++) {
+                builders.get(i).add(row[i]);
+            }
+            rowCount++;
+        }
+
+        public void finish() {
+
+            // Nothing to do. The columns are packed in build()
+        }
+
+        /**
+         * @return The results collected so far
+         */
+        public ColumnarQueryResults build() {
+            List<Column> columns = new ArrayList<Column>(builders.size());
+            for (Column.Builder builder : builders) {
+                columns.add(builder.build());
+            }
+
+            return new ColumnarQueryResults(columnNames, columns, rowCount);
+        }
+    }
+}
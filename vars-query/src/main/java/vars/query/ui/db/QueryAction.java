@@ -22,6 +22,17 @@ public interface QueryAction extends IAction {
 
     QueryResults getQueryResults();
 
+    /**
+     * @return The spooled results of a streamed query. null if the query was not
+     *      streamed or has not finished.
+     */
+    RowSpool getRowSpool();
+
+    /**
+     * @return The number of rows read from the database so far
+     */
+    long getRowCount();
+
     String getSQL();
 
     boolean isFinished();
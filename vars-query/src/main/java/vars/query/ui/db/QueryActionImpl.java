@@ -6,7 +6,7 @@ import org.mbari.util.ExceptionHandler;
 import org.mbari.util.ExceptionHandlerSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import vars.knowledgebase.KnowledgebaseDAOFactory;
+import vars.knowledgebase.ConceptHierarchyIndex;
 import vars.query.QueryResultsDecorator;
 
 import javax.swing.*;
@@ -14,6 +14,7 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.Future;
 
 /**
  * @author Brian Schlining
@@ -29,46 +30,73 @@ public class QueryActionImpl extends ActionAdapter implements QueryAction {
     private ExceptionHandlerSupport exceptionSupport = new ExceptionHandlerSupport();
 
 
+    private boolean cancelled;
     private volatile boolean finished;
 
 
     private final QueryExecutor queryExecutor;
 
     private volatile QueryResults queryResults;
+    private final QueryResultsCache queryResultsCache;
+    private volatile RowSpool rowSpool;
     private final QueryResultsDecorator queryResultsDecorator;
 
     private boolean showBasicPhylogeny;
     private boolean showFullPhylogeny;
     private boolean showHierarchy;
     private boolean showAssociationPerColumn;
+    private boolean streamResults;
 
     private final String coalesceKey;
 
     private Thread thread;
+    private volatile Future<?> future;
+    private volatile QueryContext queryContext;
+    private QueryExecutionService queryExecutionService;
 
     /**
      * Constructor for the QueryAction object
      *
      * @param  queryExecutor Description of the Parameter
-     * @param knowledgebaseDAOFactory
+     * @param conceptHierarchyIndex
      */
-    public QueryActionImpl(final QueryExecutor queryExecutor, KnowledgebaseDAOFactory knowledgebaseDAOFactory) {
-        this(queryExecutor, knowledgebaseDAOFactory, false, false, false, false);
+    public QueryActionImpl(final QueryExecutor queryExecutor, ConceptHierarchyIndex conceptHierarchyIndex) {
+        this(queryExecutor, conceptHierarchyIndex, false, false, false, false);
     }
 
     /**
      * Constructs ...
      *
      * @param queryExecutor
-     * @param knowledgebaseDAOFactory
+     * @param conceptHierarchyIndex
      * @param showHiearchy
      * @param showBasicPhylogeny
      * @param showFullPhylogeny
      */
-    public QueryActionImpl(final QueryExecutor queryExecutor, KnowledgebaseDAOFactory knowledgebaseDAOFactory,
+    public QueryActionImpl(final QueryExecutor queryExecutor, ConceptHierarchyIndex conceptHierarchyIndex,
             boolean showHiearchy, boolean showBasicPhylogeny, boolean showFullPhylogeny, boolean showAssociationPerColumn) {
+        this(queryExecutor, conceptHierarchyIndex, showHiearchy, showBasicPhylogeny, showFullPhylogeny,
+                showAssociationPerColumn, null);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param queryExecutor
+     * @param conceptHierarchyIndex
+     * @param showHiearchy
+     * @param showBasicPhylogeny
+     * @param showFullPhylogeny
+     * @param showAssociationPerColumn
+     * @param queryResultsCache Undecorated results are looked up in and added to
+     *      this cache. <b>null</b> means always query the database
+     */
+    public QueryActionImpl(final QueryExecutor queryExecutor, ConceptHierarchyIndex conceptHierarchyIndex,
+            boolean showHiearchy, boolean showBasicPhylogeny, boolean showFullPhylogeny, boolean showAssociationPerColumn,
+            QueryResultsCache queryResultsCache) {
         this.queryExecutor = queryExecutor;
-        this.queryResultsDecorator = new QueryResultsDecorator(knowledgebaseDAOFactory);
+        this.queryResultsCache = queryResultsCache;
+        this.queryResultsDecorator = new QueryResultsDecorator(conceptHierarchyIndex);
         this.showHierarchy = showHiearchy;
         this.showBasicPhylogeny = showBasicPhylogeny;
         this.showFullPhylogeny = showFullPhylogeny;
@@ -104,10 +132,29 @@ public class QueryActionImpl extends ActionAdapter implements QueryAction {
     }
 
     /**
+     * Cancels the query. If the executor is a {@link CancellableQueryExecutor} the
+     * statement is cancelled on the database server as well as the worker thread
+     * being interrupted. Streamed results are deleted, even if streaming has
+     * already finished.
      */
     public void cancel() {
-        if ((thread != null) && thread.isAlive()) {
-            thread.interrupt();
+        releaseRowSpool();
+        QueryContext context = queryContext;
+        if ((context != null) && !isFinished()) {
+            if (queryExecutionService != null) {
+                queryExecutionService.cancel(context);
+            }
+            else {
+                context.cancel();
+            }
+
+            if (future != null) {
+                future.cancel(true);
+            }
+
+            if ((thread != null) && thread.isAlive()) {
+                thread.interrupt();
+            }
 
             if (!SwingUtilities.isEventDispatchThread()) {
                 Thread.currentThread().interrupt();
@@ -124,15 +171,23 @@ public class QueryActionImpl extends ActionAdapter implements QueryAction {
 
         /*
          * We execute the results in a seperate thread. To get the results when
-         * it's completed, add a  propertychange listener to 'queryResults'
+         * it's completed, add a  propertychange listener to 'queryResults'. Streamed
+         * results are published as 'rowSpool' instead.
          */
+        queryContext = (queryExecutionService == null) ? new QueryContext()
+                : queryExecutionService.newQueryContext();
+        if (streamResults && (queryExecutor instanceof StreamingQueryExecutor)) {
+            doStreamingAction((StreamingQueryExecutor) queryExecutor);
+            return;
+        }
+
+        final QueryContext context = queryContext;
         Runnable worker = new Runnable() {
 
             public void run() {
                 QueryResults queryResults = null;
                 try {
-                    queryResults = queryExecutor.query();
-                    queryResults.coalesce(coalesceKey);
+                    queryResults = getUndecoratedResults(context);
 
                     if (showHierarchy) {
                         queryResultsDecorator.addHierarchy(queryResults);
@@ -164,8 +219,74 @@ public class QueryActionImpl extends ActionAdapter implements QueryAction {
                 setFinished(true);
             }
         };
-        thread = new Thread(worker, QueryActionImpl.this.getClass().getName() + "-" + System.currentTimeMillis());
-        thread.start();
+        start(worker);
+    }
+
+    /**
+     * @return The coalesced results before any decorators are applied. From the
+     *      cache if they're there, otherwise from the database
+     */
+    private QueryResults getUndecoratedResults(QueryContext context) {
+        String cacheKey = (queryResultsCache == null) ? null : queryExecutor.getCacheKey();
+        QueryResults queryResults = (cacheKey == null) ? null : queryResultsCache.get(cacheKey);
+        if (queryResults != null) {
+            log.debug("Using " + queryResults.rowCount() + " cached rows");
+        }
+        else {
+            queryResults = (queryExecutor instanceof CancellableQueryExecutor)
+                    ? ((CancellableQueryExecutor) queryExecutor).query(context) : queryExecutor.query();
+            queryResults.coalesce(coalesceKey);
+            if (cacheKey != null) {
+                queryResultsCache.put(cacheKey, queryResults);
+            }
+        }
+
+        return queryResults;
+    }
+
+    /**
+     * Rows are written to a {@link RowSpool} as they arrive from the database so
+     * they never all need to be in memory. The decorators (hierarchy, phylogeny and
+     * association columns) need the complete results so they are not applied.
+     */
+    private void doStreamingAction(final StreamingQueryExecutor streamingQueryExecutor) {
+        final QueryContext context = queryContext;
+        Runnable worker = new Runnable() {
+
+            public void run() {
+                RowSpool spool = new RowSpool();
+                try {
+                    RowHandler rowHandler = new CoalescingRowHandler(coalesceKey, spool);
+                    long n = (streamingQueryExecutor instanceof CancellableQueryExecutor)
+                            ? ((CancellableQueryExecutor) streamingQueryExecutor).stream(rowHandler, context)
+                            : streamingQueryExecutor.stream(rowHandler);
+                    log.debug("Streamed " + n + " rows into " + spool.getRowCount() + " results");
+                }
+                catch (Exception e) {
+                    spool.delete();
+                    spool = null;
+                    exceptionSupport.handle(e);
+                }
+
+                publishRowSpool(spool, context.isCancelled() || Thread.currentThread().isInterrupted());
+                setFinished(true);
+            }
+        };
+        start(worker);
+    }
+
+    /**
+     * Runs the worker on the {@link QueryExecutionService} if there is one,
+     * otherwise on a new thread.
+     */
+    private void start(Runnable worker) {
+        if (queryExecutionService != null) {
+            future = queryExecutionService.submit(worker, queryContext);
+        }
+        else {
+            thread = new Thread(worker, QueryActionImpl.this.getClass().getName() + "-" + System.currentTimeMillis());
+            thread.start();
+        }
     }
 
     /**
@@ -175,6 +296,20 @@ public class QueryActionImpl extends ActionAdapter implements QueryAction {
         return queryResults;
     }
 
+    public synchronized RowSpool getRowSpool() {
+        return rowSpool;
+    }
+
+    /**
+     * @return The number of rows read from the database so far. Only counted for a
+     *      {@link CancellableQueryExecutor}; 0 otherwise
+     */
+    public long getRowCount() {
+        QueryContext context = queryContext;
+
+        return (context == null) ? 0 : context.getRowCount();
+    }
+
     public String getSQL() {
         return queryExecutor.getSQL();
     }
@@ -186,6 +321,13 @@ public class QueryActionImpl extends ActionAdapter implements QueryAction {
         return finished;
     }
 
+    /**
+     * @return true if results will be streamed to disk instead of held in memory
+     */
+    public boolean isStreamResults() {
+        return streamResults;
+    }
+
     /**
      * @param  eh
      */
@@ -221,6 +363,64 @@ public class QueryActionImpl extends ActionAdapter implements QueryAction {
         changeSupport2.firePropertyChange("finished", oldValue, newValue);
     }
 
+    /**
+     * Publishes the spool unless the query was cancelled, in which case it's
+     * deleted. Synchronized with {@link #releaseRowSpool()} so a spool is never
+     * published after a cancel has released it.
+     */
+    private synchronized void publishRowSpool(RowSpool spool, boolean interrupted) {
+        if ((spool != null) && (cancelled || interrupted)) {
+            spool.delete();
+            spool = null;
+        }
+
+        setRowSpool(spool);
+    }
+
+    /**
+     * Marks the query as cancelled and deletes the spool if one was already
+     * published. A cancel can arrive after streaming has finished, once the
+     * listeners that would have displayed the spool have been removed.
+     */
+    private synchronized void releaseRowSpool() {
+        cancelled = true;
+        if (rowSpool != null) {
+            rowSpool.delete();
+            setRowSpool(null);
+        }
+    }
+
+    /**
+     * @param rowSpool The spooled results to set
+     */
+    synchronized void setRowSpool(RowSpool rowSpool) {
+        RowSpool oldValue = this.rowSpool;
+        this.rowSpool = rowSpool;
+        changeSupport2.firePropertyChange("rowSpool", oldValue, rowSpool);
+    }
+
+    /**
+     * Run the query on a shared, bounded pool with its time limit instead of on a
+     * thread of its own. Set before {@link #doAction()}.
+     *
+     * @param queryExecutionService The service. <b>null</b> runs the query on a new
+     *      thread without a time limit
+     */
+    public void setQueryExecutionService(QueryExecutionService queryExecutionService) {
+        this.queryExecutionService = queryExecutionService;
+    }
+
+    /**
+     * Stream results to disk instead of holding them in memory. This only has an
+     * effect if the QueryExecutor is a {@link StreamingQueryExecutor}. Streamed
+     * results are not decorated with hierarchy, phylogeny or association columns.
+     *
+     * @param streamResults
+     */
+    public void setStreamResults(boolean streamResults) {
+        this.streamResults = streamResults;
+    }
+
     /**
          * @param queryResults  The queryResults to set.
          */
@@ -64,12 +64,17 @@ public class QueryActionUI {
 
     private final PropertyChangeListener queryResultsListener = new QueryResultsListener();
 
+    private final PropertyChangeListener rowSpoolListener = new RowSpoolListener();
+
     private final ExceptionHandler queryExceptionHandler = new QueryExceptionHandler();
 
     private final QueryActionDialog queryActionDialog = new QueryActionDialog();
 
     private final String databaseUrl;
 
+    /** Set on the EDT when the user cancels the query */
+    private boolean cancelled;
+
 
     /**
      * Constructs ...
@@ -95,6 +100,8 @@ public class QueryActionUI {
          */
         queryAction.addPropertyChangeListener(
                 "queryResults", queryResultsListener);
+        queryAction.addPropertyChangeListener(
+                "rowSpool", rowSpoolListener);
         queryAction.addExceptionHandler(queryExceptionHandler);
         queryActionDialog.setVisible(true);
     }
@@ -130,9 +137,11 @@ public class QueryActionUI {
                 label.setText(
                         "    Elapsed time: " + min + " minutes " + seconds +
                         " seconds");
+                getRowsLabel().setText("    Rows fetched: " + queryAction.getRowCount());
             }
 
         });
+        private JLabel rowsLabel;
         private JLabel timerLabel;
         private JLabel topLabel;
 
@@ -169,8 +178,11 @@ public class QueryActionUI {
                 cancelButton.addActionListener(new ActionListener() {
 
                     public void actionPerformed(ActionEvent e) {
+                        cancelled = true;
                         queryAction.removePropertyChangeListener(
                                 "queryResults", queryResultsListener);
+                        queryAction.removePropertyChangeListener(
+                                "rowSpool", rowSpoolListener);
                         queryAction.removeExceptionHandler(
                                 queryExceptionHandler);
                         queryAction.cancel();
@@ -192,12 +204,21 @@ public class QueryActionUI {
                 mainPanel.add(getTopLabel());
                 mainPanel.add(getStartLabel());
                 mainPanel.add(getTimerLabel());
+                mainPanel.add(getRowsLabel());
                 mainPanel.add(getButtonPanel());
             }
 
             return mainPanel;
         }
 
+        private JLabel getRowsLabel() {
+            if (rowsLabel == null) {
+                rowsLabel = new JLabel("    Rows fetched: 0");
+            }
+
+            return rowsLabel;
+        }
+
         private JLabel getStartLabel() {
             if (startLabel == null) {
                 startLabel = new JLabel("    Started at " +
@@ -286,12 +307,54 @@ public class QueryActionUI {
             final QueryResults queryResults = (QueryResults) evt.getNewValue();
             if (queryResults != null) {
                 log.info("Query has been completed");
+
+                /*
+                 * Pack the results into columns before handing them to the UI. This is
+                 * done here, on the query thread, so the EDT isn't blocked.
+                 */
+                final ColumnarQueryResults results = ColumnarQueryResults.from(queryResults);
+                if (log.isDebugEnabled()) {
+                    log.debug("Packed " + results.getRowCount() + " rows into ~" +
+                            (results.getEstimatedSize() / 1024) + " KB");
+                }
+
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    public void run() {
+                        queryActionDialog.dispose();
+                        QueryResultsFrame f = new QueryResultsFrame(
+                            results, queryAction.getSQL(), databaseUrl);
+                        f.pack();
+                        f.setVisible(true);
+                    }
+
+                });
+            }
+        }
+    }
+
+
+    /**
+     * Displays streamed results when the query is completed.
+     */
+    private class RowSpoolListener implements PropertyChangeListener {
+
+        public void propertyChange(PropertyChangeEvent evt) {
+            final RowSpool rowSpool = (RowSpool) evt.getNewValue();
+            if (rowSpool != null) {
+                log.info("Query has been completed. " + rowSpool.getRowCount() + " rows were streamed");
                 SwingUtilities.invokeLater(new Runnable() {
 
                     public void run() {
                         queryActionDialog.dispose();
+
+                        // Cancelled while this was queued. The action deleted the spool
+                        if (cancelled) {
+                            return;
+                        }
+
                         QueryResultsFrame f = new QueryResultsFrame(
-                            queryResults, queryAction.getSQL(), databaseUrl);
+                            rowSpool, queryAction.getSQL(), databaseUrl);
                         f.pack();
                         f.setVisible(true);
                     }
@@ -0,0 +1,122 @@
+package vars.query.ui.db;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks one execution of a query so that it can be cancelled on the database
+ * server and its progress reported. A {@link CancellableQueryExecutor} registers
+ * the Statement it's running with {@link #setStatement(Statement)} and counts rows
+ * with {@link #rowFetched()}; any other thread can then call {@link #cancel()},
+ * which calls {@link Statement#cancel()} so the database stops working on the
+ * query, not just the client.<p>
+ *
+ * A context is used for a single execution. It's thread-safe.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class QueryContext {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final AtomicLong rowCount = new AtomicLong();
+    private volatile boolean cancelled;
+    private volatile Statement statement;
+    private volatile boolean timedOut;
+    private final int timeout;
+
+    /**
+     * Constructs a context without a time limit
+     */
+    public QueryContext() {
+        this(0);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param timeout The time limit, in seconds, for the query. 0 means no limit
+     */
+    public QueryContext(int timeout) {
+        this.timeout = Math.max(0, timeout);
+    }
+
+    /**
+     * Cancel the query. If a statement is running it's cancelled on the server. If
+     * not, the executor sees {@link #isCancelled()} before it starts one. This may
+     * block briefly while the driver sends the cancel request.
+     */
+    public void cancel() {
+        cancelled = true;
+        cancelStatement(statement);
+    }
+
+    /**
+     * @return The number of rows read from the database so far
+     */
+    public long getRowCount() {
+        return rowCount.get();
+    }
+
+    /**
+     * @return The time limit, in seconds. 0 means no limit
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the query was cancelled because it ran longer than
+     *      {@link #getTimeout()}
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Called by the executor for each row it reads.
+     */
+    public void rowFetched() {
+        rowCount.incrementAndGet();
+    }
+
+    /**
+     * Called by the executor before it executes a statement, and with
+     * <b>null</b> once the statement is closed. If the context was already
+     * cancelled the statement is cancelled straight away.
+     *
+     * @param statement The running statement
+     */
+    public void setStatement(Statement statement) {
+        this.statement = statement;
+        if (cancelled) {
+            cancelStatement(statement);
+        }
+    }
+
+    /**
+     * Cancel the query because it has run longer than {@link #getTimeout()}
+     */
+    public void timeout() {
+        timedOut = true;
+        cancel();
+    }
+
+    private void cancelStatement(Statement statement) {
+        if (statement != null) {
+            try {
+                statement.cancel();
+            }
+            catch (SQLException e) {
+                log.debug("Failed to cancel statement", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package vars.query.ui.db;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs queries on a fixed number of threads so that searches started from the
+ * query frame and the results frames can't swamp the database; queries beyond
+ * {@link #getMaxConcurrentQueries()} wait their turn. Each query gets a
+ * {@link QueryContext}. If it's still running after the context's timeout it's
+ * cancelled on the server. Cancels are sent from a separate thread so the caller
+ * (usually the event dispatch thread) never waits on the driver.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class QueryExecutionService {
+
+    /** Queries that run at the same time if not specified */
+    public static final int DEFAULT_MAX_CONCURRENT_QUERIES = 2;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** Sends cancels and enforces timeouts */
+    private final ScheduledThreadPoolExecutor canceller;
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrentQueries;
+    private final int timeout;
+
+    /**
+     * Constructs ...
+     *
+     * @param maxConcurrentQueries The number of queries that can run at once
+     * @param timeout The time limit, in seconds, of each query. 0 means no limit
+     */
+    public QueryExecutionService(int maxConcurrentQueries, int timeout) {
+        this.maxConcurrentQueries = Math.max(1, maxConcurrentQueries);
+        this.timeout = Math.max(0, timeout);
+        executor = new ThreadPoolExecutor(this.maxConcurrentQueries, this.maxConcurrentQueries, 60, TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("Query"));
+        executor.allowCoreThreadTimeOut(true);
+        canceller = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("QueryCanceller"));
+    }
+
+    /**
+     * Cancel a query. Returns immediately; the cancel is sent to the database on
+     * another thread.
+     *
+     * @param queryContext The context of the query
+     */
+    public void cancel(final QueryContext queryContext) {
+        canceller.execute(new Runnable() {
+
+            public void run() {
+                queryContext.cancel();
+            }
+        });
+    }
+
+    public int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    /**
+     * @return The number of queries waiting for a thread
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return The time limit, in seconds, used for new contexts. 0 means no limit
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return A context with this service's time limit
+     */
+    public QueryContext newQueryContext() {
+        return new QueryContext(timeout);
+    }
+
+    /**
+     * Stop accepting queries and cancel the ones that are running
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        canceller.shutdown();
+    }
+
+    /**
+     * Queue a query. The timeout starts when it begins to run, not while it's
+     * queued. If the context is cancelled while queued the task still runs, and
+     * the executor sees that it's cancelled before touching the database.
+     *
+     * @param task Runs the query, using the context
+     * @param queryContext The context the task uses
+     * @return A future that can be used to interrupt the task
+     */
+    public Future<?> submit(final Runnable task, final QueryContext queryContext) {
+        return executor.submit(new Runnable() {
+
+            public void run() {
+                ScheduledFuture<?> timer = null;
+                if (queryContext.getTimeout() > 0) {
+                    timer = canceller.schedule(new Runnable() {
+
+                        public void run() {
+                            log.info("Cancelling a query that has run for more than " + queryContext.getTimeout() +
+                                     " seconds");
+                            queryContext.timeout();
+                        }
+                    }, queryContext.getTimeout(), TimeUnit.SECONDS);
+                }
+
+                try {
+                    task.run();
+                }
+                finally {
+                    if (timer != null) {
+                        timer.cancel(false);
+                    }
+                }
+            }
+        });
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private final String name;
+
+        DaemonThreadFactory(String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
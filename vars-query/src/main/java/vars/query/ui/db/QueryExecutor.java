@@ -12,4 +12,11 @@ public interface QueryExecutor {
 
     String getSQL();
 
+    /**
+     * @return A key that identifies the results of the query. Executors with equal
+     *      keys return the same rows from the same database, so the key can be used
+     *      to cache results
+     */
+    String getCacheKey();
+
 }
@@ -0,0 +1,46 @@
+package vars.query.ui.db;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.mbari.sql.QueryResults;
+
+/**
+ * A {@link RowHandler} that collects rows into a {@link QueryResults}. Columns are
+ * kept in the order they're delivered.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class QueryResultsBuilder implements RowHandler {
+
+    private final Map<String, List<Object>> columns = new LinkedHashMap<String, List<Object>>();
+    private final List<List<Object>> columnList = new ArrayList<List<Object>>();
+
+    /**
+     * @return The rows collected so far
+     */
+    public QueryResults build() {
+        return new QueryResults(columns);
+    }
+
+    public void finish() {
+
+        // Nothing to do
+    }
+
+    public void row(Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            columnList.get(i).add(row[i]);
+        }
+    }
+
+    public void start(List<String> columnNames) {
+        for (String columnName : columnNames) {
+            List<Object> values = new ArrayList<Object>();
+            columns.put(columnName, values);
+            columnList.add(values);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package vars.query.ui.db;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.mbari.sql.QueryResults;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.query.QueryPersistenceService;
+
+/**
+ * Caches the raw results of queries, keyed by {@link QueryExecutor#getCacheKey()},
+ * so that running the same search again, for example after toggling the hierarchy,
+ * phylogeny or association-per-column options, only re-applies the decorators
+ * instead of going back to the database.<p>
+ *
+ * Results are stored as they come from the database after coalescing but before
+ * decoration, as {@link ColumnarQueryResults}. When the cache holds more than
+ * {@link #getMaxMemory()} bytes the least recently used results are spilled to a
+ * {@link RowSpool} on disk, and when the spools take more than
+ * {@link #getMaxDisk()} bytes the least recently used ones are deleted.<p>
+ *
+ * Everything is discarded when the
+ * {@link QueryPersistenceService#getAnnotationsSignature()} changes, i.e. when
+ * annotations are added, edited or deleted. The signature is checked at most once
+ * every {@link #SIGNATURE_CHECK_INTERVAL} milliseconds, so results may be that
+ * much out of date. Results older than {@link #MAX_AGE} are never returned. If
+ * the signature can't be read the cache is bypassed until it can.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class QueryResultsCache {
+
+    /** Default disk budget, 512MB */
+    public static final long DEFAULT_MAX_DISK = 512L * 1024 * 1024;
+
+    /** Default memory budget, 64MB */
+    public static final long DEFAULT_MAX_MEMORY = 64L * 1024 * 1024;
+
+    /** Results older than this, in milliseconds, are discarded. 1 hour */
+    public static final long MAX_AGE = 60 * 60 * 1000L;
+
+    /** Milliseconds between checks of the annotation signature */
+    public static final long SIGNATURE_CHECK_INTERVAL = 60 * 1000L;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** Access ordered so iteration starts at the least recently used entry */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long diskSize;
+    private final AtomicLong lastSignatureCheck = new AtomicLong();
+    private final long maxDisk;
+    private final long maxMemory;
+    private long memorySize;
+    private final QueryPersistenceService queryPersistenceService;
+    private String signature;
+
+    /** false if the last attempt to read the signature failed */
+    private volatile boolean signatureAvailable = true;
+
+    /**
+     * Constructs a cache with the default budgets
+     *
+     * @param queryPersistenceService Provides the annotation signature
+     */
+    public QueryResultsCache(QueryPersistenceService queryPersistenceService) {
+        this(queryPersistenceService, DEFAULT_MAX_MEMORY, DEFAULT_MAX_DISK);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param queryPersistenceService Provides the annotation signature
+     * @param maxMemory The number of bytes of results held in memory
+     * @param maxDisk The number of bytes of results spooled to disk. 0 disables
+     *      spilling; results that don't fit in memory are dropped
+     */
+    public QueryResultsCache(QueryPersistenceService queryPersistenceService, long maxMemory, long maxDisk) {
+        this.queryPersistenceService = queryPersistenceService;
+        this.maxMemory = maxMemory;
+        this.maxDisk = maxDisk;
+    }
+
+    /**
+     * Discard all cached results
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.dispose();
+        }
+
+        entries.clear();
+        memorySize = 0;
+        diskSize = 0;
+    }
+
+    /**
+     * @param key A key from {@link QueryExecutor#getCacheKey()}
+     * @return A new copy of the cached results, which the caller is free to
+     *      decorate. <b>null</b> if the results aren't cached
+     */
+    public QueryResults get(String key) {
+        if (!validate()) {
+            return null;
+        }
+
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if ((entry != null) && (System.currentTimeMillis() - entry.created > MAX_AGE)) {
+                remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            return null;
+        }
+
+        // The spool may be deleted by another thread while it's being read
+        try {
+            QueryResultsBuilder builder = new QueryResultsBuilder();
+            entry.getRowSource().replay(builder);
+
+            return builder.build();
+        }
+        catch (Exception e) {
+            log.debug("Unable to read cached results", e);
+
+            return null;
+        }
+    }
+
+    public long getMaxDisk() {
+        return maxDisk;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * @return The number of cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cache the results of a query. The results are copied so the caller can go on
+     * to decorate them.
+     *
+     * @param key A key from {@link QueryExecutor#getCacheKey()}
+     * @param queryResults The coalesced, undecorated results
+     */
+    public void put(String key, QueryResults queryResults) {
+        if (!validate()) {
+            return;
+        }
+
+        ColumnarQueryResults results = ColumnarQueryResults.from(queryResults);
+        synchronized (this) {
+            remove(key);
+            Entry entry = new Entry(results);
+            entries.put(key, entry);
+            memorySize += entry.size;
+            trim();
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            if (entry.spool == null) {
+                memorySize -= entry.size;
+            }
+            else {
+                diskSize -= entry.size;
+            }
+
+            entry.dispose();
+        }
+    }
+
+    /**
+     * Spill the least recently used results to disk until the rest fit in memory,
+     * then delete the least recently used spools until the rest fit on disk.
+     */
+    private void trim() {
+        for (Entry entry : entries.values()) {
+            if (memorySize <= maxMemory) {
+                break;
+            }
+
+            if (entry.spool == null) {
+                memorySize -= entry.size;
+                if (maxDisk > 0) {
+                    entry.spill();
+                    diskSize += entry.size;
+                }
+                else {
+                    entry.dispose();
+                }
+            }
+        }
+
+        Iterator<Entry> i = entries.values().iterator();
+        while (i.hasNext()) {
+            Entry entry = i.next();
+            if (entry.isDisposed()) {
+                i.remove();
+            }
+            else if ((entry.spool != null) && (diskSize > maxDisk)) {
+                diskSize -= entry.size;
+                entry.dispose();
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Clears the cache if the annotations have changed since the last check. The
+     * signature is read outside of the cache's lock, and by only one thread per
+     * interval, so a slow database never holds up other callers.
+     *
+     * @return false if the signature couldn't be read, for example if the account
+     *      can't see the database's catalog. The cache is then emptied and should
+     *      be bypassed.
+     */
+    private boolean validate() {
+        long now = System.currentTimeMillis();
+        long last = lastSignatureCheck.get();
+        if ((now - last < SIGNATURE_CHECK_INTERVAL) || !lastSignatureCheck.compareAndSet(last, now)) {
+            return signatureAvailable;
+        }
+
+        String newSignature;
+        try {
+            newSignature = queryPersistenceService.getAnnotationsSignature();
+        }
+        catch (Exception e) {
+            log.warn("Unable to read the annotations signature. Query results will not be cached", e);
+            signatureAvailable = false;
+            synchronized (this) {
+                clear();
+                signature = null;
+            }
+
+            return false;
+        }
+
+        signatureAvailable = true;
+        synchronized (this) {
+            if ((signature != null) && !signature.equals(newSignature) && !entries.isEmpty()) {
+                log.debug("The annotations have changed. Clearing " + entries.size() + " cached query results");
+                clear();
+            }
+
+            signature = newSignature;
+        }
+
+        return true;
+    }
+
+    /**
+     * Cached results. Either in memory or, once spilled, on disk.
+     */
+    private static class Entry {
+
+        final long created = System.currentTimeMillis();
+        private volatile ColumnarQueryResults results;
+        long size;
+        volatile RowSpool spool;
+        private volatile boolean disposed;
+
+        Entry(ColumnarQueryResults results) {
+            this.results = results;
+            this.size = results.getEstimatedSize();
+        }
+
+        void dispose() {
+            disposed = true;
+            results = null;
+            if (spool != null) {
+                spool.delete();
+            }
+        }
+
+        RowSource getRowSource() {
+            RowSource rowSource = (spool == null) ? results : spool;
+            if (rowSource == null) {
+                throw new IllegalStateException("The cached results have been discarded");
+            }
+
+            return rowSource;
+        }
+
+        boolean isDisposed() {
+            return disposed;
+        }
+
+        void spill() {
+            RowSpool rowSpool = new RowSpool();
+            results.replay(rowSpool);
+            size = rowSpool.getFileSize();
+            spool = rowSpool;
+            results = null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package vars.query.ui.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.mbari.sql.QueryResults;
+
+/**
+ * Adapts an in-memory {@link QueryResults} to a {@link RowSource} so that it can be
+ * written by the same code that writes streamed results.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class QueryResultsRowSource implements RowSource {
+
+    private final QueryResults queryResults;
+
+    public QueryResultsRowSource(QueryResults queryResults) {
+        this.queryResults = queryResults;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void replay(RowHandler rowHandler) {
+        List<String> columnNames = new ArrayList<String>(queryResults.getColumnNames());
+        List<List<?>> columns = new ArrayList<List<?>>(columnNames.size());
+        for (String columnName : columnNames) {
+            columns.add((List<?>) queryResults.getResults(columnName));
+        }
+
+        rowHandler.start(columnNames);
+        int rowCount = queryResults.rowCount();
+        Object[] row = new Object[columnNames.size()];
+        for (int i = 0; i < rowCount; i++) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = columns.get(j).get(i);
+            }
+            rowHandler.row(row);
+        }
+        rowHandler.finish();
+    }
+
+    public long getRowCount() {
+        return queryResults.rowCount();
+    }
+}
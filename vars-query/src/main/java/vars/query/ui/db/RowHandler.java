@@ -0,0 +1,34 @@
+package vars.query.ui.db;
+
+import java.util.List;
+
+/**
+ * Receives query results one row at a time. Used by a {@link StreamingQueryExecutor}
+ * so that results can be handled without holding the entire ResultSet in memory.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public interface RowHandler {
+
+    /**
+     * Called once, before any rows are delivered
+     *
+     * @param columnNames The names of the columns in the order they appear in each row
+     */
+    void start(List<String> columnNames);
+
+    /**
+     * Called once for each row.
+     *
+     * @param row The values of the row. Handlers must not hold on to the array,
+     *      it may be reused for the next row.
+     */
+    void row(Object[] row);
+
+    /**
+     * Called after the last row has been delivered
+     */
+    void finish();
+
+}
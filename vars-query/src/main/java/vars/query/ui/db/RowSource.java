@@ -0,0 +1,18 @@
+package vars.query.ui.db;
+
+/**
+ * Something that can replay query results, in order, to a {@link RowHandler}.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public interface RowSource {
+
+    /**
+     * Hand every row to the handler
+     */
+    void replay(RowHandler rowHandler);
+
+    long getRowCount();
+
+}
@@ -0,0 +1,368 @@
+package vars.query.ui.db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.VARSException;
+
+/**
+ * A {@link RowHandler} that spools rows to a temporary file so that very large
+ * query results can be displayed and saved without keeping them in memory. Rows are
+ * grouped into pages of {@link #getPageSize()} rows. Only the file offset of each
+ * page is kept in memory; a page is read back from disk when it's needed.<p>
+ *
+ * Rows are written on the query thread. Once {@link #finish()} has been called the
+ * spool is read-only and can be read from any thread. Call {@link #delete()} when
+ * the results are no longer needed.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class RowSpool implements RowHandler, RowSource {
+
+    /** The page size used if none is specified */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DECIMAL = 6;
+    private static final byte TYPE_TIMESTAMP = 7;
+    private static final byte TYPE_DATE = 8;
+    private static final byte TYPE_BOOLEAN = 9;
+    private static final byte TYPE_SHORT = 10;
+    private static final byte TYPE_BYTE = 11;
+    private static final byte TYPE_SQL_DATE = 12;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final List<Long> pageOffsets = new ArrayList<Long>();
+    private List<String> columnNames = Collections.emptyList();
+    private final File file;
+    private volatile boolean finished;
+    private final int pageSize;
+    private CountingOutputStream countingOut;
+    private DataOutputStream out;
+    private volatile long rowCount;
+
+    /**
+     * Constructs a spool using the default page size
+     */
+    public RowSpool() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructs ...
+     *
+     * @param pageSize The number of rows in a page
+     */
+    public RowSpool(int pageSize) {
+        this.pageSize = (pageSize > 0) ? pageSize : DEFAULT_PAGE_SIZE;
+        try {
+            file = File.createTempFile("vars-query-", ".spool");
+            file.deleteOnExit();
+            countingOut = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+            out = new DataOutputStream(countingOut);
+        }
+        catch (IOException e) {
+            throw new VARSException("Unable to create a temporary file to hold query results", e);
+        }
+    }
+
+    public void start(List<String> columnNames) {
+        this.columnNames = Collections.unmodifiableList(new ArrayList<String>(columnNames));
+    }
+
+    public void row(Object[] row) {
+        try {
+            if (rowCount % pageSize == 0) {
+                pageOffsets.add(countingOut.count);
+            }
+            for (Object value : row) {
+                write(out, value);
+            }
+            rowCount++;
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write query results to " + file.getAbsolutePath(), e);
+        }
+    }
+
+    public void finish() {
+        try {
+            out.close();
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write query results to " + file.getAbsolutePath(), e);
+        }
+        finished = true;
+        log.debug("Spooled " + rowCount + " rows (" + file.length() + " bytes) to " + file.getAbsolutePath());
+    }
+
+    /**
+     * Remove the temporary file
+     */
+    public void delete() {
+        if (!finished) {
+            try {
+                out.close();
+            }
+            catch (IOException e) {
+                // Nothing to do. We're deleting it anyway
+            }
+        }
+        if (!file.delete()) {
+            log.debug("Unable to delete " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @return The names of the columns in the order they appear in each row
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @return The number of bytes written to the temporary file
+     */
+    public long getFileSize() {
+        return file.length();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Read a page of rows from disk
+     *
+     * @param page The page index. Row <i>r</i> is in page <i>r / pageSize</i>
+     * @return The rows in the page. The last page may have fewer than pageSize rows
+     */
+    public Object[][] readPage(int page) {
+        checkFinished();
+        long first = (long) page * pageSize;
+        int n = (int) Math.min(pageSize, rowCount - first);
+        if ((page < 0) || (n <= 0)) {
+            return new Object[0][];
+        }
+
+        Object[][] rows = new Object[n][];
+        try {
+            FileInputStream fileIn = new FileInputStream(file);
+            try {
+                fileIn.getChannel().position(pageOffsets.get(page));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn));
+                for (int i = 0; i < n; i++) {
+                    rows[i] = readRow(in);
+                }
+            }
+            finally {
+                fileIn.close();
+            }
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to read query results from " + file.getAbsolutePath(), e);
+        }
+
+        return rows;
+    }
+
+    /**
+     * Hand every row, in order, to a {@link RowHandler}. Only one row is in memory at a
+     * time.
+     */
+    public void replay(RowHandler rowHandler) {
+        checkFinished();
+        rowHandler.start(columnNames);
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+            try {
+                for (long i = 0; i < rowCount; i++) {
+                    rowHandler.row(readRow(in));
+                }
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to read query results from " + file.getAbsolutePath(), e);
+        }
+        rowHandler.finish();
+    }
+
+    private void checkFinished() {
+        if (!finished) {
+            throw new IllegalStateException("The query results are still being written");
+        }
+    }
+
+    private Object[] readRow(DataInputStream in) throws IOException {
+        Object[] row = new Object[columnNames.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = read(in);
+        }
+
+        return row;
+    }
+
+    private static Object read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+        case TYPE_NULL:
+            return null;
+        case TYPE_STRING:
+            return readString(in);
+        case TYPE_INTEGER:
+            return in.readInt();
+        case TYPE_LONG:
+            return in.readLong();
+        case TYPE_DOUBLE:
+            return in.readDouble();
+        case TYPE_FLOAT:
+            return in.readFloat();
+        case TYPE_DECIMAL:
+            return new BigDecimal(readString(in));
+        case TYPE_TIMESTAMP:
+            Timestamp timestamp = new Timestamp(in.readLong());
+            timestamp.setNanos(in.readInt());
+
+            return timestamp;
+        case TYPE_DATE:
+            return new Date(in.readLong());
+        case TYPE_BOOLEAN:
+            return in.readBoolean();
+        case TYPE_SHORT:
+            return in.readShort();
+        case TYPE_BYTE:
+            return in.readByte();
+        case TYPE_SQL_DATE:
+            return new java.sql.Date(in.readLong());
+        default:
+            throw new EOFException("Unknown type " + type + " in query results spool");
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        }
+        else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        }
+        else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        }
+        else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        }
+        else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        }
+        else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        }
+        else if (value instanceof Short) {
+            out.writeByte(TYPE_SHORT);
+            out.writeShort((Short) value);
+        }
+        else if (value instanceof Byte) {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte((Byte) value);
+        }
+        else if (value instanceof BigDecimal) {
+            out.writeByte(TYPE_DECIMAL);
+            writeString(out, value.toString());
+        }
+        else if (value.getClass() == Timestamp.class) {
+            out.writeByte(TYPE_TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        }
+        else if (value.getClass() == java.sql.Date.class) {
+            out.writeByte(TYPE_SQL_DATE);
+            out.writeLong(((Date) value).getTime());
+        }
+        else if (value.getClass() == Date.class) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((Date) value).getTime());
+        }
+        else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        }
+        else {
+            out.writeByte(TYPE_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * DataOutputStream.size() is an int so it can't be used for files over 2GB
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
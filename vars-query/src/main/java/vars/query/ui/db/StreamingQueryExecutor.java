@@ -0,0 +1,27 @@
+package vars.query.ui.db;
+
+/**
+ * A {@link QueryExecutor} that can pipe rows to a {@link RowHandler} using a
+ * forward-only cursor instead of building a {@link org.mbari.sql.QueryResults}.
+ * Memory use stays bounded no matter how many rows the query returns.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public interface StreamingQueryExecutor extends QueryExecutor {
+
+    /**
+     * Execute the query and hand each row to the handler as it's read from the
+     * database. Rows are ordered by ObservationID_FK.
+     *
+     * @param rowHandler Receives the rows
+     * @return The number of rows read
+     */
+    long stream(RowHandler rowHandler);
+
+    /**
+     * @return The number of rows fetched from the database per round-trip
+     */
+    int getFetchSize();
+
+}
@@ -17,11 +17,15 @@ package vars.query.ui.db.preparedstatement;
 import vars.LinkBean;
 import vars.query.ui.ConceptConstraints;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  *
@@ -37,6 +41,13 @@ class ConceptConstraintsWrapper {
     protected boolean hasToConcept = false;
     protected boolean hasLinkValue = false;
     protected final ConceptConstraints conceptConstraints;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** The id of the names in the {@link ConceptNameSetTable}. null means use an IN list */
+    private String nameSetId;
+
+    /** Selects the names of the set from the {@link ConceptNameSetTable} */
+    private String nameSetSubquery;
 
     public ConceptConstraintsWrapper(ConceptConstraints conceptConstraints) {
         this.conceptConstraints = conceptConstraints;
@@ -76,6 +87,46 @@ class ConceptConstraintsWrapper {
         }
     }
 
+    /**
+     * Writes the concept names to the {@link ConceptNameSetTable} if there are more
+     * than <i>maxInListSize</i> of them. Call this before {@link #toSQL()} and
+     * {@link #bind(PreparedStatement, int)}. If the names can't be written an IN list
+     * is used instead.
+     *
+     * @param connection The connection the query will be run with
+     * @param conceptNameSetTable The table to write to. <b>null</b> means always use
+     *      an IN list
+     * @param maxInListSize The largest number of names that are inlined
+     */
+    public void prepare(Connection connection, ConceptNameSetTable conceptNameSetTable, int maxInListSize) {
+        Collection<String> conceptNamesAsStrings = conceptConstraints.getConceptNamesAsStrings();
+        if (hasConcepts && (conceptNameSetTable != null) && (conceptNamesAsStrings.size() > maxInListSize) &&
+                conceptNameSetTable.isAvailable(connection)) {
+            try {
+                nameSetId = conceptNameSetTable.insert(connection, conceptNamesAsStrings);
+                nameSetSubquery = conceptNameSetTable.getSubquery();
+            }
+            catch (SQLException e) {
+                log.warn("Failed to write " + conceptNamesAsStrings.size() + " concept names to " +
+                         conceptNameSetTable.getTableName() + ". Using an IN list instead", e);
+            }
+        }
+    }
+
+    /**
+     * Removes the concept names written by {@link #prepare(Connection, ConceptNameSetTable, int)}
+     *
+     * @param connection The connection the query was run with
+     * @param conceptNameSetTable The table that was written to
+     */
+    public void release(Connection connection, ConceptNameSetTable conceptNameSetTable) {
+        if (nameSetId != null) {
+            conceptNameSetTable.delete(connection, nameSetId);
+            nameSetId = null;
+            nameSetSubquery = null;
+        }
+    }
+
     /**
      *
      * @param statement The preparedStatement to bind parameters to
@@ -86,8 +137,26 @@ class ConceptConstraintsWrapper {
      */
     public int bind(PreparedStatement statement, int idx) throws SQLException {
         LinkBean associationBean = conceptConstraints.getAssociationBean();
-        if (hasConcepts) {
+        if (hasConcepts && (nameSetId != null)) {
+
+            // ---- Steps 1 - 3: BIND TO the id of the concept name set and associationBean.getToConcept()
+            statement.setString(idx, nameSetId);
+            idx++;
+            if (!hasToConcept) {
+                statement.setString(idx, nameSetId);
+                idx++;
+            }
+            else {
+                statement.setString(idx, associationBean.getToConcept());
+                idx++;
+            }
+        }
+        else if (hasConcepts) {
             List<String> conceptNamesAsStrings =  new ArrayList<String>(conceptConstraints.getConceptNamesAsStrings());
+
+            // Sorted so that the same names always bind in the same order (see PreparedStatementGenerator.getCacheKey)
+            Collections.sort(conceptNamesAsStrings);
+
             // ---- Step 1: BIND TO conceptNamesAsStrings
             for (int i = 0; i < conceptNamesAsStrings.size(); i++) {
                 statement.setString(idx, conceptNamesAsStrings.get(i));
@@ -161,12 +230,17 @@ class ConceptConstraintsWrapper {
              */
             StringBuffer conceptNames = new StringBuffer();
 
-            for (int i = 0; i < conceptConstraints.getConceptNamesAsStrings().size(); i++) {
-                conceptNames.append("?, ");
+            if (nameSetId != null) {
+                conceptNames.append(nameSetSubquery);
             }
+            else {
+                for (int i = 0; i < conceptConstraints.getConceptNamesAsStrings().size(); i++) {
+                    conceptNames.append("?, ");
+                }
 
-            // Remove the trailing ", "
-            conceptNames.delete(conceptNames.length() - 2, conceptNames.length());
+                // Remove the trailing ", "
+                conceptNames.delete(conceptNames.length() - 2, conceptNames.length());
+            }
             sb.append(" ( ConceptName IN (").append(conceptNames).append(") ");
 
             /*
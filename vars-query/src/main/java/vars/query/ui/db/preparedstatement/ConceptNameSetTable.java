@@ -0,0 +1,213 @@
+package vars.query.ui.db.preparedstatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A session-scoped temporary table that holds the concept names of a query.
+ * Instead of inlining thousands of names as <code>ConceptName IN ('a', 'b',
+ * ...)</code> the names are written to this table under a unique set id and the
+ * query uses <code>ConceptName IN (SELECT ConceptName FROM QueryConceptNameSet
+ * WHERE SetID = ?)</code>. The statement text is then the same no matter how many
+ * names are selected so the database can reuse its plan, and there's no limit on
+ * the number of names.<p>
+ *
+ * The table is a temporary table, so it is never part of the schema. It's
+ * declared in a connection's session the first time that connection needs it.
+ * Only that session can see it, and the database drops it when the session ends.
+ * If the client crashes or loses its connection mid-query, nothing is left
+ * behind. Sets are still deleted after each query because pooled connections keep
+ * their session.<p>
+ *
+ * The DDL for temporary tables isn't standard. SQL Server, Derby and PostgreSQL
+ * are supported. For any other database, or if the table can't be declared (e.g.
+ * the account lacks permission), {@link #isAvailable(Connection)} returns false
+ * and the caller should fall back to an IN list.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ConceptNameSetTable {
+
+    /** Name of the scratch table, without any schema or prefix */
+    public static final String TABLE_NAME = "QueryConceptNameSet";
+    private static final String COLUMNS = " (SetID VARCHAR(36) NOT NULL, ConceptName VARCHAR(128) NOT NULL)";
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /** null until the database has been checked */
+    private Boolean available;
+
+    /** The DDL that declares the temporary table in the current session */
+    private String createSql;
+
+    /** The name the table is referenced by. e.g. #QueryConceptNameSet for SQL Server */
+    private String tableName;
+
+    /**
+     * Removes a set of names.
+     *
+     * @param connection The connection that the set was inserted with
+     * @param setId The id returned by {@link #insert(Connection, Collection)}
+     */
+    public void delete(Connection connection, String setId) {
+        try {
+            PreparedStatement statement = connection.prepareStatement("DELETE FROM " + getTableName() +
+                " WHERE SetID = ?");
+            try {
+                statement.setString(1, setId);
+                statement.executeUpdate();
+            }
+            finally {
+                statement.close();
+            }
+        }
+        catch (SQLException e) {
+            log.warn("Failed to delete concept name set " + setId + " from " + getTableName(), e);
+        }
+    }
+
+    /**
+     * Writes a set of names to the table, declaring the table in the connection's
+     * session first if it's not already there.
+     *
+     * @param connection The connection used for the query
+     * @param conceptNames The names to write
+     * @return A unique id for the set
+     * @throws SQLException
+     */
+    public String insert(Connection connection, Collection<String> conceptNames) throws SQLException {
+        if (!exists(connection)) {
+            create(connection);
+        }
+
+        String setId = UUID.randomUUID().toString();
+        PreparedStatement statement = connection.prepareStatement("INSERT INTO " + getTableName() +
+            " (SetID, ConceptName) VALUES (?, ?)");
+        try {
+            for (String conceptName : conceptNames) {
+                statement.setString(1, setId);
+                statement.setString(2, conceptName);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+        finally {
+            statement.close();
+        }
+
+        return setId;
+    }
+
+    /**
+     * Checks, once, that the database supports the temporary table and that it can
+     * be declared.
+     *
+     * @param connection A connection to the annotation database
+     * @return true if the table can be used
+     */
+    public synchronized boolean isAvailable(Connection connection) {
+        if (available == null) {
+            available = false;
+            try {
+                String product = connection.getMetaData().getDatabaseProductName();
+                if (product.contains("SQL Server")) {
+                    tableName = "#" + TABLE_NAME;
+                    createSql = "CREATE TABLE " + tableName + COLUMNS;
+                }
+                else if (product.contains("Derby")) {
+                    tableName = "SESSION." + TABLE_NAME;
+                    createSql = "DECLARE GLOBAL TEMPORARY TABLE " + tableName + COLUMNS +
+                                " ON COMMIT PRESERVE ROWS NOT LOGGED";
+                }
+                else if (product.contains("PostgreSQL")) {
+                    tableName = TABLE_NAME;
+                    createSql = "CREATE TEMPORARY TABLE " + tableName + COLUMNS;
+                }
+                else {
+                    log.info("Temporary tables are not supported for " + product);
+                }
+
+                if (createSql != null) {
+                    available = exists(connection) || create(connection);
+                }
+            }
+            catch (SQLException e) {
+                log.debug("Unable to check for temporary table support", e);
+            }
+
+            if (!available) {
+                log.info(TABLE_NAME + " is not available. Concept names will be inlined in the SQL");
+            }
+        }
+
+        return available;
+    }
+
+    /**
+     * @return The name that the table is referenced by in SQL. Only valid once
+     *      {@link #isAvailable(Connection)} has returned true
+     */
+    public synchronized String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return Selects the names of one set. Has a single parameter, the set id
+     */
+    public String getSubquery() {
+        return "SELECT ConceptName FROM " + getTableName() + " WHERE SetID = ?";
+    }
+
+    private boolean create(Connection connection) {
+        String sql;
+        synchronized (this) {
+            sql = createSql;
+        }
+
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.executeUpdate(sql);
+            }
+            finally {
+                statement.close();
+            }
+
+            log.debug("Declared temporary table " + getTableName());
+
+            return true;
+        }
+        catch (SQLException e) {
+            log.debug("Unable to declare temporary table " + getTableName(), e);
+
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the table is already declared in the connection's session
+     */
+    private boolean exists(Connection connection) {
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.executeQuery("SELECT COUNT(*) FROM " + getTableName() + " WHERE 1 = 0").close();
+            }
+            finally {
+                statement.close();
+            }
+
+            return true;
+        }
+        catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -8,46 +8,225 @@ import vars.VARSException;
 import vars.query.ui.ConceptConstraints;
 import vars.query.ui.ValuePanel;
 import vars.query.ui.db.AbstractQueryExecutor;
-import vars.query.ui.db.QueryExecutor;
+import vars.query.ui.db.CancellableQueryExecutor;
+import vars.query.ui.db.QueryContext;
+import vars.query.ui.db.QueryResultsBuilder;
+import vars.query.ui.db.RowHandler;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Brian Schlining
  * @since Nov 9, 2010
  */
-public class EscapedQueryExecutorImpl extends AbstractQueryExecutor {
+public class EscapedQueryExecutorImpl extends AbstractQueryExecutor implements CancellableQueryExecutor {
+
+    /** The fetch size used if none is specified */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /** Concept name lists longer than this are written to a {@link ConceptNameSetTable} */
+    public static final int DEFAULT_MAX_IN_LIST_SIZE = 100;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final QueryableImpl queryable;
     private final PreparedStatementGenerator preparedStatementGenerator;
+    private final int fetchSize;
 
     public EscapedQueryExecutorImpl(Collection<ConceptConstraints> conceptConstraints,
             Collection<ValuePanel> valuePanels, boolean allInterpretations, boolean allAssociations,
             QueryableImpl queryable) {
+        this(conceptConstraints, valuePanels, allInterpretations, allAssociations, queryable, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     *
+     * @param fetchSize The number of rows fetched per round-trip when streaming results
+     */
+    public EscapedQueryExecutorImpl(Collection<ConceptConstraints> conceptConstraints,
+            Collection<ValuePanel> valuePanels, boolean allInterpretations, boolean allAssociations,
+            QueryableImpl queryable, int fetchSize) {
+        this(conceptConstraints, valuePanels, allInterpretations, allAssociations, queryable, fetchSize, null,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     *
+     * @param fetchSize The number of rows fetched per round-trip when streaming results
+     * @param conceptNameSetTable Concept name lists longer than maxInListSize are
+     *      written to this table instead of being inlined. <b>null</b> means always
+     *      inline them
+     * @param maxInListSize The largest number of concept names that are inlined
+     */
+    public EscapedQueryExecutorImpl(Collection<ConceptConstraints> conceptConstraints,
+            Collection<ValuePanel> valuePanels, boolean allInterpretations, boolean allAssociations,
+            QueryableImpl queryable, int fetchSize, ConceptNameSetTable conceptNameSetTable, int maxInListSize) {
         super(conceptConstraints, valuePanels, allInterpretations, allAssociations);
         this.queryable = queryable;
+        this.fetchSize = (fetchSize > 0) ? fetchSize : DEFAULT_FETCH_SIZE;
         this.preparedStatementGenerator = new PreparedStatementGenerator(conceptConstraints, valuePanels,
-                allInterpretations, allAssociations);
+                allInterpretations, allAssociations, conceptNameSetTable, maxInListSize);
     }
 
     public QueryResults query() {
+        return query(new QueryContext());
+    }
+
+    /**
+     * Reads the rows into a {@link QueryResults}, counting each one in the context.
+     */
+    public QueryResults query(QueryContext queryContext) {
+        QueryResultsBuilder builder = new QueryResultsBuilder();
+        execute(builder, queryContext, false);
+        if (queryContext.isCancelled()) {
+            throw new VARSException("The query was cancelled");
+        }
+
+        return builder.build();
+    }
+
+    public long stream(RowHandler rowHandler) {
+        return stream(rowHandler, new QueryContext());
+    }
+
+    /**
+     * Streams the results using a forward-only, read-only cursor. Only
+     * {@link #getFetchSize()} rows are held by the driver at a time. If the query is
+     * cancelled, or the calling thread is interrupted, the rows read so far are
+     * kept.
+     */
+    public long stream(RowHandler rowHandler, QueryContext queryContext) {
+        return execute(rowHandler, queryContext, true);
+    }
+
+    /**
+     * Runs the query and hands the rows to a handler. The statement is registered
+     * with the context while it runs so that it can be cancelled on the server, and
+     * the ResultSet, Statement, concept name set and Connection are released in that
+     * order however the query ends.
+     *
+     * @param streaming true to order the rows and use the fetch size
+     * @return The number of rows read
+     */
+    private long execute(RowHandler rowHandler, QueryContext queryContext, boolean streaming) {
+        long n = 0;
+        if (queryContext.isCancelled()) {
+            log.debug("The query was cancelled before it started");
+            return n;
+        }
+
         try {
             Connection connection = queryable.getConnection();
-            String template = preparedStatementGenerator.getStatementTemplate();
-            log.debug("PreparedStatement Template = \n" + template);
-            PreparedStatement preparedStatement = connection.prepareStatement(template);
-            preparedStatementGenerator.bind(preparedStatement);
-            QueryResults queryResults = new QueryResults(preparedStatement.executeQuery());
-            connection.close();
-            return queryResults;
-        } catch (SQLException e) {
-            throw new VARSException("Failed to execute prepared statement", e);
+            try {
+                preparedStatementGenerator.prepare(connection);
+                String template = preparedStatementGenerator.getStatementTemplate() +
+                        (streaming ? " ORDER BY ObservationID_FK" : "");
+                log.debug("PreparedStatement Template" + (streaming ? " (streaming)" : "") + " = \n" + template);
+                PreparedStatement preparedStatement = connection.prepareStatement(template,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                queryContext.setStatement(preparedStatement);
+                try {
+                    if (streaming) {
+                        preparedStatement.setFetchSize(fetchSize);
+                    }
+
+                    if (queryContext.getTimeout() > 0) {
+                        preparedStatement.setQueryTimeout(queryContext.getTimeout());
+                    }
+
+                    preparedStatementGenerator.bind(preparedStatement);
+                    ResultSet resultSet = preparedStatement.executeQuery();
+                    try {
+                        if (streaming) {
+                            resultSet.setFetchSize(fetchSize);
+                        }
+
+                        ResultSetMetaData metaData = resultSet.getMetaData();
+                        int columnCount = metaData.getColumnCount();
+                        List<String> columnNames = new ArrayList<String>(columnCount);
+                        for (int i = 1; i <= columnCount; i++) {
+                            columnNames.add(metaData.getColumnLabel(i));
+                        }
+
+                        rowHandler.start(columnNames);
+                        Object[] row = new Object[columnCount];
+                        while (resultSet.next()) {
+                            if (Thread.currentThread().isInterrupted() && !queryContext.isCancelled()) {
+                                queryContext.cancel();
+                            }
+
+                            if (queryContext.isCancelled()) {
+                                log.info("Query was cancelled after " + n + " rows");
+                                break;
+                            }
+
+                            for (int i = 0; i < columnCount; i++) {
+                                row[i] = resultSet.getObject(i + 1);
+                            }
+
+                            rowHandler.row(row);
+                            queryContext.rowFetched();
+                            n++;
+                        }
+
+                        rowHandler.finish();
+                    }
+                    finally {
+                        resultSet.close();
+                    }
+                }
+                finally {
+                    queryContext.setStatement(null);
+                    preparedStatement.close();
+                }
+            }
+            finally {
+                preparedStatementGenerator.release(connection);
+                connection.close();
+            }
+        }
+        catch (SQLException e) {
+            if (queryContext.isTimedOut() || (e instanceof SQLTimeoutException)) {
+                throw new VARSException("The query was cancelled after running for more than " +
+                        queryContext.getTimeout() + " seconds", e);
+            }
+            else if (queryContext.isCancelled()) {
+                log.debug("The query was cancelled", e);
+                if (!streaming) {
+                    throw new VARSException("The query was cancelled", e);
+                }
+            }
+            else {
+                throw new VARSException("Failed to execute prepared statement", e);
+            }
         }
+
+        if (queryContext.isTimedOut()) {
+            throw new VARSException("The query was cancelled after running for more than " +
+                    queryContext.getTimeout() + " seconds");
+        }
+
+        return n;
+    }
+
+    /**
+     * @return The statement template and its bound parameters. See
+     *      {@link PreparedStatementGenerator#getCacheKey()}
+     */
+    @Override
+    public String getCacheKey() {
+        return preparedStatementGenerator.getCacheKey();
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
     }
-    
 }
@@ -2,6 +2,7 @@ package vars.query.ui.db.preparedstatement;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
 import org.mbari.sql.QueryableImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,9 +10,15 @@ import vars.VARSException;
 import vars.query.ui.ConceptConstraints;
 import vars.query.ui.ValuePanel;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Brian Schlining
@@ -19,26 +26,48 @@ import java.util.Collection;
  */
 public class PreparedStatementGenerator {
 
+    /** Separates the parameters in a cache key. It doesn't occur in SQL or in the bound values */
+    private static final char PARAMETER_SEPARATOR = '\u001F';
+
     private final Collection<ConceptConstraintsWrapper> conceptConstraintsWrappers;
     private final Collection<ValuePanel> valuePanels;
     private final Collection<ValuePanelWrapper> valuePanelWrappers;
     private final boolean allInterpretations;
     private final boolean allAssociations;
+    private final ConceptNameSetTable conceptNameSetTable;
+    private final int maxInListSize;
     private final Logger log = LoggerFactory.getLogger(getClass());
 
 
     public PreparedStatementGenerator(Collection<ConceptConstraints> conceptConstraints,
             Collection<ValuePanel> valuePanels, boolean allInterpretations,
                 boolean allAssociations) {
+        this(conceptConstraints, valuePanels, allInterpretations, allAssociations, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     *
+     * @param conceptNameSetTable Concept name lists longer than maxInListSize are
+     *      written to this table and selected with a subquery instead of being
+     *      inlined. <b>null</b> means always inline them
+     * @param maxInListSize The largest number of concept names that are inlined as
+     *      an IN list
+     */
+    public PreparedStatementGenerator(Collection<ConceptConstraints> conceptConstraints,
+            Collection<ValuePanel> valuePanels, boolean allInterpretations,
+                boolean allAssociations, ConceptNameSetTable conceptNameSetTable, int maxInListSize) {
 
         this.valuePanels = valuePanels;
+        this.conceptNameSetTable = conceptNameSetTable;
+        this.maxInListSize = maxInListSize;
 
-        conceptConstraintsWrappers = Collections2.transform(conceptConstraints,
+        // Copied, not a view, as the wrappers hold state between prepare and release
+        conceptConstraintsWrappers = ImmutableList.copyOf(Collections2.transform(conceptConstraints,
                 new Function<ConceptConstraints, ConceptConstraintsWrapper>() {
                     public ConceptConstraintsWrapper apply(ConceptConstraints from) {
                         return new ConceptConstraintsWrapper(from);
                     }
-                });
+                }));
 
         final ValuePanelWrapperFactory vpFactory = new ValuePanelWrapperFactory();
         valuePanelWrappers = Collections2.transform(valuePanels, new Function<ValuePanel, ValuePanelWrapper>(){
@@ -51,6 +80,30 @@ public class PreparedStatementGenerator {
         this.allAssociations = allAssociations;
     }
 
+    /**
+     * Writes large concept name lists to the {@link ConceptNameSetTable}. Call this
+     * before {@link #getStatementTemplate()} and {@link #release(Connection)} once
+     * the query is done.
+     *
+     * @param connection The connection the query will be run with
+     */
+    public void prepare(Connection connection) {
+        for (ConceptConstraintsWrapper wrapper : conceptConstraintsWrappers) {
+            wrapper.prepare(connection, conceptNameSetTable, maxInListSize);
+        }
+    }
+
+    /**
+     * Removes anything written by {@link #prepare(Connection)}
+     *
+     * @param connection The connection the query was run with
+     */
+    public void release(Connection connection) {
+        for (ConceptConstraintsWrapper wrapper : conceptConstraintsWrappers) {
+            wrapper.release(connection, conceptNameSetTable);
+        }
+    }
+
     public String getStatementTemplate() {
 
         String whereClause = getSQLWhere(conceptConstraintsWrappers, valuePanelWrappers);
@@ -94,6 +147,38 @@ public class PreparedStatementGenerator {
 
     }
 
+    /**
+     * A key that identifies the results of the query: the statement template with
+     * its whitespace collapsed followed by the bound parameters. Two generators with
+     * the same key return the same rows from the same database. Call it before
+     * {@link #prepare(Connection)} or after {@link #release(Connection)}; while a
+     * concept name set is written the key would contain its (random) id.
+     *
+     * @return The cache key
+     */
+    public String getCacheKey() {
+        final List<Object> parameters = new ArrayList<Object>();
+        PreparedStatement recorder = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().startsWith("set") && (args != null) && (args.length >= 2)) {
+                    parameters.add(args[1]);
+                }
+
+                return null;
+            }
+        });
+        bind(recorder);
+
+        StringBuilder sb = new StringBuilder(getStatementTemplate().replaceAll("\\s+", " ").trim());
+        for (Object parameter : parameters) {
+            sb.append(PARAMETER_SEPARATOR).append(parameter);
+        }
+
+        return sb.toString();
+    }
+
     public void bind(PreparedStatement preparedStatement) {
         int idx = 1;
         try {
@@ -25,7 +25,7 @@ import org.mbari.util.ExceptionHandler;
 import org.mbari.util.ExceptionHandlerSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import vars.knowledgebase.KnowledgebaseDAOFactory;
+import vars.knowledgebase.ConceptHierarchyIndex;
 import vars.query.QueryResultsDecorator;
 
 /**
@@ -107,10 +107,10 @@ public class QueryAction extends ActionAdapter {
      *
      * @param  query Description of the Parameter
      * @param  queryable Description of the Parameter
-     * @param knowledgebaseDAOFactory
+     * @param conceptHierarchyIndex
      */
-    public QueryAction(final String query, IQueryable queryable, KnowledgebaseDAOFactory knowledgebaseDAOFactory) {
-        this(query, queryable, knowledgebaseDAOFactory, false, false, false);
+    public QueryAction(final String query, IQueryable queryable, ConceptHierarchyIndex conceptHierarchyIndex) {
+        this(query, queryable, conceptHierarchyIndex, false, false, false);
     }
 
     /**
@@ -118,16 +118,16 @@ public class QueryAction extends ActionAdapter {
      *
      * @param query
      * @param queryable
-     * @param knowledgebaseDAOFactory
+     * @param conceptHierarchyIndex
      * @param showHiearchy
      * @param showBasicPhylogeny
      * @param showFullPhylogeny
      */
-    public QueryAction(final String query, IQueryable queryable, KnowledgebaseDAOFactory knowledgebaseDAOFactory,
+    public QueryAction(final String query, IQueryable queryable, ConceptHierarchyIndex conceptHierarchyIndex,
             boolean showHiearchy, boolean showBasicPhylogeny, boolean showFullPhylogeny) {
         this.query = query;
         this.queryable = queryable;
-        this.queryResultsDecorator = new QueryResultsDecorator(knowledgebaseDAOFactory);
+        this.queryResultsDecorator = new QueryResultsDecorator(conceptHierarchyIndex);
         this.showHierarchy = showHiearchy;
         this.showBasicPhylogeny = showBasicPhylogeny;
         this.showFullPhylogeny = showFullPhylogeny;
@@ -0,0 +1,195 @@
+package vars.query.ui.export;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import vars.VARSException;
+import vars.query.ui.db.RowHandler;
+import vars.query.ui.db.RowSource;
+
+/**
+ * Reads a file written by {@link ColumnarRowWriter}. One group of rows is in
+ * memory at a time.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ColumnarRowReader implements RowSource {
+
+    private final File file;
+
+    public ColumnarRowReader(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Counts the rows by reading only the group headers
+     */
+    public long getRowCount() {
+        long n = 0;
+        try {
+            DataInputStream in = open();
+            try {
+                readColumnNames(in);
+                for (int rows = in.readInt(); rows > 0; rows = in.readInt()) {
+                    n += rows;
+                    int byteCount = in.readInt();
+                    while (byteCount > 0) {
+                        int skipped = in.skipBytes(byteCount);
+                        if (skipped <= 0) {
+                            throw new IOException("Unexpected end of " + file.getAbsolutePath());
+                        }
+
+                        byteCount -= skipped;
+                    }
+                }
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to read " + file.getAbsolutePath(), e);
+        }
+
+        return n;
+    }
+
+    public void replay(RowHandler rowHandler) {
+        try {
+            DataInputStream in = open();
+            try {
+                List<String> columnNames = readColumnNames(in);
+                int columnCount = columnNames.size();
+                rowHandler.start(columnNames);
+                Object[][] columns = new Object[columnCount][];
+                Object[] row = new Object[columnCount];
+                for (int rows = in.readInt(); rows > 0; rows = in.readInt()) {
+                    in.readInt();    // byteCount
+                    for (int i = 0; i < columnCount; i++) {
+                        columns[i] = readColumn(in, rows);
+                    }
+
+                    for (int r = 0; r < rows; r++) {
+                        for (int i = 0; i < columnCount; i++) {
+                            row[i] = columns[i][r];
+                        }
+
+                        rowHandler.row(row);
+                    }
+                }
+
+                rowHandler.finish();
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to read " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private DataInputStream open() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        byte[] magic = new byte[ColumnarRowWriter.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, ColumnarRowWriter.MAGIC)) {
+            in.close();
+
+            throw new IOException(file.getAbsolutePath() + " is not a columnar query results file");
+        }
+
+        int version = in.readInt();
+        if (version != ColumnarRowWriter.VERSION) {
+            in.close();
+
+            throw new IOException("Unsupported columnar query results version " + version);
+        }
+
+        return in;
+    }
+
+    private static Object[] readColumn(DataInputStream in, int n) throws IOException {
+        byte type = in.readByte();
+        byte[] nulls = new byte[(n + 7) / 8];
+        in.readFully(nulls);
+        Object[] values = new Object[n];
+        if (type == ColumnarRowWriter.TYPE_NULL) {
+            return values;
+        }
+
+        String[] dictionary = null;
+        if ((type == ColumnarRowWriter.TYPE_STRING) || (type == ColumnarRowWriter.TYPE_DECIMAL)) {
+            dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(in);
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if ((nulls[i >> 3] & (1 << (i & 7))) != 0) {
+                continue;
+            }
+
+            switch (type) {
+            case ColumnarRowWriter.TYPE_INTEGER:
+                values[i] = in.readInt();
+                break;
+            case ColumnarRowWriter.TYPE_LONG:
+                values[i] = in.readLong();
+                break;
+            case ColumnarRowWriter.TYPE_DOUBLE:
+                values[i] = in.readDouble();
+                break;
+            case ColumnarRowWriter.TYPE_FLOAT:
+                values[i] = in.readFloat();
+                break;
+            case ColumnarRowWriter.TYPE_DATE:
+                values[i] = new Date(in.readLong());
+                break;
+            case ColumnarRowWriter.TYPE_TIMESTAMP:
+                values[i] = new Timestamp(in.readLong());
+                break;
+            case ColumnarRowWriter.TYPE_BOOLEAN:
+                values[i] = in.readBoolean();
+                break;
+            case ColumnarRowWriter.TYPE_DECIMAL:
+                values[i] = new BigDecimal(dictionary[in.readInt()]);
+                break;
+            case ColumnarRowWriter.TYPE_STRING:
+                values[i] = dictionary[in.readInt()];
+                break;
+            default:
+                throw new IOException("Unknown column type " + type);
+            }
+        }
+
+        return values;
+    }
+
+    private static List<String> readColumnNames(DataInputStream in) throws IOException {
+        int columnCount = in.readInt();
+        List<String> columnNames = new ArrayList<String>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            columnNames.add(readString(in));
+        }
+
+        return columnNames;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return new String(bytes, "UTF-8");
+    }
+}
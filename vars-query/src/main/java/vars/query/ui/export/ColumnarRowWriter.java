@@ -0,0 +1,254 @@
+package vars.query.ui.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import vars.VARSException;
+import vars.query.ui.db.RowHandler;
+
+/**
+ * Writes rows in a compact, column-oriented binary format that can be read back
+ * with {@link ColumnarRowReader}. Rows are buffered into groups of
+ * {@link #GROUP_SIZE}; each group is written column by column, so values of the
+ * same type sit together, strings are dictionary-encoded within the group and nulls
+ * are a bitmap. For typical annotation queries the file is several times smaller
+ * than the tab-delimited text and needs no parsing to read.<p>
+ *
+ * Layout (all numbers big-endian, strings are an int byte count followed by
+ * UTF-8):
+ * <pre>
+ * "VCOL" int:version int:columnCount string:columnName...
+ * repeated: int:rowCount int:byteCount column...
+ * int:0
+ *
+ * column = byte:type byte[(rowCount + 7) / 8]:nullBitmap values
+ * </pre>
+ * The values of a column are only the non-null ones. Longs, doubles and dates
+ * (millis) are written as-is. A string column is an int dictionary size, the
+ * dictionary, then an int index for each value.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ColumnarRowWriter implements RowHandler {
+
+    /** Rows per group */
+    public static final int GROUP_SIZE = 8192;
+    static final byte[] MAGIC = { 'V', 'C', 'O', 'L' };
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_INTEGER = 1;
+    static final byte TYPE_LONG = 2;
+    static final byte TYPE_DOUBLE = 3;
+    static final byte TYPE_FLOAT = 4;
+    static final byte TYPE_DATE = 5;
+    static final byte TYPE_TIMESTAMP = 6;
+    static final byte TYPE_BOOLEAN = 7;
+    static final byte TYPE_DECIMAL = 8;
+    static final byte TYPE_STRING = 9;
+    static final int VERSION = 1;
+    private final ByteArrayOutputStream groupBytes = new ByteArrayOutputStream(64 * 1024);
+    private final DataOutputStream groupOut = new DataOutputStream(groupBytes);
+    private int columnCount;
+    private Object[][] group;
+    private final DataOutputStream out;
+    private int rowCount;
+
+    /**
+     * Constructs ...
+     *
+     * @param out The stream. It's flushed, not closed, by {@link #finish()}
+     */
+    public ColumnarRowWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    public void start(List<String> columnNames) {
+        columnCount = columnNames.size();
+        group = new Object[columnCount][GROUP_SIZE];
+        try {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(columnCount);
+            for (String columnName : columnNames) {
+                writeString(out, columnName);
+            }
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write query results", e);
+        }
+    }
+
+    public void row(Object[] row) {
+        for (int i = 0; i < columnCount; i++) {
+            group[i][rowCount] = row[i];
+        }
+
+        rowCount++;
+        if (rowCount == GROUP_SIZE) {
+            writeGroup();
+        }
+    }
+
+    public void finish() {
+        try {
+            if (rowCount > 0) {
+                writeGroup();
+            }
+
+            out.writeInt(0);
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write query results", e);
+        }
+    }
+
+    /**
+     * @return The type that can hold every non-null value in the column
+     */
+    private static byte typeOf(Object[] values, int n) {
+        byte type = TYPE_NULL;
+        for (int i = 0; i < n; i++) {
+            Object value = values[i];
+            if (value != null) {
+                byte t = (value instanceof Integer || value instanceof Short || value instanceof Byte) ? TYPE_INTEGER
+                         : (value instanceof Long) ? TYPE_LONG
+                           : (value instanceof Double) ? TYPE_DOUBLE
+                             : (value instanceof Float) ? TYPE_FLOAT
+                               : (value instanceof Timestamp) ? TYPE_TIMESTAMP
+                                 : (value instanceof Date) ? TYPE_DATE
+                                   : (value instanceof Boolean) ? TYPE_BOOLEAN
+                                     : (value instanceof BigDecimal) ? TYPE_DECIMAL : TYPE_STRING;
+                if (type == TYPE_NULL) {
+                    type = t;
+                }
+                else if (type != t) {
+                    return TYPE_STRING;
+                }
+            }
+        }
+
+        return type;
+    }
+
+    private void writeGroup() {
+        try {
+            groupBytes.reset();
+            for (int i = 0; i < columnCount; i++) {
+                writeColumn(groupOut, group[i], rowCount);
+            }
+
+            groupOut.flush();
+            out.writeInt(rowCount);
+            out.writeInt(groupBytes.size());
+            groupBytes.writeTo(out);
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write query results", e);
+        }
+
+        for (Object[] values : group) {
+            Arrays.fill(values, 0, rowCount, null);
+        }
+
+        rowCount = 0;
+    }
+
+    private static void writeColumn(DataOutputStream out, Object[] values, int n) throws IOException {
+        byte type = typeOf(values, n);
+        out.writeByte(type);
+
+        // Null bitmap. A set bit means null
+        byte[] nulls = new byte[(n + 7) / 8];
+        for (int i = 0; i < n; i++) {
+            if (values[i] == null) {
+                nulls[i >> 3] |= 1 << (i & 7);
+            }
+        }
+
+        out.write(nulls);
+
+        switch (type) {
+        case TYPE_NULL:
+            break;
+        case TYPE_STRING:
+        case TYPE_DECIMAL:
+            writeStrings(out, values, n);
+            break;
+        default:
+            for (int i = 0; i < n; i++) {
+                Object value = values[i];
+                if (value != null) {
+                    switch (type) {
+                    case TYPE_INTEGER:
+                        out.writeInt(((Number) value).intValue());
+                        break;
+                    case TYPE_LONG:
+                        out.writeLong((Long) value);
+                        break;
+                    case TYPE_DOUBLE:
+                        out.writeDouble((Double) value);
+                        break;
+                    case TYPE_FLOAT:
+                        out.writeFloat((Float) value);
+                        break;
+                    case TYPE_BOOLEAN:
+                        out.writeBoolean((Boolean) value);
+                        break;
+                    default:
+                        out.writeLong(((Date) value).getTime());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the dictionary of distinct strings followed by an index per value
+     */
+    private static void writeStrings(DataOutputStream out, Object[] values, int n) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        int[] indexes = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (values[i] != null) {
+                String s = values[i].toString();
+                Integer idx = dictionary.get(s);
+                if (idx == null) {
+                    idx = dictionary.size();
+                    dictionary.put(s, idx);
+                }
+
+                indexes[count++] = idx;
+            }
+        }
+
+        String[] strings = new String[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            strings[entry.getValue()] = entry.getKey();
+        }
+
+        out.writeInt(strings.length);
+        for (String s : strings) {
+            writeString(out, s);
+        }
+
+        for (int i = 0; i < count; i++) {
+            out.writeInt(indexes[i]);
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,58 @@
+package vars.query.ui.export;
+
+import java.io.File;
+
+/**
+ * The file formats that query results can be exported to. The format of a file is
+ * chosen from its extension, see {@link #forFile(File, ExportFormat)}.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public enum ExportFormat {
+
+    TAB_DELIMITED("Tab-delimited text", ".txt"),
+    TAB_DELIMITED_GZIP("Tab-delimited text, gzipped", ".txt.gz"),
+    KML("KML", ".kml"),
+    KMZ("KMZ (zipped KML)", ".kmz"),
+    COLUMNAR("Columnar binary", ".vcol");
+
+    private final String description;
+    private final String extension;
+
+    private ExportFormat(String description, String extension) {
+        this.description = description;
+        this.extension = extension;
+    }
+
+    /**
+     * @param file A file
+     * @param defaultFormat Returned if the extension doesn't match a format
+     * @return The format that matches the file's extension
+     */
+    public static ExportFormat forFile(File file, ExportFormat defaultFormat) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".gz")) {
+            return TAB_DELIMITED_GZIP;
+        }
+
+        for (ExportFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+
+        return defaultFormat;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return The file extension, including the leading '.'
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
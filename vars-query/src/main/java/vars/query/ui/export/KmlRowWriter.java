@@ -0,0 +1,225 @@
+package vars.query.ui.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import vars.VARSException;
+import vars.query.ui.db.RowHandler;
+
+/**
+ * Writes each row as a KML placemark as soon as it's received. The document
+ * header is written by {@link #start(List)} and the footer by {@link #finish()}.
+ * Rows without a ConceptName, Latitude and Longitude column produce no
+ * placemarks.<p>
+ *
+ * The columns are looked up once, in {@link #start(List)}; each row is then
+ * written by walking arrays of column indexes.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class KmlRowWriter implements RowHandler {
+
+    private static final String KEY_CONCEPTNAME = "conceptname";
+    private static final String KEY_DEPTH = "depth";
+    private static final String KEY_LATITUDE = "latitude";
+    private static final String KEY_LONGITUDE = "longitude";
+    private static final String KEY_RECORDEDDATE = "recordeddate";
+    private final UTCDateFormatter dateFormatter = UTCDateFormatter.newIsoFormatter();
+    private final StringBuilder sb = new StringBuilder();
+    private int conceptNameIdx = -1;
+    private final String databaseUrl;
+    private int depthIdx = -1;
+
+    /** The indexes of the columns listed in each description, sorted by name ignoring case */
+    private int[] descriptionIdx;
+
+    /** "columnName: " for each of descriptionIdx */
+    private String[] descriptionLabels;
+    private int latitudeIdx = -1;
+    private int longitudeIdx = -1;
+    private final Writer out;
+    private final String query;
+    private int recordedDateIdx = -1;
+
+    /**
+     * Constructs ...
+     *
+     * @param out The writer. It's flushed, not closed, by {@link #finish()}
+     * @param query The SQL that produced the rows
+     * @param databaseUrl The database it was run against
+     */
+    public KmlRowWriter(Writer out, String query, String databaseUrl) {
+        this.out = out;
+        this.query = query;
+        this.databaseUrl = databaseUrl;
+    }
+
+    public void start(List<String> columnNames) {
+        List<String> keys = new ArrayList<String>(columnNames.size());
+        for (String columnName : columnNames) {
+            keys.add(columnName.toLowerCase());
+        }
+
+        conceptNameIdx = keys.indexOf(KEY_CONCEPTNAME);
+        latitudeIdx = keys.indexOf(KEY_LATITUDE);
+        longitudeIdx = keys.indexOf(KEY_LONGITUDE);
+        recordedDateIdx = keys.indexOf(KEY_RECORDEDDATE);
+        depthIdx = keys.indexOf(KEY_DEPTH);
+
+        // Every other column, except foreign keys, goes in the description
+        List<String> descriptionKeys = new ArrayList<String>();
+        for (String key : keys) {
+            if (!key.equals(KEY_CONCEPTNAME) && !key.equals(KEY_LATITUDE) && !key.equals(KEY_LONGITUDE) &&
+                    !key.endsWith("id_fk") && !descriptionKeys.contains(key)) {
+                descriptionKeys.add(key);
+            }
+        }
+
+        Collections.sort(descriptionKeys);
+        descriptionIdx = new int[descriptionKeys.size()];
+        descriptionLabels = new String[descriptionKeys.size()];
+        for (int i = 0; i < descriptionIdx.length; i++) {
+            descriptionIdx[i] = keys.indexOf(descriptionKeys.get(i));
+            descriptionLabels[i] = columnNames.get(descriptionIdx[i]) + ": ";
+        }
+
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<!-- ").append(new Date()).append(" -->\n");
+        sb.append("<!-- DATABASE: ").append(databaseUrl).append(" -->\n");
+        sb.append("<!-- QUERY: ").append(query).append(" -->\n");
+        sb.append("<kml xmlns=\"http://earth.google.com/kml/2.1\">\n");
+        sb.append("  <Document>\n");
+        sb.append("    <Style id=\"highlightPlacemark\"><IconStyle><Icon>\n");
+        sb.append("      <href>http://maps.google.com/mapfiles/kml/paddle/purple-blank.png</href>\n");
+        sb.append("    </Icon></IconStyle></Style>\n");
+        sb.append("    <Style id=\"normalPlacemark\"><IconStyle><Icon>\n");
+        sb.append("      <href>http://maps.google.com/mapfiles/kml/paddle/blu-blank.png</href>\n");
+        sb.append("    </Icon></IconStyle></Style>\n");
+        sb.append("    <StyleMap id=\"varsStyleMap\">\n");
+        sb.append("      <Pair><key>normal</key><styleUrl>#normalPlacemark</styleUrl></Pair>\n");
+        sb.append("      <Pair><key>highlight</key><styleUrl>#highlightPlacemark</styleUrl></Pair>\n");
+        sb.append("    </StyleMap>\n");
+        sb.append("    <Style id=\"highlightPhotoPlacemark\"><IconStyle><Icon>\n");
+        sb.append("      <href>http://maps.google.com/mapfiles/kml/paddle/purple-square.png</href>\n");
+        sb.append("    </Icon></IconStyle></Style>\n");
+        sb.append("    <Style id=\"normalPhotoPlacemark\"><IconStyle><Icon>\n");
+        sb.append("      <href>http://maps.google.com/mapfiles/kml/paddle/blu-square.png</href>\n");
+        sb.append("    </Icon></IconStyle></Style>\n");
+        sb.append("    <StyleMap id=\"varsPhotoStyleMap\">\n");
+        sb.append("      <Pair><key>normal</key><styleUrl>#normalPhotoPlacemark</styleUrl></Pair>\n");
+        sb.append("      <Pair><key>highlight</key><styleUrl>#highlightPhotoPlacemark</styleUrl></Pair>\n");
+        sb.append("    </StyleMap>\n");
+        write();
+    }
+
+    public void row(Object[] row) {
+        if ((conceptNameIdx < 0) || (latitudeIdx < 0) || (longitudeIdx < 0)) {
+            return;
+        }
+
+        String styleUrl = "#varsStyleMap";
+        sb.append("    <Placemark>\n");    // START PLACEMARK
+        sb.append("      <name>");
+        appendEscaped(row[conceptNameIdx]);
+        sb.append("</name>\n");
+        sb.append("      <description><![CDATA[\n");    // START DESCRIPTION
+
+        /*
+         * Each non-null value is written as a div. Values that are URLs are
+         * written as images and the placemark gets the photo style.
+         */
+        for (int i = 0; i < descriptionIdx.length; i++) {
+            Object value = row[descriptionIdx[i]];
+            if (value != null) {
+                sb.append("        <div>");
+                if (value instanceof Date) {
+                    sb.append(descriptionLabels[i]);
+                    dateFormatter.format((Date) value, sb);
+                }
+                else {
+                    String valueString = value.toString();
+                    if (valueString.regionMatches(true, 0, "http://", 0, 7)) {
+                        sb.append("<img src=\"").append(valueString).append("\" />");
+                        styleUrl = "#varsPhotoStyleMap";
+                    }
+                    else {
+                        sb.append(descriptionLabels[i]).append(valueString);
+                    }
+                }
+
+                sb.append("</div>\n");
+            }
+        }
+
+        sb.append("      ]]></description>\n");    // END DESCRIPTION
+        sb.append("      <styleUrl>").append(styleUrl).append("</styleUrl>\n");
+
+        // WRITE POSITION
+        Number latitude = (Number) row[latitudeIdx];
+        Number longitude = (Number) row[longitudeIdx];
+        if ((latitude != null) && (longitude != null)) {
+            Object depth = (depthIdx < 0) ? null : row[depthIdx];
+            sb.append("      <Point><altitudeMode>absolute</altitudeMode><coordinates>").append(longitude).append(",");
+            sb.append(latitude).append(",").append((depth == null) ? 0F : -((Number) depth).floatValue());
+            sb.append("</coordinates></Point>\n");
+        }
+
+        // Add TimeStamp
+        Date recordedDate = (recordedDateIdx < 0) ? null : (Date) row[recordedDateIdx];
+        if (recordedDate != null) {
+            sb.append("      <TimeStamp><when>");
+            dateFormatter.format(recordedDate, sb);
+            sb.append("</when></TimeStamp>\n");
+        }
+
+        sb.append("    </Placemark>\n");    // END PLACEMARK
+        write();
+    }
+
+    public void finish() {
+        sb.append("  </Document>\n");
+        sb.append("</kml>\n");
+        write();
+        try {
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write KML", e);
+        }
+    }
+
+    private void appendEscaped(Object value) {
+        String s = String.valueOf(value);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '&':
+                sb.append("&amp;");
+                break;
+            case '<':
+                sb.append("&lt;");
+                break;
+            case '>':
+                sb.append("&gt;");
+                break;
+            default:
+                sb.append(c);
+            }
+        }
+    }
+
+    private void write() {
+        try {
+            out.append(sb);
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write KML", e);
+        }
+
+        sb.setLength(0);
+    }
+}
@@ -0,0 +1,186 @@
+package vars.query.ui.export;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.VARSException;
+import vars.query.ui.db.RowHandler;
+import vars.query.ui.db.RowSource;
+
+/**
+ * A {@link RowHandler} that writes rows to a file in one of the
+ * {@link ExportFormat}s. Rows are written as they're received, so an exporter can
+ * be given to a {@link vars.query.ui.db.StreamingQueryExecutor} to write results
+ * straight from the database, or to {@link RowSource#replay(RowHandler)} to save
+ * results that have already been read. Either way memory use doesn't depend on the
+ * number of rows.<p>
+ *
+ * The file is opened by {@link #start(List)} and closed by {@link #finish()}. If
+ * the rows can't all be delivered call {@link #abort()} to close and delete the
+ * partial file.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class RowExporter implements RowHandler {
+
+    /** Name of the KML document inside a KMZ file */
+    public static final String KMZ_ENTRY_NAME = "doc.kml";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final String databaseUrl;
+    private RowHandler delegate;
+    private final File file;
+    private final ExportFormat format;
+    private OutputStream out;
+    private final String query;
+    private final long rowCount;
+
+    /**
+     * Constructs ...
+     *
+     * @param file The file to write
+     * @param format The format to write it in
+     * @param query The SQL that produced the rows. Written as a comment where the
+     *      format allows
+     * @param databaseUrl The database the query was run against
+     * @param rowCount The number of rows, if known, for the tab-delimited header.
+     *      -1 if it isn't known
+     */
+    public RowExporter(File file, ExportFormat format, String query, String databaseUrl, long rowCount) {
+        this.file = file;
+        this.format = format;
+        this.query = query;
+        this.databaseUrl = (databaseUrl == null) ? "unknown" : databaseUrl;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Writes every row of a source to a file.
+     *
+     * @param rowSource The rows
+     * @param file The file to write
+     * @param format The format to write it in
+     * @param query The SQL that produced the rows
+     * @param databaseUrl The database the query was run against
+     * @throws VARSException if the file can't be written. The partial file is
+     *      deleted
+     */
+    public static void export(RowSource rowSource, File file, ExportFormat format, String query,
+                              String databaseUrl) {
+        RowExporter exporter = new RowExporter(file, format, query, databaseUrl, rowSource.getRowCount());
+        try {
+            rowSource.replay(exporter);
+        }
+        catch (RuntimeException e) {
+            exporter.abort();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Closes and deletes the file
+     */
+    public void abort() {
+        close();
+        if (file.exists() && !file.delete()) {
+            log.debug("Unable to delete " + file.getAbsolutePath());
+        }
+    }
+
+    public void start(List<String> columnNames) {
+        try {
+            OutputStream fileOut = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+            switch (format) {
+            case TAB_DELIMITED_GZIP:
+                out = new GZIPOutputStream(fileOut, BUFFER_SIZE);
+                delegate = new TabDelimitedRowWriter(newWriter(out), query, databaseUrl, rowCount);
+                break;
+            case KML:
+                out = fileOut;
+                delegate = new KmlRowWriter(newWriter(out), query, databaseUrl);
+                break;
+            case KMZ:
+                ZipOutputStream zipOut = new ZipOutputStream(fileOut);
+                zipOut.putNextEntry(new ZipEntry(KMZ_ENTRY_NAME));
+                out = zipOut;
+                delegate = new KmlRowWriter(newWriter(out), query, databaseUrl);
+                break;
+            case COLUMNAR:
+                out = fileOut;
+                delegate = new ColumnarRowWriter(out);
+                break;
+            default:
+                out = fileOut;
+                delegate = new TabDelimitedRowWriter(newWriter(out), query, databaseUrl, rowCount);
+            }
+        }
+        catch (IOException e) {
+            throw new VARSException("Unable to write to " + file.getAbsolutePath(), e);
+        }
+
+        delegate.start(columnNames);
+    }
+
+    public void row(Object[] row) {
+        delegate.row(row);
+    }
+
+    /**
+     * Finishes the file and closes it
+     */
+    public void finish() {
+        delegate.finish();
+        try {
+            out.close();
+            out = null;
+        }
+        catch (IOException e) {
+            throw new VARSException("Unable to write to " + file.getAbsolutePath(), e);
+        }
+
+        log.debug("Exported query results to " + file.getAbsolutePath() + " (" + file.length() + " bytes)");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    private void close() {
+        if (out != null) {
+            try {
+                out.close();
+            }
+            catch (IOException e) {
+
+                // Nothing to do. The file is being discarded
+            }
+
+            out = null;
+        }
+    }
+
+    /**
+     * The text writers flush, but never close, this writer; closing {@link #out}
+     * is enough as the writer buffers nothing after a flush.
+     */
+    private static Writer newWriter(OutputStream out) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), BUFFER_SIZE);
+    }
+}
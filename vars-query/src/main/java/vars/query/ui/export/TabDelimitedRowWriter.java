@@ -0,0 +1,110 @@
+package vars.query.ui.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.List;
+import vars.VARSException;
+import vars.query.ui.db.RowHandler;
+
+/**
+ * Writes each row as a line of tab-delimited text. The file starts with a few
+ * comment lines describing the query, followed by a line of column names. Dates
+ * are written as UTC <code>yyyy-MM-dd HH:mm:ss</code>.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class TabDelimitedRowWriter implements RowHandler {
+
+    private final UTCDateFormatter dateFormatter = new UTCDateFormatter(' ', "");
+    private final StringBuilder sb = new StringBuilder();
+    private final String databaseUrl;
+    private final Writer out;
+    private final String query;
+    private final long rowCount;
+
+    /**
+     * Constructs ...
+     *
+     * @param out The writer. It's flushed, not closed, by {@link #finish()}
+     * @param query The SQL that produced the rows
+     * @param databaseUrl The database it was run against
+     * @param rowCount The number of rows, for the header. -1 if it isn't known
+     */
+    public TabDelimitedRowWriter(Writer out, String query, String databaseUrl, long rowCount) {
+        this.out = out;
+        this.query = query;
+        this.databaseUrl = databaseUrl;
+        this.rowCount = rowCount;
+    }
+
+    public void start(List<String> columnNames) {
+        sb.append("# ").append(new Date()).append("\n");
+        sb.append("#\n");
+        sb.append("# DATABASE\n# ").append(databaseUrl).append("\n");
+        sb.append("#\n");
+        sb.append("# QUERY\n# ").append(query).append("\n");
+        sb.append("#\n");
+        if (rowCount >= 0) {
+            sb.append("# TOTAL RECORDS: ").append(rowCount).append("\n");
+        }
+
+        write();
+
+        for (String columnName : columnNames) {
+            sb.append(columnName).append("\t");
+        }
+
+        writeLine();
+    }
+
+    public void row(Object[] row) {
+        for (Object value : row) {
+            if (value instanceof Date) {
+                dateFormatter.format((Date) value, sb);
+            }
+            else if (value != null) {
+                sb.append(value);
+            }
+
+            sb.append("\t");
+        }
+
+        writeLine();
+    }
+
+    public void finish() {
+        try {
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write query results", e);
+        }
+    }
+
+    private void write() {
+        try {
+            out.append(sb);
+        }
+        catch (IOException e) {
+            throw new VARSException("Failed to write query results", e);
+        }
+
+        sb.setLength(0);
+    }
+
+    /**
+     * Replaces the trailing tab with a newline and writes the line
+     */
+    private void writeLine() {
+        if (sb.length() > 0) {
+            sb.setCharAt(sb.length() - 1, '\n');
+        }
+        else {
+            sb.append('\n');
+        }
+
+        write();
+    }
+}
@@ -0,0 +1,105 @@
+package vars.query.ui.export;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Formats dates as UTC <code>yyyy-MM-dd?HH:mm:ss</code>, where the separator and
+ * an optional suffix (e.g. 'T' and "Z" for ISO 8601) are set when it's created.
+ * Exports format one date per row, and rows from a dive share only a handful of
+ * days, so the date part is cached and the time of day is done with arithmetic.
+ * That's much cheaper than a SimpleDateFormat, which does a full calendar
+ * calculation every time. Like SimpleDateFormat it's not thread-safe; use one per
+ * writer.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class UTCDateFormatter {
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    private long cachedDay = Long.MIN_VALUE;
+    private String cachedDayString;
+    private final char separator;
+    private final String suffix;
+
+    /**
+     * Constructs ...
+     *
+     * @param separator The character between the date and the time
+     * @param suffix Appended after the time. May be empty
+     */
+    public UTCDateFormatter(char separator, String suffix) {
+        this.separator = separator;
+        this.suffix = suffix;
+    }
+
+    /**
+     * @return A formatter for <code>yyyy-MM-dd'T'HH:mm:ss'Z'</code>
+     */
+    public static UTCDateFormatter newIsoFormatter() {
+        return new UTCDateFormatter('T', "Z");
+    }
+
+    /**
+     * @param date The date to format
+     * @return The formatted date
+     */
+    public String format(Date date) {
+        StringBuilder sb = new StringBuilder(20);
+        format(date, sb);
+
+        return sb.toString();
+    }
+
+    /**
+     * Appends a formatted date
+     *
+     * @param date The date to format
+     * @param sb The formatted date is appended to this
+     */
+    public void format(Date date, StringBuilder sb) {
+        long millis = date.getTime();
+        long day = millis / MILLIS_PER_DAY;
+        if (millis % MILLIS_PER_DAY < 0) {
+            day--;
+        }
+
+        if (day != cachedDay) {
+            calendar.setTimeInMillis(day * MILLIS_PER_DAY);
+            StringBuilder daySb = new StringBuilder(11);
+            pad(daySb, calendar.get(Calendar.YEAR), 4);
+            daySb.append('-');
+            pad(daySb, calendar.get(Calendar.MONTH) + 1, 2);
+            daySb.append('-');
+            pad(daySb, calendar.get(Calendar.DAY_OF_MONTH), 2);
+            daySb.append(separator);
+            cachedDayString = daySb.toString();
+            cachedDay = day;
+        }
+
+        int seconds = (int) ((millis - day * MILLIS_PER_DAY) / 1000);
+        sb.append(cachedDayString);
+        pad(sb, seconds / 3600, 2);
+        sb.append(':');
+        pad(sb, (seconds / 60) % 60, 2);
+        sb.append(':');
+        pad(sb, seconds % 60, 2);
+        sb.append(suffix);
+    }
+
+    private static void pad(StringBuilder sb, int value, int width) {
+        int digits = 1;
+        for (int i = value; i >= 10; i /= 10) {
+            digits++;
+        }
+
+        for (int i = digits; i < width; i++) {
+            sb.append('0');
+        }
+
+        sb.append(value);
+    }
+}
@@ -0,0 +1,171 @@
+package vars.query;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ColumnStatisticsCatalogTest {
+
+    private File cacheFile;
+
+    /** The columns that getColumnStatistics was called for, in order */
+    private final List<String> gathered = Collections.synchronizedList(new ArrayList<String>());
+    private volatile String signature = "1";
+
+    @Before
+    public void setup() throws IOException {
+        cacheFile = File.createTempFile("vars-column-statistics-", ".ser");
+        cacheFile.delete();
+    }
+
+    @After
+    public void cleanup() {
+        cacheFile.delete();
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        ColumnStatisticsCatalog catalog = new ColumnStatisticsCatalog(newQueryPersistenceService("url"), cacheFile);
+        assertNull(catalog.get("ConceptName"));
+        assertNull(catalog.get("Depth"));
+        catalog.refresh();
+        assertTrue(cacheFile.exists());
+
+        ColumnStatistics expected = catalog.get("Depth");
+        ColumnStatistics actual = new ColumnStatisticsCatalog(newQueryPersistenceService("url"), cacheFile).get(
+            "Depth");
+        assertNotNull(actual);
+        assertEquals(expected.getColumnType(), actual.getColumnType());
+        assertEquals(expected.getCreated(), actual.getCreated());
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        assertEquals(expected.getTopValues(), actual.getTopValues());
+        assertTrue(Arrays.equals(expected.getHistogram(), actual.getHistogram()));
+        assertNotNull(new ColumnStatisticsCatalog(newQueryPersistenceService("url"), cacheFile).get("ConceptName"));
+
+        // Statistics from another database are ignored
+        assertNull(new ColumnStatisticsCatalog(newQueryPersistenceService("other"), cacheFile).get("Depth"));
+    }
+
+    @Test
+    public void testSkipsUnchangedSignature() {
+        ColumnStatisticsCatalog catalog = new ColumnStatisticsCatalog(newQueryPersistenceService("url"), cacheFile);
+        catalog.get("ConceptName");
+        catalog.refresh();
+        assertEquals(Arrays.asList("ConceptName"), gathered);
+
+        gathered.clear();
+        catalog.get("ConceptName");
+        catalog.refresh();
+        assertTrue("Gathered " + gathered + " with an unchanged signature", gathered.isEmpty());
+
+        // Only requested columns are refreshed
+        signature = "2";
+        catalog.refresh();
+        assertTrue("Gathered " + gathered + " without a request", gathered.isEmpty());
+    }
+
+    @Test
+    public void testRefreshOrder() throws InterruptedException {
+        ColumnStatisticsCatalog catalog = new ColumnStatisticsCatalog(newQueryPersistenceService("url"), cacheFile);
+        for (String columnName : Arrays.asList("Depth", "ConceptName", "RecordedDate")) {
+            catalog.get(columnName);
+            catalog.refresh();
+            Thread.sleep(5);
+        }
+
+        // Unsupported columns are never gathered
+        catalog.get("ObservationID_FK");
+        catalog.get("Unknown");
+        catalog.refresh();
+        assertEquals(Arrays.asList("Depth", "ConceptName", "RecordedDate"), gathered);
+
+        // Stalest first, whatever order they were requested in
+        gathered.clear();
+        signature = "2";
+        catalog.get("RecordedDate");
+        catalog.get("ConceptName");
+        catalog.get("Depth");
+        catalog.refresh();
+        assertEquals(Arrays.asList("Depth", "ConceptName", "RecordedDate"), gathered);
+    }
+
+    @Test
+    public void testIsComplete() {
+        ColumnStatisticsCatalog catalog = new ColumnStatisticsCatalog(newQueryPersistenceService("url"), cacheFile);
+        catalog.get("ConceptName");
+        catalog.get("Observer");
+        catalog.refresh();
+        assertTrue(catalog.get("ConceptName").isComplete());
+        assertFalse(catalog.get("Observer").isComplete());
+    }
+
+    private QueryPersistenceService newQueryPersistenceService(final String url) {
+        final Map<String, String> metadata = new HashMap<String, String>();
+        metadata.put("ConceptName", String.class.getName());
+        metadata.put("Observer", String.class.getName());
+        metadata.put("Depth", Float.class.getName());
+        metadata.put("RecordedDate", java.sql.Timestamp.class.getName());
+        metadata.put("ObservationID_FK", Long.class.getName());
+
+        return (QueryPersistenceService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { QueryPersistenceService.class }, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("getURL")) {
+                    return url;
+                }
+                else if (name.equals("getAnnotationsSignature")) {
+                    return signature;
+                }
+                else if (name.equals("getMetaData")) {
+                    return metadata;
+                }
+                else if (name.equals("getColumnStatistics")) {
+                    String columnName = (String) args[0];
+                    gathered.add(columnName);
+
+                    return newColumnStatistics(columnName, metadata.get(columnName));
+                }
+
+                return null;
+            }
+        });
+    }
+
+    /**
+     * ConceptName holds all of its distinct values, Observer only some of them
+     */
+    private static ColumnStatistics newColumnStatistics(String columnName, String columnType) {
+        Map<Object, Long> topValues = new LinkedHashMap<Object, Long>();
+        if (columnType.equals(String.class.getName())) {
+            topValues.put("Nanomia", 10L);
+            topValues.put("Aegina", 5L);
+        }
+
+        long distinctCount = columnName.equals("Observer") ? 3 : 2;
+        long[] histogram = columnType.equals(Float.class.getName()) ? new long[] { 4, 6 } : new long[0];
+
+        return new ColumnStatistics(columnName, columnType, 20, 5, distinctCount, "A", "Z", topValues, histogram);
+    }
+}
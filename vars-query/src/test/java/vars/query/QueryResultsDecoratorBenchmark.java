@@ -0,0 +1,124 @@
+package vars.query;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mbari.sql.QueryResults;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times {@link QueryResultsDecorator} against a synthetic knowledgebase with 5,000
+ * distinct species and a result set that uses every one of them. It's not picked up
+ * by surefire's default includes; run it explicitly with
+ * <code>mvn test -Dtest=QueryResultsDecoratorBenchmark</code>.
+ *
+ * @author Brian Schlining
+ * @since Oct 18, 2026
+ */
+public class QueryResultsDecoratorBenchmark {
+
+    private static final int SPECIES = 5000;
+    private static final int ROWS = 100000;
+    private static final String[] RANKS = { "phylum", "class", "order", "family", "genus", "species" };
+    private static final int[] COUNTS = { 5, 20, 100, 500, 1000, SPECIES };
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private QueryResultsDecorator decorator;
+
+    @Before
+    public void setup() {
+        ConceptHierarchy.Builder builder = new ConceptHierarchy.Builder();
+        builder.addConcept("root", null, null, null);
+        builder.addName("root", "object", true);
+        builder.addConcept("kingdom", "root", "kingdom", null);
+        builder.addName("kingdom", "Animalia", true);
+
+        String[] parents = { "kingdom" };
+        for (int r = 0; r < RANKS.length; r++) {
+            String[] ids = new String[COUNTS[r]];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = RANKS[r] + "-" + i;
+                builder.addConcept(ids[i], parents[i % parents.length], RANKS[r], null);
+                builder.addName(ids[i], name(r, i), true);
+                builder.addName(ids[i], name(r, i) + " common", false);
+            }
+            parents = ids;
+        }
+
+        final ConceptHierarchy hierarchy = builder.build();
+        decorator = new QueryResultsDecorator(new ConceptHierarchyIndex() {
+
+            public ConceptHierarchy getHierarchy() {
+                return hierarchy;
+            }
+
+            public void invalidate() {
+                // Nothing to do
+            }
+        });
+    }
+
+    @Test
+    public void benchmark() {
+        log.info("---------- BENCHMARK: QueryResultsDecorator with " + SPECIES + " distinct names ----------");
+
+        QueryResults queryResults = newQueryResults();
+        long start = System.nanoTime();
+        decorator.addHierarchy(queryResults);
+        log.info("addHierarchy: " + elapsed(start) + " ms");
+
+        start = System.nanoTime();
+        decorator.addBasicPhylogeny(queryResults);
+        log.info("addBasicPhylogeny: " + elapsed(start) + " ms");
+
+        queryResults = newQueryResults();
+        start = System.nanoTime();
+        decorator.addFullPhylogeny(queryResults);
+        QueryResultsDecorator.dropEmptyColumns(queryResults);
+        log.info("addFullPhylogeny + dropEmptyColumns: " + elapsed(start) + " ms");
+
+        // Row 7 is species-7 -> genus-7 -> family-7 -> order-7 -> class-7 -> phylum-2
+        assertEquals(name(5, 7), queryResults.getResults("species").get(7));
+        assertEquals(name(3, 7), queryResults.getResults("family").get(7));
+        assertEquals(name(0, 2), queryResults.getResults("phylum").get(7));
+    }
+
+    @Test
+    public void hierarchy() {
+        QueryResults queryResults = newQueryResults();
+        decorator.addHierarchy(queryResults);
+        assertEquals("object,Animalia," + name(0, 2) + "," + name(1, 7) + "," + name(2, 7) + "," + name(3, 7) + "," +
+                     name(4, 7) + "," + name(5, 7), queryResults.getResults("Hierarchy").get(7));
+    }
+
+    private QueryResults newQueryResults() {
+        List<Object> conceptNames = new ArrayList<Object>(ROWS);
+        List<Object> ids = new ArrayList<Object>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            conceptNames.add(name(RANKS.length - 1, i % SPECIES));
+            ids.add((long) i);
+        }
+
+        Map<String, List<Object>> map = new TreeMap<String, List<Object>>();
+        map.put("ConceptName", conceptNames);
+        map.put("ObservationID_FK", ids);
+
+        return new QueryResults(map);
+    }
+
+    private static long elapsed(long start) {
+        return (System.nanoTime() - start) / 1000000L;
+    }
+
+    private static String name(int rank, int i) {
+        return RANKS[rank] + "_" + i;
+    }
+}
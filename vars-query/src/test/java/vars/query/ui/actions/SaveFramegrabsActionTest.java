@@ -0,0 +1,216 @@
+package vars.query.ui.actions;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs downloads against a local HTTP server that supports HEAD, Range and
+ * If-Range requests.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class SaveFramegrabsActionTest {
+
+    /** The requests the server received, e.g. "GET bytes=10-" */
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private byte[] body;
+    private File directory;
+    private volatile String eTag;
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void setup() throws IOException {
+        body = new byte[1000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+
+        eTag = "\"v1\"";
+        directory = Files.createTempDirectory("vars-framegrabs-").toFile();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/framegrabs/", new ImageHandler());
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/framegrabs/image.jpg");
+    }
+
+    @After
+    public void cleanup() {
+        server.stop(0);
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        writePart(Arrays.copyOf(body, 100), "\"v1\"");
+        download();
+        assertDownloaded(body);
+        assertEquals(Arrays.asList("GET bytes=100- \"v1\""), requests);
+    }
+
+    @Test
+    public void testChangedETag() throws IOException {
+        writePart(Arrays.copyOf(body, 100), "\"v0\"");
+        download();
+
+        // The server ignores the range so the part is thrown away rather than appended to
+        assertDownloaded(body);
+        assertEquals(Arrays.asList("GET bytes=100- \"v0\""), requests);
+    }
+
+    @Test
+    public void testCompletePart() throws IOException {
+        writePart(body, "\"v1\"");
+        download();
+        assertDownloaded(body);
+        assertEquals(Arrays.asList("GET bytes=1000- \"v1\""), requests);
+    }
+
+    @Test
+    public void testOversizedPart() throws IOException {
+        writePart(new byte[1200], "\"v1\"");
+        download();
+        assertDownloaded(body);
+        assertEquals(Arrays.asList("GET bytes=1200- \"v1\"", "GET"), requests);
+    }
+
+    @Test
+    public void testPartWithoutValidator() throws IOException {
+        writePart(new byte[100], null);
+        download();
+        assertDownloaded(body);
+        assertEquals(Arrays.asList("GET"), requests);
+    }
+
+    @Test
+    public void testUnchangedWithoutETag() throws IOException {
+        eTag = null;
+        download();
+        assertDownloaded(body);
+        requests.clear();
+
+        // Checked with a HEAD instead of fetching the image again
+        download();
+        assertDownloaded(body);
+        assertEquals(Arrays.asList("HEAD"), requests);
+    }
+
+    @Test
+    public void testUnchangedWithETag() throws IOException {
+        download();
+        requests.clear();
+        download();
+        assertDownloaded(body);
+        assertEquals(Arrays.asList("GET \"v1\""), requests);
+    }
+
+    private void assertDownloaded(byte[] expected) throws IOException {
+        File file = new File(directory, "image.jpg");
+        assertTrue(file.exists());
+        assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+        assertFalse(new File(directory, "image.jpg.part").exists());
+    }
+
+    private void download() {
+        SaveFramegrabsAction action = new SaveFramegrabsAction();
+        action.setUrls(new URL[] { url });
+        action.setSaveLocation(directory);
+        action.setMaxAttempts(1);
+        action.doAction();
+    }
+
+    private void writePart(byte[] bytes, String validator) throws IOException {
+        OutputStream out = new FileOutputStream(new File(directory, "image.jpg.part"));
+        try {
+            out.write(bytes);
+        }
+        finally {
+            out.close();
+        }
+
+        FramegrabManifest manifest = new FramegrabManifest(directory);
+        manifest.putPartValidator(url.toExternalForm(), validator);
+        manifest.save();
+    }
+
+    private class ImageHandler implements HttpHandler {
+
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            StringBuilder sb = new StringBuilder(method);
+            for (String header : new String[] { range, ifRange, ifNoneMatch }) {
+                if (header != null) {
+                    sb.append(" ").append(header);
+                }
+            }
+
+            requests.add(sb.toString());
+
+            if (eTag != null) {
+                exchange.getResponseHeaders().set("ETag", eTag);
+            }
+
+            if (method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+
+                return;
+            }
+
+            if ((ifNoneMatch != null) && ifNoneMatch.equals(eTag)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+
+                return;
+            }
+
+            int start = 0;
+            int code = 200;
+            if ((range != null) && ((ifRange == null) || ifRange.equals(eTag))) {
+                start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+                if (start >= body.length) {
+                    exchange.getResponseHeaders().set("Content-Range", "bytes */" + body.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    exchange.close();
+
+                    return;
+                }
+
+                code = 206;
+                exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + start + "-" + (body.length - 1) + "/" + body.length);
+            }
+
+            exchange.sendResponseHeaders(code, body.length - start);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body, start, body.length - start);
+            out.close();
+        }
+    }
+}
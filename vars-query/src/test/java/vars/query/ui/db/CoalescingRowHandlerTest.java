@@ -0,0 +1,103 @@
+package vars.query.ui.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class CoalescingRowHandlerTest {
+
+    private static final List<String> COLUMN_NAMES = Arrays.asList("ObservationID_FK", "ConceptName", "Associations");
+
+    /**
+     * Copies each row as the arrays may be reused
+     */
+    private static class CollectingRowHandler implements RowHandler {
+
+        final List<List<Object>> rows = new ArrayList<List<Object>>();
+        boolean finished;
+
+        public void start(List<String> columnNames) {}
+
+        public void row(Object[] row) {
+            rows.add(Arrays.asList(Arrays.copyOf(row, row.length)));
+        }
+
+        public void finish() {
+            finished = true;
+        }
+    }
+
+    private static CollectingRowHandler coalesce(Object[]... rows) {
+        CollectingRowHandler collector = new CollectingRowHandler();
+        RowHandler rowHandler = new CoalescingRowHandler("observationid_fk", collector);
+        rowHandler.start(COLUMN_NAMES);
+        for (Object[] row : rows) {
+            rowHandler.row(row);
+        }
+
+        rowHandler.finish();
+        assertTrue(collector.finished);
+
+        return collector;
+    }
+
+    private static List<Object> row(Object... values) {
+        return Arrays.asList(values);
+    }
+
+    @Test
+    public void testCoalesce() {
+        CollectingRowHandler collector = coalesce(new Object[] { 1, "rock", "color | self | red" },
+                                                  new Object[] { 1, "rock", "size | self | big" },
+                                                  new Object[] { 2, "fish", null },
+                                                  new Object[] { 3, "squid", "color | self | red" });
+        assertEquals(3, collector.rows.size());
+        assertEquals(row(1, "rock", "color | self | red, size | self | big"), collector.rows.get(0));
+        assertEquals(row(2, "fish", null), collector.rows.get(1));
+        assertEquals(row(3, "squid", "color | self | red"), collector.rows.get(2));
+    }
+
+    @Test
+    public void testNullKeysAreNotCoalesced() {
+
+        // Nulls sort first so they arrive at the start of the stream
+        CollectingRowHandler collector = coalesce(new Object[] { null, "rock", "color | self | red" },
+                                                  new Object[] { null, "fish", "size | self | big" },
+                                                  new Object[] { 1, "squid", "color | self | blue" },
+                                                  new Object[] { 1, "squid", "size | self | small" });
+        assertEquals(3, collector.rows.size());
+        assertEquals(row(null, "rock", "color | self | red"), collector.rows.get(0));
+        assertEquals(row(null, "fish", "size | self | big"), collector.rows.get(1));
+        assertEquals(row(1, "squid", "color | self | blue, size | self | small"), collector.rows.get(2));
+    }
+
+    @Test
+    public void testNullKeysAfterKeyedRows() {
+        CollectingRowHandler collector = coalesce(new Object[] { 1, "rock", "color | self | red" },
+                                                  new Object[] { 1, "rock", "size | self | big" },
+                                                  new Object[] { null, "fish", null },
+                                                  new Object[] { null, "squid", null });
+        assertEquals(3, collector.rows.size());
+        assertEquals(row(1, "rock", "color | self | red, size | self | big"), collector.rows.get(0));
+        assertEquals(row(null, "fish", null), collector.rows.get(1));
+        assertEquals(row(null, "squid", null), collector.rows.get(2));
+    }
+
+    @Test
+    public void testMissingKeyColumn() {
+        CollectingRowHandler collector = new CollectingRowHandler();
+        RowHandler rowHandler = new CoalescingRowHandler("missing", collector);
+        rowHandler.start(COLUMN_NAMES);
+        rowHandler.row(new Object[] { 1, "rock", null });
+        rowHandler.row(new Object[] { 1, "rock", null });
+        rowHandler.finish();
+        assertEquals(2, collector.rows.size());
+    }
+}
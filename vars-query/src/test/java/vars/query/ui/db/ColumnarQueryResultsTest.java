@@ -0,0 +1,204 @@
+package vars.query.ui.db;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.mbari.sql.QueryResults;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Brian Schlining
+ * @since Oct 18, 2026
+ */
+public class ColumnarQueryResultsTest {
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, List<Object>> map = new TreeMap<>();
+        map.put("ConceptName", Lists.<Object>newArrayList("Nanomia", "Nanomia", null, "Aegina"));
+        map.put("Depth", Lists.<Object>newArrayList(100.5F, null, 200F, 300.25F));
+        map.put("Latitude", Lists.<Object>newArrayList(36.1D, 36.2D, 36.3D, null));
+        map.put("ObservationID_FK", Lists.<Object>newArrayList(1L, 2L, 3L, 4L));
+        map.put("RecordedDate", Lists.<Object>newArrayList(new Timestamp(1000L), null, new Timestamp(3000L),
+                new Timestamp(4000L)));
+        map.put("Mixed", Lists.<Object>newArrayList(1, "two", null, 4));
+        map.put("Empty", Lists.<Object>newArrayList(null, null, null, null));
+        QueryResults queryResults = new QueryResults(map);
+
+        ColumnarQueryResults results = ColumnarQueryResults.from(queryResults);
+        assertEquals(4, results.getRowCount());
+        assertEquals(queryResults.columnCount(), results.getColumnCount());
+        for (String columnName : map.keySet()) {
+            assertEquals("Column " + columnName + " differs", map.get(columnName), results.getResults(columnName));
+        }
+
+        List<Object> depths = results.getResults("depth");
+        assertTrue("Float should come back as a Float", depths.get(0) instanceof Float);
+        assertTrue("Timestamp should come back as a Timestamp",
+                   results.getResults("RecordedDate").get(0) instanceof Timestamp);
+        assertNull(results.getResults("NotAColumn"));
+    }
+
+    /**
+     * Every kind of column, and the spool that the cache spills to, returns values
+     * of the same class and value as the JDBC results it was built from
+     */
+    @Test
+    public void testKindsRoundTrip() {
+        Timestamp timestamp = new Timestamp(1287446400123L);
+        timestamp.setNanos(123456789);
+        Map<String, List<Object>> map = new TreeMap<>();
+        map.put("Byte", Lists.<Object>newArrayList((byte) 1, null, (byte) -2));
+        map.put("Short", Lists.<Object>newArrayList((short) 1, null, (short) -2));
+        map.put("Int", Lists.<Object>newArrayList(1, null, -2));
+        map.put("Long", Lists.<Object>newArrayList(1L, null, -2L));
+        map.put("Float", Lists.<Object>newArrayList(1.5F, null, -2.25F));
+        map.put("Double", Lists.<Object>newArrayList(1.5D, null, -2.25D));
+        map.put("Boolean", Lists.<Object>newArrayList(true, null, false));
+        map.put("Timestamp", Lists.<Object>newArrayList(timestamp, null, new Timestamp(0L)));
+        map.put("SqlDate", Lists.<Object>newArrayList(new java.sql.Date(86400000L), null, new java.sql.Date(0L)));
+        map.put("Date", Lists.<Object>newArrayList(new Date(1000L), null, new Date(2000L)));
+        map.put("String", Lists.<Object>newArrayList("a", null, "a"));
+        map.put("Object", Lists.<Object>newArrayList(new BigDecimal("1.25"), null, new BigDecimal("-2")));
+        map.put("Empty", Lists.<Object>newArrayList(null, null, null));
+        QueryResults queryResults = new QueryResults(map);
+
+        ColumnarQueryResults results = ColumnarQueryResults.from(queryResults);
+        RowSpool spool = new RowSpool();
+        try {
+            results.replay(spool);
+            QueryResultsBuilder builder = new QueryResultsBuilder();
+            spool.replay(builder);
+            QueryResults spooled = builder.build();
+            for (String columnName : map.keySet()) {
+                assertSameValues(columnName, map.get(columnName), results.getResults(columnName));
+                assertSameValues(columnName, map.get(columnName), spooled.getResults(columnName));
+            }
+        }
+        finally {
+            spool.delete();
+        }
+    }
+
+    /**
+     * A dive-wide query, with repetitive strings, takes at least 5 times less
+     * memory than the boxed values of a QueryResults
+     */
+    @Test
+    public void testFootprint() {
+        int rows = 50000;
+        String[] rovNames = { "Ventana", "Tiburon", "Doc Ricketts" };
+        Map<String, List<Object>> map = new TreeMap<>();
+        String[] columnNames = { "ObservationID_FK", "ConceptName", "RecordedDate", "Latitude", "Longitude",
+                                 "Depth", "RovName", "Observer", "LinkName", "ToConcept", "LinkValue" };
+        for (String columnName : columnNames) {
+            map.put(columnName, new ArrayList<Object>(rows));
+        }
+
+        for (int i = 0; i < rows; i++) {
+            boolean hasAssociation = i % 10 == 0;
+
+            // new String(...) as each row from JDBC is a separate instance
+            map.get("ObservationID_FK").add((long) i);
+            map.get("ConceptName").add(new String("concept-" + (i * 31) % 500));
+            map.get("RecordedDate").add(new Timestamp(1287446400000L + i * 1500L));
+            map.get("Latitude").add(36.5 + (i % 1000) / 10000D);
+            map.get("Longitude").add(-122.0 - (i % 1000) / 10000D);
+            map.get("Depth").add((float) (i % 4000));
+            map.get("RovName").add(new String(rovNames[i / 20000]));
+            map.get("Observer").add(new String("observer-" + (i % 8)));
+            map.get("LinkName").add(hasAssociation ? new String("eating") : new String("nil"));
+            map.get("ToConcept").add(hasAssociation ? new String("concept-" + (i / 10) % 500) : new String("nil"));
+            map.get("LinkValue").add(new String("nil"));
+        }
+
+        long boxed = 0;
+        for (List<Object> values : map.values()) {
+            boxed += estimateBoxedSize(values);
+        }
+
+        ColumnarQueryResults results = ColumnarQueryResults.from(new QueryResults(map));
+        long columnar = results.getEstimatedSize();
+        assertTrue("Columnar results use " + columnar + " bytes, boxed use " + boxed, columnar * 5 <= boxed);
+    }
+
+    /**
+     * Building a column must take amortized constant time per row. A million
+     * Timestamps finish in well under a second unless the arrays are copied per row.
+     */
+    @Test(timeout = 10000)
+    public void testLargeTimestampColumn() {
+        int rows = 1000000;
+        ColumnarQueryResults.Builder builder = new ColumnarQueryResults.Builder();
+        builder.start(Arrays.asList("RecordedDate"));
+        for (int i = 0; i < rows; i++) {
+            Timestamp timestamp = new Timestamp(1287446400000L + i * 1000L);
+            timestamp.setNanos((i % 1000) * 1000000 + i % 1000);
+            builder.row(new Object[] { timestamp });
+        }
+
+        builder.finish();
+        ColumnarQueryResults results = builder.build();
+        assertEquals(rows, results.getRowCount());
+        for (int i = 0; i < rows; i += 99991) {
+            Timestamp timestamp = (Timestamp) results.getValueAt(i, 0);
+            assertEquals(1287446400000L + i * 1000L + i % 1000, timestamp.getTime());
+            assertEquals((i % 1000) * 1000000 + i % 1000, timestamp.getNanos());
+        }
+    }
+
+    private static void assertSameValues(String columnName, List<Object> expected, List<Object> actual) {
+        assertEquals("Column " + columnName + " differs", expected, actual);
+        for (int i = 0; i < expected.size(); i++) {
+            Object value = expected.get(i);
+            if (value != null) {
+                assertEquals("Column " + columnName + " has the wrong type", value.getClass(),
+                             actual.get(i).getClass());
+            }
+        }
+    }
+
+    /**
+     * The size of a List of boxed values on a 64-bit VM: an 8 byte reference per
+     * row plus the object. Strings are assumed not to be shared between rows
+     */
+    private static long estimateBoxedSize(List<Object> values) {
+        long bytes = 8L * values.size();
+        for (Object value : values) {
+            if (value instanceof String) {
+                bytes += 40 + 2 * ((String) value).length();
+            }
+            else if (value instanceof Date) {
+                bytes += 32;
+            }
+            else if (value != null) {
+                bytes += 16;
+            }
+        }
+
+        return bytes;
+    }
+
+    @Test
+    public void testReplay() {
+        Map<String, List<Object>> map = new TreeMap<>();
+        map.put("A", Lists.<Object>newArrayList("x", "y"));
+        map.put("B", Lists.<Object>newArrayList(1, null));
+        ColumnarQueryResults results = ColumnarQueryResults.from(new QueryResults(map));
+
+        ColumnarQueryResults.Builder builder = new ColumnarQueryResults.Builder();
+        results.replay(builder);
+        ColumnarQueryResults copy = builder.build();
+        assertEquals(results.getColumnNames(), copy.getColumnNames());
+        assertEquals("y", copy.getValueAt(1, copy.findColumn("A")));
+        assertNull(copy.getValueAt(1, copy.findColumn("B")));
+    }
+}
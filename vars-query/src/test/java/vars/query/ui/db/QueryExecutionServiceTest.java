@@ -0,0 +1,110 @@
+package vars.query.ui.db;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class QueryExecutionServiceTest {
+
+    @Test
+    public void testCancelBeforeStatement() {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        QueryContext context = new QueryContext();
+        context.cancel();
+        assertTrue(context.isCancelled());
+        assertFalse(context.isTimedOut());
+
+        // A statement registered after the cancel is cancelled straight away
+        context.setStatement(newStatement(cancelled));
+        assertEquals(0, cancelled.getCount());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        QueryExecutionService service = new QueryExecutionService(1, 1);
+        final QueryContext context = service.newQueryContext();
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        Future<?> future = service.submit(new Runnable() {
+
+            public void run() {
+                context.setStatement(newStatement(cancelled));
+                try {
+                    cancelled.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                context.setStatement(null);
+            }
+        }, context);
+        future.get(10, TimeUnit.SECONDS);
+        assertEquals("The statement was not cancelled", 0, cancelled.getCount());
+        assertTrue(context.isTimedOut());
+        service.shutdown();
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        QueryExecutionService service = new QueryExecutionService(2, 0);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        Future<?>[] futures = new Future<?>[6];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = service.submit(new Runnable() {
+
+                public void run() {
+                    int n = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(n, maxRunning.get()));
+                    }
+
+                    try {
+                        Thread.sleep(50);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    running.decrementAndGet();
+                }
+            }, service.newQueryContext());
+        }
+
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertTrue("More than 2 queries ran at once", maxRunning.get() <= 2);
+        service.shutdown();
+    }
+
+    /**
+     * @return A Statement whose cancel() counts down the latch
+     */
+    private Statement newStatement(final CountDownLatch cancelled) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+                new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("cancel")) {
+                    cancelled.countDown();
+                }
+
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package vars.query.ui.db;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.mbari.sql.QueryResults;
+import vars.VARSException;
+import vars.query.QueryPersistenceService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class QueryResultsCacheTest {
+
+    @Test
+    public void testRoundTrip() {
+        QueryResultsCache cache = new QueryResultsCache(newQueryPersistenceService());
+        cache.put("a", newQueryResults());
+        assertNull(cache.get("b"));
+
+        QueryResults first = cache.get("a");
+        assertResults(first);
+
+        // Each call returns a new copy that can be decorated
+        QueryResults second = cache.get("a");
+        assertNotSame(first, second);
+        assertResults(second);
+    }
+
+    @Test
+    public void testSpill() {
+        QueryResultsCache cache = new QueryResultsCache(newQueryPersistenceService(), 0, Long.MAX_VALUE);
+        cache.put("a", newQueryResults());
+        cache.put("b", newQueryResults());
+        assertEquals(2, cache.size());
+        assertResults(cache.get("a"));
+        assertResults(cache.get("b"));
+        cache.clear();
+    }
+
+    @Test
+    public void testNoDisk() {
+        QueryResultsCache cache = new QueryResultsCache(newQueryPersistenceService(), 0, 0);
+        cache.put("a", newQueryResults());
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testUnreadableSignatureBypassesCache() {
+        QueryPersistenceService queryPersistenceService = (QueryPersistenceService) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { QueryPersistenceService.class }, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getAnnotationsSignature")) {
+                    throw new VARSException("Permission denied on sys.partitions");
+                }
+
+                return null;
+            }
+        });
+
+        // Nothing is cached and nothing is thrown, so the query goes on to the database
+        QueryResultsCache cache = new QueryResultsCache(queryPersistenceService);
+        cache.put("a", newQueryResults());
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    private void assertResults(QueryResults queryResults) {
+        assertNotNull(queryResults);
+        assertEquals(3, queryResults.rowCount());
+        assertEquals(Lists.<Object>newArrayList("Nanomia", null, "Aegina"), queryResults.getResults("ConceptName"));
+        assertEquals(Lists.<Object>newArrayList(1L, 2L, 3L), queryResults.getResults("ObservationID_FK"));
+        assertEquals(new Timestamp(2000L), queryResults.getResults("RecordedDate").get(1));
+    }
+
+    private QueryResults newQueryResults() {
+        Map<String, List<Object>> map = new TreeMap<>();
+        map.put("ConceptName", Lists.<Object>newArrayList("Nanomia", null, "Aegina"));
+        map.put("ObservationID_FK", Lists.<Object>newArrayList(1L, 2L, 3L));
+        map.put("RecordedDate", Lists.<Object>newArrayList(new Timestamp(1000L), new Timestamp(2000L), null));
+
+        return new QueryResults(map);
+    }
+
+    private QueryPersistenceService newQueryPersistenceService() {
+        return (QueryPersistenceService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { QueryPersistenceService.class }, new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("getAnnotationsSignature") ? "signature" : null;
+            }
+        });
+    }
+}
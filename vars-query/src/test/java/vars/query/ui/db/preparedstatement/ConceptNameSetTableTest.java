@@ -0,0 +1,141 @@
+package vars.query.ui.db.preparedstatement;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import vars.LinkBean;
+import vars.query.ui.ConceptConstraints;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that concept names selected through the {@link ConceptNameSetTable}
+ * return the same rows as an inlined IN list. Uses an in-memory Derby database.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ConceptNameSetTableTest {
+
+    private static final int CONCEPTS = 200;
+    private static final int ROWS = 2000;
+    private Connection connection;
+    private ConceptNameSetTable table;
+
+    @Before
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:derby:memory:conceptNameSetTableTest;create=true");
+        ConceptNameSubtreeBenchmark.createAnnotations(connection, ROWS, CONCEPTS);
+        table = new ConceptNameSetTable();
+    }
+
+    @After
+    public void cleanup() throws SQLException {
+        Statement statement = connection.createStatement();
+        statement.executeUpdate("DROP TABLE Annotations");
+        statement.close();
+        connection.close();
+    }
+
+    @Test
+    public void testSameResults() throws SQLException {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < CONCEPTS / 2; i++) {
+            names.add(ConceptNameSubtreeBenchmark.name(i));
+        }
+
+        ConceptConstraints conceptConstraints = new ConceptConstraints();
+        conceptConstraints.setConceptNamesAsStrings(names);
+        List<Long> expected = ConceptNameSubtreeBenchmark.query(connection, conceptConstraints, null, 0);
+        List<Long> actual = ConceptNameSubtreeBenchmark.query(connection, conceptConstraints, table, 10);
+        assertFalse("Expected some rows", expected.isEmpty());
+        assertEquals(expected, actual);
+        assertEquals("The concept name set was not removed", 0, countNameSetRows());
+
+        // With a toConcept the names are only matched against ConceptName
+        LinkBean linkBean = new LinkBean("eating", ConceptNameSubtreeBenchmark.name(3),
+                                         ConceptConstraints.WILD_CARD_STRING);
+        conceptConstraints.setAssociationBean(linkBean);
+        expected = ConceptNameSubtreeBenchmark.query(connection, conceptConstraints, null, 0);
+        actual = ConceptNameSubtreeBenchmark.query(connection, conceptConstraints, table, 10);
+        assertFalse("Expected some rows", expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testTemplateDoesNotGrow() {
+        String template = null;
+        for (int n = 20; n <= 80; n += 20) {
+            List<String> names = new ArrayList<String>();
+            for (int i = 0; i < n; i++) {
+                names.add(ConceptNameSubtreeBenchmark.name(i));
+            }
+
+            ConceptConstraints conceptConstraints = new ConceptConstraints();
+            conceptConstraints.setConceptNamesAsStrings(names);
+            ConceptConstraintsWrapper wrapper = new ConceptConstraintsWrapper(conceptConstraints);
+            wrapper.prepare(connection, table, 10);
+            String sql = wrapper.toSQL();
+            wrapper.release(connection, table);
+            if (template != null) {
+                assertEquals(template, sql);
+            }
+
+            template = sql;
+        }
+    }
+
+    @Test
+    public void testSessionScoped() throws SQLException {
+        assertTrue(table.isAvailable(connection));
+        String setId = table.insert(connection, Arrays.asList("a", "b", "c"));
+        assertEquals(3, countNameSetRows());
+
+        // Another session can't see the table, so it's not part of the schema
+        Connection other = DriverManager.getConnection("jdbc:derby:memory:conceptNameSetTableTest");
+        try {
+            Statement statement = other.createStatement();
+            try {
+                statement.executeQuery("SELECT COUNT(*) FROM " + table.getTableName()).close();
+                fail(table.getTableName() + " is visible outside the session that declared it");
+            }
+            catch (SQLException e) {
+
+                // Expected
+            }
+            finally {
+                statement.close();
+            }
+
+            // A new session declares its own, empty, table
+            String otherSetId = table.insert(other, Arrays.asList("d"));
+            assertFalse(setId.equals(otherSetId));
+        }
+        finally {
+            other.close();
+        }
+
+        table.delete(connection, setId);
+        assertEquals(0, countNameSetRows());
+    }
+
+    private int countNameSetRows() throws SQLException {
+        PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM " + table.getTableName());
+        ResultSet resultSet = statement.executeQuery();
+        resultSet.next();
+        int n = resultSet.getInt(1);
+        resultSet.close();
+        statement.close();
+
+        return n;
+    }
+}
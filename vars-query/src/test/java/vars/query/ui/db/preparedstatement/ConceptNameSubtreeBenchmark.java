@@ -0,0 +1,190 @@
+package vars.query.ui.db.preparedstatement;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.query.ui.ConceptConstraints;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares inlining the concept names of a subtree as an IN list with joining
+ * them from the {@link ConceptNameSetTable}, on a generated Annotations table of
+ * 1,000,000 rows in an in-memory Derby database. It logs the time of each strategy
+ * for subtrees of increasing size. It's not picked up by surefire's default
+ * includes; run it explicitly with
+ * <code>mvn test -Dtest=ConceptNameSubtreeBenchmark</code>.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ConceptNameSubtreeBenchmark {
+
+    private static final int CONCEPTS = 10000;
+    private static final int ROWS = 1000000;
+    private static final int[] SUBTREE_SIZES = { 10, 100, 1000, 5000 };
+    private static final int RUNS = 3;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private Connection connection;
+
+    @Before
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:derby:memory:conceptNameSubtreeBenchmark;create=true");
+        long start = System.nanoTime();
+        createAnnotations(connection, ROWS, CONCEPTS);
+        log.info("Generated " + ROWS + " annotations in " + elapsed(start) + " ms");
+    }
+
+    @After
+    public void cleanup() throws SQLException {
+        Statement statement = connection.createStatement();
+        statement.executeUpdate("DROP TABLE Annotations");
+        statement.close();
+        connection.close();
+    }
+
+    @Test
+    public void benchmark() throws SQLException {
+        log.info("---------- BENCHMARK: concept subtree predicates on " + ROWS + " annotations ----------");
+
+        ConceptNameSetTable table = new ConceptNameSetTable();
+        for (int size : SUBTREE_SIZES) {
+            List<String> names = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                names.add(name(i));
+            }
+
+            ConceptConstraints conceptConstraints = new ConceptConstraints();
+            conceptConstraints.setConceptNamesAsStrings(names);
+
+            List<Long> inListRows = null;
+            long inListTime = Long.MAX_VALUE;
+            try {
+                for (int i = 0; i < RUNS; i++) {
+                    long start = System.nanoTime();
+                    inListRows = query(connection, conceptConstraints, null, 0);
+                    inListTime = Math.min(inListTime, elapsed(start));
+                }
+            }
+            catch (SQLException e) {
+                log.info(size + " names: the IN list failed: " + e.getMessage());
+            }
+
+            List<Long> tableRows = null;
+            long tableTime = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                tableRows = query(connection, conceptConstraints, table, 0);
+                tableTime = Math.min(tableTime, elapsed(start));
+            }
+
+            if (inListRows != null) {
+                assertEquals(inListRows, tableRows);
+                log.info(size + " names, " + tableRows.size() + " rows: IN list = " + inListTime +
+                         " ms, name set table = " + tableTime + " ms");
+            }
+            else {
+                log.info(size + " names, " + tableRows.size() + " rows: name set table = " + tableTime + " ms");
+            }
+        }
+    }
+
+    /**
+     * Creates (or replaces) an Annotations table with the columns used by the
+     * concept constraints. Every tenth row has a ToConcept.
+     */
+    static void createAnnotations(Connection connection, int rows, int concepts) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeUpdate("DROP TABLE Annotations");
+        }
+        catch (SQLException e) {
+
+            // It doesn't exist yet
+        }
+
+        statement.executeUpdate("CREATE TABLE Annotations (ObservationID_FK BIGINT NOT NULL, " +
+                                "ConceptName VARCHAR(50) NOT NULL, LinkName VARCHAR(50), ToConcept VARCHAR(128), " +
+                                "LinkValue VARCHAR(255))");
+        statement.executeUpdate("CREATE INDEX idx_Annotations_ConceptName ON Annotations (ConceptName)");
+        statement.executeUpdate("CREATE INDEX idx_Annotations_ToConcept ON Annotations (ToConcept)");
+        statement.close();
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO Annotations " +
+            "(ObservationID_FK, ConceptName, LinkName, ToConcept, LinkValue) VALUES (?, ?, ?, ?, ?)");
+        for (int i = 0; i < rows; i++) {
+            boolean hasAssociation = i % 10 == 0;
+            insert.setLong(1, i);
+            insert.setString(2, name(i % concepts));
+            insert.setString(3, hasAssociation ? "eating" : null);
+            insert.setString(4, hasAssociation ? name((i / 10) % concepts) : null);
+            insert.setString(5, hasAssociation ? "nil" : null);
+            insert.addBatch();
+            if (i % 10000 == 9999) {
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+
+        insert.executeBatch();
+        connection.commit();
+        insert.close();
+        connection.setAutoCommit(autoCommit);
+    }
+
+    static String name(int i) {
+        return "concept-" + i;
+    }
+
+    /**
+     * Runs the constraint the same way {@link EscapedQueryExecutorImpl} does.
+     *
+     * @return The sorted ObservationID_FKs that match
+     */
+    static List<Long> query(Connection connection, ConceptConstraints conceptConstraints,
+                            ConceptNameSetTable table, int maxInListSize) throws SQLException {
+        ConceptConstraintsWrapper wrapper = new ConceptConstraintsWrapper(conceptConstraints);
+        wrapper.prepare(connection, table, maxInListSize);
+        List<Long> ids = new ArrayList<Long>();
+        try {
+            PreparedStatement statement = connection.prepareStatement("SELECT ObservationID_FK FROM Annotations " +
+                "WHERE " + wrapper.toSQL());
+            try {
+                wrapper.bind(statement, 1);
+                ResultSet resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+
+                resultSet.close();
+            }
+            finally {
+                statement.close();
+            }
+        }
+        finally {
+            wrapper.release(connection, table);
+        }
+
+        Collections.sort(ids);
+
+        return ids;
+    }
+
+    private static long elapsed(long start) {
+        return (System.nanoTime() - start) / 1000000L;
+    }
+}
@@ -0,0 +1,190 @@
+package vars.query.ui.export;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vars.VARSException;
+import vars.query.ui.db.RowHandler;
+import vars.query.ui.db.RowSource;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exports 1,000,000 generated annotation rows in each {@link ExportFormat} and
+ * logs the throughput (MB/s of output and rows/s) and the file size. As a baseline
+ * it also writes the tab-delimited text the way the export used to: a
+ * <code>SimpleDateFormat</code> per value and string concatenation per cell. It's
+ * not picked up by surefire's default includes; run it explicitly with
+ * <code>mvn test -Dtest=ExportBenchmark</code>.
+ *
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class ExportBenchmark {
+
+    private static final List<String> COLUMN_NAMES = Arrays.asList("ObservationID_FK", "ConceptName",
+        "RecordedDate", "Latitude", "Longitude", "Depth", "Observer", "Notes", "LinkName", "ToConcept", "LinkValue");
+    private static final int CONCEPTS = 500;
+    private static final int ROWS = 1000000;
+    private static final int RUNS = 3;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("vars-export-benchmark-", ".tmp");
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void benchmark() throws IOException {
+        log.info("---------- BENCHMARK: exporting " + ROWS + " rows ----------");
+        RowSource rowSource = new GeneratedRowSource(ROWS);
+
+        // Warm up
+        RowExporter.export(new GeneratedRowSource(ROWS / 10), file, ExportFormat.TAB_DELIMITED, "SELECT", "db");
+        legacyExport(new GeneratedRowSource(ROWS / 10), file);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            legacyExport(rowSource, file);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        report("Tab-delimited text (old writer)", best);
+
+        for (ExportFormat format : ExportFormat.values()) {
+            best = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                RowExporter.export(rowSource, file, format, "SELECT", "db");
+                best = Math.min(best, System.nanoTime() - start);
+            }
+
+            report(format.getDescription(), best);
+        }
+
+        assertEquals(ROWS, new ColumnarRowReader(file).getRowCount());
+    }
+
+    private void report(String name, long nanos) {
+        double seconds = nanos / 1E9;
+        double megabytes = file.length() / (1024D * 1024D);
+        log.info(String.format("%-32s %8.1f MB in %6.2f s = %7.1f MB/s, %,10.0f rows/s", name, megabytes, seconds,
+                               megabytes / seconds, ROWS / seconds));
+    }
+
+    /**
+     * Writes rows the way SaveQueryResultsAction did before the exporters
+     */
+    private static void legacyExport(RowSource rowSource, final File file) throws IOException {
+        final Writer out = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(file)),
+            "UTF-8"));
+        final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            rowSource.replay(new RowHandler() {
+
+                public void start(List<String> columnNames) {
+                    StringBuilder sb = new StringBuilder();
+                    for (String columnName : columnNames) {
+                        sb.append(columnName).append("\t");
+                    }
+
+                    write(sb.toString() + "\n");
+                }
+
+                public void row(Object[] row) {
+                    String line = "";
+                    for (Object value : row) {
+                        String s = (value == null) ? "" : (value instanceof Date)
+                                ? dateFormat.format((Date) value) : value.toString();
+                        line = line + s + "\t";
+                    }
+
+                    write(line + "\n");
+                }
+
+                public void finish() {}
+
+                private void write(String s) {
+                    try {
+                        out.write(s);
+                    }
+                    catch (IOException e) {
+                        throw new VARSException("Failed to write " + file.getAbsolutePath(), e);
+                    }
+                }
+            });
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Rows that look like a typical annotation query: every tenth row has an
+     * association and every fifth has notes.
+     */
+    private static class GeneratedRowSource implements RowSource {
+
+        private final int rows;
+
+        GeneratedRowSource(int rows) {
+            this.rows = rows;
+        }
+
+        public long getRowCount() {
+            return rows;
+        }
+
+        public void replay(RowHandler rowHandler) {
+            String[] concepts = new String[CONCEPTS];
+            for (int i = 0; i < CONCEPTS; i++) {
+                concepts[i] = "concept-" + i;
+            }
+
+            long time = 1287446400000L;
+            Object[] row = new Object[COLUMN_NAMES.size()];
+            rowHandler.start(COLUMN_NAMES);
+            for (int i = 0; i < rows; i++) {
+                boolean hasAssociation = i % 10 == 0;
+                row[0] = (long) i;
+                row[1] = concepts[(i * 31) % CONCEPTS];
+                row[2] = new Timestamp(time + i * 1500L);
+                row[3] = 36.5 + (i % 1000) / 10000D;
+                row[4] = -122.0 - (i % 1000) / 10000D;
+                row[5] = (float) (i % 4000);
+                row[6] = "observer-" + (i % 8);
+                row[7] = (i % 5 == 0) ? "Seen near the seafloor" : null;
+                row[8] = hasAssociation ? "eating" : null;
+                row[9] = hasAssociation ? concepts[(i / 10) % CONCEPTS] : null;
+                row[10] = hasAssociation ? "nil" : null;
+                rowHandler.row(row);
+            }
+
+            rowHandler.finish();
+        }
+    }
+}
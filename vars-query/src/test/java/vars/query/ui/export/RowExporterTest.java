@@ -0,0 +1,149 @@
+package vars.query.ui.export;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.mbari.sql.QueryResults;
+import vars.query.ui.db.ColumnarQueryResults;
+import vars.query.ui.db.QueryResultsRowSource;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * @author Brian Schlining
+ * @since 2026-10-18
+ */
+public class RowExporterTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("vars-export-", ".tmp");
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testColumnarRoundTrip() {
+        QueryResults queryResults = newQueryResults(ColumnarRowWriter.GROUP_SIZE + 10);
+        RowExporter.export(new QueryResultsRowSource(queryResults), file, ExportFormat.COLUMNAR, "SELECT", "db");
+
+        ColumnarRowReader reader = new ColumnarRowReader(file);
+        assertEquals(queryResults.rowCount(), reader.getRowCount());
+        ColumnarQueryResults.Builder builder = new ColumnarQueryResults.Builder();
+        reader.replay(builder);
+        ColumnarQueryResults copy = builder.build();
+        for (Object columnName : queryResults.getColumnNames()) {
+            String name = (String) columnName;
+            assertEquals("Column " + name + " differs", queryResults.getResults(name), copy.getResults(name));
+        }
+    }
+
+    @Test
+    public void testGzipTabDelimited() throws IOException {
+        QueryResults queryResults = newQueryResults(100);
+        RowExporter.export(new QueryResultsRowSource(queryResults), file, ExportFormat.TAB_DELIMITED_GZIP, "SELECT",
+                           "db");
+        List<String> lines = readLines(new GZIPInputStream(new FileInputStream(file)));
+        assertTrue(lines.contains("# TOTAL RECORDS: 100"));
+        int header = lines.indexOf("ConceptName\tDepth\tLatitude\tLongitude\tObservationID_FK\tRecordedDate");
+        assertTrue("Column names are missing", header >= 0);
+        assertEquals(header + 101, lines.size());
+        assertEquals("concept-1\t\t36.001\t-122.001\t1\t1970-01-01 00:00:01", lines.get(header + 2));
+    }
+
+    @Test
+    public void testKmz() throws IOException {
+        QueryResults queryResults = newQueryResults(10);
+        RowExporter.export(new QueryResultsRowSource(queryResults), file, ExportFormat.KMZ, "SELECT", "db");
+        ZipInputStream in = new ZipInputStream(new FileInputStream(file));
+        ZipEntry entry = in.getNextEntry();
+        assertEquals(RowExporter.KMZ_ENTRY_NAME, entry.getName());
+        List<String> lines = readLines(in);
+        int placemarks = 0;
+        for (String line : lines) {
+            if (line.trim().equals("<Placemark>")) {
+                placemarks++;
+            }
+        }
+
+        assertEquals(10, placemarks);
+        assertEquals("</kml>", lines.get(lines.size() - 1));
+        assertTrue(lines.contains("      <TimeStamp><when>1970-01-01T00:00:02Z</when></TimeStamp>"));
+    }
+
+    @Test
+    public void testDateFormatter() {
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        expected.setTimeZone(TimeZone.getTimeZone("UTC"));
+        UTCDateFormatter formatter = UTCDateFormatter.newIsoFormatter();
+        long[] times = { 0L, 999L, -1L, -86400001L, 1287446400123L, 1287532799999L, 4102444800000L };
+        for (long time : times) {
+            Date date = new Date(time);
+            assertEquals(expected.format(date), formatter.format(date));
+        }
+    }
+
+    private QueryResults newQueryResults(int rows) {
+        List<Object> conceptNames = new ArrayList<Object>();
+        List<Object> depths = new ArrayList<Object>();
+        List<Object> latitudes = new ArrayList<Object>();
+        List<Object> longitudes = new ArrayList<Object>();
+        List<Object> ids = new ArrayList<Object>();
+        List<Object> dates = new ArrayList<Object>();
+        for (int i = 0; i < rows; i++) {
+            conceptNames.add("concept-" + (i % 7));
+            depths.add((i % 2 == 0) ? (Object) (float) i : null);
+            latitudes.add(36D + i / 1000D);
+            longitudes.add(-122D - i / 1000D);
+            ids.add((long) i);
+            dates.add(new Timestamp(i * 1000L));
+        }
+
+        Map<String, List<Object>> map = new TreeMap<String, List<Object>>();
+        map.put("ConceptName", conceptNames);
+        map.put("Depth", depths);
+        map.put("Latitude", latitudes);
+        map.put("Longitude", longitudes);
+        map.put("ObservationID_FK", ids);
+        map.put("RecordedDate", dates);
+
+        return new QueryResults(map);
+    }
+
+    private List<String> readLines(InputStream in) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        return lines;
+    }
+}
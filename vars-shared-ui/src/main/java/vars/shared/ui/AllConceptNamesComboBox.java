@@ -25,6 +25,7 @@ import java.awt.event.FocusEvent;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import vars.knowledgebase.ConceptHierarchyIndex;
 import vars.query.QueryPersistenceService;
 
 /**
@@ -58,14 +59,32 @@ public class AllConceptNamesComboBox extends ConceptNameComboBox {
      */
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final QueryPersistenceService queryPersistenceService;
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
+
     /**
      *
      *
      * @param conceptNameDAO
      */
     public AllConceptNamesComboBox(QueryPersistenceService queryPersistenceSerice) {
+        this(queryPersistenceSerice, null);
+    }
+
+    /**
+     * Reads the names from the shared knowledgebase snapshot instead of the
+     * database.
+     *
+     * @param conceptHierarchyIndex
+     */
+    public AllConceptNamesComboBox(ConceptHierarchyIndex conceptHierarchyIndex) {
+        this(null, conceptHierarchyIndex);
+    }
+
+    private AllConceptNamesComboBox(QueryPersistenceService queryPersistenceSerice,
+                                    ConceptHierarchyIndex conceptHierarchyIndex) {
         super();
         this.queryPersistenceService = queryPersistenceSerice;
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
         updateConceptNames();
 
         /*
@@ -95,7 +114,9 @@ public class AllConceptNamesComboBox extends ConceptNameComboBox {
 
         // Get ALL concept names (not just primary names). This is a FAST
         // lookup.
-        List<String> conceptNameList = queryPersistenceService.findAllConceptNamesAsStrings();
+        List<String> conceptNameList = (conceptHierarchyIndex == null)
+                ? queryPersistenceService.findAllConceptNamesAsStrings()
+                : conceptHierarchyIndex.getHierarchy().getAllNames();
         String[] conceptNames = conceptNameList.toArray(new String[conceptNameList.size()]);
         return conceptNames;
     }
@@ -31,11 +31,16 @@ import vars.DAO;
 import vars.PersistenceCache;
 import vars.knowledgebase.Concept;
 import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
 import vars.knowledgebase.KnowledgebaseDAOFactory;
 
 /**
  * Class that represents a threaded database aware TreeModel. Data is loaded
- * from the database in background threads.
+ * from the database in background threads. The shape of the tree (which concepts
+ * have children, the path from the root to a concept) is read from the shared
+ * {@link ConceptHierarchy} snapshot so only the concepts actually being shown
+ * are loaded from the database.
  *
  * @author brian
  */
@@ -45,41 +50,81 @@ public class ConceptTreeModel extends DefaultTreeModel {
 //    private final BlockingQueue<ConceptTreeNode> queue = new ArrayBlockingQueue<ConceptTreeNode>(1000);
 //    private Thread conceptLoaderThread;
     private final KnowledgebaseDAOFactory knowledgebaseDAOFactory;
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
 
     /**
      * Constructs ...
      *
      * @param knowledgebaseDAOFactory
+     * @param conceptHierarchyIndex
      */
-    public ConceptTreeModel(KnowledgebaseDAOFactory knowledgebaseDAOFactory) {
+    public ConceptTreeModel(KnowledgebaseDAOFactory knowledgebaseDAOFactory,
+                            ConceptHierarchyIndex conceptHierarchyIndex) {
         super(new ConceptTreeNode(new ConceptTreeConcept("Loading ...")));
         this.knowledgebaseDAOFactory = knowledgebaseDAOFactory;
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
         refresh();
     }
 
     /**
-    * Gets the list of <code>Concept</code> objects from the root down to the
+     * Adds a node for a concept to its parent node. If the concept has children a
+     * placeholder is added so that the tree draws it as expandable.
+     */
+    private void addChildNode(ConceptTreeNode parentNode, Concept child, ConceptHierarchy hierarchy) {
+        ConceptTreeNode childNode = new ConceptTreeNode(child);
+        childNode.setLoaded(false);
+        if (hasChildConcepts(child, hierarchy)) {
+            ConceptTreeNode fakeNode = new ConceptTreeNode(new ConceptTreeConcept("Loading ..."));
+            fakeNode.setLoaded(true);
+            childNode.add(fakeNode);
+        }
+
+        parentNode.add(childNode);
+    }
+
+    /**
+     * Checks the snapshot instead of lazy-loading the concept's children. Falls
+     * back to the concept for ones that are newer than the snapshot.
+     */
+    private boolean hasChildConcepts(Concept concept, ConceptHierarchy hierarchy) {
+        ConceptHierarchy.Node node = hierarchy.findNode(concept.getPrimaryConceptName().getName());
+
+        return (node == null) ? concept.hasChildConcepts() : !node.getChildren().isEmpty();
+    }
+
+    /**
+    * Gets the primary names of the concepts from the root down to the
     * <code>Concept</code> for the specified concept name.
     *
     * @param  name           The name of the concept for the tree.
-    * @return  The list of concepts from the root to the parameter concept.
+    * @return  The list of primary names from the root to the parameter concept.
     */
-    private List<Concept> findFamilyTree(final String name) {
+    private List<String> findFamilyTree(final String name) {
+
+        final LinkedList<String> names = new LinkedList<String>();
+        ConceptHierarchy.Node node = conceptHierarchyIndex.getHierarchy().findNode(name);
+        if (node != null) {
+            for (ConceptHierarchy.Node ancestor : node.getAncestors()) {
+                names.add(ancestor.getPrimaryName());
+            }
+
+            return names;
+        }
 
-        final LinkedList<Concept> conceptList = new LinkedList<Concept>();
+        // Not in the snapshot yet. Walk up through the database
         ConceptDAO dao = knowledgebaseDAOFactory.newConceptDAO();
         dao.startTransaction();
         Concept concept = dao.findByName(name);
-        conceptList.add(concept);
+        names.add(concept.getPrimaryConceptName().getName());
 
         while (concept.hasParent()) {
             concept = concept.getParentConcept();
-            conceptList.addFirst(concept);
+            names.addFirst(concept.getPrimaryConceptName().getName());
         }
         dao.endTransaction();
         dao.close();
 
-        return conceptList;
+        return names;
 
     }
 
@@ -114,17 +159,10 @@ public class ConceptTreeModel extends DefaultTreeModel {
 
 
             List<Concept> childConcepts = new ArrayList<Concept>(concept.getChildConcepts());
+            ConceptHierarchy hierarchy = conceptHierarchyIndex.getHierarchy();
 
             for (Concept child : childConcepts) {
-                ConceptTreeNode childNode = new ConceptTreeNode(child);
-                childNode.setLoaded(false);
-                if (child.hasChildConcepts()) {
-                    ConceptTreeNode fakeNode = new ConceptTreeNode(new ConceptTreeConcept("Loading ..."));
-                    fakeNode.setLoaded(true);
-                    childNode.add(fakeNode);
-                }
-
-                node.add(childNode);
+                addChildNode(node, child, hierarchy);
             }
 
             node.setLoaded(true);
@@ -164,8 +202,8 @@ public class ConceptTreeModel extends DefaultTreeModel {
          * Get a list of the family tree for the parameter concept. This list is
          * used to travel down the tree to the desired concept node.
          */
-        List<Concept> list = findFamilyTree(name);
-        Iterator<Concept> familyTree = list.iterator();
+        List<String> list = findFamilyTree(name);
+        Iterator<String> familyTree = list.iterator();
 
         // Pop the root Concept off the stack since it is the degenerative case.
         familyTree.next();
@@ -174,7 +212,7 @@ public class ConceptTreeModel extends DefaultTreeModel {
         ConceptTreeNode treeNode = (ConceptTreeNode) getRoot();
 
         while (familyTree.hasNext()) {
-            String nextConceptName = (familyTree.next()).getPrimaryConceptName().getName();
+            String nextConceptName = familyTree.next();
 
             // Need to ensure the tree node for the current family name is expanded.
             loadChildConcepts(treeNode);
@@ -207,17 +245,9 @@ public class ConceptTreeModel extends DefaultTreeModel {
         Concept rootConcept = conceptDAO.findRoot();
         List<Concept> childConcepts = new ArrayList<Concept>(rootConcept.getChildConcepts());
         final ConceptTreeNode rootNode = new ConceptTreeNode(rootConcept);
+        ConceptHierarchy hierarchy = conceptHierarchyIndex.getHierarchy();
         for (Concept child : childConcepts) {
-            ConceptTreeNode childNode = new ConceptTreeNode(child);
-            childNode.setLoaded(false);
-
-            if (child.hasChildConcepts()) {
-                ConceptTreeNode fakeNode = new ConceptTreeNode(new ConceptTreeConcept("Loading ..."));
-                fakeNode.setLoaded(true);
-                childNode.add(fakeNode);
-            }
-
-            rootNode.add(childNode);
+            addChildNode(rootNode, child, hierarchy);
         }
 
         conceptDAO.endTransaction();
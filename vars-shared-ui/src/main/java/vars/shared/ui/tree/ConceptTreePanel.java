@@ -26,6 +26,8 @@ import java.awt.event.MouseListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
 import javax.swing.JPopupMenu;
 import javax.swing.JTree;
 import javax.swing.SwingUtilities;
@@ -39,10 +41,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import vars.PersistenceCache;
 import vars.knowledgebase.Concept;
-import vars.knowledgebase.ConceptDAO;
+import vars.knowledgebase.ConceptHierarchy;
+import vars.knowledgebase.ConceptHierarchyIndex;
 import vars.knowledgebase.ConceptName;
-import vars.knowledgebase.ConceptNameDAO;
-import vars.knowledgebase.KnowledgebaseDAOFactory;
 import vars.shared.ui.GlobalLookup;
 
 /**
@@ -64,19 +65,22 @@ public class ConceptTreePanel extends SearchableTreePanel {
      * Store previous searches so that we don't try to do database lookup on them again.
      */
     private final Collection<String> cachedWordSearches;
-    private final KnowledgebaseDAOFactory knowledgebaseDAOFactory;
+    private final ConceptHierarchyIndex conceptHierarchyIndex;
+
+    /** Version of the hierarchy the cached searches were made against */
+    private long searchedVersion;
     private JPopupMenu popupMenu;
 
     /**
      * Constructor
      *
      *
-     * @param knowledgebaseDAOFactory
+     * @param conceptHierarchyIndex
      */
     @Inject
-    public ConceptTreePanel(KnowledgebaseDAOFactory knowledgebaseDAOFactory) {
+    public ConceptTreePanel(ConceptHierarchyIndex conceptHierarchyIndex) {
         super();
-        this.knowledgebaseDAOFactory = knowledgebaseDAOFactory;
+        this.conceptHierarchyIndex = conceptHierarchyIndex;
         cachedWordSearches = new HashSet<String>();
         cachedGlobSearches = new HashSet<String>();
         
@@ -120,8 +124,8 @@ public class ConceptTreePanel extends SearchableTreePanel {
     }
 
     /**
-     * This overridden method does a database lookup for searches. This is a
-     * woorkaround needed for lazy loading. This method will load the branches
+     * This overridden method looks up matches in the knowledgebase snapshot. This
+     * is a woorkaround needed for lazy loading. This method will load the branches
      * of all matches from the database.
      *
      * @param text
@@ -150,7 +154,8 @@ public class ConceptTreePanel extends SearchableTreePanel {
     }
 
     /**
-     * Perform the database lookup of all {@link Concept} that match the criteria
+     * Find all concepts in the knowledgebase snapshot that match the criteria and
+     * open their branches
      *
      * @param text
      * @param useGlobSearch
@@ -160,30 +165,31 @@ public class ConceptTreePanel extends SearchableTreePanel {
         Worker.post(new Job() {
 
             public Object run() {
-                Collection<ConceptName> matches = null;
+                Collection<String> matches = null;
 
                 /*
                  *  Do a fast lookup of the matching concepts
                  */
                 try {
+                    ConceptHierarchy hierarchy = conceptHierarchyIndex.getHierarchy();
+                    if (hierarchy.getVersion() != searchedVersion) {
+
+                        // The knowledgebase changed so previous searches may open different nodes
+                        cachedGlobSearches.clear();
+                        cachedWordSearches.clear();
+                        searchedVersion = hierarchy.getVersion();
+                    }
+
                     if (useGlobSearch) {
                         if (!cachedGlobSearches.contains(text)) {
-                            ConceptNameDAO dao = knowledgebaseDAOFactory.newConceptNameDAO();
-                            dao.startTransaction();
-                            matches = dao.findByNameContaining(text);
-                            dao.endTransaction();
-                            dao.close();
+                            matches = findPrimaryNames(hierarchy, text, true);
                             cachedGlobSearches.add(text);
                             cachedWordSearches.add(text);
                         }
                     }
                     else {
                         if (!cachedWordSearches.contains(text)) {
-                            ConceptNameDAO dao = knowledgebaseDAOFactory.newConceptNameDAO();
-                            dao.startTransaction();
-                            matches = dao.findByNameStartingWith(text);
-                            dao.endTransaction();
-                            dao.close();
+                            matches = findPrimaryNames(hierarchy, text, false);
                             cachedWordSearches.add(text);
                         }
                     }
@@ -202,15 +208,15 @@ public class ConceptTreePanel extends SearchableTreePanel {
                     if (matches != null) {
 
 
-                        for (final ConceptName conceptName : matches) {
+                        for (final String primaryName : matches) {
                             SwingUtilities.invokeLater(new Runnable() {
 
                                 public void run() {
-                                    waitIndicator.setLabel("Loading '" + conceptName.getName() + "'");
+                                    waitIndicator.setLabel("Loading '" + primaryName + "'");
                                 }
 
                             });
-                            openNode(conceptName.getConcept());
+                            openNode(primaryName);
                         }
 
 
@@ -231,6 +237,30 @@ public class ConceptTreePanel extends SearchableTreePanel {
 
     }
 
+    /**
+     * @param hierarchy The snapshot to search
+     * @param text The text to match. Case is ignored
+     * @param contains true if the text can be anywhere in the name, false if the
+     *      name must start with it
+     * @return The primary names of the concepts with a matching name
+     */
+    private Collection<String> findPrimaryNames(ConceptHierarchy hierarchy, String text, boolean contains) {
+        String key = text.toLowerCase(Locale.US);
+        Collection<String> primaryNames = new LinkedHashSet<String>();
+        for (ConceptHierarchy.Node node : hierarchy.getNodes()) {
+            for (String name : node.getNames()) {
+                String lowerName = name.toLowerCase(Locale.US);
+                if (contains ? lowerName.contains(key) : lowerName.startsWith(key)) {
+                    primaryNames.add(node.getPrimaryName());
+
+                    break;
+                }
+            }
+        }
+
+        return primaryNames;
+    }
+
     /**
      * Loads the branch of a particular concept. This method does the following
      * <ol>
@@ -250,12 +280,21 @@ public class ConceptTreePanel extends SearchableTreePanel {
         if (concept == null) {
             return;
         }
-        
+
+        openNode(concept.getPrimaryConceptName().getName());
+    }
+
+    /**
+     * Loads the branch of the concept with the given primary name
+     * @param primaryName
+     */
+    private synchronized void openNode(final String primaryName) {
+
         if (log.isDebugEnabled()) {
-            log.debug("Opening node containing '" + concept.getPrimaryConceptName().getName() + "', " + concept);
+            log.debug("Opening node containing '" + primaryName + "'");
         }
 
-        final TreePath treePath = buildTreePathForNode(concept);
+        final TreePath treePath = buildTreePathForNode(primaryName);
 //        TreePath treePath = (TreePath) Worker.post(new Job() {
 //
 //            @Override
@@ -279,20 +318,12 @@ public class ConceptTreePanel extends SearchableTreePanel {
 
     /**
      * Internal method for opening multiple nodes in a single transaction
-     * @param concept
+     * @param primaryName
      */
-    private TreePath buildTreePathForNode(final Concept concept) {
-        if (log.isDebugEnabled()) {
-            log.debug("Opening node containing '" + concept.getPrimaryConceptName().getName() + "', " + concept);
-        }
-
-        if (concept == null) {
-            return null;
-        }
-
+    private TreePath buildTreePathForNode(final String primaryName) {
         final JTree tree = getJTree();
         final ConceptTreeModel model = (ConceptTreeModel) tree.getModel();
-        final TreeNode node = model.loadNode(concept.getPrimaryConceptName().getName());
+        final TreeNode node = model.loadNode(primaryName);
 
         final TreePath path = new TreePath(model.getPathToRoot(node));
         SwingUtilities.invokeLater(new Runnable() {